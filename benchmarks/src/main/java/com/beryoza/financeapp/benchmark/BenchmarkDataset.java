@@ -0,0 +1,130 @@
+package com.beryoza.financeapp.benchmark;
+
+import com.beryoza.financeapp.model.Category;
+import com.beryoza.financeapp.model.Transaction;
+import com.beryoza.financeapp.model.User;
+import com.beryoza.financeapp.model.Wallet;
+import com.beryoza.financeapp.repository.CategoryRepository;
+import com.beryoza.financeapp.repository.UserRepository;
+import com.beryoza.financeapp.repository.WalletRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Набор данных для бенчмарков: пользователи × кошельки × транзакции во временной директории.
+ * Генерация детерминирована (фиксированное зерно), поэтому результаты разных запусков сопоставимы.
+ * <p>
+ * Поля:
+ * - {@link Path} dataDir — временная директория данных.
+ * - {@link UserRepository} userRepository — репозиторий пользователей поверх dataDir.
+ * - {@link WalletRepository} walletRepository — репозиторий кошельков поверх dataDir.
+ * - {@link CategoryRepository} categoryRepository — репозиторий категорий поверх dataDir.
+ */
+final class BenchmarkDataset implements AutoCloseable {
+    static final String PASSWORD = "password";
+    static final String[] CATEGORY_NAMES = {"Еда", "Транспорт", "Жильё", "Развлечения", "Зарплата"};
+
+    private static final PrintStream ORIGINAL_OUT = System.out;
+
+    final Path dataDir;
+    final UserRepository userRepository;
+    final WalletRepository walletRepository;
+    final CategoryRepository categoryRepository;
+
+    private BenchmarkDataset(Path dataDir) {
+        this.dataDir = dataDir;
+        this.userRepository = new UserRepository(dataDir.toString());
+        this.walletRepository = new WalletRepository(dataDir.toString());
+        this.categoryRepository = new CategoryRepository(dataDir.toString());
+    }
+
+    /**
+     * Создать набор данных заданного размера.
+     *
+     * @param users                 Количество пользователей.
+     * @param walletsPerUser        Количество кошельков у каждого пользователя.
+     * @param transactionsPerWallet Количество транзакций в каждом кошельке.
+     * @return Набор данных.
+     * @throws IOException Если не удалось создать временную директорию.
+     */
+    static BenchmarkDataset create(int users, int walletsPerUser, int transactionsPerWallet) throws IOException {
+        BenchmarkDataset dataset = new BenchmarkDataset(Files.createTempDirectory("finance-bench"));
+        Random random = new Random(42);
+        LocalDate start = LocalDate.of(2024, 1, 1);
+
+        List<User> userList = new ArrayList<>(users);
+        List<Category> categories = new ArrayList<>(users * CATEGORY_NAMES.length);
+        List<Wallet> wallets = new ArrayList<>(users * walletsPerUser);
+        for (int u = 0; u < users; u++) {
+            String username = username(u);
+            userList.add(new User(username, PASSWORD));
+
+            List<Category> userCategories = new ArrayList<>();
+            for (String name : CATEGORY_NAMES) {
+                userCategories.add(new Category(username, name, 1_000 + random.nextInt(50_000)));
+            }
+            categories.addAll(userCategories);
+
+            for (int w = 0; w < walletsPerUser; w++) {
+                Wallet wallet = new Wallet(username, walletName(w), 100_000);
+                for (int t = 0; t < transactionsPerWallet; t++) {
+                    Category category = userCategories.get(random.nextInt(userCategories.size()));
+                    boolean income = "Зарплата".equals(category.getName());
+                    double amount = Math.round((10 + random.nextDouble() * 5_000) * 100) / 100.0;
+                    wallet.addTransaction(new Transaction(income ? amount : -amount, category,
+                            start.plusDays(random.nextInt(365))));
+                }
+                wallets.add(wallet);
+            }
+        }
+
+        dataset.userRepository.saveUsers(userList);
+        dataset.categoryRepository.saveCategories(categories);
+        dataset.walletRepository.saveWallets(wallets);
+        return dataset;
+    }
+
+    static String username(int index) {
+        return String.format("user%05d", index);
+    }
+
+    static String walletName(int index) {
+        return "wallet" + index;
+    }
+
+    /**
+     * Подавить консольный вывод сервисов, чтобы он не искажал измерения.
+     */
+    static void silenceConsole() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    /**
+     * Вернуть исходный консольный вывод.
+     */
+    static void restoreConsole() {
+        System.setOut(ORIGINAL_OUT);
+    }
+
+    /**
+     * Удалить временную директорию с данными.
+     */
+    @Override
+    public void close() throws IOException {
+        try (Stream<Path> paths = Files.walk(dataDir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
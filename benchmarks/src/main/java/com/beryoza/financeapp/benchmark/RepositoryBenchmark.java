@@ -0,0 +1,93 @@
+package com.beryoza.financeapp.benchmark;
+
+import com.beryoza.financeapp.model.Wallet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки файловых репозиториев: загрузка и сохранение {@code wallets.json}
+ * (через {@code FileRepository.loadDataFromFile}/{@code saveDataToFile}), выборка по пользователю
+ * и {@code WalletRepository.saveWallet}.
+ * <p>
+ * Размер набора данных задаётся параметрами users × walletsPerUser × transactionsPerWallet.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int users;
+
+    @Param({"2"})
+    public int walletsPerUser;
+
+    @Param({"10", "100"})
+    public int transactionsPerWallet;
+
+    private BenchmarkDataset dataset;
+    private List<Wallet> allWallets;
+    private int cursor;
+
+    /**
+     * Сгенерировать данные заново перед каждой итерацией, чтобы изменяющие бенчмарки
+     * не накапливали рост файла между итерациями.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        BenchmarkDataset.silenceConsole();
+        dataset = BenchmarkDataset.create(users, walletsPerUser, transactionsPerWallet);
+        allWallets = dataset.walletRepository.loadWallets();
+        cursor = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        dataset.close();
+        BenchmarkDataset.restoreConsole();
+    }
+
+    @Benchmark
+    public List<Wallet> loadWallets() {
+        return dataset.walletRepository.loadWallets();
+    }
+
+    @Benchmark
+    public void saveWallets() {
+        dataset.walletRepository.saveWallets(allWallets);
+    }
+
+    @Benchmark
+    public List<Wallet> loadWalletsByUser() {
+        return dataset.walletRepository.loadWalletsByUser(nextUser());
+    }
+
+    @Benchmark
+    public void saveWallet() {
+        Wallet wallet = allWallets.get(cursor++ % allWallets.size());
+        wallet.setBalance(wallet.getBalance() + 1);
+        dataset.walletRepository.saveWallet(wallet);
+    }
+
+    private String nextUser() {
+        return BenchmarkDataset.username(cursor++ % users);
+    }
+}
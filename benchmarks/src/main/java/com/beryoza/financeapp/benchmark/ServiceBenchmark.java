@@ -0,0 +1,107 @@
+package com.beryoza.financeapp.benchmark;
+
+import com.beryoza.financeapp.model.User;
+import com.beryoza.financeapp.service.BudgetService;
+import com.beryoza.financeapp.service.UserService;
+import com.beryoza.financeapp.service.WalletService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки сервисного слоя на реальных файловых репозиториях:
+ * {@code WalletService.addTransaction}, {@code WalletService.transferFunds},
+ * {@code BudgetService.checkBudgetLimits}, {@code BudgetService.calculateBudgetState}
+ * и {@code UserService.authenticateUser}.
+ * <p>
+ * Размер набора данных задаётся параметрами users × walletsPerUser × transactionsPerWallet.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int users;
+
+    @Param({"2"})
+    public int walletsPerUser;
+
+    @Param({"10", "100"})
+    public int transactionsPerWallet;
+
+    private BenchmarkDataset dataset;
+    private WalletService walletService;
+    private BudgetService budgetService;
+    private UserService userService;
+    private int cursor;
+
+    /**
+     * Сгенерировать данные заново перед каждой итерацией, чтобы изменяющие бенчмарки
+     * не накапливали рост файла между итерациями.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        BenchmarkDataset.silenceConsole();
+        dataset = BenchmarkDataset.create(users, walletsPerUser, transactionsPerWallet);
+        walletService = new WalletService(dataset.walletRepository, dataset.categoryRepository);
+        budgetService = new BudgetService(dataset.walletRepository, dataset.categoryRepository);
+        userService = new UserService(dataset.userRepository, dataset.walletRepository, dataset.categoryRepository);
+        cursor = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        dataset.close();
+        BenchmarkDataset.restoreConsole();
+    }
+
+    @Benchmark
+    public void addTransaction() {
+        walletService.addTransaction(nextUser(), BenchmarkDataset.walletName(0), 100,
+                BenchmarkDataset.CATEGORY_NAMES[0], false);
+    }
+
+    @Benchmark
+    public void transferFunds() {
+        User sender = nextUser();
+        User receiver = nextUser();
+        walletService.transferFunds(sender, BenchmarkDataset.walletName(0), receiver, BenchmarkDataset.walletName(0), 1);
+    }
+
+    @Benchmark
+    public List<String> checkBudgetLimits() {
+        return budgetService.checkBudgetLimits(nextUser());
+    }
+
+    @Benchmark
+    public void calculateBudgetState() {
+        budgetService.calculateBudgetState(nextUser());
+    }
+
+    @Benchmark
+    public boolean authenticateUser() {
+        return userService.authenticateUser(BenchmarkDataset.username(cursor++ % users), BenchmarkDataset.PASSWORD);
+    }
+
+    private User nextUser() {
+        return new User(BenchmarkDataset.username(cursor++ % users), BenchmarkDataset.PASSWORD);
+    }
+}
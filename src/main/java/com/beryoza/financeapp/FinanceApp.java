@@ -1,17 +1,34 @@
 package com.beryoza.financeapp;
 
+import com.beryoza.financeapp.batch.BatchProcessor;
+import com.beryoza.financeapp.changelog.ChangeLog;
 import com.beryoza.financeapp.controller.BudgetController;
 import com.beryoza.financeapp.controller.TransactionController;
 import com.beryoza.financeapp.controller.UserController;
 import com.beryoza.financeapp.controller.WalletController;
+import com.beryoza.financeapp.event.BudgetExceeded;
+import com.beryoza.financeapp.event.EventBus;
+import com.beryoza.financeapp.event.ExpensesExceedIncome;
+import com.beryoza.financeapp.metrics.MetricsReporter;
 import com.beryoza.financeapp.model.User;
 import com.beryoza.financeapp.repository.CategoryRepository;
+import com.beryoza.financeapp.repository.FileRepository;
+import com.beryoza.financeapp.repository.SummaryRepository;
 import com.beryoza.financeapp.repository.UserRepository;
 import com.beryoza.financeapp.repository.WalletRepository;
+import com.beryoza.financeapp.service.BudgetAlertMonitor;
 import com.beryoza.financeapp.service.BudgetService;
+import com.beryoza.financeapp.service.TransactionArchiver;
 import com.beryoza.financeapp.service.UserService;
 import com.beryoza.financeapp.service.WalletService;
-
+import com.beryoza.financeapp.tools.CommandLineOptions;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Scanner;
 
 /**
@@ -23,30 +40,86 @@ import java.util.Scanner;
  * - Инициализация сервисов для работы с пользователями, кошельками, бюджетами.
  * - Инициализация контроллеров для взаимодействия с пользователем.
  * - Запуск основного меню приложения.
+ * <p>
+ * С аргументом {@code --batch=<файл>} (или {@code --batch=-} для стандартного ввода) приложение
+ * работает в пакетном режиме без меню (см. {@link BatchProcessor}).
  */
 public class FinanceApp {
 
     /**
      * Точка входа в приложение.
+     * <p>
+     * Аргументы пакетного режима: {@code --batch}, {@code --commit-every} (по умолчанию 1000), {@code --dir}.
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        // Периодическая выгрузка метрик (если задано свойство financeapp.metrics.file)
+        MetricsReporter.startFromSystemProperties();
+
+        CommandLineOptions options = new CommandLineOptions(args);
+        if (options.has("batch")) {
+            System.exit(runBatch(options));
+        }
+
         Scanner scanner = new Scanner(System.in);
 
         // Инициализация репозиториев
         UserRepository userRepository = new UserRepository();
         WalletRepository walletRepository = new WalletRepository();
         CategoryRepository categoryRepository = new CategoryRepository();
+        SummaryRepository summaryRepository = new SummaryRepository();
+
+        // Перенос старых транзакций в архив (горизонт — свойство financeapp.archive.months, 0 — выключено)
+        int archiveMonths = TransactionArchiver.configuredHorizonMonths();
+        if (archiveMonths > 0) {
+            new TransactionArchiver(walletRepository).archiveOlderThan(archiveMonths);
+        }
+
+        // Шина событий: журнал изменений пишется синхронно, проверка бюджета — в фоновом потоке
+        EventBus eventBus = new EventBus();
+        ChangeLog changeLog = new ChangeLog(FileRepository.DEFAULT_DATA_DIR);
+        changeLog.attach(eventBus);
+        new BudgetAlertMonitor(summaryRepository, categoryRepository, eventBus);
+        eventBus.subscribe(BudgetExceeded.class,
+                event -> System.out.println("Предупреждение: лимит превышен для категории: " + event.category()));
+        eventBus.subscribe(ExpensesExceedIncome.class,
+                event -> System.out.println("Предупреждение: Общие расходы превышают доходы!"));
 
         // Инициализация сервисов
-        UserService userService = new UserService(userRepository, walletRepository, categoryRepository);
-        WalletService walletService = new WalletService(walletRepository, categoryRepository);
-        BudgetService budgetService = new BudgetService(walletRepository, categoryRepository);
+        UserService userService = new UserService(userRepository, walletRepository, categoryRepository,
+                summaryRepository, eventBus);
+        WalletService walletService = new WalletService(walletRepository, categoryRepository, summaryRepository, eventBus);
+        BudgetService budgetService = new BudgetService(walletRepository, categoryRepository, summaryRepository, eventBus);
 
         // Инициализация контроллеров
         UserController userController = new UserController(userService, scanner);
 
         // Запуск главного меню
         mainMenu(scanner, userController, userService, walletService, budgetService);
+        eventBus.close();
+        changeLog.close();
+    }
+
+    /**
+     * Выполнить команды в пакетном режиме.
+     *
+     * @param options Аргументы командной строки.
+     * @return Код завершения: 0, если все команды выполнены успешно, иначе 1.
+     * @throws IOException Если не удалось прочитать команды или записать данные.
+     */
+    private static int runBatch(CommandLineOptions options) throws IOException {
+        String source = options.getString("batch", "-");
+        BatchProcessor processor = new BatchProcessor(
+                options.getString("dir", FileRepository.DEFAULT_DATA_DIR),
+                options.getInt("commit-every", 1000));
+
+        try (processor; BufferedReader in = "-".equals(source)
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Path.of(source), StandardCharsets.UTF_8)) {
+            processor.run(in, System.err);
+        }
+        System.out.println("Пакетный режим: выполнено " + processor.getSucceeded()
+                + ", ошибок " + processor.getFailed() + ", фиксаций " + processor.getCommits() + ".");
+        return processor.getFailed() == 0 ? 0 : 1;
     }
 
     /**
@@ -144,7 +217,7 @@ public class FinanceApp {
                                           WalletService walletService, BudgetService budgetService, UserService userService) {
         WalletController walletController = new WalletController(walletService, userService, currentUser, scanner);
         BudgetController budgetController = new BudgetController(budgetService, currentUser, scanner);
-        TransactionController transactionController = new TransactionController(walletService, budgetService, currentUser, scanner);
+        TransactionController transactionController = new TransactionController(walletService, currentUser, scanner);
 
         while (true) {
             System.out.println("Меню пользователя:");
@@ -0,0 +1,30 @@
+package com.beryoza.financeapp.batch;
+
+/**
+ * Одна команда пакетного режима (строка JSON во входном потоке).
+ * <p>
+ * Пример: {@code {"op":"add_expense","user":"alice","wallet":"Основной","amount":250,"category":"Еда"}}.
+ * <p>
+ * Поля:
+ * - {@code String op} — операция: {@code register}, {@code add_wallet}, {@code add_income}, {@code add_expense},
+ * {@code edit}, {@code delete}, {@code transfer}, {@code reverse_transfer}, {@code add_category},
+ * {@code rename_category}, {@code update_limit}.
+ * - {@code String user} — логин пользователя, от имени которого выполняется команда.
+ * - {@code String wallet} — название кошелька.
+ * - {@code Double amount} — сумма (для {@code add_wallet} — начальный баланс).
+ * - {@code String category} — название категории.
+ * - {@code String id} — ID транзакции (для {@code edit}, {@code delete} и {@code reverse_transfer});
+ * для {@code transfer} — ключ идемпотентности перевода, если не указан {@code key}.
+ * - {@code String date} — дата в формате yyyy-MM-dd (для {@code edit}).
+ * - {@code String toUser} — логин получателя перевода.
+ * - {@code String toWallet} — кошелёк получателя перевода.
+ * - {@code String newName} — новое название категории.
+ * - {@code Double limit} — лимит бюджета категории.
+ * - {@code String password} — пароль нового пользователя (для {@code register}).
+ * - {@code String key} — ключ идемпотентности (для {@code add_income}, {@code add_expense}, {@code edit},
+ * {@code delete} и {@code transfer}): повтор команды с тем же ключом не выполняется.
+ */
+public record BatchCommand(String op, String user, String wallet, Double amount, String category, String id,
+                           String date, String toUser, String toWallet, String newName, Double limit,
+                           String password, String key) {
+}
@@ -0,0 +1,402 @@
+package com.beryoza.financeapp.batch;
+
+import com.beryoza.financeapp.changelog.ChangeLog;
+import com.beryoza.financeapp.event.EventBus;
+import com.beryoza.financeapp.logging.AppLogger;
+import com.beryoza.financeapp.model.User;
+import com.beryoza.financeapp.repository.CategoryRepository;
+import com.beryoza.financeapp.repository.FileRepository;
+import com.beryoza.financeapp.repository.SummaryRepository;
+import com.beryoza.financeapp.repository.UserRepository;
+import com.beryoza.financeapp.repository.WalletRepository;
+import com.beryoza.financeapp.service.BudgetService;
+import com.beryoza.financeapp.service.IdempotencyCache;
+import com.beryoza.financeapp.service.TransferLedger;
+import com.beryoza.financeapp.service.UserService;
+import com.beryoza.financeapp.service.WalletService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Пакетный (неинтерактивный) режим: выполняет команды из потока строк JSON
+ * (по одной {@link BatchCommand} на строку) через сервисный слой.
+ * <p>
+ * Репозитории работают в режиме отложенной записи: изменения попадают на диск
+ * один раз на {@code commitEvery} команд и в конце работы, а не после каждой команды.
+ * Ошибка в отдельной команде выводится с номером строки и не прерывает обработку.
+ * Пустые строки и строки, начинающиеся с {@code #}, пропускаются.
+ * <p>
+ * Идущие подряд команды {@code transfer} (например, пакет выплат) проводятся одним вызовом
+ * {@link TransferLedger}: кошельки читаются и записываются один раз на группу, а не на каждый перевод.
+ * <p>
+ * Поля:
+ * - {@code int commitEvery} — количество команд между сбросами изменений на диск.
+ * - {@link UserRepository} userRepository, {@link WalletRepository} walletRepository,
+ * {@link CategoryRepository} categoryRepository, {@link SummaryRepository} summaryRepository — репозитории данных.
+ * - {@link UserService} userService, {@link WalletService} walletService, {@link BudgetService} budgetService —
+ * сервисы, выполняющие команды.
+ * - {@link ChangeLog} changeLog — журнал изменений, в который попадают изменения, выполненные командами
+ * (null, если журнал ведёт владелец переданной шины).
+ * - {@link EventBus} eventBus — шина, в которую сервисы публикуют изменения.
+ * - {@link Map} users — кэш пользователей по логину на время обработки.
+ * - {@code int succeeded, failed, commits} — статистика обработки.
+ */
+public class BatchProcessor implements Closeable {
+    private static final AppLogger log = AppLogger.getLogger(BatchProcessor.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int commitEvery;
+    private final UserRepository userRepository;
+    private final WalletRepository walletRepository;
+    private final CategoryRepository categoryRepository;
+    private final SummaryRepository summaryRepository;
+    private final UserService userService;
+    private final WalletService walletService;
+    private final BudgetService budgetService;
+    private final ChangeLog changeLog;
+    private final EventBus eventBus;
+    private final Map<String, User> users = new HashMap<>();
+
+    private int succeeded;
+    private int failed;
+    private int commits;
+
+    /**
+     * Конструктор.
+     *
+     * @param dataDir     Корневая директория данных.
+     * @param commitEvery Количество команд между сбросами изменений на диск.
+     * @throws IOException Если не удалось открыть журнал изменений.
+     */
+    public BatchProcessor(String dataDir, int commitEvery) throws IOException {
+        this(new UserRepository(dataDir), new WalletRepository(dataDir), new CategoryRepository(dataDir),
+                new SummaryRepository(dataDir), new ChangeLog(dataDir), commitEvery);
+    }
+
+    /**
+     * Конструктор для встраивания в процесс, который сам ведёт журнал изменений (например, узел шардирования).
+     * Изменения публикуются в переданную шину.
+     *
+     * @param userRepository     Репозиторий пользователей.
+     * @param walletRepository   Репозиторий кошельков.
+     * @param categoryRepository Репозиторий категорий.
+     * @param summaryRepository  Репозиторий месячных сводок.
+     * @param eventBus           Шина событий об изменениях.
+     * @param commitEvery        Количество команд между сбросами изменений на диск.
+     */
+    public BatchProcessor(UserRepository userRepository, WalletRepository walletRepository,
+                          CategoryRepository categoryRepository, SummaryRepository summaryRepository,
+                          EventBus eventBus, int commitEvery) {
+        this(userRepository, walletRepository, categoryRepository, summaryRepository, null, eventBus, commitEvery);
+    }
+
+    private BatchProcessor(UserRepository userRepository, WalletRepository walletRepository,
+                           CategoryRepository categoryRepository, SummaryRepository summaryRepository,
+                           ChangeLog changeLog, int commitEvery) {
+        this(userRepository, walletRepository, categoryRepository, summaryRepository, changeLog, new EventBus(),
+                commitEvery);
+        changeLog.attach(eventBus);
+    }
+
+    private BatchProcessor(UserRepository userRepository, WalletRepository walletRepository,
+                           CategoryRepository categoryRepository, SummaryRepository summaryRepository,
+                           ChangeLog changeLog, EventBus eventBus, int commitEvery) {
+        if (commitEvery <= 0) {
+            throw new IllegalArgumentException("Интервал фиксации изменений должен быть положительным.");
+        }
+        this.commitEvery = commitEvery;
+        this.userRepository = userRepository;
+        this.walletRepository = walletRepository;
+        this.categoryRepository = categoryRepository;
+        this.summaryRepository = summaryRepository;
+        this.changeLog = changeLog;
+        this.eventBus = eventBus;
+        this.userService = new UserService(userRepository, walletRepository, categoryRepository, summaryRepository,
+                eventBus);
+        this.walletService = new WalletService(walletRepository, categoryRepository, summaryRepository, eventBus);
+        this.budgetService = new BudgetService(walletRepository, categoryRepository, summaryRepository, eventBus);
+    }
+
+    /**
+     * Закрыть журнал изменений (если он открыт этим обработчиком).
+     *
+     * @throws IOException Если произошла ошибка при закрытии.
+     */
+    @Override
+    public void close() throws IOException {
+        if (changeLog != null) {
+            changeLog.close();
+        }
+    }
+
+    /**
+     * Выполнить все команды из потока.
+     *
+     * @param in     Поток команд (строки JSON).
+     * @param errors Поток для вывода ошибок по отдельным командам.
+     * @throws IOException Если не удалось прочитать поток или записать изменения на диск.
+     */
+    public void run(BufferedReader in, PrintStream errors) throws IOException {
+        List<FileRepository> repositories = List.of(walletRepository, categoryRepository, summaryRepository);
+        for (FileRepository repository : repositories) {
+            repository.beginDeferredWrites();
+        }
+        IdempotencyCache idempotencyCache = walletService.getIdempotencyCache();
+        idempotencyCache.beginDeferredWrites();
+
+        // Сервисы печатают сообщения для пользователя; в пакетном режиме они не нужны.
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            int lineNumber = 0;
+            int uncommitted = 0;
+            List<PendingTransfer> transfers = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    BatchCommand command = objectMapper.readValue(line, BatchCommand.class);
+                    if ("transfer".equals(command.op())) {
+                        transfers.add(new PendingTransfer(lineNumber, toOrder(command)));
+                    } else {
+                        postTransfers(transfers, errors);
+                        execute(command);
+                        succeeded++;
+                    }
+                } catch (JsonProcessingException e) {
+                    postTransfers(transfers, errors);
+                    failed++;
+                    errors.println("Строка " + lineNumber + ": некорректный JSON: " + e.getOriginalMessage());
+                } catch (RuntimeException e) {
+                    postTransfers(transfers, errors);
+                    failed++;
+                    errors.println("Строка " + lineNumber + ": " + e.getMessage());
+                    log.warn("Ошибка пакетной команды", "line", lineNumber, "error", e.getMessage());
+                }
+                if (++uncommitted >= commitEvery) {
+                    postTransfers(transfers, errors);
+                    commit(repositories);
+                    uncommitted = 0;
+                }
+            }
+            postTransfers(transfers, errors);
+        } finally {
+            System.setOut(console);
+            boolean pending = hasPendingWrites(repositories);
+            IOException failure = null;
+            for (FileRepository repository : repositories) {
+                try {
+                    repository.endDeferredWrites();
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            idempotencyCache.endDeferredWrites();
+            if (pending) {
+                commits++;
+            }
+        }
+    }
+
+    /**
+     * Перевод, ожидающий проводки в группе.
+     */
+    private record PendingTransfer(int lineNumber, TransferLedger.Order order) {
+    }
+
+    /**
+     * Провести накопленную группу переводов одним вызовом журнала переводов.
+     */
+    private void postTransfers(List<PendingTransfer> transfers, PrintStream errors) {
+        if (transfers.isEmpty()) {
+            return;
+        }
+        List<TransferLedger.Order> orders = new ArrayList<>(transfers.size());
+        for (PendingTransfer transfer : transfers) {
+            orders.add(transfer.order());
+        }
+        try {
+            List<TransferLedger.Result> results = walletService.getTransferLedger().post(orders);
+            for (int i = 0; i < results.size(); i++) {
+                if (results.get(i).status() == TransferLedger.Status.REJECTED) {
+                    failed++;
+                    errors.println("Строка " + transfers.get(i).lineNumber() + ": " + results.get(i).message());
+                } else {
+                    succeeded++;
+                }
+            }
+        } catch (RuntimeException e) {
+            failed += transfers.size();
+            errors.println("Строки " + transfers.get(0).lineNumber() + "–"
+                    + transfers.get(transfers.size() - 1).lineNumber() + ": " + e.getMessage());
+            log.warn("Ошибка проводки группы переводов", "transfers", transfers.size(), "error", e.getMessage());
+        }
+        transfers.clear();
+    }
+
+    /**
+     * Преобразовать команду {@code transfer} в поручение на перевод.
+     */
+    private TransferLedger.Order toOrder(BatchCommand command) {
+        User sender = resolveUser(command.user());
+        User receiver = resolveUser(command.toUser());
+        double amount = require(command.amount(), "amount");
+        if (!(amount > 0)) {
+            throw new IllegalArgumentException("Сумма перевода должна быть положительной.");
+        }
+        return new TransferLedger.Order(transferKey(command), sender.getUsername(), require(command.wallet(), "wallet"),
+                receiver.getUsername(), require(command.toWallet(), "toWallet"), amount);
+    }
+
+    /**
+     * Ключ идемпотентности перевода: поле {@code key} или {@code id} команды либо новый идентификатор.
+     */
+    private static String transferKey(BatchCommand command) {
+        if (command.key() != null) {
+            return command.key();
+        }
+        return command.id() != null ? command.id() : UUID.randomUUID().toString();
+    }
+
+    /**
+     * Сбросить накопленные изменения на диск.
+     */
+    private void commit(List<FileRepository> repositories) throws IOException {
+        boolean pending = hasPendingWrites(repositories);
+        for (FileRepository repository : repositories) {
+            repository.flush();
+        }
+        // Ключи идемпотентности — после данных: ключ без сохранённого результата заблокировал бы повтор.
+        walletService.getIdempotencyCache().flush();
+        if (pending) {
+            commits++;
+        }
+    }
+
+    private static boolean hasPendingWrites(List<FileRepository> repositories) {
+        for (FileRepository repository : repositories) {
+            if (repository.hasPendingWrites()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Выполнить одну команду. Изменения записываются сразу, если не включена отложенная запись.
+     *
+     * @param command Команда.
+     */
+    public void execute(BatchCommand command) {
+        if (command.op() == null) {
+            throw new IllegalArgumentException("Не указана операция.");
+        }
+        if (command.op().equals("register")) {
+            register(require(command.user(), "user"), require(command.password(), "password"));
+            return;
+        }
+        User user = resolveUser(command.user());
+        switch (command.op()) {
+            case "add_wallet" -> walletService.addWallet(user, require(command.wallet(), "wallet"),
+                    command.amount() == null ? 0 : command.amount());
+            case "add_income" -> walletService.addTransaction(command.key(), user, require(command.wallet(), "wallet"),
+                    require(command.amount(), "amount"), require(command.category(), "category"), true);
+            case "add_expense" -> walletService.addTransaction(command.key(), user, require(command.wallet(), "wallet"),
+                    require(command.amount(), "amount"), require(command.category(), "category"), false);
+            case "edit" -> walletService.editTransaction(command.key(), user, require(command.wallet(), "wallet"),
+                    require(command.id(), "id"), require(command.amount(), "amount"),
+                    require(command.category(), "category"), require(command.date(), "date"));
+            case "delete" -> walletService.deleteTransaction(command.key(), user, require(command.wallet(), "wallet"),
+                    require(command.id(), "id"));
+            case "transfer" -> walletService.transferFunds(transferKey(command), user,
+                    require(command.wallet(), "wallet"), resolveUser(command.toUser()),
+                    require(command.toWallet(), "toWallet"), require(command.amount(), "amount"));
+            case "reverse_transfer" -> walletService.reverseTransfer(user, require(command.wallet(), "wallet"),
+                    require(command.id(), "id"));
+            case "add_category" -> budgetService.addCategory(user, require(command.category(), "category"),
+                    command.limit() == null ? 0 : command.limit());
+            case "rename_category" -> budgetService.renameCategory(user, require(command.category(), "category"),
+                    require(command.newName(), "newName"));
+            case "update_limit" -> budgetService.updateBudgetLimit(user, require(command.category(), "category"),
+                    require(command.limit(), "limit"));
+            default -> throw new IllegalArgumentException("Неизвестная операция: " + command.op());
+        }
+    }
+
+    /**
+     * Зарегистрировать пользователя через сервис пользователей.
+     */
+    private void register(String username, String password) {
+        if (userRepository.findUserByUsername(username) != null) {
+            throw new IllegalArgumentException("Пользователь с таким логином уже существует.");
+        }
+        userService.registerUser(username, password);
+        if (userRepository.findUserByUsername(username) == null) {
+            throw new IllegalArgumentException("Некорректный логин или пароль пользователя \"" + username + "\".");
+        }
+    }
+
+    /**
+     * Найти пользователя по логину (с кэшированием на время обработки).
+     */
+    private User resolveUser(String username) {
+        require(username, "user");
+        User user = users.computeIfAbsent(username, userRepository::findUserByUsername);
+        if (user == null) {
+            throw new IllegalArgumentException("Пользователь \"" + username + "\" не найден.");
+        }
+        return user;
+    }
+
+    private static <T> T require(T value, String field) {
+        if (value == null) {
+            throw new IllegalArgumentException("Не указано поле \"" + field + "\".");
+        }
+        return value;
+    }
+
+    /**
+     * Получить количество успешно выполненных команд.
+     *
+     * @return Количество команд.
+     */
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    /**
+     * Получить количество команд, завершившихся ошибкой.
+     *
+     * @return Количество команд.
+     */
+    public int getFailed() {
+        return failed;
+    }
+
+    /**
+     * Получить количество сбросов изменений на диск.
+     *
+     * @return Количество фиксаций.
+     */
+    public int getCommits() {
+        return commits;
+    }
+}
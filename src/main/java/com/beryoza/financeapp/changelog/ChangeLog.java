@@ -0,0 +1,233 @@
+package com.beryoza.financeapp.changelog;
+
+import com.beryoza.financeapp.event.EventBus;
+import com.beryoza.financeapp.event.MutationEvent;
+import com.beryoza.financeapp.logging.AppLogger;
+import com.beryoza.financeapp.metrics.MetricsRegistry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал изменений (change data capture): упорядоченная запись всех изменений данных,
+ * выполненных сервисами, в файл {@code <dataDir>/changelog/changes.log}, который только дописывается.
+ * <p>
+ * Журнал подписывается на {@link MutationEvent} синхронно, поэтому запись попадает в журнал
+ * до возврата из операции сервиса, а порядковые номера совпадают с порядком публикации.
+ * Формат записи: заголовок из {@value #HEADER_SIZE} байт (длина полезной нагрузки, CRC32 нагрузки,
+ * порядковый номер, время в миллисекундах) и JSON вида {@code {"type":"TransactionAdded","event":{...}}}.
+ * При открытии журнал проверяет записи и отрезает недописанный хвост, оставшийся после сбоя.
+ * <p>
+ * Писатель у журнала один: при открытии берётся исключительная блокировка файла, и если журнал уже
+ * открыт другим процессом (или другим экземпляром в этом процессе), конструктор завершается ошибкой,
+ * а не перезаписывает чужие записи и порядковые номера. Блокируется отдельный файл {@code changes.log.lock}:
+ * на некоторых системах закрытие любого канала файла (например, читателем журнала) снимает все блокировки
+ * процесса на этот файл. По той же причине журналы, открытые в процессе, отмечаются и проверяются до открытия
+ * файла блокировки.
+ * <p>
+ * Чтение — через {@link ChangeLogReader}.
+ * <p>
+ * Поля:
+ * - {@link Path} file — файл журнала.
+ * - {@link FileChannel} channel — канал записи.
+ * - {@link FileChannel} lockChannel — канал файла блокировки.
+ * - {@link FileLock} lock — блокировка писателя (снимается при закрытии канала файла блокировки).
+ * - {@link ObjectMapper} objectMapper — сериализатор событий (компактный JSON).
+ * - {@code long nextSequence} — порядковый номер следующей записи.
+ */
+public class ChangeLog implements Closeable {
+    /**
+     * Размер заголовка записи в байтах.
+     */
+    static final int HEADER_SIZE = 24;
+
+    private static final AppLogger log = AppLogger.getLogger(ChangeLog.class);
+    private static final MetricsRegistry metrics = MetricsRegistry.global();
+    private static final Set<Path> OPEN_FILES = ConcurrentHashMap.newKeySet();
+
+    private final Path file;
+    private final FileChannel channel;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final ObjectMapper objectMapper;
+    private long nextSequence;
+
+    /**
+     * Конструктор. Открывает (или создаёт) журнал в директории данных и восстанавливает порядковый номер.
+     *
+     * @param dataDir Корневая директория данных.
+     * @throws IOException Если журнал не удалось открыть или он уже открыт другим писателем.
+     */
+    public ChangeLog(String dataDir) throws IOException {
+        this.file = pathFor(dataDir).toAbsolutePath().normalize();
+        if (!OPEN_FILES.add(file)) {
+            throw new IOException("Журнал изменений " + file + " уже открыт в этом процессе.");
+        }
+        FileChannel lockOpened = null;
+        FileChannel opened = null;
+        try {
+            Files.createDirectories(file.getParent());
+            lockOpened = FileChannel.open(file.resolveSibling(file.getFileName() + ".lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            this.lockChannel = lockOpened;
+            this.lock = lockWriter();
+            opened = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            this.channel = opened;
+            this.objectMapper = new ObjectMapper();
+            objectMapper.registerModule(new JavaTimeModule());
+            objectMapper.disable(SerializationFeature.INDENT_OUTPUT);
+            recover();
+        } catch (IOException | RuntimeException e) {
+            if (opened != null) {
+                opened.close();
+            }
+            if (lockOpened != null) {
+                lockOpened.close();
+            }
+            OPEN_FILES.remove(file);
+            throw e;
+        }
+    }
+
+    /**
+     * Получить путь к файлу журнала в директории данных.
+     *
+     * @param dataDir Корневая директория данных.
+     * @return Путь к файлу журнала.
+     */
+    public static Path pathFor(String dataDir) {
+        return Path.of(dataDir, "changelog", "changes.log");
+    }
+
+    /**
+     * Подписать журнал на изменения, публикуемые в шину.
+     *
+     * @param eventBus Шина событий.
+     */
+    public void attach(EventBus eventBus) {
+        eventBus.subscribeSync(MutationEvent.class, this::append);
+    }
+
+    /**
+     * Дописать изменение в журнал.
+     *
+     * @param event Событие об изменении.
+     * @return Порядковый номер записи.
+     */
+    public synchronized long append(MutationEvent event) {
+        Map<String, Object> envelope = new LinkedHashMap<>();
+        envelope.put("type", event.getClass().getSimpleName());
+        envelope.put("event", event);
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(envelope);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Не удалось сериализовать изменение: " + e.getOriginalMessage(), e);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        long sequence = nextSequence;
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        frame.putInt(payload.length).putInt((int) crc.getValue()).putLong(sequence)
+                .putLong(System.currentTimeMillis()).put(payload).flip();
+        try {
+            while (frame.hasRemaining()) {
+                channel.write(frame);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось записать изменение в журнал", e);
+        }
+        nextSequence++;
+        metrics.counter("ChangeLog.appended").increment();
+        return sequence;
+    }
+
+    /**
+     * Получить порядковый номер последней записи.
+     *
+     * @return Порядковый номер (0, если журнал пуст).
+     */
+    public synchronized long getLastSequence() {
+        return nextSequence - 1;
+    }
+
+    /**
+     * Получить путь к файлу журнала.
+     *
+     * @return Путь к файлу.
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel.isOpen()) {
+            try {
+                channel.close();
+            } finally {
+                lockChannel.close();
+                OPEN_FILES.remove(file);
+            }
+        }
+    }
+
+    /**
+     * Взять блокировку писателя без ожидания.
+     */
+    private FileLock lockWriter() throws IOException {
+        FileLock acquired;
+        try {
+            acquired = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            acquired = null;
+        }
+        if (acquired == null) {
+            throw new IOException("Журнал изменений " + file + " уже открыт другим процессом.");
+        }
+        return acquired;
+    }
+
+    /**
+     * Проверить записи журнала, отрезать недописанный хвост и восстановить порядковый номер.
+     */
+    private void recover() throws IOException {
+        long offset = 0;
+        long lastSequence = 0;
+        try (ChangeLogReader reader = new ChangeLogReader(file)) {
+            List<ChangeRecord> batch;
+            while (!(batch = reader.poll(offset, 4096)).isEmpty()) {
+                ChangeRecord last = batch.get(batch.size() - 1);
+                offset = last.nextOffset();
+                lastSequence = last.sequence();
+            }
+        }
+        if (channel.size() > offset) {
+            log.warn("Отрезан недописанный хвост журнала изменений", "file", file,
+                    "bytes", channel.size() - offset);
+            channel.truncate(offset);
+        }
+        channel.position(offset);
+        nextSequence = lastSequence + 1;
+    }
+}
@@ -0,0 +1,196 @@
+package com.beryoza.financeapp.changelog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Чтение журнала изменений с заданного смещения.
+ * <p>
+ * Файл отображается в память окнами по {@value #WINDOW_SIZE} байт, а записи возвращаются как срезы
+ * этого отображения, поэтому полезная нагрузка не копируется в кучу. Для пересылки журнала целиком
+ * (например, реплике) есть {@link #transferTo(long, long, WritableByteChannel)}, который передаёт байты
+ * из файла в канал средствами ОС. Стоимость чтения пропорциональна объёму прочитанных изменений,
+ * а не размеру данных приложения.
+ * <p>
+ * Чтение безопасно во время записи: недописанная запись в конце файла (неполная или с неверной контрольной
+ * суммой) не возвращается, и следующий вызов продолжит с её смещения.
+ * <p>
+ * Поля:
+ * - {@link Path} file — файл журнала.
+ * - {@link FileChannel} channel — канал файла, открытый только для чтения.
+ */
+public class ChangeLogReader implements Closeable {
+    private static final int WINDOW_SIZE = 16 * 1024 * 1024;
+
+    private final Path file;
+    private final FileChannel channel;
+
+    /**
+     * Конструктор.
+     *
+     * @param file Файл журнала.
+     * @throws IOException Если файл не удалось открыть.
+     */
+    public ChangeLogReader(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+    }
+
+    /**
+     * Открыть журнал изменений в директории данных.
+     *
+     * @param dataDir Корневая директория данных.
+     * @return Читатель журнала.
+     * @throws IOException Если файл не удалось открыть.
+     */
+    public static ChangeLogReader open(String dataDir) throws IOException {
+        return new ChangeLogReader(ChangeLog.pathFor(dataDir));
+    }
+
+    /**
+     * Прочитать записи, начиная с заданного смещения.
+     *
+     * @param offset     Смещение первой записи (0 — начало журнала, иначе {@link ChangeRecord#nextOffset()}).
+     * @param maxRecords Максимальное количество записей.
+     * @return Записи по порядку; пустой список, если новых записей нет.
+     * @throws IOException Если произошла ошибка чтения.
+     */
+    public List<ChangeRecord> poll(long offset, int maxRecords) throws IOException {
+        List<ChangeRecord> records = new ArrayList<>();
+        long size = channel.size();
+        while (records.size() < maxRecords && offset < size) {
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                    Math.min(size - offset, WINDOW_SIZE));
+            int consumed = readFrames(window, offset, maxRecords - records.size(), records);
+            if (consumed == 0) {
+                int length = window.remaining() >= Integer.BYTES ? window.getInt(0) : 0;
+                if (length > WINDOW_SIZE - ChangeLog.HEADER_SIZE
+                        && offset + ChangeLog.HEADER_SIZE + length <= size) {
+                    // Запись больше окна: отображаем её целиком.
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, offset, ChangeLog.HEADER_SIZE + length);
+                    consumed = readFrames(window, offset, 1, records);
+                }
+                if (consumed == 0) {
+                    break;
+                }
+            }
+            offset += consumed;
+        }
+        return records;
+    }
+
+    /**
+     * Передать байты журнала начиная со смещения в канал без копирования через кучу.
+     * Передаются только целые записи, поэтому получатель может дописать их к своей копии журнала.
+     *
+     * @param offset   Смещение начала записи.
+     * @param maxBytes Максимальное количество байт.
+     * @param target   Канал получателя.
+     * @return Количество переданных байт (смещение следующей записи равно {@code offset} плюс это значение).
+     * @throws IOException Если произошла ошибка чтения или записи.
+     */
+    public long transferTo(long offset, long maxBytes, WritableByteChannel target) throws IOException {
+        long end = recordsEnd(offset, maxBytes);
+        long position = offset;
+        while (position < end) {
+            position += channel.transferTo(position, end - position, target);
+        }
+        return end - offset;
+    }
+
+    /**
+     * Найти конец последней целой записи, которая помещается в заданный объём.
+     *
+     * @param offset   Смещение начала записи.
+     * @param maxBytes Максимальное количество байт.
+     * @return Смещение конца последней целой записи ({@code offset}, если таких записей нет).
+     * @throws IOException Если произошла ошибка чтения.
+     */
+    public long recordsEnd(long offset, long maxBytes) throws IOException {
+        long end = offset;
+        long limit = maxBytes >= Long.MAX_VALUE - offset ? channel.size() : Math.min(channel.size(), offset + maxBytes);
+        while (true) {
+            List<ChangeRecord> batch = poll(end, 1024);
+            if (batch.isEmpty()) {
+                return end;
+            }
+            for (ChangeRecord record : batch) {
+                if (record.nextOffset() > limit) {
+                    return end;
+                }
+                end = record.nextOffset();
+            }
+        }
+    }
+
+    /**
+     * Получить текущий размер журнала.
+     *
+     * @return Размер файла в байтах.
+     * @throws IOException Если произошла ошибка чтения.
+     */
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Получить путь к файлу журнала.
+     *
+     * @return Путь к файлу.
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Разобрать целые записи из буфера (например, из байт журнала, полученных репликой).
+     * Разбор останавливается на неполной записи или записи с неверной контрольной суммой.
+     * Полезная нагрузка записей — срезы буфера.
+     *
+     * @param buffer     Буфер с записями, начиная с позиции 0.
+     * @param baseOffset Смещение начала буфера в журнале.
+     * @param maxRecords Максимальное количество записей.
+     * @param records    Список, в который добавляются записи.
+     * @return Количество байт, занятых разобранными записями.
+     */
+    public static int readFrames(ByteBuffer buffer, long baseOffset, int maxRecords, List<ChangeRecord> records) {
+        CRC32 crc = new CRC32();
+        int position = 0;
+        int limit = buffer.limit();
+        int read = 0;
+        while (read < maxRecords && limit - position >= ChangeLog.HEADER_SIZE) {
+            int length = buffer.getInt(position);
+            int checksum = buffer.getInt(position + 4);
+            long sequence = buffer.getLong(position + 8);
+            long timestamp = buffer.getLong(position + 16);
+            int end = position + ChangeLog.HEADER_SIZE + length;
+            if (length < 0 || end > limit || end < 0) {
+                break;
+            }
+            ByteBuffer payload = buffer.slice(position + ChangeLog.HEADER_SIZE, length).asReadOnlyBuffer();
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            records.add(new ChangeRecord(baseOffset + position, baseOffset + end, sequence, timestamp, payload));
+            position = end;
+            read++;
+        }
+        return position;
+    }
+}
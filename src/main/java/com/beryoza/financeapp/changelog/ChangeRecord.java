@@ -0,0 +1,26 @@
+package com.beryoza.financeapp.changelog;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Запись журнала изменений.
+ * Полезная нагрузка — срез отображённого в память файла журнала (без копирования), доступный только для чтения.
+ *
+ * @param offset     Смещение записи в файле журнала.
+ * @param nextOffset Смещение следующей записи (с него продолжается чтение).
+ * @param sequence   Порядковый номер изменения (начиная с 1, без пропусков).
+ * @param timestamp  Время записи, миллисекунды от начала эпохи.
+ * @param payload    JSON-описание изменения в UTF-8.
+ */
+public record ChangeRecord(long offset, long nextOffset, long sequence, long timestamp, ByteBuffer payload) {
+
+    /**
+     * Получить описание изменения в виде строки (с копированием).
+     *
+     * @return JSON-описание изменения.
+     */
+    public String payloadAsString() {
+        return StandardCharsets.UTF_8.decode(payload.duplicate()).toString();
+    }
+}
@@ -1,5 +1,6 @@
 package com.beryoza.financeapp.controller;
 
+import com.beryoza.financeapp.jfr.ControllerActionEvent;
 import com.beryoza.financeapp.model.User;
 import com.beryoza.financeapp.service.BudgetService;
 
@@ -47,11 +48,11 @@ public class BudgetController {
             try {
                 String choice = scanner.nextLine();
                 switch (choice) {
-                    case "1" -> addCategory();
-                    case "2" -> renameCategory();
-                    case "3" -> updateBudgetLimit();
-                    case "4" -> listCategories();
-                    case "5" -> calculateBudgetState();
+                    case "1" -> perform("addCategory", this::addCategory);
+                    case "2" -> perform("renameCategory", this::renameCategory);
+                    case "3" -> perform("updateBudgetLimit", this::updateBudgetLimit);
+                    case "4" -> perform("listCategories", this::listCategories);
+                    case "5" -> perform("calculateBudgetState", this::calculateBudgetState);
                     case "6" -> {
                         System.out.println("Выход в главное меню.");
                         return;
@@ -64,6 +65,16 @@ public class BudgetController {
         }
     }
 
+    /**
+     * Выполнить действие меню, записав его длительность в событие JFR.
+     *
+     * @param action Имя действия.
+     * @param body   Действие.
+     */
+    private void perform(String action, Runnable body) {
+        ControllerActionEvent.record("BudgetController", action, user.getUsername(), body);
+    }
+
     /**
      * Метод для добавления новой категории.
      */
@@ -1,24 +1,23 @@
 package com.beryoza.financeapp.controller;
 
+import com.beryoza.financeapp.jfr.ControllerActionEvent;
 import com.beryoza.financeapp.model.User;
-import com.beryoza.financeapp.service.BudgetService;
 import com.beryoza.financeapp.service.WalletService;
 
-import java.util.List;
 import java.util.Scanner;
 
 /**
  * Контроллер для управления транзакциями.
+ * Предупреждения о превышении бюджета выводятся асинхронно подписчиками шины событий
+ * (см. {@code BudgetAlertMonitor}), поэтому добавление транзакции не ждёт проверки лимитов.
  * <p>
  * Поля:
  * - {@link WalletService} walletService — сервис для работы с кошельками и транзакциями.
- * - {@link BudgetService} budgetService — сервис для работы с бюджетами.
  * - {@link User} user — текущий авторизованный пользователь.
  * - {@link Scanner} scanner — сканер для чтения пользовательского ввода.
  */
 public class TransactionController {
     private final WalletService walletService;
-    private final BudgetService budgetService;
     private final User user;
     private final Scanner scanner;
 
@@ -26,13 +25,11 @@ public class TransactionController {
      * Конструктор для инициализации TransactionController.
      *
      * @param walletService Сервис для работы с кошельками и транзакциями.
-     * @param budgetService Сервис для работы с бюджетами.
      * @param user          Авторизованный пользователь.
      * @param scanner       Сканер для чтения пользовательского ввода.
      */
-    public TransactionController(WalletService walletService, BudgetService budgetService, User user, Scanner scanner) {
+    public TransactionController(WalletService walletService, User user, Scanner scanner) {
         this.walletService = walletService;
-        this.budgetService = budgetService;
         this.user = user;
         this.scanner = scanner;
     }
@@ -48,17 +45,19 @@ public class TransactionController {
             System.out.println("3. Просмотреть транзакции");
             System.out.println("4. Удалить транзакцию");
             System.out.println("5. Редактировать транзакцию");
-            System.out.println("6. Вернуться в главное меню");
+            System.out.println("6. Отменить перевод");
+            System.out.println("7. Вернуться в главное меню");
 
             try {
                 String choice = scanner.nextLine();
                 switch (choice) {
-                    case "1" -> addTransaction(true);
-                    case "2" -> addTransaction(false);
-                    case "3" -> listTransactions();
-                    case "4" -> deleteTransaction();
-                    case "5" -> editTransaction();
-                    case "6" -> {
+                    case "1" -> perform("addIncome", () -> addTransaction(true));
+                    case "2" -> perform("addExpense", () -> addTransaction(false));
+                    case "3" -> perform("listTransactions", this::listTransactions);
+                    case "4" -> perform("deleteTransaction", this::deleteTransaction);
+                    case "5" -> perform("editTransaction", this::editTransaction);
+                    case "6" -> perform("reverseTransfer", this::reverseTransfer);
+                    case "7" -> {
                         System.out.println("Выход в главное меню.");
                         return;
                     }
@@ -70,6 +69,16 @@ public class TransactionController {
         }
     }
 
+    /**
+     * Выполнить действие меню, записав его длительность в событие JFR.
+     *
+     * @param action Имя действия.
+     * @param body   Действие.
+     */
+    private void perform(String action, Runnable body) {
+        ControllerActionEvent.record("TransactionController", action, user.getUsername(), body);
+    }
+
     /**
      * Метод для добавления транзакции (доход или расход).
      *
@@ -86,17 +95,6 @@ public class TransactionController {
 
             walletService.addTransaction(user, walletName, amount, categoryName, isIncome);
 
-            List<String> warnings = budgetService.checkBudgetLimits(user);
-            if (!warnings.isEmpty()) {
-                System.out.println("Предупреждения:");
-                warnings.forEach(System.out::println);
-            }
-
-            String expenseWarning = walletService.checkExpenseExceedsIncome(user);
-            if (!expenseWarning.isEmpty()) {
-                System.out.println(expenseWarning);
-            }
-
             System.out.println("Транзакция успешно добавлена.");
         } catch (NumberFormatException e) {
             System.out.println("Ошибка: Введите корректное число для суммы.");
@@ -122,6 +120,22 @@ public class TransactionController {
         }
     }
 
+    /**
+     * Метод для отмены перевода.
+     */
+    private void reverseTransfer() {
+        try {
+            System.out.print("Введите название кошелька: ");
+            String walletName = scanner.nextLine();
+            System.out.print("Введите ID транзакции списания по переводу: ");
+            String transactionId = scanner.nextLine();
+
+            walletService.reverseTransfer(user, walletName, transactionId);
+        } catch (Exception e) {
+            System.out.println("Ошибка при отмене перевода: " + e.getMessage());
+        }
+    }
+
     /**
      * Метод для отображения списка транзакций.
      */
@@ -154,17 +168,6 @@ public class TransactionController {
 
             walletService.editTransaction(user, walletName, transactionId, newAmount, newCategory, newDateStr);
 
-            List<String> warnings = budgetService.checkBudgetLimits(user);
-            if (!warnings.isEmpty()) {
-                System.out.println("Предупреждения:");
-                warnings.forEach(System.out::println);
-            }
-
-            String expenseWarning = walletService.checkExpenseExceedsIncome(user);
-            if (!expenseWarning.isEmpty()) {
-                System.out.println(expenseWarning);
-            }
-
             System.out.println("Транзакция успешно отредактирована.");
         } catch (NumberFormatException e) {
             System.out.println("Ошибка: Введите корректное число для суммы.");
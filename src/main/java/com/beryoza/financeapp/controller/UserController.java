@@ -1,5 +1,6 @@
 package com.beryoza.financeapp.controller;
 
+import com.beryoza.financeapp.jfr.ControllerActionEvent;
 import com.beryoza.financeapp.service.UserService;
 
 import java.util.Scanner;
@@ -39,8 +40,8 @@ public class UserController {
             try {
                 String choice = scanner.nextLine();
                 switch (choice) {
-                    case "1" -> changeUsername();
-                    case "2" -> changePassword();
+                    case "1" -> perform("changeUsername", this::changeUsername);
+                    case "2" -> perform("changePassword", this::changePassword);
                     case "3" -> {
                         System.out.println("Возврат в главное меню.");
                         return;
@@ -53,6 +54,17 @@ public class UserController {
         }
     }
 
+    /**
+     * Выполнить действие меню, записав его длительность в событие JFR.
+     *
+     * @param action Имя действия.
+     * @param body   Действие.
+     */
+    private void perform(String action, Runnable body) {
+        String userId = userService.getCurrentUser() != null ? userService.getCurrentUser().getUsername() : null;
+        ControllerActionEvent.record("UserController", action, userId, body);
+    }
+
     /**
      * Метод для изменения логина пользователя.
      */
@@ -1,10 +1,14 @@
 package com.beryoza.financeapp.controller;
 
+import com.beryoza.financeapp.jfr.ControllerActionEvent;
 import com.beryoza.financeapp.model.User;
 import com.beryoza.financeapp.service.UserService;
 import com.beryoza.financeapp.service.WalletService;
 import com.beryoza.financeapp.util.DataValidator;
 
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 import java.util.Scanner;
 
 /**
@@ -51,20 +55,26 @@ public class WalletController {
             System.out.println("6. Подсчитать доходы и расходы");
             System.out.println("7. Вывести данные по кошелькам и бюджету");
             System.out.println("8. Перевести средства между кошельками");
-            System.out.println("9. Вернуться в главное меню");
+            System.out.println("9. Доходы и расходы по месяцам");
+            System.out.println("10. Баланс кошелька на дату");
+            System.out.println("11. История баланса по месяцам");
+            System.out.println("12. Вернуться в главное меню");
 
             try {
                 String choice = scanner.nextLine();
                 switch (choice) {
-                    case "1" -> addWallet();
-                    case "2" -> removeWallet();
-                    case "3" -> renameWallet();
-                    case "4" -> updateWalletBalance();
-                    case "5" -> listWallets();
-                    case "6" -> calculateFinances();
-                    case "7" -> displayBudgetData();
-                    case "8" -> transferFunds();
-                    case "9" -> {
+                    case "1" -> perform("addWallet", this::addWallet);
+                    case "2" -> perform("removeWallet", this::removeWallet);
+                    case "3" -> perform("renameWallet", this::renameWallet);
+                    case "4" -> perform("updateWalletBalance", this::updateWalletBalance);
+                    case "5" -> perform("listWallets", this::listWallets);
+                    case "6" -> perform("calculateFinances", this::calculateFinances);
+                    case "7" -> perform("displayBudgetData", this::displayBudgetData);
+                    case "8" -> perform("transferFunds", this::transferFunds);
+                    case "9" -> perform("displayMonthlySummary", this::displayMonthlySummary);
+                    case "10" -> perform("displayBalanceAt", this::displayBalanceAt);
+                    case "11" -> perform("displayBalanceHistory", this::displayBalanceHistory);
+                    case "12" -> {
                         System.out.println("Выход в главное меню.");
                         return;
                     }
@@ -76,6 +86,16 @@ public class WalletController {
         }
     }
 
+    /**
+     * Выполнить действие меню, записав его длительность в событие JFR.
+     *
+     * @param action Имя действия.
+     * @param body   Действие.
+     */
+    private void perform(String action, Runnable body) {
+        ControllerActionEvent.record("WalletController", action, user.getUsername(), body);
+    }
+
     /**
      * Метод для добавления нового кошелька.
      */
@@ -178,6 +198,60 @@ public class WalletController {
         }
     }
 
+    /**
+     * Метод для вывода доходов и расходов по месяцам.
+     */
+    private void displayMonthlySummary() {
+        try {
+            walletService.displayMonthlySummary(user);
+        } catch (Exception e) {
+            System.out.println("Ошибка при выводе сводки по месяцам: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Метод для вывода баланса кошелька на указанную дату.
+     */
+    private void displayBalanceAt() {
+        try {
+            System.out.print("Введите название кошелька: ");
+            String walletName = scanner.nextLine();
+            System.out.print("Введите дату (yyyy-MM-dd): ");
+            String dateStr = scanner.nextLine();
+
+            if (!DataValidator.isValidDate(dateStr, "yyyy-MM-dd")) {
+                System.out.println("Ошибка: Введите дату в формате yyyy-MM-dd.");
+                return;
+            }
+            LocalDate date = LocalDate.parse(dateStr, DataValidator.formatter("yyyy-MM-dd"));
+
+            double balance = walletService.getBalanceAt(user, walletName, date);
+            System.out.printf("Баланс кошелька \"%s\" на %s: %.2f\n", walletName, date, balance);
+        } catch (Exception e) {
+            System.out.println("Ошибка при расчёте баланса: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Метод для вывода истории баланса кошелька по месяцам.
+     */
+    private void displayBalanceHistory() {
+        try {
+            System.out.print("Введите название кошелька: ");
+            String walletName = scanner.nextLine();
+            System.out.print("Введите первый месяц (yyyy-MM): ");
+            YearMonth from = YearMonth.parse(scanner.nextLine().trim());
+            System.out.print("Введите последний месяц (yyyy-MM): ");
+            YearMonth to = YearMonth.parse(scanner.nextLine().trim());
+
+            walletService.displayBalanceHistory(user, walletName, from, to);
+        } catch (DateTimeParseException e) {
+            System.out.println("Ошибка: Введите месяц в формате yyyy-MM.");
+        } catch (Exception e) {
+            System.out.println("Ошибка при выводе истории баланса: " + e.getMessage());
+        }
+    }
+
     /**
      * Метод для перевода средств между кошельками.
      */
@@ -0,0 +1,12 @@
+package com.beryoza.financeapp.event;
+
+/**
+ * Расходы по категории превысили её лимит.
+ *
+ * @param userId   Идентификатор пользователя.
+ * @param category Название категории.
+ * @param limit    Лимит бюджета категории.
+ * @param expenses Расходы по категории (положительная сумма).
+ */
+public record BudgetExceeded(String userId, String category, double limit, double expenses) implements DomainEvent {
+}
@@ -0,0 +1,11 @@
+package com.beryoza.financeapp.event;
+
+/**
+ * Изменён лимит бюджета категории.
+ *
+ * @param userId      Идентификатор пользователя.
+ * @param category    Название категории.
+ * @param budgetLimit Новый лимит бюджета.
+ */
+public record BudgetLimitUpdated(String userId, String category, double budgetLimit) implements MutationEvent {
+}
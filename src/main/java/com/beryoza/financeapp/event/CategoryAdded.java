@@ -0,0 +1,11 @@
+package com.beryoza.financeapp.event;
+
+/**
+ * Категория создана.
+ *
+ * @param userId      Идентификатор пользователя.
+ * @param category    Название категории.
+ * @param budgetLimit Лимит бюджета.
+ */
+public record CategoryAdded(String userId, String category, double budgetLimit) implements MutationEvent {
+}
@@ -0,0 +1,11 @@
+package com.beryoza.financeapp.event;
+
+/**
+ * Категория переименована.
+ *
+ * @param userId   Идентификатор пользователя.
+ * @param category Прежнее название категории.
+ * @param newName  Новое название категории.
+ */
+public record CategoryRenamed(String userId, String category, String newName) implements MutationEvent {
+}
@@ -0,0 +1,14 @@
+package com.beryoza.financeapp.event;
+
+/**
+ * Доменное событие, публикуемое через {@link EventBus}.
+ */
+public interface DomainEvent {
+
+    /**
+     * Получить идентификатор пользователя, к данным которого относится событие.
+     *
+     * @return Идентификатор пользователя.
+     */
+    String userId();
+}
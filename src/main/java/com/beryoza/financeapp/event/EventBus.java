@@ -0,0 +1,161 @@
+package com.beryoza.financeapp.event;
+
+import com.beryoza.financeapp.logging.AppLogger;
+import com.beryoza.financeapp.metrics.MetricsRegistry;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Внутрипроцессная шина доменных событий.
+ * <p>
+ * Синхронные подписчики вызываются в потоке публикации до возврата из {@link #publish(DomainEvent)}.
+ * Асинхронные подписчики вызываются в отдельном фоновом потоке шины: публикующий поток не ждёт их,
+ * а события обрабатываются строго в порядке публикации. Исключение подписчика записывается в журнал
+ * и не влияет ни на публикующий поток, ни на остальных подписчиков.
+ * <p>
+ * Подписка на тип события получает и события его подтипов, поэтому подписка на {@link DomainEvent}
+ * получает все события.
+ * <p>
+ * Поля:
+ * - {@link List} subscriptions — подписки в порядке регистрации.
+ * - {@link ExecutorService} executor — однопоточный исполнитель асинхронных подписчиков
+ * (создаётся при первой асинхронной подписке).
+ * - {@link AtomicInteger} pending — количество поставленных в очередь и ещё не обработанных доставок.
+ */
+public class EventBus implements AutoCloseable {
+    private static final AppLogger log = AppLogger.getLogger(EventBus.class);
+    private static final MetricsRegistry metrics = MetricsRegistry.global();
+
+    private final List<Subscription<?>> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile ExecutorService executor;
+
+    /**
+     * Подписка на события заданного типа.
+     */
+    private record Subscription<E extends DomainEvent>(Class<E> type, EventListener<? super E> listener,
+                                                       boolean async) {
+        void deliver(DomainEvent event) {
+            try {
+                listener.onEvent(type.cast(event));
+            } catch (RuntimeException e) {
+                log.error("Ошибка обработчика события", e, "event", event.getClass().getSimpleName());
+            }
+        }
+    }
+
+    /**
+     * Подписаться на события в фоновом потоке шины.
+     *
+     * @param type     Тип события.
+     * @param listener Подписчик.
+     * @param <E>      Тип события.
+     */
+    public <E extends DomainEvent> void subscribe(Class<E> type, EventListener<? super E> listener) {
+        synchronized (this) {
+            if (executor == null) {
+                executor = Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "financeapp-event-bus");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+        }
+        subscriptions.add(new Subscription<>(type, listener, true));
+    }
+
+    /**
+     * Подписаться на события в потоке публикации.
+     * Подходит только для быстрых подписчиков, которым нужно увидеть событие до возврата из операции.
+     *
+     * @param type     Тип события.
+     * @param listener Подписчик.
+     * @param <E>      Тип события.
+     */
+    public <E extends DomainEvent> void subscribeSync(Class<E> type, EventListener<? super E> listener) {
+        subscriptions.add(new Subscription<>(type, listener, false));
+    }
+
+    /**
+     * Опубликовать событие. Возвращает управление после синхронных подписчиков,
+     * не дожидаясь асинхронных.
+     *
+     * @param event Событие.
+     */
+    public void publish(DomainEvent event) {
+        metrics.counter("EventBus.published").increment();
+        for (Subscription<?> subscription : subscriptions) {
+            if (!subscription.type().isInstance(event)) {
+                continue;
+            }
+            if (subscription.async()) {
+                pending.incrementAndGet();
+                try {
+                    executor.execute(() -> {
+                        try {
+                            subscription.deliver(event);
+                        } finally {
+                            if (pending.decrementAndGet() == 0) {
+                                synchronized (pending) {
+                                    pending.notifyAll();
+                                }
+                            }
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    pending.decrementAndGet();
+                    log.warn("Шина событий остановлена, событие не доставлено",
+                            "event", event.getClass().getSimpleName());
+                }
+            } else {
+                subscription.deliver(event);
+            }
+        }
+    }
+
+    /**
+     * Дождаться, пока асинхронные подписчики обработают все опубликованные события,
+     * включая события, опубликованные самими подписчиками.
+     *
+     * @param timeoutMillis Максимальное время ожидания в миллисекундах.
+     * @return true, если все события обработаны.
+     * @throws InterruptedException Если ожидание прервано.
+     */
+    public boolean awaitIdle(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        synchronized (pending) {
+            while (pending.get() > 0) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    return false;
+                }
+                pending.wait(remaining);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Дождаться обработки всех опубликованных событий и остановить фоновый поток.
+     */
+    @Override
+    public synchronized void close() {
+        if (executor == null) {
+            return;
+        }
+        try {
+            if (!awaitIdle(10_000)) {
+                log.warn("Не все события обработаны до остановки шины", "pending", pending.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,17 @@
+package com.beryoza.financeapp.event;
+
+/**
+ * Подписчик на события шины {@link EventBus}.
+ *
+ * @param <E> Тип события.
+ */
+@FunctionalInterface
+public interface EventListener<E extends DomainEvent> {
+
+    /**
+     * Обработать событие.
+     *
+     * @param event Событие.
+     */
+    void onEvent(E event);
+}
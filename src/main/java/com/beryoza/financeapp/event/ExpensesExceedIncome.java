@@ -0,0 +1,11 @@
+package com.beryoza.financeapp.event;
+
+/**
+ * Общие расходы пользователя превысили общие доходы.
+ *
+ * @param userId   Идентификатор пользователя.
+ * @param income   Общие доходы.
+ * @param expenses Общие расходы (положительная сумма).
+ */
+public record ExpensesExceedIncome(String userId, double income, double expenses) implements DomainEvent {
+}
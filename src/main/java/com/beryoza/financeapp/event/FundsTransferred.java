@@ -0,0 +1,18 @@
+package com.beryoza.financeapp.event;
+
+/**
+ * Средства переведены между кошельками.
+ * Балансы после перевода передаются вместе с суммой, чтобы реплика могла применить изменение повторно
+ * без двойного списания.
+ *
+ * @param userId          Идентификатор пользователя-отправителя.
+ * @param walletName      Кошелёк-отправитель.
+ * @param receiverUserId  Идентификатор пользователя-получателя.
+ * @param receiverWallet  Кошелёк-получатель.
+ * @param amount          Сумма перевода.
+ * @param senderBalance   Баланс кошелька-отправителя после перевода.
+ * @param receiverBalance Баланс кошелька-получателя после перевода.
+ */
+public record FundsTransferred(String userId, String walletName, String receiverUserId, String receiverWallet,
+                               double amount, double senderBalance, double receiverBalance) implements MutationEvent {
+}
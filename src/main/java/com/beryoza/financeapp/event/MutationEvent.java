@@ -0,0 +1,8 @@
+package com.beryoza.financeapp.event;
+
+/**
+ * Событие об изменении сохранённых данных (в отличие от предупреждений вроде {@link BudgetExceeded}).
+ * Такие события попадают в журнал изменений.
+ */
+public interface MutationEvent extends DomainEvent {
+}
@@ -0,0 +1,9 @@
+package com.beryoza.financeapp.event;
+
+/**
+ * Пользователь сменил пароль. Сам пароль в событие не попадает.
+ *
+ * @param userId Логин пользователя.
+ */
+public record PasswordChanged(String userId) implements MutationEvent {
+}
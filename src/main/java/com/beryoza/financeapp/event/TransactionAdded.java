@@ -0,0 +1,13 @@
+package com.beryoza.financeapp.event;
+
+import com.beryoza.financeapp.model.Transaction;
+
+/**
+ * Транзакция добавлена в кошелёк и сохранена.
+ *
+ * @param userId      Идентификатор пользователя.
+ * @param walletName  Название кошелька.
+ * @param transaction Добавленная транзакция.
+ */
+public record TransactionAdded(String userId, String walletName, Transaction transaction) implements MutationEvent {
+}
@@ -0,0 +1,13 @@
+package com.beryoza.financeapp.event;
+
+import com.beryoza.financeapp.model.Transaction;
+
+/**
+ * Транзакция удалена из кошелька, изменение сохранено.
+ *
+ * @param userId      Идентификатор пользователя.
+ * @param walletName  Название кошелька.
+ * @param transaction Удалённая транзакция.
+ */
+public record TransactionDeleted(String userId, String walletName, Transaction transaction) implements MutationEvent {
+}
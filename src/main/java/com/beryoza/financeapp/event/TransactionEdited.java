@@ -0,0 +1,15 @@
+package com.beryoza.financeapp.event;
+
+import com.beryoza.financeapp.model.Transaction;
+
+/**
+ * Транзакция изменена и сохранена.
+ *
+ * @param userId     Идентификатор пользователя.
+ * @param walletName Название кошелька.
+ * @param previous   Транзакция до изменения (копия).
+ * @param current    Транзакция после изменения.
+ */
+public record TransactionEdited(String userId, String walletName, Transaction previous, Transaction current)
+        implements MutationEvent {
+}
@@ -0,0 +1,9 @@
+package com.beryoza.financeapp.event;
+
+/**
+ * Зарегистрирован пользователь. Пароль в событие не попадает.
+ *
+ * @param userId Логин пользователя.
+ */
+public record UserRegistered(String userId) implements MutationEvent {
+}
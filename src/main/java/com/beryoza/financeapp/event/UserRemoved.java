@@ -0,0 +1,9 @@
+package com.beryoza.financeapp.event;
+
+/**
+ * Пользователь удалён с узла вместе с кошельками и категориями (например, перенесён на другой узел).
+ *
+ * @param userId Логин пользователя.
+ */
+public record UserRemoved(String userId) implements MutationEvent {
+}
@@ -0,0 +1,10 @@
+package com.beryoza.financeapp.event;
+
+/**
+ * Пользователь сменил логин; кошельки, категории и сводки перенесены на новый логин.
+ *
+ * @param userId      Прежний логин.
+ * @param newUsername Новый логин.
+ */
+public record UsernameChanged(String userId, String newUsername) implements MutationEvent {
+}
@@ -0,0 +1,11 @@
+package com.beryoza.financeapp.event;
+
+/**
+ * Кошелёк создан.
+ *
+ * @param userId     Идентификатор пользователя.
+ * @param walletName Название кошелька.
+ * @param balance    Начальный баланс.
+ */
+public record WalletAdded(String userId, String walletName, double balance) implements MutationEvent {
+}
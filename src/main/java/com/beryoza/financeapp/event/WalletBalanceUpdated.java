@@ -0,0 +1,11 @@
+package com.beryoza.financeapp.event;
+
+/**
+ * Баланс кошелька установлен вручную.
+ *
+ * @param userId     Идентификатор пользователя.
+ * @param walletName Название кошелька.
+ * @param balance    Новый баланс.
+ */
+public record WalletBalanceUpdated(String userId, String walletName, double balance) implements MutationEvent {
+}
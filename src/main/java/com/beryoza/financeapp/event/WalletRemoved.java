@@ -0,0 +1,10 @@
+package com.beryoza.financeapp.event;
+
+/**
+ * Кошелёк удалён вместе с его транзакциями.
+ *
+ * @param userId     Идентификатор пользователя.
+ * @param walletName Название кошелька.
+ */
+public record WalletRemoved(String userId, String walletName) implements MutationEvent {
+}
@@ -0,0 +1,11 @@
+package com.beryoza.financeapp.event;
+
+/**
+ * Кошелёк переименован.
+ *
+ * @param userId     Идентификатор пользователя.
+ * @param walletName Прежнее название кошелька.
+ * @param newName    Новое название кошелька.
+ */
+public record WalletRenamed(String userId, String walletName, String newName) implements MutationEvent {
+}
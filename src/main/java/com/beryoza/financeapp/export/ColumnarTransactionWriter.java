@@ -0,0 +1,164 @@
+package com.beryoza.financeapp.export;
+
+import com.beryoza.financeapp.model.Transaction;
+import com.beryoza.financeapp.model.TransactionId;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Выгрузка транзакций в простой колоночный двоичный формат.
+ * <p>
+ * Строки накапливаются группами по {@value #ROW_GROUP_SIZE}; внутри группы каждая колонка
+ * записывается подряд, поэтому читатель может пропустить ненужные колонки, а однотипные значения
+ * хорошо сжимаются. Память писателя ограничена одной группой.
+ * <p>
+ * Формат (все числа — big-endian, строки — {@link DataOutputStream#writeUTF(String)}):
+ * <pre>
+ * файл    := "FAPC" version:int group* 0:int
+ * group   := rowCount:int
+ *            user:dict wallet:dict category:dict
+ *            date:int[rowCount] (день от 1970-01-01)
+ *            amount:long[rowCount] (копейки)
+ *            id:(kind:byte (msb:long lsb:long | utf))[rowCount] (0 — UUID в двух числах, 1 — строка)
+ *            description:(present:byte utf?)[rowCount]
+ * dict    := size:int value:utf[size] index:int[rowCount]
+ * </pre>
+ * <p>
+ * Поля:
+ * - {@link DataOutputStream} out — буферизованный поток вывода.
+ * - Колонки текущей группы строк: {@code users, wallets, categories, dates, amounts, ids, descriptions}.
+ */
+public class ColumnarTransactionWriter implements TransactionWriter {
+    /**
+     * Сигнатура файла.
+     */
+    public static final String MAGIC = "FAPC";
+
+    /**
+     * Версия формата.
+     */
+    public static final int VERSION = 2;
+
+    private static final int ROW_GROUP_SIZE = 65_536;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final DataOutputStream out;
+    private final Dictionary users = new Dictionary();
+    private final Dictionary wallets = new Dictionary();
+    private final Dictionary categories = new Dictionary();
+    private final int[] dates = new int[ROW_GROUP_SIZE];
+    private final long[] amounts = new long[ROW_GROUP_SIZE];
+    private final TransactionId[] ids = new TransactionId[ROW_GROUP_SIZE];
+    private final String[] descriptions = new String[ROW_GROUP_SIZE];
+    private int rows;
+
+    /**
+     * Словарная колонка: повторяющиеся строки хранятся один раз, в строках — индексы.
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private final int[] indexes = new int[ROW_GROUP_SIZE];
+
+        void add(int row, String value) {
+            String key = value != null ? value : "";
+            Integer code = codes.get(key);
+            if (code == null) {
+                code = values.size();
+                codes.put(key, code);
+                values.add(key);
+            }
+            indexes[row] = code;
+        }
+
+        void write(DataOutputStream out, int rows) throws IOException {
+            out.writeInt(values.size());
+            for (String value : values) {
+                out.writeUTF(value);
+            }
+            for (int i = 0; i < rows; i++) {
+                out.writeInt(indexes[i]);
+            }
+            codes.clear();
+            values.clear();
+        }
+    }
+
+    /**
+     * Конструктор. Записывает заголовок файла.
+     *
+     * @param out Поток вывода.
+     * @throws IOException Если произошла ошибка при записи.
+     */
+    public ColumnarTransactionWriter(OutputStream out) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+        this.out.writeBytes(MAGIC);
+        this.out.writeInt(VERSION);
+    }
+
+    @Override
+    public void write(String userId, String walletName, Transaction transaction) throws IOException {
+        users.add(rows, userId);
+        wallets.add(rows, walletName);
+        categories.add(rows, transaction.getCategory() != null ? transaction.getCategory().getName() : null);
+        dates[rows] = transaction.getDate() != null ? (int) transaction.getDate().toEpochDay() : Integer.MIN_VALUE;
+        amounts[rows] = Math.round(transaction.getAmount() * 100);
+        ids[rows] = transaction.getTransactionId();
+        descriptions[rows] = transaction.getDescription();
+        if (++rows == ROW_GROUP_SIZE) {
+            flushGroup();
+        }
+    }
+
+    /**
+     * Записать накопленную группу строк.
+     */
+    private void flushGroup() throws IOException {
+        if (rows == 0) {
+            return;
+        }
+        out.writeInt(rows);
+        users.write(out, rows);
+        wallets.write(out, rows);
+        categories.write(out, rows);
+        for (int i = 0; i < rows; i++) {
+            out.writeInt(dates[i]);
+        }
+        for (int i = 0; i < rows; i++) {
+            out.writeLong(amounts[i]);
+        }
+        for (int i = 0; i < rows; i++) {
+            if (ids[i].isCompact()) {
+                out.writeByte(0);
+                out.writeLong(ids[i].getMostSignificantBits());
+                out.writeLong(ids[i].getLeastSignificantBits());
+            } else {
+                out.writeByte(1);
+                out.writeUTF(ids[i].toString());
+            }
+        }
+        for (int i = 0; i < rows; i++) {
+            if (descriptions[i] != null) {
+                out.writeByte(1);
+                out.writeUTF(descriptions[i]);
+            } else {
+                out.writeByte(0);
+            }
+        }
+        rows = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        flushGroup();
+        out.writeInt(0);
+        out.close();
+    }
+}
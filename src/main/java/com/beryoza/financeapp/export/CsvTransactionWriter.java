@@ -0,0 +1,95 @@
+package com.beryoza.financeapp.export;
+
+import com.beryoza.financeapp.model.Transaction;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Выгрузка транзакций в CSV.
+ * <p>
+ * Колонки: {@code id, user, wallet, date, amount, category, description}. Даты — в формате yyyy-MM-dd,
+ * суммы — с двумя знаками после точки. Поля с запятыми, кавычками или переводами строк берутся в кавычки.
+ * <p>
+ * Поля:
+ * - {@link Writer} out — буферизованный поток вывода.
+ */
+public class CsvTransactionWriter implements TransactionWriter {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Writer out;
+
+    /**
+     * Конструктор. Записывает строку заголовка.
+     *
+     * @param out Поток вывода.
+     * @throws IOException Если произошла ошибка при записи.
+     */
+    public CsvTransactionWriter(OutputStream out) throws IOException {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.out.write("id,user,wallet,date,amount,category,description\n");
+    }
+
+    @Override
+    public void write(String userId, String walletName, Transaction transaction) throws IOException {
+        writeField(transaction.getId());
+        out.write(',');
+        writeField(userId);
+        out.write(',');
+        writeField(walletName);
+        out.write(',');
+        if (transaction.getDate() != null) {
+            out.write(transaction.getDate().toString());
+        }
+        out.write(',');
+        writeAmount(transaction.getAmount());
+        out.write(',');
+        writeField(transaction.getCategory() != null ? transaction.getCategory().getName() : null);
+        out.write(',');
+        writeField(transaction.getDescription());
+        out.write('\n');
+    }
+
+    /**
+     * Записать сумму с двумя знаками после точки без промежуточного форматирования строки.
+     */
+    private void writeAmount(double amount) throws IOException {
+        long cents = Math.round(amount * 100);
+        if (cents < 0) {
+            out.write('-');
+            cents = -cents;
+        }
+        out.write(Long.toString(cents / 100));
+        out.write('.');
+        long fraction = cents % 100;
+        out.write((char) ('0' + fraction / 10));
+        out.write((char) ('0' + fraction % 10));
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char ch = value.charAt(i);
+            quote = ch == ',' || ch == '"' || ch == '\n' || ch == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
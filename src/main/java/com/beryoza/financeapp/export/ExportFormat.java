@@ -0,0 +1,32 @@
+package com.beryoza.financeapp.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Форматы выгрузки транзакций.
+ */
+public enum ExportFormat {
+    /**
+     * Текстовый CSV (RFC 4180, UTF-8, разделитель — запятая).
+     */
+    CSV,
+    /**
+     * Простой колоночный двоичный формат (см. {@link ColumnarTransactionWriter}).
+     */
+    COLUMNAR;
+
+    /**
+     * Создать писатель транзакций для формата.
+     *
+     * @param out Поток вывода.
+     * @return Писатель транзакций.
+     * @throws IOException Если не удалось записать заголовок.
+     */
+    public TransactionWriter newWriter(OutputStream out) throws IOException {
+        return switch (this) {
+            case CSV -> new CsvTransactionWriter(out);
+            case COLUMNAR -> new ColumnarTransactionWriter(out);
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package com.beryoza.financeapp.export;
+
+import com.beryoza.financeapp.model.Transaction;
+
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Фильтр транзакций для выгрузки: интервал дат (включительно) и набор категорий.
+ * Любое из условий может отсутствовать (null).
+ * <p>
+ * Поля:
+ * - {@link LocalDate} from — начало интервала дат.
+ * - {@link LocalDate} to — конец интервала дат.
+ * - {@link Set} categories — названия категорий (без учёта регистра).
+ */
+public record TransactionFilter(LocalDate from, LocalDate to, Set<String> categories) {
+
+    /**
+     * Фильтр, пропускающий все транзакции.
+     */
+    public static final TransactionFilter ALL = new TransactionFilter(null, null, null);
+
+    /**
+     * Конструктор. Приводит названия категорий к нижнему регистру.
+     */
+    public TransactionFilter {
+        if (from != null && to != null && to.isBefore(from)) {
+            throw new IllegalArgumentException("Конец интервала дат раньше начала.");
+        }
+        if (categories != null) {
+            categories = categories.stream()
+                    .map(name -> name.toLowerCase(Locale.ROOT))
+                    .collect(Collectors.toUnmodifiableSet());
+        }
+    }
+
+    /**
+     * Проверить, подходит ли транзакция под фильтр.
+     *
+     * @param transaction Транзакция.
+     * @return true, если транзакция проходит фильтр.
+     */
+    public boolean matches(Transaction transaction) {
+        LocalDate date = transaction.getDate();
+        if (from != null && (date == null || date.isBefore(from))) {
+            return false;
+        }
+        if (to != null && (date == null || date.isAfter(to))) {
+            return false;
+        }
+        return categories == null || (transaction.getCategory() != null
+                && categories.contains(transaction.getCategory().getName().toLowerCase(Locale.ROOT)));
+    }
+}
@@ -0,0 +1,23 @@
+package com.beryoza.financeapp.export;
+
+import com.beryoza.financeapp.model.Transaction;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Писатель транзакций в поток выгрузки. Закрытие дописывает буферизованные данные
+ * и закрывает поток.
+ */
+public interface TransactionWriter extends Closeable {
+
+    /**
+     * Записать транзакцию.
+     *
+     * @param userId      Идентификатор владельца кошелька.
+     * @param walletName  Название кошелька.
+     * @param transaction Транзакция.
+     * @throws IOException Если произошла ошибка при записи.
+     */
+    void write(String userId, String walletName, Transaction transaction) throws IOException;
+}
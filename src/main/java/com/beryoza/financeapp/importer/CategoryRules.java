@@ -0,0 +1,82 @@
+package com.beryoza.financeapp.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Правила сопоставления операций выписки с категориями.
+ * <p>
+ * Правило — пара «подстрока описания → название категории»; сравнение без учёта регистра,
+ * побеждает первое подходящее правило. В файле правил одна строка на правило в виде
+ * {@code подстрока=Категория}; пустые строки и строки, начинающиеся с {@code #}, пропускаются.
+ * <p>
+ * Поля:
+ * - {@link List} patterns — подстроки описаний в нижнем регистре.
+ * - {@link List} categories — названия категорий, соответствующие подстрокам.
+ */
+public class CategoryRules {
+    private final List<String> patterns = new ArrayList<>();
+    private final List<String> categories = new ArrayList<>();
+
+    /**
+     * Загрузить правила из файла.
+     *
+     * @param path Путь к файлу правил.
+     * @return Правила.
+     * @throws IOException Если произошла ошибка при чтении.
+     */
+    public static CategoryRules load(Path path) throws IOException {
+        CategoryRules rules = new CategoryRules();
+        try (BufferedReader in = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int separator = line.lastIndexOf('=');
+                if (separator <= 0 || separator == line.length() - 1) {
+                    throw new IllegalArgumentException("Некорректное правило категории: " + line);
+                }
+                rules.add(line.substring(0, separator).trim(), line.substring(separator + 1).trim());
+            }
+        }
+        return rules;
+    }
+
+    /**
+     * Добавить правило.
+     *
+     * @param pattern  Подстрока описания.
+     * @param category Название категории.
+     */
+    public void add(String pattern, String category) {
+        patterns.add(pattern.toLowerCase(Locale.ROOT));
+        categories.add(category);
+    }
+
+    /**
+     * Найти категорию для описания операции.
+     *
+     * @param description Описание операции.
+     * @return Название категории или null, если ни одно правило не подошло.
+     */
+    public String match(String description) {
+        if (description == null || description.isEmpty()) {
+            return null;
+        }
+        String lower = description.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < patterns.size(); i++) {
+            if (lower.contains(patterns.get(i))) {
+                return categories.get(i);
+            }
+        }
+        return null;
+    }
+}
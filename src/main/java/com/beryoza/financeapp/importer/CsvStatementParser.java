@@ -0,0 +1,109 @@
+package com.beryoza.financeapp.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Парсер выписки в формате CSV.
+ * <p>
+ * Первая строка — заголовок; колонки ищутся по названию ({@code date}/{@code дата},
+ * {@code amount}/{@code сумма}, {@code description}/{@code описание}/{@code payee}).
+ * Разделитель ({@code ,} или {@code ;}) определяется по заголовку. Поддерживаются поля в кавычках
+ * с экранированием кавычки удвоением.
+ */
+public class CsvStatementParser implements StatementParser {
+
+    @Override
+    public void parse(BufferedReader in, Consumer<StatementRecord> sink) throws IOException {
+        String header = in.readLine();
+        if (header == null) {
+            return;
+        }
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+        char delimiter = count(header, ';') > count(header, ',') ? ';' : ',';
+        List<String> columns = split(header, delimiter);
+        int dateColumn = find(columns, "date", "дата");
+        int amountColumn = find(columns, "amount", "сумма");
+        int descriptionColumn = find(columns, "description", "описание", "payee", "memo");
+        if (dateColumn < 0 || amountColumn < 0) {
+            throw new IOException("В заголовке CSV не найдены колонки даты и суммы: " + header);
+        }
+
+        long lineNumber = 1;
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            List<String> fields = split(line, delimiter);
+            sink.accept(new StatementRecord(lineNumber,
+                    field(fields, dateColumn), field(fields, amountColumn), field(fields, descriptionColumn)));
+        }
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index >= 0 && index < fields.size() ? fields.get(index) : null;
+    }
+
+    private static int find(List<String> columns, String... names) {
+        for (int i = 0; i < columns.size(); i++) {
+            String column = columns.get(i).trim().toLowerCase(Locale.ROOT);
+            for (String name : names) {
+                if (column.equals(name)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static int count(String line, char ch) {
+        int count = 0;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == ch) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Разбить строку CSV на поля с учётом кавычек.
+     */
+    static List<String> split(String line, char delimiter) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quoted) {
+                if (ch == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == delimiter) {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(ch);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+}
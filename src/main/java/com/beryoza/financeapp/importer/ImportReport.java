@@ -0,0 +1,24 @@
+package com.beryoza.financeapp.importer;
+
+import java.util.Locale;
+
+/**
+ * Итоги импорта выписки.
+ * <p>
+ * Поля:
+ * - {@code long parsed} — количество прочитанных записей.
+ * - {@code long rejected} — количество записей, не прошедших проверку или сопоставление с категорией.
+ * - {@code long duplicates} — количество записей, уже присутствующих в кошельке.
+ * - {@code long imported} — количество добавленных транзакций.
+ * - {@code long commits} — количество сохранений кошелька.
+ * - {@code long millis} — длительность импорта в миллисекундах.
+ */
+public record ImportReport(long parsed, long rejected, long duplicates, long imported, long commits, long millis) {
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "Прочитано: %d, отклонено: %d, дубликатов: %d, импортировано: %d, сохранений: %d, время: %d мс (%.0f записей/с)",
+                parsed, rejected, duplicates, imported, commits, millis, millis == 0 ? 0.0 : parsed * 1000.0 / millis);
+    }
+}
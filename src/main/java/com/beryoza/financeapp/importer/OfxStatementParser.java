@@ -0,0 +1,74 @@
+package com.beryoza.financeapp.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Парсер выписки в формате OFX/QFX (как SGML-вариант 1.x, так и XML-вариант 2.x).
+ * <p>
+ * Из каждого блока {@code <STMTTRN>} берутся {@code DTPOSTED} (первые 8 символов, yyyyMMdd),
+ * {@code TRNAMT} и описание из {@code NAME} и {@code MEMO}. Остальные теги игнорируются.
+ * Теги могут идти как по одному на строку, так и несколько в одной строке.
+ */
+public class OfxStatementParser implements StatementParser {
+
+    @Override
+    public void parse(BufferedReader in, Consumer<StatementRecord> sink) throws IOException {
+        long lineNumber = 0;
+        long recordLine = 0;
+        boolean inTransaction = false;
+        String date = null;
+        String amount = null;
+        String name = null;
+        String memo = null;
+
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            int position = line.indexOf('<');
+            while (position >= 0) {
+                int tagEnd = line.indexOf('>', position);
+                if (tagEnd < 0) {
+                    break;
+                }
+                String tag = line.substring(position + 1, tagEnd).trim().toUpperCase();
+                int next = line.indexOf('<', tagEnd);
+                String value = (next < 0 ? line.substring(tagEnd + 1) : line.substring(tagEnd + 1, next)).trim();
+                position = next;
+
+                switch (tag) {
+                    case "STMTTRN" -> {
+                        inTransaction = true;
+                        recordLine = lineNumber;
+                        date = amount = name = memo = null;
+                    }
+                    case "/STMTTRN" -> {
+                        if (inTransaction) {
+                            sink.accept(new StatementRecord(recordLine,
+                                    date != null && date.length() >= 8 ? date.substring(0, 8) : date,
+                                    amount, join(name, memo)));
+                        }
+                        inTransaction = false;
+                    }
+                    case "DTPOSTED" -> date = value;
+                    case "TRNAMT" -> amount = value;
+                    case "NAME" -> name = value;
+                    case "MEMO" -> memo = value;
+                    default -> {
+                    }
+                }
+            }
+        }
+    }
+
+    private static String join(String name, String memo) {
+        if (name == null || name.isEmpty()) {
+            return memo;
+        }
+        if (memo == null || memo.isEmpty() || memo.equals(name)) {
+            return name;
+        }
+        return name + " " + memo;
+    }
+}
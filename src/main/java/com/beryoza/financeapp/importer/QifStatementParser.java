@@ -0,0 +1,50 @@
+package com.beryoza.financeapp.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Парсер выписки в формате QIF.
+ * <p>
+ * Запись состоит из строк, начинающихся с кода поля ({@code D} — дата, {@code T} или {@code U} — сумма,
+ * {@code P} — получатель, {@code M} — комментарий), и завершается строкой {@code ^}.
+ * Строки заголовка ({@code !Type:...}) и прочие поля игнорируются. Формат даты задаётся при импорте.
+ */
+public class QifStatementParser implements StatementParser {
+
+    @Override
+    public void parse(BufferedReader in, Consumer<StatementRecord> sink) throws IOException {
+        long lineNumber = 0;
+        long recordLine = 0;
+        String date = null;
+        String amount = null;
+        String payee = null;
+        String memo = null;
+
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            if (line.isEmpty() || line.charAt(0) == '!') {
+                continue;
+            }
+            if (recordLine == 0) {
+                recordLine = lineNumber;
+            }
+            String value = line.substring(1).trim();
+            switch (line.charAt(0)) {
+                case 'D' -> date = value;
+                case 'T', 'U' -> amount = value;
+                case 'P' -> payee = value;
+                case 'M' -> memo = value;
+                case '^' -> {
+                    sink.accept(new StatementRecord(recordLine, date, amount, payee != null ? payee : memo));
+                    recordLine = 0;
+                    date = amount = payee = memo = null;
+                }
+                default -> {
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.beryoza.financeapp.importer;
+
+import java.util.Locale;
+
+/**
+ * Поддерживаемые форматы банковских выписок.
+ */
+public enum StatementFormat {
+    CSV("yyyy-MM-dd"), OFX("yyyyMMdd"), QIF("MM/dd/yyyy");
+
+    private final String defaultDatePattern;
+
+    StatementFormat(String defaultDatePattern) {
+        this.defaultDatePattern = defaultDatePattern;
+    }
+
+    /**
+     * Получить шаблон даты, принятый в формате по умолчанию.
+     *
+     * @return Шаблон даты.
+     */
+    public String getDefaultDatePattern() {
+        return defaultDatePattern;
+    }
+
+    /**
+     * Определить формат по расширению файла.
+     *
+     * @param fileName Имя файла.
+     * @return Формат выписки.
+     */
+    public static StatementFormat fromFileName(String fileName) {
+        String lower = fileName.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".ofx") || lower.endsWith(".qfx")) {
+            return OFX;
+        }
+        if (lower.endsWith(".qif")) {
+            return QIF;
+        }
+        return CSV;
+    }
+
+    /**
+     * Создать парсер для формата.
+     *
+     * @return Парсер выписки.
+     */
+    public StatementParser newParser() {
+        return switch (this) {
+            case CSV -> new CsvStatementParser();
+            case OFX -> new OfxStatementParser();
+            case QIF -> new QifStatementParser();
+        };
+    }
+}
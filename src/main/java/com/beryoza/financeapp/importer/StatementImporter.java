@@ -0,0 +1,445 @@
+package com.beryoza.financeapp.importer;
+
+import com.beryoza.financeapp.changelog.ChangeLog;
+import com.beryoza.financeapp.event.EventBus;
+import com.beryoza.financeapp.event.TransactionAdded;
+import com.beryoza.financeapp.logging.AppLogger;
+import com.beryoza.financeapp.metrics.MetricsRegistry;
+import com.beryoza.financeapp.metrics.OperationTimer;
+import com.beryoza.financeapp.model.Category;
+import com.beryoza.financeapp.model.DuplicateIndex;
+import com.beryoza.financeapp.model.Transaction;
+import com.beryoza.financeapp.model.Wallet;
+import com.beryoza.financeapp.repository.CategoryRepository;
+import com.beryoza.financeapp.repository.SummaryRepository;
+import com.beryoza.financeapp.repository.FileRepository;
+import com.beryoza.financeapp.repository.WalletRepository;
+import com.beryoza.financeapp.tools.CommandLineOptions;
+import com.beryoza.financeapp.util.DataValidator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Конвейер импорта банковских выписок (CSV, OFX, QIF) в кошелёк пользователя.
+ * <p>
+ * Стадии выполняются параллельно в отдельных потоках и связаны ограниченными очередями:
+ * разбор → проверка → сопоставление с категорией → удаление дубликатов и сохранение.
+ * Между стадиями передаются пачки по {@value #CHUNK_SIZE} записей, а очереди вмещают
+ * не более {@value #QUEUE_CAPACITY} пачек, поэтому объём памяти конвейера не зависит от размера файла.
+ * Изменения кошелька сохраняются один раз на {@code batchSize} добавленных транзакций и в конце;
+ * вместе с каждым сохранением сохранённые транзакции учитываются в месячных сводках
+ * и публикуются в шину событий как {@link TransactionAdded}.
+ * <p>
+ * Дубликатом считается операция, у которой отпечаток (дата, сумма и описание) совпадает с уже имеющейся
+ * в кошельке транзакцией; проверка выполняется по {@link DuplicateIndex} кошелька. Одинаковые операции учитываются по количеству: повторный импорт той же
+ * выписки ничего не добавляет, а две одинаковые покупки в один день из одной выписки импортируются обе.
+ * <p>
+ * Поля:
+ * - {@link WalletRepository} walletRepository — репозиторий кошельков.
+ * - {@link CategoryRepository} categoryRepository — репозиторий категорий.
+ * - {@link SummaryRepository} summaryRepository — репозиторий месячных сводок (в директории данных кошельков).
+ * - {@link EventBus} eventBus — шина, в которую публикуются добавленные транзакции.
+ * - {@link CategoryRules} rules — правила сопоставления описаний с категориями.
+ * - {@code String defaultExpenseCategory} — категория расходов, если ни одно правило не подошло.
+ * - {@code String defaultIncomeCategory} — категория доходов, если ни одно правило не подошло.
+ * - {@code int batchSize} — количество транзакций между сохранениями кошелька.
+ */
+public class StatementImporter {
+    private static final AppLogger log = AppLogger.getLogger(StatementImporter.class);
+    private static final MetricsRegistry metrics = MetricsRegistry.global();
+
+    private static final int CHUNK_SIZE = 1024;
+    private static final int QUEUE_CAPACITY = 16;
+
+    private final WalletRepository walletRepository;
+    private final CategoryRepository categoryRepository;
+    private final SummaryRepository summaryRepository;
+    private final EventBus eventBus;
+    private final CategoryRules rules;
+    private final String defaultExpenseCategory;
+    private final String defaultIncomeCategory;
+    private final int batchSize;
+
+    /**
+     * Проверенная запись выписки.
+     */
+    private record ValidRecord(long line, LocalDate date, double amount, String description) {
+    }
+
+    /**
+     * Конструктор.
+     *
+     * @param walletRepository       Репозиторий кошельков.
+     * @param categoryRepository     Репозиторий категорий.
+     * @param rules                  Правила сопоставления с категориями.
+     * @param defaultExpenseCategory Категория расходов по умолчанию (может быть null).
+     * @param defaultIncomeCategory  Категория доходов по умолчанию (может быть null).
+     * @param batchSize              Количество транзакций между сохранениями кошелька.
+     */
+    public StatementImporter(WalletRepository walletRepository, CategoryRepository categoryRepository,
+                             CategoryRules rules, String defaultExpenseCategory, String defaultIncomeCategory,
+                             int batchSize) {
+        this(walletRepository, categoryRepository, rules, defaultExpenseCategory, defaultIncomeCategory, batchSize,
+                new EventBus());
+    }
+
+    /**
+     * Конструктор.
+     *
+     * @param walletRepository       Репозиторий кошельков.
+     * @param categoryRepository     Репозиторий категорий.
+     * @param rules                  Правила сопоставления с категориями.
+     * @param defaultExpenseCategory Категория расходов по умолчанию (может быть null).
+     * @param defaultIncomeCategory  Категория доходов по умолчанию (может быть null).
+     * @param batchSize              Количество транзакций между сохранениями кошелька.
+     * @param eventBus               Шина событий о добавленных транзакциях.
+     */
+    public StatementImporter(WalletRepository walletRepository, CategoryRepository categoryRepository,
+                             CategoryRules rules, String defaultExpenseCategory, String defaultIncomeCategory,
+                             int batchSize, EventBus eventBus) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Размер пачки сохранения должен быть положительным.");
+        }
+        this.walletRepository = walletRepository;
+        this.categoryRepository = categoryRepository;
+        this.summaryRepository = new SummaryRepository(walletRepository.getDataDir());
+        this.eventBus = eventBus;
+        this.rules = rules;
+        this.defaultExpenseCategory = defaultExpenseCategory;
+        this.defaultIncomeCategory = defaultIncomeCategory;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Импортировать выписку в кошелёк.
+     *
+     * @param userId      Идентификатор пользователя.
+     * @param walletName  Название кошелька.
+     * @param file        Файл выписки.
+     * @param format      Формат выписки.
+     * @param datePattern Шаблон даты в выписке.
+     * @param errors      Поток для вывода отклонённых записей.
+     * @return Итоги импорта.
+     * @throws IOException Если не удалось прочитать выписку; уже сохранённые пачки остаются в кошельке.
+     */
+    public ImportReport importStatement(String userId, String walletName, Path file, StatementFormat format,
+                                        String datePattern, PrintStream errors) throws IOException {
+        OperationTimer timer = metrics.time("StatementImporter.importStatement");
+        try (timer) {
+            long started = System.nanoTime();
+            Wallet wallet = findWallet(userId, walletName);
+            Map<String, Category> categories = new HashMap<>();
+            for (Category category : categoryRepository.findCategoriesByUserId(userId)) {
+                categories.put(category.getName().toLowerCase(Locale.ROOT), category);
+            }
+            DuplicateIndex existing = wallet.getDuplicateIndex();
+            DateTimeFormatter dateFormatter = DataValidator.formatter(datePattern);
+
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            BlockingQueue<List<StatementRecord>> parsed = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+            BlockingQueue<List<ValidRecord>> validated = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+            BlockingQueue<List<Transaction>> categorized = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+            // Каждый счётчик изменяет только одна стадия: прочитано, некорректных, без категории, дубликатов.
+            long[] counters = new long[4];
+
+            Thread parser = new Thread(() -> {
+                List<StatementRecord> chunk = new ArrayList<>(CHUNK_SIZE);
+                try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    format.newParser().parse(in, record -> {
+                        chunk.add(record);
+                        counters[0]++;
+                        if (chunk.size() == CHUNK_SIZE) {
+                            put(parsed, new ArrayList<>(chunk));
+                            chunk.clear();
+                        }
+                    });
+                    if (!chunk.isEmpty()) {
+                        put(parsed, chunk);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    put(parsed, List.of());
+                }
+            }, "import-parse");
+            parser.setDaemon(true);
+
+            Thread validator = stage("import-validate", parsed, validated, failure, (record, out) -> {
+                ValidRecord valid = validate(record, dateFormatter);
+                if (valid != null) {
+                    out.accept(valid);
+                } else {
+                    counters[1]++;
+                    errors.println("Строка " + record.line() + ": некорректная дата или сумма: "
+                            + record.date() + ", " + record.amount());
+                }
+            });
+
+            Thread mapper = stage("import-categorize", validated, categorized, failure, (record, out) -> {
+                Category category = categorize(record, categories);
+                if (category != null) {
+                    out.accept(new Transaction(record.amount(), category, record.date(), record.description()));
+                } else {
+                    counters[2]++;
+                    errors.println("Строка " + record.line() + ": не удалось определить категорию: " + record.description());
+                }
+            });
+
+            parser.start();
+            validator.start();
+            mapper.start();
+
+            // Удаление дубликатов и сохранение выполняются в одном потоке: индекс кошелька
+            // пополняется по мере добавления, а количество уже имевшихся операций с данным отпечатком
+            // запоминается при первой встрече отпечатка, то есть до добавления таких же операций из выписки.
+            Map<Long, Integer> seen = new HashMap<>();
+            Map<Long, Integer> before = new HashMap<>();
+            List<Transaction> uncommitted = new ArrayList<>();
+            long imported = 0;
+            long commits = 0;
+            boolean drained = false;
+            try {
+                // Ошибка сохранения только запоминается: очередь дочитывается до конца,
+                // иначе стадии навсегда заблокируются на заполненных очередях.
+                List<Transaction> chunk;
+                while (!(chunk = take(categorized)).isEmpty()) {
+                    if (failure.get() != null) {
+                        continue;
+                    }
+                    try {
+                        for (Transaction transaction : chunk) {
+                            long fingerprint = transaction.fingerprint();
+                            int present = before.computeIfAbsent(fingerprint, existing::count);
+                            if (seen.merge(fingerprint, 1, Integer::sum) > present) {
+                                wallet.addTransaction(transaction);
+                                imported++;
+                                uncommitted.add(transaction);
+                            } else {
+                                counters[3]++;
+                            }
+                        }
+                        if (uncommitted.size() >= batchSize) {
+                            commit(userId, wallet, uncommitted);
+                            commits++;
+                        }
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+                drained = true;
+                if (failure.get() == null && !uncommitted.isEmpty()) {
+                    try {
+                        commit(userId, wallet, uncommitted);
+                        commits++;
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+                parser.join();
+                validator.join();
+                mapper.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Импорт прерван.", e);
+            } finally {
+                if (!drained) {
+                    // Очередь больше никто не читает: останавливаем стадии, чтобы они не ждали места вечно.
+                    parser.interrupt();
+                    validator.interrupt();
+                    mapper.interrupt();
+                }
+            }
+
+            if (failure.get() != null) {
+                throw new IOException("Импорт прерван после " + commits + " сохранений: " + failure.get().getMessage(),
+                        failure.get());
+            }
+            metrics.counter("StatementImporter.imported").add(imported);
+            ImportReport report = new ImportReport(counters[0], counters[1] + counters[2], counters[3], imported, commits,
+                    (System.nanoTime() - started) / 1_000_000);
+            log.info("Выписка импортирована", "file", file, "user", userId, "wallet", walletName,
+                    "parsed", report.parsed(), "imported", imported, "rejected", report.rejected(),
+                    "duplicates", report.duplicates());
+            return report;
+        }
+    }
+
+    /**
+     * Создать поток стадии конвейера. Стадия читает пачки из входной очереди до пустой пачки
+     * (признака конца) и передаёт результат в выходную очередь. После ошибки в любой стадии
+     * входные данные дочитываются без обработки, чтобы соседние стадии не блокировались.
+     * Поток стадии — фоновый (daemon), чтобы зависшая стадия не мешала завершению JVM.
+     */
+    private static <I, O> Thread stage(String name, BlockingQueue<List<I>> in, BlockingQueue<List<O>> out,
+                                       AtomicReference<Throwable> failure, BiConsumer<I, Consumer<O>> step) {
+        Thread thread = new Thread(() -> {
+            try {
+                List<I> chunk;
+                while (!(chunk = take(in)).isEmpty()) {
+                    if (failure.get() != null) {
+                        continue;
+                    }
+                    try {
+                        List<O> result = new ArrayList<>(chunk.size());
+                        for (I item : chunk) {
+                            step.accept(item, result::add);
+                        }
+                        if (!result.isEmpty()) {
+                            put(out, result);
+                        }
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            } finally {
+                put(out, List.of());
+            }
+        }, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Проверить запись и разобрать дату и сумму. Форматтер даты создаётся один раз на импорт.
+     *
+     * @return Проверенная запись или null, если дата или сумма некорректны.
+     */
+    private static ValidRecord validate(StatementRecord record, DateTimeFormatter dateFormatter) {
+        if (record.date() == null || record.amount() == null) {
+            return null;
+        }
+        try {
+            LocalDate date = LocalDate.parse(record.date().trim(), dateFormatter);
+            double amount = parseAmount(record.amount());
+            if (amount == 0 || !DataValidator.isNumberInRange(Math.abs(amount), 0, 100_000_000)) {
+                return null;
+            }
+            String description = record.description() == null ? null : record.description().trim();
+            return new ValidRecord(record.line(), date, amount, description);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Разобрать сумму с учётом пробелов-разделителей разрядов и десятичной запятой.
+     */
+    static double parseAmount(String value) {
+        StringBuilder normalized = new StringBuilder(value.length());
+        boolean hasDot = value.indexOf('.') >= 0;
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == ',') {
+                if (!hasDot) {
+                    normalized.append('.');
+                }
+            } else if (!Character.isWhitespace(ch) && ch != ' ') {
+                normalized.append(ch);
+            }
+        }
+        return Double.parseDouble(normalized.toString());
+    }
+
+    /**
+     * Определить категорию записи: по правилам, иначе категория по умолчанию для знака суммы.
+     */
+    private Category categorize(ValidRecord record, Map<String, Category> categories) {
+        String name = rules.match(record.description());
+        if (name == null) {
+            name = record.amount() >= 0 ? defaultIncomeCategory : defaultExpenseCategory;
+        }
+        return name == null ? null : categories.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Сохранить кошелёк и учесть сохранённые транзакции в месячных сводках.
+     */
+    private void commit(String userId, Wallet wallet, List<Transaction> uncommitted) {
+        walletRepository.saveWallet(wallet);
+        summaryRepository.apply(userId, uncommitted, 1);
+        for (Transaction transaction : uncommitted) {
+            eventBus.publish(new TransactionAdded(userId, wallet.getName(), transaction));
+        }
+        uncommitted.clear();
+    }
+
+    private Wallet findWallet(String userId, String walletName) {
+        for (Wallet wallet : walletRepository.loadWalletsByUser(userId)) {
+            if (wallet.getName().equals(walletName)) {
+                return wallet;
+            }
+        }
+        throw new IllegalArgumentException("Кошелёк с названием \"" + walletName + "\" не найден.");
+    }
+
+    private static <T> void put(BlockingQueue<T> queue, T item) {
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Стадия импорта прервана.", e);
+        }
+    }
+
+    private static <T> T take(BlockingQueue<T> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Стадия импорта прервана.", e);
+        }
+    }
+
+    /**
+     * Точка входа утилиты.
+     * <p>
+     * Аргументы: {@code --dir}, {@code --user}, {@code --wallet}, {@code --file},
+     * {@code --format} (csv, ofx, qif; по умолчанию по расширению файла), {@code --date-format},
+     * {@code --rules} (файл правил), {@code --default-expense}, {@code --default-income}, {@code --batch-size}.
+     */
+    public static void main(String[] args) throws IOException {
+        CommandLineOptions options = new CommandLineOptions(args);
+        String dataDir = options.getString("dir", FileRepository.DEFAULT_DATA_DIR);
+        String fileName = options.getString("file", null);
+        String user = options.getString("user", null);
+        String wallet = options.getString("wallet", null);
+        if (fileName == null || user == null || wallet == null) {
+            throw new IllegalArgumentException("Нужно указать --file, --user и --wallet.");
+        }
+        StatementFormat format = options.has("format")
+                ? StatementFormat.valueOf(options.getString("format", "csv").toUpperCase(Locale.ROOT))
+                : StatementFormat.fromFileName(fileName);
+        String rulesFile = options.getString("rules", null);
+        CategoryRules rules = rulesFile != null ? CategoryRules.load(Path.of(rulesFile)) : new CategoryRules();
+
+        EventBus eventBus = new EventBus();
+        try (ChangeLog changeLog = new ChangeLog(dataDir)) {
+            changeLog.attach(eventBus);
+            StatementImporter importer = new StatementImporter(
+                    new WalletRepository(dataDir), new CategoryRepository(dataDir), rules,
+                    options.getString("default-expense", null), options.getString("default-income", null),
+                    options.getInt("batch-size", 50_000), eventBus);
+            ImportReport report = importer.importStatement(user, wallet, Path.of(fileName), format,
+                    options.getString("date-format", format.getDefaultDatePattern()), System.err);
+            System.out.println(report);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.beryoza.financeapp.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Потоковый парсер банковской выписки. Читает файл построчно и передаёт каждую
+ * найденную операцию получателю, не накапливая выписку в памяти.
+ */
+public interface StatementParser {
+
+    /**
+     * Разобрать выписку.
+     *
+     * @param in   Поток выписки.
+     * @param sink Получатель разобранных записей.
+     * @throws IOException Если произошла ошибка при чтении.
+     */
+    void parse(BufferedReader in, Consumer<StatementRecord> sink) throws IOException;
+}
@@ -0,0 +1,13 @@
+package com.beryoza.financeapp.importer;
+
+/**
+ * Строка банковской выписки в исходном (текстовом) виде, как её прочитал парсер.
+ * <p>
+ * Поля:
+ * - {@code long line} — номер строки (или первой строки записи) в файле выписки.
+ * - {@code String date} — дата операции.
+ * - {@code String amount} — сумма операции (отрицательная для списаний).
+ * - {@code String description} — описание операции (получатель, назначение платежа).
+ */
+public record StatementRecord(long line, String date, String amount, String description) {
+}
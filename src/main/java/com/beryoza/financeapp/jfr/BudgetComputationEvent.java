@@ -0,0 +1,37 @@
+package com.beryoza.financeapp.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие JFR: агрегирующий расчёт по транзакциям пользователя
+ * (расходы по категориям, сравнение доходов и расходов).
+ * Вложенные события {@link FileLoadEvent} показывают, какая часть времени ушла на чтение файлов.
+ * <p>
+ * Поля:
+ * - {@code String operation} — имя расчёта.
+ * - {@code int userIdHash} — хеш идентификатора пользователя (сам логин не записывается).
+ * - {@code int walletCount} — количество просмотренных кошельков.
+ * - {@code int transactionCount} — количество просмотренных транзакций.
+ */
+@Name("com.beryoza.financeapp.BudgetComputation")
+@Label("Budget Computation")
+@Category({"Finance App", "Computation"})
+@Description("Агрегирующий расчёт по транзакциям пользователя")
+@StackTrace(false)
+public class BudgetComputationEvent extends jdk.jfr.Event {
+    @Label("Operation")
+    public String operation;
+
+    @Label("User Id Hash")
+    public int userIdHash;
+
+    @Label("Wallet Count")
+    public int walletCount;
+
+    @Label("Transaction Count")
+    public int transactionCount;
+}
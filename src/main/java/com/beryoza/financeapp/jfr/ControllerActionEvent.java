@@ -0,0 +1,57 @@
+package com.beryoza.financeapp.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие JFR: выполнение одного пункта меню контроллера
+ * (включая ожидание ввода пользователя).
+ * <p>
+ * Поля:
+ * - {@code String controller} — имя контроллера.
+ * - {@code String action} — имя действия.
+ * - {@code int userIdHash} — хеш идентификатора пользователя (сам логин не записывается).
+ */
+@Name("com.beryoza.financeapp.ControllerAction")
+@Label("Controller Action")
+@Category({"Finance App", "Controller"})
+@Description("Выполнение пункта меню контроллера")
+@StackTrace(false)
+public class ControllerActionEvent extends jdk.jfr.Event {
+    @Label("Controller")
+    public String controller;
+
+    @Label("Action")
+    public String action;
+
+    @Label("User Id Hash")
+    public int userIdHash;
+
+    /**
+     * Выполнить действие контроллера, записав его длительность в событие JFR.
+     * Если запись выключена, накладные расходы сводятся к созданию пустого объекта события.
+     *
+     * @param controller Имя контроллера.
+     * @param action     Имя действия.
+     * @param userId     Идентификатор пользователя.
+     * @param body       Действие.
+     */
+    public static void record(String controller, String action, String userId, Runnable body) {
+        ControllerActionEvent event = new ControllerActionEvent();
+        event.begin();
+        try {
+            body.run();
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.controller = controller;
+                event.action = action;
+                event.userIdHash = userId != null ? userId.hashCode() : 0;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.beryoza.financeapp.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие JFR: чтение и разбор файла данных репозитория.
+ * <p>
+ * Поля:
+ * - {@code String file} — путь к файлу.
+ * - {@code long fileSize} — размер файла в байтах.
+ * - {@code int elementCount} — количество прочитанных элементов.
+ */
+@Name("com.beryoza.financeapp.FileLoad")
+@Label("File Load")
+@Category({"Finance App", "Persistence"})
+@Description("Чтение и разбор JSON-файла репозитория")
+@StackTrace(false)
+public class FileLoadEvent extends jdk.jfr.Event {
+    @Label("File")
+    public String file;
+
+    @Label("File Size")
+    @DataAmount
+    public long fileSize;
+
+    @Label("Element Count")
+    public int elementCount;
+}
@@ -0,0 +1,33 @@
+package com.beryoza.financeapp.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие JFR: сериализация и запись файла данных репозитория.
+ * <p>
+ * Поля:
+ * - {@code String file} — путь к файлу.
+ * - {@code long fileSize} — размер записанного файла в байтах.
+ * - {@code int elementCount} — количество записанных элементов.
+ */
+@Name("com.beryoza.financeapp.FileSave")
+@Label("File Save")
+@Category({"Finance App", "Persistence"})
+@Description("Сериализация и запись JSON-файла репозитория")
+@StackTrace(false)
+public class FileSaveEvent extends jdk.jfr.Event {
+    @Label("File")
+    public String file;
+
+    @Label("File Size")
+    @DataAmount
+    public long fileSize;
+
+    @Label("Element Count")
+    public int elementCount;
+}
@@ -0,0 +1,113 @@
+package com.beryoza.financeapp.logging;
+
+import java.nio.file.Path;
+
+/**
+ * Фасад журналирования приложения.
+ * Все диагностические сообщения репозиториев и сервисов проходят через него и
+ * асинхронно пишутся в файл журнала, не смешиваясь с выводом меню в консоль.
+ * <p>
+ * Настройки (системные свойства):
+ * - {@code financeapp.log.file} — путь к файлу журнала (по умолчанию {@code logs/financeapp.log}).
+ * - {@code financeapp.log.level} — минимальный уровень записи (по умолчанию {@code INFO}).
+ * - {@code financeapp.log.buffer} — ёмкость кольцевого буфера (по умолчанию 8192).
+ * <p>
+ * Поля:
+ * - {@code String name} — имя источника сообщений.
+ */
+public final class AppLogger {
+    private static final AsyncLogAppender APPENDER = new AsyncLogAppender(
+            Path.of(System.getProperty("financeapp.log.file", "logs/financeapp.log")),
+            Integer.getInteger("financeapp.log.buffer", 8192));
+
+    private static volatile LogLevel threshold =
+            LogLevel.parse(System.getProperty("financeapp.log.level"), LogLevel.INFO);
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(APPENDER::close, "financeapp-log-shutdown"));
+    }
+
+    private final String name;
+
+    private AppLogger(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Получить журнал для указанного класса.
+     *
+     * @param type Класс-источник сообщений.
+     * @return Журнал.
+     */
+    public static AppLogger getLogger(Class<?> type) {
+        return new AppLogger(type.getSimpleName());
+    }
+
+    /**
+     * Изменить минимальный уровень записи во время работы.
+     *
+     * @param level Новый уровень.
+     */
+    public static void setLevel(LogLevel level) {
+        threshold = level;
+    }
+
+    /**
+     * Проверить, будет ли записано сообщение указанного уровня.
+     *
+     * @param level Уровень сообщения.
+     * @return true, если уровень не ниже порогового.
+     */
+    public boolean isEnabled(LogLevel level) {
+        return level.ordinal() >= threshold.ordinal();
+    }
+
+    /**
+     * Отладочное сообщение.
+     *
+     * @param message Текст сообщения.
+     * @param fields  Дополнительные поля в виде пар ключ/значение.
+     */
+    public void debug(String message, Object... fields) {
+        log(LogLevel.DEBUG, message, fields, null);
+    }
+
+    /**
+     * Информационное сообщение.
+     *
+     * @param message Текст сообщения.
+     * @param fields  Дополнительные поля в виде пар ключ/значение.
+     */
+    public void info(String message, Object... fields) {
+        log(LogLevel.INFO, message, fields, null);
+    }
+
+    /**
+     * Предупреждение.
+     *
+     * @param message Текст сообщения.
+     * @param fields  Дополнительные поля в виде пар ключ/значение.
+     */
+    public void warn(String message, Object... fields) {
+        log(LogLevel.WARN, message, fields, null);
+    }
+
+    /**
+     * Сообщение об ошибке с исключением.
+     *
+     * @param message Текст сообщения.
+     * @param error   Исключение, ставшее причиной ошибки.
+     * @param fields  Дополнительные поля в виде пар ключ/значение.
+     */
+    public void error(String message, Throwable error, Object... fields) {
+        log(LogLevel.ERROR, message, fields, error);
+    }
+
+    private void log(LogLevel level, String message, Object[] fields, Throwable error) {
+        if (!isEnabled(level)) {
+            return;
+        }
+        APPENDER.append(new LogEvent(System.currentTimeMillis(), level, name,
+                Thread.currentThread().getName(), message, fields, error));
+    }
+}
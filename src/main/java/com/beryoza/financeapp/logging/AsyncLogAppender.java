@@ -0,0 +1,193 @@
+package com.beryoza.financeapp.logging;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Асинхронный файловый приёмник журнала.
+ * События складываются в ограниченный кольцевой буфер, а отдельный фоновый поток
+ * форматирует их и пачками пишет в файл. Вызывающий поток никогда не ждёт диска:
+ * если буфер переполнен, событие отбрасывается и учитывается в счётчике потерь.
+ * <p>
+ * Поля:
+ * - {@link Path} file — файл журнала.
+ * - {@link BlockingQueue}<{@link LogEvent}> buffer — кольцевой буфер событий.
+ * - {@link AtomicLong} dropped — количество событий, отброшенных из-за переполнения.
+ * - {@link Thread} worker — фоновый поток записи.
+ */
+public class AsyncLogAppender {
+    private static final int BATCH_SIZE = 256;
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private final Path file;
+    private final BlockingQueue<LogEvent> buffer;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    /**
+     * Конструктор. Запускает фоновый поток записи.
+     *
+     * @param file     Файл журнала (директории создаются при первой записи).
+     * @param capacity Ёмкость кольцевого буфера.
+     */
+    public AsyncLogAppender(Path file, int capacity) {
+        this.file = file;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.worker = new Thread(this::drainLoop, "financeapp-log-writer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Поставить событие в очередь на запись. Никогда не блокирует вызывающий поток.
+     *
+     * @param event Событие журнала.
+     */
+    void append(LogEvent event) {
+        if (!buffer.offer(event)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Получить количество отброшенных событий.
+     *
+     * @return Количество событий, не попавших в буфер.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Остановить фоновый поток, предварительно дописав все накопленные события.
+     * <p>
+     * Поток не прерывается: прерывание во время записи закрыло бы канал файла
+     * ({@link java.nio.channels.ClosedByInterruptException}) и пачка была бы потеряна.
+     * Поток замечает флаг остановки не позже чем через время ожидания очереди.
+     */
+    public void close() {
+        running = false;
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(2));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Основной цикл фонового потока: ждёт события и пишет их пачками.
+     */
+    private void drainLoop() {
+        List<LogEvent> batch = new ArrayList<>(BATCH_SIZE);
+        while (running || !buffer.isEmpty()) {
+            try {
+                LogEvent first = buffer.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                // Постороннее прерывание тоже означает остановку (флаг уже сброшен исключением):
+                // дописываем остаток и выходим.
+                running = false;
+            }
+            buffer.drainTo(batch, BATCH_SIZE - batch.size());
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Записать пачку событий в файл.
+     *
+     * @param batch Пачка событий.
+     */
+    private void write(List<LogEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                long lost = dropped.getAndSet(0);
+                if (lost > 0) {
+                    writer.write(TIMESTAMP_FORMAT.format(Instant.now()) + " level=WARN logger=AsyncLogAppender"
+                            + " msg=\"Буфер журнала переполнен\" dropped=" + lost);
+                    writer.newLine();
+                }
+                for (LogEvent event : batch) {
+                    writer.write(format(event));
+                    writer.newLine();
+                }
+            }
+        } catch (IOException e) {
+            // Журнал не должен ронять приложение; сообщаем один раз на пачку.
+            System.err.println("Не удалось записать журнал в " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Преобразовать событие в строку формата ключ=значение.
+     *
+     * @param event Событие журнала.
+     * @return Строка для записи в файл.
+     */
+    private static String format(LogEvent event) {
+        StringBuilder line = new StringBuilder(128);
+        line.append(TIMESTAMP_FORMAT.format(Instant.ofEpochMilli(event.timestamp())))
+                .append(" level=").append(event.level())
+                .append(" logger=").append(event.logger())
+                .append(" thread=").append(quoteIfNeeded(event.thread()))
+                .append(" msg=").append(quote(event.message()));
+
+        Object[] fields = event.fields();
+        if (fields != null) {
+            for (int i = 0; i + 1 < fields.length; i += 2) {
+                line.append(' ').append(fields[i]).append('=').append(quoteIfNeeded(String.valueOf(fields[i + 1])));
+            }
+        }
+
+        if (event.error() != null) {
+            StringWriter trace = new StringWriter();
+            event.error().printStackTrace(new PrintWriter(trace));
+            line.append(" error=").append(quote(String.valueOf(event.error().getMessage())))
+                    .append(System.lineSeparator()).append(trace.toString().stripTrailing());
+        }
+        return line.toString();
+    }
+
+    private static String quoteIfNeeded(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ' ' || c == '"' || c == '=') {
+                return quote(value);
+            }
+        }
+        return value;
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+}
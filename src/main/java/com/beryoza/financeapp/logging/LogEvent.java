@@ -0,0 +1,23 @@
+package com.beryoza.financeapp.logging;
+
+/**
+ * Запись журнала, ожидающая форматирования и записи в файл.
+ * Форматирование выполняется фоновым потоком, поэтому здесь хранятся только исходные данные.
+ * <p>
+ * Поля:
+ * - {@code long timestamp} — время события в миллисекундах.
+ * - {@link LogLevel} level — уровень события.
+ * - {@code String logger} — имя источника (обычно простое имя класса).
+ * - {@code String thread} — имя потока, в котором произошло событие.
+ * - {@code String message} — текст сообщения.
+ * - {@code Object[] fields} — дополнительные поля в виде пар ключ/значение.
+ * - {@link Throwable} error — исключение, если оно есть.
+ */
+record LogEvent(long timestamp,
+                LogLevel level,
+                String logger,
+                String thread,
+                String message,
+                Object[] fields,
+                Throwable error) {
+}
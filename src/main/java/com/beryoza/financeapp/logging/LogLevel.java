@@ -0,0 +1,29 @@
+package com.beryoza.financeapp.logging;
+
+/**
+ * Уровни журналирования в порядке возрастания важности.
+ */
+public enum LogLevel {
+    DEBUG,
+    INFO,
+    WARN,
+    ERROR;
+
+    /**
+     * Разобрать уровень из строки (без учёта регистра).
+     *
+     * @param value        Строковое значение уровня.
+     * @param defaultLevel Уровень по умолчанию, если строка пуста или некорректна.
+     * @return Уровень журналирования.
+     */
+    public static LogLevel parse(String value, LogLevel defaultLevel) {
+        if (value == null || value.trim().isEmpty()) {
+            return defaultLevel;
+        }
+        try {
+            return LogLevel.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return defaultLevel;
+        }
+    }
+}
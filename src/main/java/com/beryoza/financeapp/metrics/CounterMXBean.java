@@ -0,0 +1,12 @@
+package com.beryoza.financeapp.metrics;
+
+/**
+ * JMX-представление счётчика (например, количества прочитанных байт).
+ */
+public interface CounterMXBean {
+
+    /**
+     * @return Текущее значение счётчика.
+     */
+    long getValue();
+}
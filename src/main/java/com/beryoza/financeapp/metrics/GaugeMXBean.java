@@ -0,0 +1,12 @@
+package com.beryoza.financeapp.metrics;
+
+/**
+ * JMX-представление вычисляемого показателя (например, доли попаданий в кэш).
+ */
+public interface GaugeMXBean {
+
+    /**
+     * @return Текущее значение показателя.
+     */
+    double getValue();
+}
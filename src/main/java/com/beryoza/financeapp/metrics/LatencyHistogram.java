@@ -0,0 +1,134 @@
+package com.beryoza.financeapp.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Гистограмма задержек с логарифмически-линейными корзинами (в духе HdrHistogram).
+ * Диапазон значений делится на степени двойки, а каждая степень — на {@value #SUB_BUCKETS}
+ * равных корзин, что даёт относительную погрешность перцентилей не хуже ~3%.
+ * Запись не выделяет память и не блокирует: используются только атомарные счётчики.
+ * <p>
+ * Поля:
+ * - {@link AtomicLongArray} buckets — счётчики попаданий в корзины.
+ * - {@link AtomicLong} count — общее количество записанных значений.
+ * - {@link AtomicLong} sum — сумма записанных значений (для среднего).
+ * - {@link AtomicLong} max — максимальное записанное значение.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = 2 * SUB_BUCKETS + (63 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Записать значение (обычно длительность в наносекундах).
+     *
+     * @param value Неотрицательное значение; отрицательные считаются нулём.
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        buckets.incrementAndGet(indexOf(v));
+        count.incrementAndGet();
+        sum.addAndGet(v);
+        long currentMax;
+        while (v > (currentMax = max.get())) {
+            if (max.compareAndSet(currentMax, v)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Получить количество записанных значений.
+     *
+     * @return Количество значений.
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Получить среднее значение.
+     *
+     * @return Среднее или 0, если значений нет.
+     */
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    /**
+     * Получить максимальное значение.
+     *
+     * @return Максимум или 0, если значений нет.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Оценить перцентиль.
+     *
+     * @param percentile Перцентиль в диапазоне от 0 до 100.
+     * @return Верхняя граница корзины, в которую попал перцентиль.
+     */
+    public long getPercentile(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100.0 * total);
+        rank = Math.max(1, rank);
+        long seen = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Сбросить все накопленные значения.
+     */
+    public void reset() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    /**
+     * Вычислить индекс корзины для значения.
+     * Значения меньше {@code 2 * SUB_BUCKETS} попадают в точные корзины.
+     */
+    private static int indexOf(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return 2 * SUB_BUCKETS + (shift - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Вычислить верхнюю границу корзины по её индексу.
+     */
+    private static long upperBoundOf(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - 2 * SUB_BUCKETS) / SUB_BUCKETS + 1;
+        long subBucket = (index - 2 * SUB_BUCKETS) % SUB_BUCKETS;
+        long lowerBound = (SUB_BUCKETS + subBucket) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+}
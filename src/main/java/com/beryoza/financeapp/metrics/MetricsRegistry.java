@@ -0,0 +1,231 @@
+package com.beryoza.financeapp.metrics;
+
+import com.beryoza.financeapp.logging.AppLogger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Реестр метрик приложения: таймеры операций, счётчики и вычисляемые показатели.
+ * Каждая метрика при первом обращении публикуется как MBean в домене
+ * {@code com.beryoza.financeapp}, поэтому её можно посмотреть в JConsole/VisualVM.
+ * <p>
+ * Поля:
+ * - {@code String domain} — JMX-домен для публикуемых MBean.
+ * - {@link Map} timers — таймеры операций по имени.
+ * - {@link Map} counters — счётчики по имени.
+ * - {@link Map} gauges — вычисляемые показатели по имени.
+ */
+public final class MetricsRegistry {
+    private static final AppLogger log = AppLogger.getLogger(MetricsRegistry.class);
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry("com.beryoza.financeapp");
+
+    private final String domain;
+    private final Map<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, DoubleSupplier> gauges = new ConcurrentHashMap<>();
+    private final Map<String, CacheCounters> caches = new ConcurrentHashMap<>();
+
+    /**
+     * Счётчики попаданий и промахов кэша.
+     *
+     * @param hits   Попадания.
+     * @param misses Промахи.
+     */
+    private record CacheCounters(LongAdder hits, LongAdder misses) {
+    }
+
+    /**
+     * Конструктор.
+     *
+     * @param domain JMX-домен для публикуемых MBean.
+     */
+    public MetricsRegistry(String domain) {
+        this.domain = domain;
+    }
+
+    /**
+     * Получить общий реестр приложения.
+     *
+     * @return Общий реестр метрик.
+     */
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Начать замер длительности операции.
+     *
+     * @param name Имя операции, например {@code WalletService.addTransaction}.
+     * @return Замер, который нужно закрыть по завершении операции.
+     */
+    public OperationTimer time(String name) {
+        return new OperationTimer(timer(name));
+    }
+
+    /**
+     * Получить (или создать) гистограмму задержек операции.
+     *
+     * @param name Имя операции.
+     * @return Гистограмма задержек в наносекундах.
+     */
+    public LatencyHistogram timer(String name) {
+        LatencyHistogram histogram = timers.get(name);
+        if (histogram != null) {
+            return histogram;
+        }
+        return timers.computeIfAbsent(name, key -> {
+            LatencyHistogram created = new LatencyHistogram();
+            register("Timer", key, new TimerBean(created), TimerMXBean.class);
+            return created;
+        });
+    }
+
+    /**
+     * Получить (или создать) счётчик.
+     *
+     * @param name Имя счётчика.
+     * @return Счётчик.
+     */
+    public LongAdder counter(String name) {
+        LongAdder adder = counters.get(name);
+        if (adder != null) {
+            return adder;
+        }
+        return counters.computeIfAbsent(name, key -> {
+            LongAdder created = new LongAdder();
+            register("Counter", key, (CounterMXBean) created::sum, CounterMXBean.class);
+            return created;
+        });
+    }
+
+    /**
+     * Зарегистрировать вычисляемый показатель. Повторная регистрация с тем же именем игнорируется.
+     *
+     * @param name     Имя показателя.
+     * @param supplier Функция вычисления текущего значения.
+     */
+    public void gauge(String name, DoubleSupplier supplier) {
+        gauges.computeIfAbsent(name, key -> {
+            register("Gauge", key, (GaugeMXBean) supplier::getAsDouble, GaugeMXBean.class);
+            return supplier;
+        });
+    }
+
+    /**
+     * Учесть обращение к кэшу. Помимо счётчиков попаданий и промахов
+     * при первом обращении регистрирует показатель {@code <cache>.hitRatio}.
+     *
+     * @param cache Имя кэша.
+     * @param hit   true, если значение найдено в кэше.
+     */
+    public void recordCacheAccess(String cache, boolean hit) {
+        CacheCounters counters = caches.get(cache);
+        if (counters == null) {
+            counters = caches.computeIfAbsent(cache, key -> {
+                LongAdder hits = counter(key + ".hits");
+                LongAdder misses = counter(key + ".misses");
+                gauge(key + ".hitRatio", () -> {
+                    long h = hits.sum();
+                    long total = h + misses.sum();
+                    return total == 0 ? 0 : (double) h / total;
+                });
+                return new CacheCounters(hits, misses);
+            });
+        }
+        (hit ? counters.hits() : counters.misses()).increment();
+    }
+
+    /**
+     * Сформировать текстовый снимок всех метрик, по одной метрике на строку.
+     *
+     * @return Снимок метрик.
+     */
+    public String dump() {
+        StringBuilder out = new StringBuilder();
+        new TreeMap<>(timers).forEach((name, h) -> out.append("timer ").append(name)
+                .append(" count=").append(h.getCount())
+                .append(" mean_us=").append(String.format(Locale.ROOT, "%.1f", h.getMean() / 1000.0))
+                .append(" p50_us=").append(toMicros(h.getPercentile(50)))
+                .append(" p90_us=").append(toMicros(h.getPercentile(90)))
+                .append(" p99_us=").append(toMicros(h.getPercentile(99)))
+                .append(" max_us=").append(toMicros(h.getMax()))
+                .append('\n'));
+        new TreeMap<>(counters).forEach((name, c) -> out.append("counter ").append(name)
+                .append(" value=").append(c.sum()).append('\n'));
+        new TreeMap<>(gauges).forEach((name, g) -> out.append("gauge ").append(name)
+                .append(" value=").append(g.getAsDouble()).append('\n'));
+        return out.toString();
+    }
+
+    private <T> void register(String type, String name, T bean, Class<T> mxbeanInterface) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(domain + ":type=" + type + ",name=" + ObjectName.quote(name));
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(new StandardMBean(bean, mxbeanInterface, true), objectName);
+            }
+        } catch (Exception e) {
+            log.warn("Не удалось зарегистрировать MBean", "type", type, "name", name, "error", e.getMessage());
+        }
+    }
+
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    /**
+     * Адаптер гистограммы к интерфейсу {@link TimerMXBean}.
+     */
+    private static final class TimerBean implements TimerMXBean {
+        private final LatencyHistogram histogram;
+
+        private TimerBean(LatencyHistogram histogram) {
+            this.histogram = histogram;
+        }
+
+        @Override
+        public long getCount() {
+            return histogram.getCount();
+        }
+
+        @Override
+        public double getMeanMicros() {
+            return histogram.getMean() / 1000.0;
+        }
+
+        @Override
+        public long getP50Micros() {
+            return toMicros(histogram.getPercentile(50));
+        }
+
+        @Override
+        public long getP90Micros() {
+            return toMicros(histogram.getPercentile(90));
+        }
+
+        @Override
+        public long getP99Micros() {
+            return toMicros(histogram.getPercentile(99));
+        }
+
+        @Override
+        public long getMaxMicros() {
+            return toMicros(histogram.getMax());
+        }
+
+        @Override
+        public void reset() {
+            histogram.reset();
+        }
+    }
+}
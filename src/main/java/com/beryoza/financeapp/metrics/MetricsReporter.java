@@ -0,0 +1,101 @@
+package com.beryoza.financeapp.metrics;
+
+import com.beryoza.financeapp.logging.AppLogger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Периодическая выгрузка метрик в файл.
+ * Файл перезаписывается целиком при каждой выгрузке (через временный файл),
+ * поэтому внешний сборщик всегда видит согласованный снимок.
+ * <p>
+ * Настройки (системные свойства):
+ * - {@code financeapp.metrics.file} — путь к файлу метрик; если не задан, выгрузка не запускается.
+ * - {@code financeapp.metrics.interval} — период выгрузки в секундах (по умолчанию 60).
+ * <p>
+ * Поля:
+ * - {@link MetricsRegistry} registry — реестр метрик.
+ * - {@link Path} file — файл для выгрузки.
+ * - {@link ScheduledExecutorService} scheduler — планировщик выгрузки.
+ */
+public class MetricsReporter {
+    private static final AppLogger log = AppLogger.getLogger(MetricsReporter.class);
+
+    private final MetricsRegistry registry;
+    private final Path file;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Конструктор.
+     *
+     * @param registry Реестр метрик.
+     * @param file     Файл для выгрузки.
+     */
+    public MetricsReporter(MetricsRegistry registry, Path file) {
+        this.registry = registry;
+        this.file = file;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "financeapp-metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Запустить выгрузку, если она включена системными свойствами.
+     *
+     * @return Запущенный экземпляр или null, если выгрузка выключена.
+     */
+    public static MetricsReporter startFromSystemProperties() {
+        String path = System.getProperty("financeapp.metrics.file");
+        if (path == null || path.isBlank()) {
+            return null;
+        }
+        MetricsReporter reporter = new MetricsReporter(MetricsRegistry.global(), Path.of(path));
+        reporter.start(Long.getLong("financeapp.metrics.interval", 60));
+        return reporter;
+    }
+
+    /**
+     * Запустить периодическую выгрузку. При остановке JVM выполняется финальная выгрузка.
+     *
+     * @param periodSeconds Период выгрузки в секундах.
+     */
+    public void start(long periodSeconds) {
+        scheduler.scheduleAtFixedRate(this::writeSnapshot, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::writeSnapshot, "financeapp-metrics-shutdown"));
+    }
+
+    /**
+     * Остановить периодическую выгрузку.
+     */
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Записать текущий снимок метрик в файл.
+     */
+    public void writeSnapshot() {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            String content = "# " + LocalDateTime.now() + "\n" + registry.dump();
+            Files.writeString(temp, content, StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.error("Ошибка при выгрузке метрик", e, "file", file);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.beryoza.financeapp.metrics;
+
+/**
+ * Замер длительности одной операции.
+ * Предназначен для использования в try-with-resources: длительность записывается
+ * в гистограмму при закрытии, в том числе если операция завершилась исключением.
+ * Замер объявляется перед блоком ({@code OperationTimer timer = metrics.time(name); try (timer) {...}}),
+ * чтобы неиспользуемая в теле блока переменная не давала предупреждение компилятора {@code [try]}.
+ * <p>
+ * Поля:
+ * - {@link LatencyHistogram} histogram — гистограмма, в которую записывается длительность.
+ * - {@code long startNanos} — момент начала операции.
+ */
+public final class OperationTimer implements AutoCloseable {
+    private final LatencyHistogram histogram;
+    private final long startNanos;
+
+    OperationTimer(LatencyHistogram histogram) {
+        this.histogram = histogram;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Записать длительность операции.
+     */
+    @Override
+    public void close() {
+        histogram.record(System.nanoTime() - startNanos);
+    }
+}
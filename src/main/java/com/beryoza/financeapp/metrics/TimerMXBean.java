@@ -0,0 +1,42 @@
+package com.beryoza.financeapp.metrics;
+
+/**
+ * JMX-представление таймера операции. Все длительности — в микросекундах.
+ */
+public interface TimerMXBean {
+
+    /**
+     * @return Количество выполненных операций.
+     */
+    long getCount();
+
+    /**
+     * @return Средняя длительность операции.
+     */
+    double getMeanMicros();
+
+    /**
+     * @return Медиана длительности операции.
+     */
+    long getP50Micros();
+
+    /**
+     * @return 90-й перцентиль длительности операции.
+     */
+    long getP90Micros();
+
+    /**
+     * @return 99-й перцентиль длительности операции.
+     */
+    long getP99Micros();
+
+    /**
+     * @return Максимальная длительность операции.
+     */
+    long getMaxMicros();
+
+    /**
+     * Сбросить накопленную статистику.
+     */
+    void reset();
+}
@@ -0,0 +1,40 @@
+package com.beryoza.financeapp.model;
+
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Сводная строка архивного сегмента кошелька: транзакции одного месяца, перенесённые из кошелька
+ * в сжатый файл архива ({@link com.beryoza.financeapp.repository.TransactionArchive}).
+ * <p>
+ * Строка остаётся в кошельке вместо перенесённых транзакций. Итогов строки достаточно для баланса,
+ * его истории по месяцам и расходов по категориям; сами транзакции читаются из сегмента только
+ * для запросов, которым нужны отдельные операции.
+ *
+ * @param month                Месяц транзакций сегмента.
+ * @param segment              Имя файла сегмента в директории архива.
+ * @param count                Количество транзакций в сегменте.
+ * @param incomeCents          Сумма поступлений в копейках.
+ * @param expenseCents         Сумма списаний в копейках (отрицательная или 0).
+ * @param categoryExpenseCents Расходы по категориям в копейках (без переводов).
+ * @param transferKeys         Ключи переводов, списания по которым перенесены в сегмент (null у строк,
+ *                             записанных до появления поля: ключи тогда читаются из самого сегмента).
+ */
+public record ArchivedMonth(YearMonth month, String segment, int count, long incomeCents, long expenseCents,
+                            Map<String, Long> categoryExpenseCents, Set<String> transferKeys) {
+
+    public ArchivedMonth {
+        categoryExpenseCents = categoryExpenseCents != null ? Map.copyOf(categoryExpenseCents) : Map.of();
+        transferKeys = transferKeys != null ? Set.copyOf(transferKeys) : null;
+    }
+
+    /**
+     * Получить чистое изменение баланса за счёт транзакций сегмента.
+     *
+     * @return Изменение в копейках.
+     */
+    public long netCents() {
+        return incomeCents + expenseCents;
+    }
+}
@@ -0,0 +1,149 @@
+package com.beryoza.financeapp.model;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * История баланса кошелька с месячными контрольными точками.
+ * <p>
+ * Хранит чистое изменение баланса за каждый день (транзакции, прямые изменения баланса и итоги архивных
+ * сегментов, отнесённые к последнему дню месяца) и для каждого
+ * месяца, в котором были изменения, — накопленную сумму изменений на конец месяца. Баланс на дату
+ * вычисляется от контрольной точки предыдущего месяца плюс изменения за дни текущего месяца, то есть
+ * за O(log n + 31) вместо повторного проведения всей истории. Суммы хранятся в копейках.
+ * <p>
+ * История строится при первом обращении к ней после загрузки кошелька и не сохраняется в файл.
+ * <p>
+ * Поля:
+ * - {@code long openingCents} — баланс до первого датированного изменения (в том числе остаток,
+ * не объяснённый транзакциями, в данных старого формата) и изменения без даты.
+ * - {@link NavigableMap} dailyCents — чистое изменение баланса по дням.
+ * - {@link NavigableMap} closingCents — контрольные точки: сумма изменений на конец месяца.
+ */
+public class BalanceHistory {
+    private long openingCents;
+    private final NavigableMap<LocalDate, Long> dailyCents = new TreeMap<>();
+    private final NavigableMap<YearMonth, Long> closingCents = new TreeMap<>();
+
+    /**
+     * Построить историю по текущему балансу, транзакциям, прямым изменениям баланса и архивным сегментам.
+     *
+     * @param balance      Текущий баланс кошелька.
+     * @param transactions Транзакции кошелька.
+     * @param adjustments  Прямые изменения баланса по дням (в копейках).
+     * @param archive      Сводные строки архивных сегментов кошелька.
+     * @return История баланса.
+     */
+    public static BalanceHistory of(double balance, Iterable<Transaction> transactions,
+                                    Map<LocalDate, Long> adjustments, Iterable<ArchivedMonth> archive) {
+        BalanceHistory history = new BalanceHistory();
+        long total = 0;
+        for (Transaction transaction : transactions) {
+            long cents = toCents(transaction.getAmount());
+            if (transaction.getDate() != null) {
+                history.dailyCents.merge(transaction.getDate(), cents, Long::sum);
+                total += cents;
+            }
+        }
+        for (Map.Entry<LocalDate, Long> adjustment : adjustments.entrySet()) {
+            history.dailyCents.merge(adjustment.getKey(), adjustment.getValue(), Long::sum);
+            total += adjustment.getValue();
+        }
+        for (ArchivedMonth row : archive) {
+            history.dailyCents.merge(row.month().atEndOfMonth(), row.netCents(), Long::sum);
+            total += row.netCents();
+        }
+        history.openingCents = toCents(balance) - total;
+
+        long running = 0;
+        for (Map.Entry<LocalDate, Long> day : history.dailyCents.entrySet()) {
+            running += day.getValue();
+            history.closingCents.put(YearMonth.from(day.getKey()), running);
+        }
+        return history;
+    }
+
+    /**
+     * Учесть изменение баланса.
+     *
+     * @param date  Дата изменения (null — изменение без даты, относится к начальному балансу).
+     * @param cents Изменение в копейках.
+     */
+    public void add(LocalDate date, long cents) {
+        if (cents == 0) {
+            return;
+        }
+        if (date == null) {
+            openingCents += cents;
+            return;
+        }
+        YearMonth month = YearMonth.from(date);
+        if (!closingCents.containsKey(month)) {
+            closingCents.put(month, changesThrough(month.atEndOfMonth()));
+        }
+        for (Map.Entry<YearMonth, Long> checkpoint : closingCents.tailMap(month, true).entrySet()) {
+            checkpoint.setValue(checkpoint.getValue() + cents);
+        }
+        long day = dailyCents.merge(date, cents, Long::sum);
+        if (day == 0) {
+            dailyCents.remove(date);
+        }
+    }
+
+    /**
+     * Получить баланс на конец указанного дня.
+     *
+     * @param date Дата.
+     * @return Баланс в копейках.
+     */
+    public long balanceCentsAt(LocalDate date) {
+        return openingCents + changesThrough(date);
+    }
+
+    /**
+     * Получить баланс на конец месяца.
+     *
+     * @param month Месяц.
+     * @return Баланс в копейках.
+     */
+    public long closingCentsOf(YearMonth month) {
+        Map.Entry<YearMonth, Long> checkpoint = closingCents.floorEntry(month);
+        return openingCents + (checkpoint != null ? checkpoint.getValue() : 0);
+    }
+
+    /**
+     * Получить дату первого изменения баланса.
+     *
+     * @return Дата или null, если датированных изменений нет.
+     */
+    public LocalDate firstDate() {
+        return dailyCents.isEmpty() ? null : dailyCents.firstKey();
+    }
+
+    /**
+     * Сумма датированных изменений по указанный день включительно: контрольная точка предыдущего
+     * месяца плюс изменения за дни текущего месяца.
+     */
+    private long changesThrough(LocalDate date) {
+        YearMonth month = YearMonth.from(date);
+        Map.Entry<YearMonth, Long> checkpoint = closingCents.lowerEntry(month);
+        long cents = checkpoint != null ? checkpoint.getValue() : 0;
+        for (long day : dailyCents.subMap(month.atDay(1), true, date, true).values()) {
+            cents += day;
+        }
+        return cents;
+    }
+
+    /**
+     * Перевести сумму в копейки.
+     *
+     * @param amount Сумма.
+     * @return Сумма в копейках.
+     */
+    public static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+}
@@ -11,11 +11,14 @@ import com.fasterxml.jackson.annotation.JsonProperty;
  * - {@code String userId} — идентификатор пользователя, которому принадлежит категория.
  * - {@code String name} — название категории.
  * - {@code double budgetLimit} — лимит бюджета для категории.
+ * - {@code long version} — версия сохранённого состояния для оптимистической блокировки
+ * (0 — категория ещё не сохранена; каждое сохранение увеличивает версию на 1).
  */
 public class Category {
     private String userId;
     private String name;
     private double budgetLimit;
+    private long version;
 
     /**
      * Конструктор для десериализации Jackson.
@@ -23,14 +26,30 @@ public class Category {
      * @param userId      Идентификатор пользователя.
      * @param name        Название категории.
      * @param budgetLimit Лимит бюджета.
+     * @param version     Версия сохранённого состояния. В файлах старого формата версии нет:
+     *                    такая категория считается сохранённой с версией 1.
      */
     @JsonCreator
     public Category(@JsonProperty("userId") String userId,
                     @JsonProperty("name") String name,
-                    @JsonProperty("budgetLimit") double budgetLimit) {
+                    @JsonProperty("budgetLimit") double budgetLimit,
+                    @JsonProperty("version") long version) {
         this.userId = userId;
         this.name = name;
         this.budgetLimit = budgetLimit;
+        this.version = Math.max(version, 1);
+    }
+
+    /**
+     * Конструктор новой (ещё не сохранённой) категории.
+     *
+     * @param userId      Идентификатор пользователя.
+     * @param name        Название категории.
+     * @param budgetLimit Лимит бюджета.
+     */
+    public Category(String userId, String name, double budgetLimit) {
+        this(userId, name, budgetLimit, 0);
+        this.version = 0;
     }
 
     /**
@@ -87,6 +106,24 @@ public class Category {
         this.budgetLimit = budgetLimit;
     }
 
+    /**
+     * Получить версию сохранённого состояния категории.
+     *
+     * @return Версия (0, если категория ещё не сохранена).
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Установить версию сохранённого состояния (выполняет репозиторий при сохранении).
+     *
+     * @param version Версия.
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     /**
      * Получить строковое представление объекта категории.
      *
@@ -97,6 +134,7 @@ public class Category {
                 "userId='" + userId + '\'' +
                 ", name='" + name + '\'' +
                 ", budgetLimit=" + budgetLimit +
+                ", version=" + version +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,192 @@
+package com.beryoza.financeapp.model;
+
+import com.beryoza.financeapp.util.BloomFilter;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Индекс отпечатков транзакций кошелька для поиска дубликатов за O(1).
+ * Сохраняется вместе с кошельком.
+ * <p>
+ * Проверка сначала обращается к фильтру Блума: отрицательный ответ означает, что такой операции
+ * в кошельке точно нет. Положительный ответ уточняется по точному индексу (отпечаток → количество).
+ * При удалении транзакции биты фильтра не сбрасываются; фильтр пересоздаётся с удвоенной ёмкостью,
+ * когда количество отпечатков превышает расчётное.
+ * <p>
+ * Поля:
+ * - {@code int capacity} — количество элементов, на которое рассчитан фильтр.
+ * - {@link BloomFilter} filter — фильтр Блума по отпечаткам.
+ * - {@link Map} counts — точный индекс: отпечаток → количество транзакций с ним.
+ * - {@code int size} — общее количество проиндексированных транзакций.
+ */
+public class DuplicateIndex {
+    private static final int MIN_CAPACITY = 1024;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private int capacity;
+    private BloomFilter filter;
+    private final Map<Long, Integer> counts;
+    private int size;
+
+    /**
+     * Конструктор для десериализации Jackson.
+     *
+     * @param capacity      Расчётная ёмкость фильтра.
+     * @param hashFunctions Количество хеш-функций фильтра.
+     * @param bits          Битовый массив фильтра.
+     * @param fingerprints  Отпечатки всех транзакций (с повторами).
+     */
+    @JsonCreator
+    public DuplicateIndex(@JsonProperty("capacity") int capacity,
+                          @JsonProperty("hashFunctions") int hashFunctions,
+                          @JsonProperty("bits") long[] bits,
+                          @JsonProperty("fingerprints") long[] fingerprints) {
+        this.capacity = capacity;
+        this.filter = new BloomFilter(bits, hashFunctions);
+        this.counts = new HashMap<>(fingerprints.length * 2);
+        for (long fingerprint : fingerprints) {
+            counts.merge(fingerprint, 1, Integer::sum);
+        }
+        this.size = fingerprints.length;
+    }
+
+    /**
+     * Построить индекс по списку транзакций.
+     *
+     * @param transactions Транзакции кошелька.
+     */
+    public DuplicateIndex(List<Transaction> transactions) {
+        this.capacity = Math.max(MIN_CAPACITY, transactions.size() * 2);
+        this.filter = BloomFilter.create(capacity, FALSE_POSITIVE_RATE);
+        this.counts = new HashMap<>(capacity);
+        for (Transaction transaction : transactions) {
+            add(transaction.fingerprint());
+        }
+    }
+
+    /**
+     * Добавить отпечаток транзакции.
+     *
+     * @param fingerprint Отпечаток.
+     */
+    public void add(long fingerprint) {
+        counts.merge(fingerprint, 1, Integer::sum);
+        filter.put(fingerprint);
+        size++;
+        if (size > capacity) {
+            rebuild(capacity * 2);
+        }
+    }
+
+    /**
+     * Удалить отпечаток транзакции.
+     *
+     * @param fingerprint Отпечаток.
+     */
+    public void remove(long fingerprint) {
+        Integer count = counts.get(fingerprint);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            counts.put(fingerprint, count - 1);
+        } else {
+            counts.remove(fingerprint);
+        }
+        size--;
+    }
+
+    /**
+     * Получить количество транзакций с заданным отпечатком.
+     *
+     * @param fingerprint Отпечаток.
+     * @return Количество транзакций (0, если таких нет).
+     */
+    public int count(long fingerprint) {
+        if (!filter.mightContain(fingerprint)) {
+            return 0;
+        }
+        return counts.getOrDefault(fingerprint, 0);
+    }
+
+    /**
+     * Проверить, есть ли в кошельке транзакция с таким отпечатком.
+     *
+     * @param fingerprint Отпечаток.
+     * @return true, если такая транзакция есть.
+     */
+    public boolean contains(long fingerprint) {
+        return count(fingerprint) > 0;
+    }
+
+    /**
+     * Пересоздать фильтр Блума с новой ёмкостью по точному индексу.
+     */
+    private void rebuild(int newCapacity) {
+        capacity = newCapacity;
+        filter = BloomFilter.create(newCapacity, FALSE_POSITIVE_RATE);
+        for (Long fingerprint : counts.keySet()) {
+            filter.put(fingerprint);
+        }
+    }
+
+    /**
+     * Получить количество проиндексированных транзакций.
+     *
+     * @return Количество транзакций.
+     */
+    @JsonIgnore
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Получить расчётную ёмкость фильтра.
+     *
+     * @return Ёмкость.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Получить количество хеш-функций фильтра.
+     *
+     * @return Количество хеш-функций.
+     */
+    public int getHashFunctions() {
+        return filter.getHashFunctions();
+    }
+
+    /**
+     * Получить битовый массив фильтра.
+     *
+     * @return Битовый массив.
+     */
+    public long[] getBits() {
+        return filter.getBits();
+    }
+
+    /**
+     * Получить отпечатки всех транзакций (с повторами) в порядке возрастания.
+     *
+     * @return Отпечатки.
+     */
+    public long[] getFingerprints() {
+        long[] fingerprints = new long[size];
+        int position = 0;
+        for (Map.Entry<Long, Integer> entry : counts.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                fingerprints[position++] = entry.getKey();
+            }
+        }
+        Arrays.sort(fingerprints);
+        return fingerprints;
+    }
+}
@@ -0,0 +1,144 @@
+package com.beryoza.financeapp.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Неизменяемый снимок кошельков всех пользователей на момент одной записи файла кошельков.
+ * <p>
+ * Снимки строятся копированием при записи: новая версия разделяет с предыдущей версии пользователей
+ * и кошельков, которые не изменились, поэтому сохранение одного кошелька создаёт новые объекты только
+ * для него и его пользователя. Читатель, получивший снимок, видит согласованное состояние без блокировок,
+ * сколько бы ни длилось чтение, и не мешает записи.
+ * <p>
+ * Поля:
+ * - {@code long version} — номер версии (растёт с каждой записью в процессе).
+ * - {@link Map} users — версии пользователей по идентификатору в порядке хранения кошельков.
+ */
+public final class LedgerSnapshot {
+    private static final UserSnapshot NO_WALLETS = new UserSnapshot(null, 0, List.of());
+
+    private final long version;
+    private final Map<String, UserSnapshot> users;
+
+    private LedgerSnapshot(long version, Map<String, UserSnapshot> users) {
+        this.version = version;
+        this.users = Collections.unmodifiableMap(users);
+    }
+
+    /**
+     * Построить снимок по полному списку кошельков, переиспользуя неизменённые части предыдущего снимка.
+     *
+     * @param version  Номер версии.
+     * @param wallets  Все кошельки.
+     * @param previous Предыдущий снимок (может быть null).
+     * @return Снимок.
+     */
+    public static LedgerSnapshot of(long version, List<Wallet> wallets, LedgerSnapshot previous) {
+        return build(version, wallets, previous, true);
+    }
+
+    /**
+     * Построить снимок по кошелькам, только что прочитанным из файла и больше нигде не используемым.
+     * Их транзакции переходят в снимок без копирования.
+     *
+     * @param version  Номер версии.
+     * @param wallets  Все кошельки.
+     * @param previous Предыдущий снимок (может быть null).
+     * @return Снимок.
+     */
+    public static LedgerSnapshot ofLoaded(long version, List<Wallet> wallets, LedgerSnapshot previous) {
+        return build(version, wallets, previous, false);
+    }
+
+    private static LedgerSnapshot build(long version, List<Wallet> wallets, LedgerSnapshot previous, boolean copy) {
+        Map<String, List<Wallet>> byUser = new LinkedHashMap<>();
+        for (Wallet wallet : wallets) {
+            byUser.computeIfAbsent(wallet.getUserId(), key -> new ArrayList<>()).add(wallet);
+        }
+        Map<String, UserSnapshot> users = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Wallet>> entry : byUser.entrySet()) {
+            UserSnapshot old = previous != null ? previous.users.get(entry.getKey()) : null;
+            users.put(entry.getKey(), userOf(version, entry.getKey(), entry.getValue(), old, copy));
+        }
+        return new LedgerSnapshot(version, users);
+    }
+
+    /**
+     * Построить следующую версию, в которой изменился (или появился) один кошелёк.
+     *
+     * @param version Номер новой версии.
+     * @param wallet  Сохранённый кошелёк.
+     * @return Новый снимок.
+     */
+    public LedgerSnapshot withWallet(long version, Wallet wallet) {
+        UserSnapshot old = users.get(wallet.getUserId());
+        List<WalletSnapshot> wallets = new ArrayList<>(old != null ? old.wallets() : List.of());
+        int index = -1;
+        for (int i = 0; i < wallets.size(); i++) {
+            if (wallets.get(i).name().equals(wallet.getName())) {
+                index = i;
+                break;
+            }
+        }
+        WalletSnapshot updated = WalletSnapshot.of(wallet, index >= 0 ? wallets.get(index) : null);
+        if (index >= 0 && updated == wallets.get(index)) {
+            return new LedgerSnapshot(version, users);
+        }
+        if (index >= 0) {
+            wallets.set(index, updated);
+        } else {
+            wallets.add(updated);
+        }
+        Map<String, UserSnapshot> next = new LinkedHashMap<>(users);
+        next.put(wallet.getUserId(), new UserSnapshot(wallet.getUserId(), version, List.copyOf(wallets)));
+        return new LedgerSnapshot(version, next);
+    }
+
+    private static UserSnapshot userOf(long version, String userId, List<Wallet> wallets, UserSnapshot previous,
+                                       boolean copy) {
+        List<WalletSnapshot> snapshots = new ArrayList<>(wallets.size());
+        boolean changed = previous == null || previous.wallets().size() != wallets.size();
+        for (int i = 0; i < wallets.size(); i++) {
+            WalletSnapshot old = previous != null ? previous.wallet(wallets.get(i).getName()) : null;
+            WalletSnapshot snapshot = WalletSnapshot.of(wallets.get(i), old, copy);
+            if (!changed && snapshot != previous.wallets().get(i)) {
+                changed = true;
+            }
+            snapshots.add(snapshot);
+        }
+        return changed ? new UserSnapshot(userId, version, List.copyOf(snapshots)) : previous;
+    }
+
+    /**
+     * Получить номер версии снимка.
+     *
+     * @return Номер версии.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Получить кошельки пользователя.
+     *
+     * @param userId Идентификатор пользователя.
+     * @return Версия пользователя (без кошельков, если у пользователя их нет).
+     */
+    public UserSnapshot getUser(String userId) {
+        return users.getOrDefault(userId, NO_WALLETS);
+    }
+
+    /**
+     * Получить версии всех пользователей, у которых есть кошельки.
+     *
+     * @return Неизменяемая коллекция в порядке хранения кошельков.
+     */
+    public Collection<UserSnapshot> getUsers() {
+        return users.values();
+    }
+}
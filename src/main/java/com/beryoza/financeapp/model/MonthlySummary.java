@@ -0,0 +1,180 @@
+package com.beryoza.financeapp.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.YearMonth;
+
+/**
+ * Строка материализованной сводки: доходы и расходы пользователя за месяц по одной категории.
+ * Суммы хранятся в копейках, чтобы при многократном инкрементальном обновлении
+ * не накапливалась ошибка округления.
+ * <p>
+ * Поля:
+ * - {@code String userId} — идентификатор пользователя.
+ * - {@link YearMonth} month — месяц.
+ * - {@code String category} — название категории.
+ * - {@code long incomeCents} — сумма доходов в копейках.
+ * - {@code long expenseCents} — сумма расходов в копейках (положительная).
+ * - {@code int transactionCount} — количество учтённых транзакций.
+ */
+public class MonthlySummary {
+    private String userId;
+    private final YearMonth month;
+    private final String category;
+    private long incomeCents;
+    private long expenseCents;
+    private int transactionCount;
+
+    /**
+     * Конструктор для десериализации Jackson.
+     *
+     * @param userId           Идентификатор пользователя.
+     * @param month            Месяц.
+     * @param category         Название категории.
+     * @param incomeCents      Сумма доходов в копейках.
+     * @param expenseCents     Сумма расходов в копейках.
+     * @param transactionCount Количество транзакций.
+     */
+    @JsonCreator
+    public MonthlySummary(@JsonProperty("userId") String userId,
+                          @JsonProperty("month") YearMonth month,
+                          @JsonProperty("category") String category,
+                          @JsonProperty("incomeCents") long incomeCents,
+                          @JsonProperty("expenseCents") long expenseCents,
+                          @JsonProperty("transactionCount") int transactionCount) {
+        this.userId = userId;
+        this.month = month;
+        this.category = category;
+        this.incomeCents = incomeCents;
+        this.expenseCents = expenseCents;
+        this.transactionCount = transactionCount;
+    }
+
+    /**
+     * Конструктор пустой строки сводки.
+     *
+     * @param userId   Идентификатор пользователя.
+     * @param month    Месяц.
+     * @param category Название категории.
+     */
+    public MonthlySummary(String userId, YearMonth month, String category) {
+        this(userId, month, category, 0, 0, 0);
+    }
+
+    /**
+     * Учесть транзакцию в сводке или исключить её из сводки.
+     *
+     * @param amount Сумма транзакции (положительная для доходов, отрицательная для расходов).
+     * @param sign   1 — добавить транзакцию, -1 — исключить.
+     */
+    public void apply(double amount, int sign) {
+        long cents = Math.round(amount * 100);
+        if (cents > 0) {
+            incomeCents += sign * cents;
+        } else {
+            expenseCents -= sign * cents;
+        }
+        transactionCount += sign;
+    }
+
+    /**
+     * Получить идентификатор пользователя.
+     *
+     * @return Идентификатор пользователя.
+     */
+    public String getUserId() {
+        return userId;
+    }
+
+    /**
+     * Установить идентификатор пользователя (при смене логина).
+     *
+     * @param userId Новый идентификатор пользователя.
+     */
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    /**
+     * Получить месяц.
+     *
+     * @return Месяц.
+     */
+    public YearMonth getMonth() {
+        return month;
+    }
+
+    /**
+     * Получить название категории.
+     *
+     * @return Название категории.
+     */
+    public String getCategory() {
+        return category;
+    }
+
+    /**
+     * Получить сумму доходов в копейках.
+     *
+     * @return Сумма доходов.
+     */
+    public long getIncomeCents() {
+        return incomeCents;
+    }
+
+    /**
+     * Получить сумму расходов в копейках.
+     *
+     * @return Сумма расходов (положительная).
+     */
+    public long getExpenseCents() {
+        return expenseCents;
+    }
+
+    /**
+     * Получить количество учтённых транзакций.
+     *
+     * @return Количество транзакций.
+     */
+    public int getTransactionCount() {
+        return transactionCount;
+    }
+
+    /**
+     * Получить сумму доходов.
+     *
+     * @return Сумма доходов.
+     */
+    @JsonIgnore
+    public double getIncome() {
+        return incomeCents / 100.0;
+    }
+
+    /**
+     * Получить сумму расходов.
+     *
+     * @return Сумма расходов (положительная).
+     */
+    @JsonIgnore
+    public double getExpense() {
+        return expenseCents / 100.0;
+    }
+
+    /**
+     * Строковое представление строки сводки.
+     *
+     * @return Строковое представление.
+     */
+    public String toString() {
+        return "MonthlySummary{" +
+                "userId='" + userId + '\'' +
+                ", month=" + month +
+                ", category='" + category + '\'' +
+                ", income=" + getIncome() +
+                ", expense=" + getExpense() +
+                ", transactionCount=" + transactionCount +
+                '}';
+    }
+}
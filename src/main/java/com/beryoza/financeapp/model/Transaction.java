@@ -1,44 +1,101 @@
 package com.beryoza.financeapp.model;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.time.LocalDate;
-import java.util.UUID;
 
 /**
  * Финансовая транзакция. Например, покупка продуктов или получение зарплаты.
  * Хранит информацию о сумме, категории и дате операции.
  * <p>
  * Поля:
- * - {@code String id} — уникальный идентификатор транзакции.
+ * - {@link TransactionId} id — уникальный идентификатор транзакции (128 бит; в JSON — строка UUID).
  * - {@code double amount} — сумма транзакции (положительная для доходов, отрицательная для расходов).
  * - {@link Category} category — категория, к которой относится транзакция.
  * - {@link LocalDate} date — дата совершения транзакции.
+ * - {@code String description} — описание операции (например, из банковской выписки); может отсутствовать.
+ * - {@link TransferReference} transfer — перевод, частью которого является транзакция; у обычных операций
+ * отсутствует. Части перевода не имеют категории и не учитываются в доходах и расходах.
  */
 public class Transaction {
-    private final String id;
+    private final TransactionId id;
     private double amount;
+    // Версия нужна только самой категории в файле категорий, в копии внутри транзакции она не хранится.
+    @JsonIgnoreProperties("version")
     private Category category;
     private LocalDate date;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String description;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final TransferReference transfer;
 
     /**
      * Конструктор для десериализации Jackson.
      *
-     * @param id       Уникальный идентификатор транзакции.
-     * @param amount   Сумма транзакции. Положительная для доходов, отрицательная для расходов.
-     * @param category Категория транзакции.
-     * @param date     Дата транзакции.
+     * @param id          Уникальный идентификатор транзакции (null — создать новый).
+     * @param amount      Сумма транзакции. Положительная для доходов, отрицательная для расходов.
+     * @param category    Категория транзакции.
+     * @param date        Дата транзакции.
+     * @param description Описание операции (может быть null).
+     * @param transfer    Перевод, частью которого является транзакция (может быть null).
      */
     @JsonCreator
     public Transaction(@JsonProperty("id") String id,
                        @JsonProperty("amount") double amount,
                        @JsonProperty("category") Category category,
-                       @JsonProperty("date") LocalDate date) {
-        this.id = id != null ? id : UUID.randomUUID().toString();
+                       @JsonProperty("date") LocalDate date,
+                       @JsonProperty("description") String description,
+                       @JsonProperty("transfer") TransferReference transfer) {
+        this(id != null ? TransactionId.parse(id) : null, amount, category, date, description, transfer);
+    }
+
+    /**
+     * Конструктор транзакции с уже разобранным идентификатором.
+     *
+     * @param id          Уникальный идентификатор транзакции (null — создать новый).
+     * @param amount      Сумма транзакции.
+     * @param category    Категория транзакции.
+     * @param date        Дата транзакции.
+     * @param description Описание операции (может быть null).
+     * @param transfer    Перевод, частью которого является транзакция (может быть null).
+     */
+    public Transaction(TransactionId id, double amount, Category category, LocalDate date, String description,
+                       TransferReference transfer) {
+        this.id = id != null ? id : TransactionId.generate();
         this.amount = amount;
         this.category = category;
         this.date = date;
+        this.description = description;
+        this.transfer = transfer;
+    }
+
+    /**
+     * Конструктор транзакции с известным идентификатором, не являющейся частью перевода.
+     *
+     * @param id          Уникальный идентификатор транзакции.
+     * @param amount      Сумма транзакции.
+     * @param category    Категория транзакции.
+     * @param date        Дата транзакции.
+     * @param description Описание операции (может быть null).
+     */
+    public Transaction(String id, double amount, Category category, LocalDate date, String description) {
+        this(id, amount, category, date, description, null);
+    }
+
+    /**
+     * Конструктор транзакции с известным идентификатором и без описания.
+     *
+     * @param id       Уникальный идентификатор транзакции.
+     * @param amount   Сумма транзакции.
+     * @param category Категория транзакции.
+     * @param date     Дата транзакции.
+     */
+    public Transaction(String id, double amount, Category category, LocalDate date) {
+        this(id, amount, category, date, null);
     }
 
     /**
@@ -49,15 +106,37 @@ public class Transaction {
      * @param date     Дата транзакции.
      */
     public Transaction(double amount, Category category, LocalDate date) {
-        this(UUID.randomUUID().toString(), amount, category, date);
+        this((TransactionId) null, amount, category, date, null, null);
     }
 
     /**
-     * Получить уникальный идентификатор транзакции.
+     * Конструктор для создания новой транзакции с описанием.
+     *
+     * @param amount      Сумма транзакции.
+     * @param category    Категория транзакции.
+     * @param date        Дата транзакции.
+     * @param description Описание операции.
+     */
+    public Transaction(double amount, Category category, LocalDate date, String description) {
+        this((TransactionId) null, amount, category, date, description, null);
+    }
+
+    /**
+     * Получить уникальный идентификатор транзакции в виде строки.
      *
      * @return Уникальный идентификатор транзакции.
      */
     public String getId() {
+        return id.toString();
+    }
+
+    /**
+     * Получить уникальный идентификатор транзакции (для сравнений и ключей таблиц без создания строк).
+     *
+     * @return Идентификатор.
+     */
+    @JsonIgnore
+    public TransactionId getTransactionId() {
         return id;
     }
 
@@ -116,6 +195,82 @@ public class Transaction {
         this.date = date;
     }
 
+    /**
+     * Получить описание операции.
+     *
+     * @return Описание или null, если оно не задано.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Установить описание операции.
+     *
+     * @param description Новое описание.
+     */
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    /**
+     * Получить перевод, частью которого является транзакция.
+     *
+     * @return Ссылка на перевод или null для обычной операции.
+     */
+    public TransferReference getTransfer() {
+        return transfer;
+    }
+
+    /**
+     * Проверить, является ли транзакция частью перевода.
+     *
+     * @return true для части перевода.
+     */
+    @JsonIgnore
+    public boolean isTransfer() {
+        return transfer != null;
+    }
+
+    /**
+     * Вычислить отпечаток содержимого транзакции по дате, сумме (в копейках) и описанию
+     * (без учёта регистра и повторяющихся пробелов). В отличие от {@link #getId()}, отпечаток
+     * совпадает у одной и той же банковской операции, пришедшей дважды.
+     *
+     * @return 64-битный отпечаток.
+     */
+    public long fingerprint() {
+        long hash = 0xcbf29ce484222325L;
+        hash = mix(hash, date != null ? date.toEpochDay() : Long.MIN_VALUE);
+        hash = mix(hash, Math.round(amount * 100));
+        if (description != null) {
+            boolean space = true;
+            for (int i = 0; i < description.length(); i++) {
+                char ch = description.charAt(i);
+                if (Character.isWhitespace(ch)) {
+                    space = true;
+                    continue;
+                }
+                if (space) {
+                    hash = mix(hash, ' ');
+                    space = false;
+                }
+                hash = mix(hash, Character.toLowerCase(ch));
+            }
+        }
+        // Финальное перемешивание (как в MurmurHash3), чтобы все биты отпечатка были равномерными.
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        return (hash ^ value) * 0x100000001b3L;
+    }
+
     /**
      * Строковое представление транзакции: сумма, категория, дата.
      *
@@ -127,6 +282,8 @@ public class Transaction {
                 ", amount=" + amount +
                 ", category=" + category +
                 ", date=" + date +
+                (description != null ? ", description='" + description + '\'' : "") +
+                (transfer != null ? ", transfer=" + transfer : "") +
                 '}';
     }
 }
\ No newline at end of file
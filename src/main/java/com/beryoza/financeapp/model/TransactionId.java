@@ -0,0 +1,221 @@
+package com.beryoza.financeapp.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Идентификатор транзакции: 128-битное значение в двух числах {@code long}.
+ * <p>
+ * Новые идентификаторы упорядочены по времени создания (формат UUID версии 7: 48 бит — время в миллисекундах,
+ * остальные биты — случайные), поэтому транзакции, созданные подряд, получают близкие значения. В JSON
+ * и в интерфейсе идентификатор записывается как UUID в каноническом виде (36 символов в нижнем регистре),
+ * поэтому прежние идентификаторы из {@link java.util.UUID#randomUUID()} читаются без изменений.
+ * Строка другого вида (например, из данных, исправленных вручную) сохраняется как есть и сравнивается как строка.
+ * <p>
+ * Сравнение и хеширование не создают объектов.
+ * <p>
+ * Поля:
+ * - {@code long mostSigBits} — старшие 64 бита.
+ * - {@code long leastSigBits} — младшие 64 бита.
+ * - {@code String legacy} — исходная строка для идентификатора не в виде UUID (иначе null).
+ */
+public final class TransactionId implements Comparable<TransactionId> {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final long mostSigBits;
+    private final long leastSigBits;
+    private final String legacy;
+
+    private TransactionId(long mostSigBits, long leastSigBits, String legacy) {
+        this.mostSigBits = mostSigBits;
+        this.leastSigBits = leastSigBits;
+        this.legacy = legacy;
+    }
+
+    /**
+     * Получить идентификатор по двум половинам.
+     *
+     * @param mostSigBits  Старшие 64 бита.
+     * @param leastSigBits Младшие 64 бита.
+     * @return Идентификатор.
+     */
+    public static TransactionId of(long mostSigBits, long leastSigBits) {
+        return new TransactionId(mostSigBits, leastSigBits, null);
+    }
+
+    /**
+     * Создать новый идентификатор, упорядоченный по времени (UUID версии 7).
+     *
+     * @return Новый идентификатор.
+     */
+    public static TransactionId generate() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSigBits = (System.currentTimeMillis() << 16) | 0x7000L | (random.nextLong() & 0x0FFFL);
+        long leastSigBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new TransactionId(mostSigBits, leastSigBits, null);
+    }
+
+    /**
+     * Разобрать идентификатор из строки. Канонический UUID хранится в двух числах, любая другая
+     * непустая строка — как есть.
+     *
+     * @param value Строка идентификатора.
+     * @return Идентификатор.
+     * @throws IllegalArgumentException Если строка пустая.
+     */
+    @JsonCreator
+    public static TransactionId parse(String value) {
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Идентификатор транзакции не может быть пустым.");
+        }
+        if (value.length() != 36 || value.charAt(8) != '-' || value.charAt(13) != '-'
+                || value.charAt(18) != '-' || value.charAt(23) != '-') {
+            return new TransactionId(0, 0, value);
+        }
+        long mostSigBits = 0;
+        long leastSigBits = 0;
+        for (int i = 0; i < 36; i++) {
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                continue;
+            }
+            int digit = hexDigit(value.charAt(i));
+            if (digit < 0) {
+                return new TransactionId(0, 0, value);
+            }
+            if (i < 19) {
+                mostSigBits = (mostSigBits << 4) | digit;
+            } else {
+                leastSigBits = (leastSigBits << 4) | digit;
+            }
+        }
+        return new TransactionId(mostSigBits, leastSigBits, null);
+    }
+
+    /**
+     * Получить старшие 64 бита.
+     *
+     * @return Старшие биты (0 для идентификатора не в виде UUID).
+     */
+    public long getMostSignificantBits() {
+        return mostSigBits;
+    }
+
+    /**
+     * Получить младшие 64 бита.
+     *
+     * @return Младшие биты (0 для идентификатора не в виде UUID).
+     */
+    public long getLeastSignificantBits() {
+        return leastSigBits;
+    }
+
+    /**
+     * Проверить, хранится ли идентификатор в двух числах (записан в виде UUID).
+     *
+     * @return true для идентификатора в виде UUID.
+     */
+    public boolean isCompact() {
+        return legacy == null;
+    }
+
+    /**
+     * Сравнить со строкой идентификатора без разбора и создания объектов.
+     *
+     * @param value Строка идентификатора.
+     * @return true, если строка задаёт этот идентификатор.
+     */
+    public boolean matches(String value) {
+        if (legacy != null) {
+            return legacy.equals(value);
+        }
+        if (value == null || value.length() != 36) {
+            return false;
+        }
+        int bit = 124;
+        for (int i = 0; i < 36; i++) {
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (value.charAt(i) != '-') {
+                    return false;
+                }
+                continue;
+            }
+            long half = bit >= 64 ? mostSigBits : leastSigBits;
+            if (value.charAt(i) != HEX[(int) (half >>> (bit & 63)) & 0xF]) {
+                return false;
+            }
+            bit -= 4;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TransactionId other)) {
+            return false;
+        }
+        return mostSigBits == other.mostSigBits && leastSigBits == other.leastSigBits
+                && (legacy == null ? other.legacy == null : legacy.equals(other.legacy));
+    }
+
+    @Override
+    public int hashCode() {
+        if (legacy != null) {
+            return legacy.hashCode();
+        }
+        long hash = mostSigBits ^ leastSigBits;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Сравнить идентификаторы: сначала в виде UUID по беззнаковому значению (то есть по времени создания
+     * для новых), затем остальные по строке.
+     */
+    @Override
+    public int compareTo(TransactionId other) {
+        if (legacy != null || other.legacy != null) {
+            if (legacy == null) {
+                return -1;
+            }
+            return other.legacy == null ? 1 : legacy.compareTo(other.legacy);
+        }
+        int result = Long.compareUnsigned(mostSigBits, other.mostSigBits);
+        return result != 0 ? result : Long.compareUnsigned(leastSigBits, other.leastSigBits);
+    }
+
+    /**
+     * Получить строку идентификатора (канонический UUID или исходную строку).
+     *
+     * @return Строка идентификатора.
+     */
+    @JsonValue
+    @Override
+    public String toString() {
+        if (legacy != null) {
+            return legacy;
+        }
+        char[] chars = new char[36];
+        int bit = 124;
+        for (int i = 0; i < 36; i++) {
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                chars[i] = '-';
+                continue;
+            }
+            long half = bit >= 64 ? mostSigBits : leastSigBits;
+            chars[i] = HEX[(int) (half >>> (bit & 63)) & 0xF];
+            bit -= 4;
+        }
+        return new String(chars);
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        return c >= 'a' && c <= 'f' ? c - 'a' + 10 : -1;
+    }
+}
@@ -0,0 +1,169 @@
+package com.beryoza.financeapp.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Часть распределённого перевода, подготовленная на одном узле (участник двухфазной фиксации).
+ * Списание выполняется уже при подготовке, поэтому подготовленные средства не могут быть потрачены
+ * другой операцией; при отмене они возвращаются. Зачисление выполняется только при фиксации.
+ * <p>
+ * Поля:
+ * - {@code String transferId} — идентификатор перевода (общий для обеих частей).
+ * - {@code String transferKey} — ключ перевода в транзакциях кошельков (null — совпадает с transferId).
+ * - {@code String userId} — владелец кошелька.
+ * - {@code String walletName} — кошелёк.
+ * - {@code double amount} — изменение баланса: отрицательное для списания, положительное для зачисления.
+ * - {@code String counterpartyUserId} — пользователь другой стороны перевода.
+ * - {@code String counterpartyWallet} — кошелёк другой стороны перевода.
+ * - {@link Status} status — состояние части перевода.
+ */
+public class TransferLeg {
+
+    /**
+     * Состояние части перевода.
+     */
+    public enum Status {
+        PREPARED, COMMITTED, ABORTED
+    }
+
+    private final String transferId;
+    private final String transferKey;
+    private final String userId;
+    private final String walletName;
+    private final double amount;
+    private final String counterpartyUserId;
+    private final String counterpartyWallet;
+    private Status status;
+
+    /**
+     * Конструктор для десериализации Jackson.
+     *
+     * @param transferId         Идентификатор перевода.
+     * @param transferKey        Ключ перевода в транзакциях кошельков (null — совпадает с transferId).
+     * @param userId             Владелец кошелька.
+     * @param walletName         Кошелёк.
+     * @param amount             Изменение баланса.
+     * @param counterpartyUserId Пользователь другой стороны.
+     * @param counterpartyWallet Кошелёк другой стороны.
+     * @param status             Состояние.
+     */
+    @JsonCreator
+    public TransferLeg(@JsonProperty("transferId") String transferId,
+                       @JsonProperty("transferKey") String transferKey,
+                       @JsonProperty("userId") String userId,
+                       @JsonProperty("walletName") String walletName,
+                       @JsonProperty("amount") double amount,
+                       @JsonProperty("counterpartyUserId") String counterpartyUserId,
+                       @JsonProperty("counterpartyWallet") String counterpartyWallet,
+                       @JsonProperty("status") Status status) {
+        this.transferId = transferId;
+        this.transferKey = transferKey;
+        this.userId = userId;
+        this.walletName = walletName;
+        this.amount = amount;
+        this.counterpartyUserId = counterpartyUserId;
+        this.counterpartyWallet = counterpartyWallet;
+        this.status = status;
+    }
+
+    /**
+     * Получить идентификатор перевода.
+     *
+     * @return Идентификатор перевода.
+     */
+    public String getTransferId() {
+        return transferId;
+    }
+
+    /**
+     * Получить ключ перевода в транзакциях кошельков.
+     *
+     * @return Ключ перевода.
+     */
+    public String getTransferKey() {
+        return transferKey != null ? transferKey : transferId;
+    }
+
+    /**
+     * Получить владельца кошелька.
+     *
+     * @return Идентификатор пользователя.
+     */
+    public String getUserId() {
+        return userId;
+    }
+
+    /**
+     * Получить название кошелька.
+     *
+     * @return Название кошелька.
+     */
+    public String getWalletName() {
+        return walletName;
+    }
+
+    /**
+     * Получить изменение баланса.
+     *
+     * @return Отрицательное значение для списания, положительное для зачисления.
+     */
+    public double getAmount() {
+        return amount;
+    }
+
+    /**
+     * Получить пользователя другой стороны перевода.
+     *
+     * @return Идентификатор пользователя.
+     */
+    public String getCounterpartyUserId() {
+        return counterpartyUserId;
+    }
+
+    /**
+     * Получить кошелёк другой стороны перевода.
+     *
+     * @return Название кошелька.
+     */
+    public String getCounterpartyWallet() {
+        return counterpartyWallet;
+    }
+
+    /**
+     * Получить состояние.
+     *
+     * @return Состояние части перевода.
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Установить состояние.
+     *
+     * @param status Новое состояние.
+     */
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /**
+     * Получить строковое представление части перевода.
+     *
+     * @return Информация о части перевода в текстовом формате.
+     */
+    @Override
+    public String toString() {
+        return "TransferLeg{" +
+                "transferId='" + transferId + '\'' +
+                ", transferKey='" + transferKey + '\'' +
+                ", userId='" + userId + '\'' +
+                ", walletName='" + walletName + '\'' +
+                ", amount=" + amount +
+                ", counterpartyUserId='" + counterpartyUserId + '\'' +
+                ", counterpartyWallet='" + counterpartyWallet + '\'' +
+                ", status=" + status +
+                '}';
+    }
+}
@@ -0,0 +1,12 @@
+package com.beryoza.financeapp.model;
+
+/**
+ * Ссылка части перевода (транзакции) на перевод и на кошелёк другой стороны.
+ * Обе части одного перевода имеют одинаковый идентификатор и ссылаются друг на друга.
+ *
+ * @param id                 Идентификатор перевода (ключ идемпотентности).
+ * @param counterpartyUserId Владелец кошелька другой стороны.
+ * @param counterpartyWallet Название кошелька другой стороны.
+ */
+public record TransferReference(String id, String counterpartyUserId, String counterpartyWallet) {
+}
@@ -0,0 +1,28 @@
+package com.beryoza.financeapp.model;
+
+import java.util.List;
+
+/**
+ * Неизменяемая версия кошельков одного пользователя в снимке ({@link LedgerSnapshot}).
+ *
+ * @param userId  Идентификатор пользователя.
+ * @param version Версия снимка, в которой кошельки пользователя изменились последний раз.
+ * @param wallets Неизменяемый список кошельков в порядке хранения.
+ */
+public record UserSnapshot(String userId, long version, List<WalletSnapshot> wallets) {
+
+    /**
+     * Найти кошелёк по названию.
+     *
+     * @param name Название кошелька.
+     * @return Кошелёк или null, если его нет.
+     */
+    public WalletSnapshot wallet(String name) {
+        for (WalletSnapshot wallet : wallets) {
+            if (wallet.name().equals(name)) {
+                return wallet;
+            }
+        }
+        return null;
+    }
+}
@@ -1,10 +1,19 @@
 package com.beryoza.financeapp.model;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * Класс для представления кошелька.
@@ -16,41 +25,87 @@ import java.util.List;
  * - {@code String name} — название кошелька.
  * - {@code double balance} — текущий баланс кошелька.
  * - {@link List}<{@link Transaction}> transactions — список транзакций, связанных с кошельком.
+ * - {@link DuplicateIndex} duplicateIndex — индекс отпечатков транзакций для поиска дубликатов.
+ * - {@code long version} — версия сохранённого состояния для оптимистической блокировки
+ * (0 — кошелёк ещё не сохранён; каждое сохранение увеличивает версию на 1).
+ * - {@link Map} adjustments — прямые изменения баланса (не транзакциями) по дням, в копейках.
+ * - {@link List}<{@link ArchivedMonth}> archive — сводные строки транзакций, перенесённых в архив
+ * (см. {@link #archive(ArchivedMonth, Collection)}).
+ * - {@link BalanceHistory} history — история баланса с месячными контрольными точками (не сохраняется;
+ * строится при первом обращении, до этого null).
  */
 public class Wallet {
     private String userId;
     private String name;
     private double balance;
     private List<Transaction> transactions;
+    private DuplicateIndex duplicateIndex;
+    private long version;
+    private final Map<LocalDate, Long> adjustments;
+    private final List<ArchivedMonth> archive;
+    private BalanceHistory history;
 
     /**
      * Конструктор для десериализации Jackson.
+     * Если индекс дубликатов отсутствует (файл старого формата) или не соответствует
+     * списку транзакций, он строится заново.
      *
-     * @param userId       Идентификатор пользователя.
-     * @param name         Название кошелька.
-     * @param balance      Баланс кошелька.
-     * @param transactions Список транзакций.
+     * @param userId         Идентификатор пользователя.
+     * @param name           Название кошелька.
+     * @param balance        Баланс кошелька.
+     * @param transactions   Список транзакций.
+     * @param duplicateIndex Сохранённый индекс дубликатов (может быть null).
+     * @param version        Версия сохранённого состояния. В файлах старого формата версии нет:
+     *                       такой кошелёк считается сохранённым с версией 1.
+     * @param adjustments    Прямые изменения баланса по дням (может быть null). Остаток баланса,
+     *                       не объяснённый транзакциями и изменениями, считается начальным балансом.
+     * @param archive        Сводные строки архивных сегментов (может быть null).
      */
     @JsonCreator
     public Wallet(@JsonProperty("userId") String userId,
                   @JsonProperty("name") String name,
                   @JsonProperty("balance") double balance,
-                  @JsonProperty("transactions") List<Transaction> transactions) {
+                  @JsonProperty("transactions") List<Transaction> transactions,
+                  @JsonProperty("duplicateIndex") DuplicateIndex duplicateIndex,
+                  @JsonProperty("version") long version,
+                  @JsonProperty("adjustments") Map<LocalDate, Long> adjustments,
+                  @JsonProperty("archive") List<ArchivedMonth> archive) {
         this.userId = userId;
         this.name = name;
         this.balance = balance;
         this.transactions = transactions != null ? transactions : new ArrayList<>();
+        this.duplicateIndex = duplicateIndex != null && duplicateIndex.getSize() == this.transactions.size()
+                ? duplicateIndex
+                : new DuplicateIndex(this.transactions);
+        this.version = Math.max(version, 1);
+        this.adjustments = adjustments != null ? new TreeMap<>(adjustments) : new TreeMap<>();
+        this.archive = archive != null ? new ArrayList<>(archive) : new ArrayList<>();
+    }
+
+    /**
+     * Конструктор нового (ещё не сохранённого) кошелька с готовым списком транзакций.
+     *
+     * @param userId       Идентификатор пользователя.
+     * @param name         Название кошелька.
+     * @param balance      Баланс кошелька.
+     * @param transactions Список транзакций.
+     */
+    public Wallet(String userId, String name, double balance, List<Transaction> transactions) {
+        this(userId, name, balance, transactions, null, 0, null, null);
+        this.version = 0;
     }
 
     /**
-     * Конструктор для создания нового кошелька.
+     * Конструктор для создания нового кошелька. Начальный баланс учитывается в истории
+     * как изменение за текущий день.
      *
      * @param userId  Идентификатор пользователя.
      * @param name    Название кошелька.
      * @param balance Начальный баланс кошелька.
      */
     public Wallet(String userId, String name, double balance) {
-        this(userId, name, balance, new ArrayList<>());
+        this(userId, name, 0, new ArrayList<>());
+        setBalance(balance);
     }
 
     /**
@@ -99,12 +154,133 @@ public class Wallet {
     }
 
     /**
-     * Установить новый баланс кошелька.
+     * Установить новый баланс кошелька. Разница с прежним балансом записывается
+     * как прямое изменение за текущий день.
      *
      * @param balance Новый баланс кошелька.
      */
     public void setBalance(double balance) {
+        long cents = BalanceHistory.toCents(balance) - BalanceHistory.toCents(this.balance);
         this.balance = balance;
+        if (cents != 0) {
+            LocalDate today = LocalDate.now();
+            if (adjustments.merge(today, cents, Long::sum) == 0) {
+                adjustments.remove(today);
+            }
+            recordHistory(today, cents);
+        }
+    }
+
+    /**
+     * Получить прямые изменения баланса по дням.
+     *
+     * @return Изменения в копейках.
+     */
+    public Map<LocalDate, Long> getAdjustments() {
+        return adjustments;
+    }
+
+    /**
+     * Получить сводные строки архивных сегментов кошелька.
+     *
+     * @return Строки в порядке архивации (неизменяемый список).
+     */
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    public List<ArchivedMonth> getArchive() {
+        return Collections.unmodifiableList(archive);
+    }
+
+    /**
+     * Перенести транзакции в архив: транзакции удаляются из кошелька, вместо них остаётся сводная строка
+     * сегмента. Баланс не меняется; в истории баланса итог сегмента относится к последнему дню его месяца.
+     *
+     * @param row          Сводная строка записанного сегмента.
+     * @param transactions Транзакции сегмента (из списка транзакций кошелька).
+     */
+    public void archive(ArchivedMonth row, Collection<Transaction> transactions) {
+        Set<TransactionId> moved = new HashSet<>();
+        for (Transaction transaction : transactions) {
+            moved.add(transaction.getTransactionId());
+        }
+        this.transactions.removeIf(transaction -> moved.contains(transaction.getTransactionId()));
+        for (Transaction transaction : transactions) {
+            duplicateIndex.remove(transaction.fingerprint());
+            recordHistory(transaction.getDate(), -BalanceHistory.toCents(transaction.getAmount()));
+        }
+        recordHistory(row.month().atEndOfMonth(), row.netCents());
+        archive.add(row);
+    }
+
+    /**
+     * Вернуть транзакции сегмента из архива в кошелёк (обратное {@link #archive}).
+     *
+     * @param row          Сводная строка сегмента.
+     * @param transactions Транзакции, прочитанные из сегмента.
+     */
+    public void restore(ArchivedMonth row, List<Transaction> transactions) {
+        if (!archive.remove(row)) {
+            return;
+        }
+        recordHistory(row.month().atEndOfMonth(), -row.netCents());
+        for (Transaction transaction : transactions) {
+            this.transactions.add(transaction);
+            duplicateIndex.add(transaction.fingerprint());
+            recordHistory(transaction.getDate(), BalanceHistory.toCents(transaction.getAmount()));
+        }
+    }
+
+    /**
+     * Получить историю баланса.
+     *
+     * @return История баланса с месячными контрольными точками.
+     */
+    @JsonIgnore
+    public BalanceHistory getHistory() {
+        if (history == null) {
+            history = BalanceHistory.of(balance, transactions, adjustments, archive);
+        }
+        return history;
+    }
+
+    /**
+     * Получить баланс кошелька на конец указанного дня.
+     *
+     * @param date Дата.
+     * @return Баланс.
+     */
+    public double getBalanceAt(LocalDate date) {
+        return getHistory().balanceCentsAt(date) / 100.0;
+    }
+
+    /**
+     * Учесть изменение баланса в истории, если она уже построена. Ещё не построенная история
+     * будет собрана по текущему состоянию кошелька при первом обращении.
+     *
+     * @param date  Дата изменения.
+     * @param cents Изменение в копейках.
+     */
+    private void recordHistory(LocalDate date, long cents) {
+        if (history != null) {
+            history.add(date, cents);
+        }
+    }
+
+    /**
+     * Получить версию сохранённого состояния кошелька.
+     *
+     * @return Версия (0, если кошелёк ещё не сохранён).
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Установить версию сохранённого состояния (выполняет репозиторий при сохранении).
+     *
+     * @param version Версия.
+     */
+    public void setVersion(long version) {
+        this.version = version;
     }
 
     /**
@@ -123,7 +299,9 @@ public class Wallet {
      */
     public void addTransaction(Transaction transaction) {
         transactions.add(transaction);
+        duplicateIndex.add(transaction.fingerprint());
         balance += transaction.getAmount();
+        recordHistory(transaction.getDate(), BalanceHistory.toCents(transaction.getAmount()));
     }
 
     /**
@@ -133,10 +311,47 @@ public class Wallet {
      */
     public void removeTransaction(Transaction transaction) {
         if (transactions.remove(transaction)) {
+            duplicateIndex.remove(transaction.fingerprint());
             balance -= transaction.getAmount();
+            recordHistory(transaction.getDate(), -BalanceHistory.toCents(transaction.getAmount()));
         }
     }
 
+    /**
+     * Обновить баланс, его историю и индекс дубликатов после изменения даты, суммы
+     * или описания транзакции.
+     *
+     * @param previous    Копия транзакции до изменения.
+     * @param transaction Изменённая транзакция.
+     */
+    public void transactionChanged(Transaction previous, Transaction transaction) {
+        duplicateIndex.remove(previous.fingerprint());
+        duplicateIndex.add(transaction.fingerprint());
+        balance += transaction.getAmount() - previous.getAmount();
+        recordHistory(previous.getDate(), -BalanceHistory.toCents(previous.getAmount()));
+        recordHistory(transaction.getDate(), BalanceHistory.toCents(transaction.getAmount()));
+    }
+
+    /**
+     * Проверить, есть ли в кошельке операция с тем же содержимым (дата, сумма, описание).
+     * Проверка выполняется по индексу, без просмотра истории транзакций.
+     *
+     * @param transaction Проверяемая транзакция.
+     * @return true, если такая операция уже есть.
+     */
+    public boolean containsDuplicateOf(Transaction transaction) {
+        return duplicateIndex.contains(transaction.fingerprint());
+    }
+
+    /**
+     * Получить индекс дубликатов кошелька.
+     *
+     * @return Индекс дубликатов.
+     */
+    public DuplicateIndex getDuplicateIndex() {
+        return duplicateIndex;
+    }
+
     /**
      * Найти транзакцию по ID.
      *
@@ -144,8 +359,12 @@ public class Wallet {
      * @return Транзакция, если найдена; иначе null.
      */
     public Transaction findTransactionById(String id) {
+        if (id == null || id.isEmpty()) {
+            return null;
+        }
+        TransactionId transactionId = TransactionId.parse(id);
         for (Transaction transaction : transactions) {
-            if (transaction.getId().equals(id)) {
+            if (transaction.getTransactionId().equals(transactionId)) {
                 return transaction;
             }
         }
@@ -163,6 +382,8 @@ public class Wallet {
                 ", name='" + name + '\'' +
                 ", balance=" + balance +
                 ", transactions=" + transactions.size() +
+                ", archived=" + archive.size() +
+                ", version=" + version +
                 '}';
     }
 }
\ No newline at end of file
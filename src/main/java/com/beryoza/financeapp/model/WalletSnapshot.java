@@ -0,0 +1,119 @@
+package com.beryoza.financeapp.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Неизменяемая версия кошелька в снимке ({@link LedgerSnapshot}).
+ * <p>
+ * Транзакции снимка — собственные копии, не связанные с объектами {@link Wallet}, которые изменяют сервисы.
+ * Новая версия кошелька переиспользует копии транзакций предыдущей версии, если их содержимое не изменилось,
+ * поэтому добавление транзакции копирует только её саму. Транзакции снимка изменять нельзя.
+ *
+ * @param userId          Идентификатор пользователя.
+ * @param name            Название кошелька.
+ * @param balance         Баланс кошелька.
+ * @param adjustmentCents Сумма прямых изменений баланса (не транзакциями) в копейках.
+ * @param transactions    Неизменяемый список транзакций.
+ * @param archive         Сводные строки архивных сегментов кошелька (неизменяемый список).
+ */
+public record WalletSnapshot(String userId, String name, double balance, long adjustmentCents,
+                             List<Transaction> transactions, List<ArchivedMonth> archive) {
+
+    /**
+     * Построить версию кошелька, переиспользуя неизменённые части предыдущей версии.
+     *
+     * @param wallet   Текущее состояние кошелька.
+     * @param previous Предыдущая версия того же кошелька (может быть null).
+     * @return Предыдущая версия, если кошелёк не изменился; иначе новая версия.
+     */
+    public static WalletSnapshot of(Wallet wallet, WalletSnapshot previous) {
+        return of(wallet, previous, true);
+    }
+
+    /**
+     * Построить версию кошелька.
+     *
+     * @param copy false, если кошелёк только что прочитан из файла и больше нигде не используется:
+     *             тогда его транзакции переходят в снимок без копирования.
+     */
+    static WalletSnapshot of(Wallet wallet, WalletSnapshot previous, boolean copy) {
+        List<Transaction> source = wallet.getTransactions();
+        if (previous != null && previous.matches(wallet)) {
+            return previous;
+        }
+        Map<TransactionId, Transaction> reusable = new HashMap<>();
+        if (previous != null) {
+            for (Transaction transaction : previous.transactions) {
+                reusable.put(transaction.getTransactionId(), transaction);
+            }
+        }
+        List<Transaction> transactions = new ArrayList<>(source.size());
+        for (Transaction transaction : source) {
+            Transaction reused = reusable.get(transaction.getTransactionId());
+            if (reused != null && sameContent(reused, transaction)) {
+                transactions.add(reused);
+            } else {
+                transactions.add(copy ? copyOf(transaction) : transaction);
+            }
+        }
+        return new WalletSnapshot(wallet.getUserId(), wallet.getName(), wallet.getBalance(),
+                adjustmentCentsOf(wallet), List.copyOf(transactions), List.copyOf(wallet.getArchive()));
+    }
+
+    /**
+     * Проверить, совпадает ли версия с текущим состоянием кошелька.
+     */
+    private boolean matches(Wallet wallet) {
+        List<Transaction> source = wallet.getTransactions();
+        if (!name.equals(wallet.getName()) || balance != wallet.getBalance()
+                || adjustmentCents != adjustmentCentsOf(wallet) || transactions.size() != source.size()
+                || !archive.equals(wallet.getArchive())) {
+            return false;
+        }
+        for (int i = 0; i < source.size(); i++) {
+            if (!transactions.get(i).getTransactionId().equals(source.get(i).getTransactionId())
+                    || !sameContent(transactions.get(i), source.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long adjustmentCentsOf(Wallet wallet) {
+        long cents = 0;
+        for (long adjustment : wallet.getAdjustments().values()) {
+            cents += adjustment;
+        }
+        return cents;
+    }
+
+    private static boolean sameContent(Transaction a, Transaction b) {
+        return a.getAmount() == b.getAmount()
+                && Objects.equals(a.getDate(), b.getDate())
+                && Objects.equals(a.getDescription(), b.getDescription())
+                && Objects.equals(a.getTransfer(), b.getTransfer())
+                && sameCategory(a.getCategory(), b.getCategory());
+    }
+
+    private static boolean sameCategory(Category a, Category b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return Objects.equals(a.getUserId(), b.getUserId())
+                && Objects.equals(a.getName(), b.getName())
+                && a.getBudgetLimit() == b.getBudgetLimit();
+    }
+
+    private static Transaction copyOf(Transaction transaction) {
+        Category category = transaction.getCategory();
+        if (category != null) {
+            category = new Category(category.getUserId(), category.getName(), category.getBudgetLimit());
+        }
+        return new Transaction(transaction.getTransactionId(), transaction.getAmount(), category, transaction.getDate(),
+                transaction.getDescription(), transaction.getTransfer());
+    }
+}
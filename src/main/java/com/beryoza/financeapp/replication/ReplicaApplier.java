@@ -0,0 +1,386 @@
+package com.beryoza.financeapp.replication;
+
+import com.beryoza.financeapp.changelog.ChangeRecord;
+import com.beryoza.financeapp.event.BudgetLimitUpdated;
+import com.beryoza.financeapp.event.CategoryAdded;
+import com.beryoza.financeapp.event.CategoryRenamed;
+import com.beryoza.financeapp.event.FundsTransferred;
+import com.beryoza.financeapp.event.MutationEvent;
+import com.beryoza.financeapp.event.PasswordChanged;
+import com.beryoza.financeapp.event.TransactionAdded;
+import com.beryoza.financeapp.event.TransactionDeleted;
+import com.beryoza.financeapp.event.TransactionEdited;
+import com.beryoza.financeapp.event.UserRegistered;
+import com.beryoza.financeapp.event.UserRemoved;
+import com.beryoza.financeapp.event.UsernameChanged;
+import com.beryoza.financeapp.event.WalletAdded;
+import com.beryoza.financeapp.event.WalletBalanceUpdated;
+import com.beryoza.financeapp.event.WalletRemoved;
+import com.beryoza.financeapp.event.WalletRenamed;
+import com.beryoza.financeapp.logging.AppLogger;
+import com.beryoza.financeapp.metrics.MetricsRegistry;
+import com.beryoza.financeapp.metrics.OperationTimer;
+import com.beryoza.financeapp.model.ArchivedMonth;
+import com.beryoza.financeapp.model.Category;
+import com.beryoza.financeapp.model.Transaction;
+import com.beryoza.financeapp.model.User;
+import com.beryoza.financeapp.model.Wallet;
+import com.beryoza.financeapp.repository.CategoryRepository;
+import com.beryoza.financeapp.repository.SummaryRepository;
+import com.beryoza.financeapp.repository.UserRepository;
+import com.beryoza.financeapp.repository.WalletRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Применение изменений из журнала основного узла к репозиториям реплики.
+ * <p>
+ * Изменения применяются идемпотентно: транзакция добавляется, только если её ещё нет, удаляется, только если она есть,
+ * а балансы после перевода берутся из события, а не пересчитываются. Поэтому изменения, которые уже попали в снимок,
+ * можно применить повторно — так реплика догоняет основной узел после установки снимка или после сбоя между записью
+ * данных и сохранением позиции.
+ * <p>
+ * Кошельки, категории и пользователи загружаются один раз на пакет записей и сохраняются один раз в конце пакета;
+ * изменения месячных сводок накапливаются и применяются одной операцией на пользователя.
+ * <p>
+ * Поля:
+ * - {@link UserRepository} userRepository — пользователи реплики.
+ * - {@link WalletRepository} walletRepository — кошельки реплики.
+ * - {@link CategoryRepository} categoryRepository — категории реплики.
+ * - {@link SummaryRepository} summaryRepository — месячные сводки реплики.
+ * - {@link ObjectMapper} objectMapper — разбор изменений из журнала.
+ */
+public class ReplicaApplier {
+    private static final AppLogger log = AppLogger.getLogger(ReplicaApplier.class);
+    private static final MetricsRegistry metrics = MetricsRegistry.global();
+
+    private static final Map<String, Class<? extends MutationEvent>> EVENT_TYPES = new LinkedHashMap<>();
+
+    static {
+        for (Class<? extends MutationEvent> type : List.of(TransactionAdded.class, TransactionEdited.class,
+                TransactionDeleted.class, WalletAdded.class, WalletRemoved.class, WalletRenamed.class,
+                WalletBalanceUpdated.class, FundsTransferred.class, CategoryAdded.class, CategoryRenamed.class,
+                BudgetLimitUpdated.class, UserRegistered.class, PasswordChanged.class, UsernameChanged.class,
+                UserRemoved.class)) {
+            EVENT_TYPES.put(type.getSimpleName(), type);
+        }
+    }
+
+    private final UserRepository userRepository;
+    private final WalletRepository walletRepository;
+    private final CategoryRepository categoryRepository;
+    private final SummaryRepository summaryRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Состояние одного пакета: данные загружаются при первом обращении и сохраняются, если изменились.
+     */
+    private class Batch {
+        List<User> users;
+        List<Wallet> wallets;
+        List<Category> categories;
+        boolean usersChanged;
+        boolean walletsChanged;
+        boolean categoriesChanged;
+        final Map<String, List<Transaction>> added = new LinkedHashMap<>();
+        final Map<String, List<Transaction>> removed = new LinkedHashMap<>();
+        final List<ArchivedMonth> removedSegments = new ArrayList<>();
+
+        List<User> users() {
+            if (users == null) {
+                users = userRepository.loadUsers();
+            }
+            return users;
+        }
+
+        List<Wallet> wallets() {
+            if (wallets == null) {
+                wallets = walletRepository.loadWallets();
+            }
+            return wallets;
+        }
+
+        List<Category> categories() {
+            if (categories == null) {
+                categories = categoryRepository.loadCategories();
+            }
+            return categories;
+        }
+
+        Wallet wallet(String userId, String name) {
+            for (Wallet wallet : wallets()) {
+                if (wallet.getUserId().equals(userId) && wallet.getName().equals(name)) {
+                    return wallet;
+                }
+            }
+            return null;
+        }
+
+        Category category(String userId, String name) {
+            for (Category category : categories()) {
+                if (category.getUserId().equals(userId) && category.getName().equals(name)) {
+                    return category;
+                }
+            }
+            return null;
+        }
+
+        User user(String username) {
+            for (User user : users()) {
+                if (user.getUsername().equals(username)) {
+                    return user;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Сохранить изменённые данные и применить накопленные изменения сводок.
+         */
+        void commit() {
+            if (walletsChanged) {
+                walletRepository.saveWallets(wallets);
+                walletsChanged = false;
+            }
+            if (categoriesChanged) {
+                categoryRepository.saveCategories(categories);
+                categoriesChanged = false;
+            }
+            if (usersChanged) {
+                userRepository.saveUsers(users);
+                usersChanged = false;
+            }
+            commitSummaries();
+            // Сегменты удаляются после сохранения кошельков, которые на них ссылались.
+            walletRepository.getTransactionArchive().delete(removedSegments);
+            removedSegments.clear();
+        }
+
+        /**
+         * Учесть удаление кошелька: вычесть из сводок его транзакции вместе с архивными
+         * и запомнить сегменты архива для удаления после сохранения.
+         */
+        void walletRemoved(Wallet wallet) throws IOException {
+            List<Transaction> transactions = removed.computeIfAbsent(wallet.getUserId(), key -> new ArrayList<>());
+            transactions.addAll(walletRepository.getTransactionArchive().readAll(wallet.getArchive()));
+            transactions.addAll(wallet.getTransactions());
+            removedSegments.addAll(wallet.getArchive());
+        }
+
+        /**
+         * Применить изменения сводок: для каждого пользователя удаления и добавления пакета
+         * применяются одной перезаписью файла сводок.
+         */
+        void commitSummaries() {
+            Set<String> users = new HashSet<>(added.keySet());
+            users.addAll(removed.keySet());
+            for (String userId : users) {
+                summaryRepository.apply(userId, removed.getOrDefault(userId, List.of()),
+                        added.getOrDefault(userId, List.of()));
+            }
+            added.clear();
+            removed.clear();
+        }
+    }
+
+    /**
+     * Конструктор.
+     *
+     * @param userRepository     Репозиторий пользователей реплики.
+     * @param walletRepository   Репозиторий кошельков реплики.
+     * @param categoryRepository Репозиторий категорий реплики.
+     * @param summaryRepository  Репозиторий месячных сводок реплики.
+     */
+    public ReplicaApplier(UserRepository userRepository, WalletRepository walletRepository,
+                          CategoryRepository categoryRepository, SummaryRepository summaryRepository) {
+        this.userRepository = userRepository;
+        this.walletRepository = walletRepository;
+        this.categoryRepository = categoryRepository;
+        this.summaryRepository = summaryRepository;
+        this.objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+    }
+
+    /**
+     * Применить пакет записей журнала.
+     *
+     * @param records Записи по порядку.
+     * @throws IOException Если запись не удалось разобрать.
+     */
+    public void apply(List<ChangeRecord> records) throws IOException {
+        OperationTimer timer = metrics.time("ReplicaApplier.apply");
+        try (timer) {
+            Batch batch = new Batch();
+            for (ChangeRecord record : records) {
+                JsonNode envelope = objectMapper.readTree(new ByteBufferBackedInputStream(record.payload().duplicate()));
+                String type = envelope.path("type").asText();
+                Class<? extends MutationEvent> eventType = EVENT_TYPES.get(type);
+                if (eventType == null) {
+                    log.warn("Неизвестный тип изменения пропущен", "type", type, "sequence", record.sequence());
+                    continue;
+                }
+                apply(batch, objectMapper.treeToValue(envelope.get("event"), eventType));
+            }
+            batch.commit();
+            metrics.counter("replication.applied").add(records.size());
+        }
+    }
+
+    private void apply(Batch batch, MutationEvent event) throws IOException {
+        if (event instanceof TransactionAdded e) {
+            Wallet wallet = batch.wallet(e.userId(), e.walletName());
+            if (wallet != null && wallet.findTransactionById(e.transaction().getId()) == null) {
+                wallet.addTransaction(e.transaction());
+                batch.walletsChanged = true;
+                batch.added.computeIfAbsent(e.userId(), key -> new ArrayList<>()).add(e.transaction());
+            }
+        } else if (event instanceof TransactionEdited e) {
+            Wallet wallet = batch.wallet(e.userId(), e.walletName());
+            Transaction transaction = wallet != null ? wallet.findTransactionById(e.current().getId()) : null;
+            if (transaction != null && !sameContent(transaction, e.current())) {
+                Transaction previous = copyOf(transaction);
+                batch.removed.computeIfAbsent(e.userId(), key -> new ArrayList<>()).add(previous);
+                transaction.setAmount(e.current().getAmount());
+                transaction.setCategory(e.current().getCategory());
+                transaction.setDate(e.current().getDate());
+                wallet.transactionChanged(previous, transaction);
+                batch.walletsChanged = true;
+                batch.added.computeIfAbsent(e.userId(), key -> new ArrayList<>()).add(copyOf(transaction));
+            }
+        } else if (event instanceof TransactionDeleted e) {
+            Wallet wallet = batch.wallet(e.userId(), e.walletName());
+            Transaction transaction = wallet != null ? wallet.findTransactionById(e.transaction().getId()) : null;
+            if (transaction != null) {
+                wallet.removeTransaction(transaction);
+                batch.walletsChanged = true;
+                batch.removed.computeIfAbsent(e.userId(), key -> new ArrayList<>()).add(transaction);
+            }
+        } else if (event instanceof WalletAdded e) {
+            if (batch.wallet(e.userId(), e.walletName()) == null) {
+                batch.wallets().add(new Wallet(e.userId(), e.walletName(), e.balance()));
+                batch.walletsChanged = true;
+            }
+        } else if (event instanceof WalletRemoved e) {
+            Wallet wallet = batch.wallet(e.userId(), e.walletName());
+            if (wallet != null) {
+                batch.walletRemoved(wallet);
+                batch.wallets().remove(wallet);
+                batch.walletsChanged = true;
+            }
+        } else if (event instanceof WalletRenamed e) {
+            Wallet wallet = batch.wallet(e.userId(), e.walletName());
+            if (wallet != null && batch.wallet(e.userId(), e.newName()) == null) {
+                wallet.setName(e.newName());
+                batch.walletsChanged = true;
+            }
+        } else if (event instanceof WalletBalanceUpdated e) {
+            setBalance(batch, e.userId(), e.walletName(), e.balance());
+        } else if (event instanceof FundsTransferred e) {
+            setBalance(batch, e.userId(), e.walletName(), e.senderBalance());
+            setBalance(batch, e.receiverUserId(), e.receiverWallet(), e.receiverBalance());
+        } else if (event instanceof CategoryAdded e) {
+            if (batch.category(e.userId(), e.category()) == null) {
+                batch.categories().add(new Category(e.userId(), e.category(), e.budgetLimit()));
+                batch.categoriesChanged = true;
+            }
+        } else if (event instanceof CategoryRenamed e) {
+            Category category = batch.category(e.userId(), e.category());
+            if (category != null && batch.category(e.userId(), e.newName()) == null) {
+                category.setName(e.newName());
+                batch.categoriesChanged = true;
+            }
+        } else if (event instanceof BudgetLimitUpdated e) {
+            Category category = batch.category(e.userId(), e.category());
+            if (category != null && category.getBudgetLimit() != e.budgetLimit()) {
+                category.setBudgetLimit(e.budgetLimit());
+                batch.categoriesChanged = true;
+            }
+        } else if (event instanceof UserRegistered e) {
+            if (batch.user(e.userId()) == null) {
+                // Пароль в журнал не попадает: реплика хранит пользователя только для отчётов.
+                batch.users().add(new User(e.userId(), ""));
+                batch.usersChanged = true;
+            }
+        } else if (event instanceof UsernameChanged e) {
+            renameUser(batch, e.userId(), e.newUsername());
+        } else if (event instanceof UserRemoved e) {
+            removeUser(batch, e.userId());
+        }
+        // PasswordChanged не меняет данные реплики: пароль в журнал не попадает.
+    }
+
+    private void setBalance(Batch batch, String userId, String walletName, double balance) {
+        Wallet wallet = batch.wallet(userId, walletName);
+        if (wallet != null && wallet.getBalance() != balance) {
+            wallet.setBalance(balance);
+            batch.walletsChanged = true;
+        }
+    }
+
+    /**
+     * Переименовать пользователя вместе с его кошельками, категориями и сводками.
+     * Накопленные изменения сводок применяются до переименования, потому что записаны под старым логином.
+     */
+    private void renameUser(Batch batch, String oldUserId, String newUserId) {
+        User user = batch.user(oldUserId);
+        if (user == null || batch.user(newUserId) != null) {
+            return;
+        }
+        user.setUsername(newUserId);
+        batch.usersChanged = true;
+        for (Wallet wallet : batch.wallets()) {
+            if (wallet.getUserId().equals(oldUserId)) {
+                wallet.setUserId(newUserId);
+                batch.walletsChanged = true;
+            }
+        }
+        for (Category category : batch.categories()) {
+            if (category.getUserId().equals(oldUserId)) {
+                category.setUserId(newUserId);
+                batch.categoriesChanged = true;
+            }
+        }
+        batch.commitSummaries();
+        summaryRepository.renameUser(oldUserId, newUserId);
+    }
+
+    /**
+     * Удалить пользователя вместе с его кошельками (и их вкладом в сводки, включая архивные месяцы) и категориями.
+     */
+    private void removeUser(Batch batch, String userId) throws IOException {
+        batch.usersChanged |= batch.users().removeIf(user -> user.getUsername().equals(userId));
+        for (Wallet wallet : batch.wallets()) {
+            if (wallet.getUserId().equals(userId)) {
+                batch.walletRemoved(wallet);
+            }
+        }
+        batch.walletsChanged |= batch.wallets().removeIf(wallet -> wallet.getUserId().equals(userId));
+        batch.categoriesChanged |= batch.categories().removeIf(category -> category.getUserId().equals(userId));
+    }
+
+    private static boolean sameContent(Transaction transaction, Transaction other) {
+        return transaction.getAmount() == other.getAmount()
+                && Objects.equals(transaction.getDate(), other.getDate())
+                && Objects.equals(categoryName(transaction), categoryName(other));
+    }
+
+    private static String categoryName(Transaction transaction) {
+        return transaction.getCategory() != null ? transaction.getCategory().getName() : null;
+    }
+
+    private static Transaction copyOf(Transaction transaction) {
+        return new Transaction(transaction.getTransactionId(), transaction.getAmount(), transaction.getCategory(),
+                transaction.getDate(), transaction.getDescription(), transaction.getTransfer());
+    }
+}
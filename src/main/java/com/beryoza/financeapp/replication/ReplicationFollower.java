@@ -0,0 +1,287 @@
+package com.beryoza.financeapp.replication;
+
+import com.beryoza.financeapp.changelog.ChangeLogReader;
+import com.beryoza.financeapp.changelog.ChangeRecord;
+import com.beryoza.financeapp.logging.AppLogger;
+import com.beryoza.financeapp.metrics.MetricsRegistry;
+import com.beryoza.financeapp.metrics.OperationTimer;
+import com.beryoza.financeapp.repository.CategoryRepository;
+import com.beryoza.financeapp.repository.FileRepository;
+import com.beryoza.financeapp.repository.SummaryRepository;
+import com.beryoza.financeapp.repository.TransactionArchive;
+import com.beryoza.financeapp.repository.UserRepository;
+import com.beryoza.financeapp.repository.WalletRepository;
+import com.beryoza.financeapp.util.SocketEndpoints;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Реплика: получает журнал изменений от основного узла и применяет его к своей директории данных.
+ * <p>
+ * Реплика хранит смещение применённого журнала в {@code <dataDir>/replication/position} и при переподключении
+ * продолжает с него. Если позиции нет (новая реплика) или основной узел её не знает, он присылает снимок файлов
+ * данных вместе с сегментами архива транзакций; после установки снимка месячные сводки перестраиваются по кошелькам. Позиция сохраняется после
+ * данных, а изменения применяются идемпотентно ({@link ReplicaApplier}), поэтому сбой между ними безопасен.
+ * <p>
+ * Данные реплики предназначены только для чтения: отчёты и выгрузки можно запускать на её директории.
+ * <p>
+ * Метрики: {@code replication.lagBytes} — отставание в байтах журнала, {@code replication.lagMillis} — время
+ * с момента записи последнего применённого изменения, пока реплика отстаёт (0, если догнала),
+ * {@code replication.applied} — число применённых изменений.
+ * <p>
+ * Поля:
+ * - {@code String followerId} — идентификатор реплики (для метрик основного узла).
+ * - {@link SocketAddress} primary — адрес основного узла.
+ * - {@link Path} positionFile — файл с применённым смещением журнала.
+ * - {@link List} repositories — репозитории, файлы которых приходят в снимке.
+ * - {@link ReplicaApplier} applier — применение изменений.
+ * - {@code long appliedOffset} — смещение журнала, до которого изменения применены.
+ * - {@code long primaryOffset} — последний известный размер журнала на основном узле.
+ * - {@code long appliedTimestamp} — время записи последнего применённого изменения на основном узле.
+ */
+public class ReplicationFollower implements Closeable {
+    private static final AppLogger log = AppLogger.getLogger(ReplicationFollower.class);
+    private static final MetricsRegistry metrics = MetricsRegistry.global();
+
+    private final String followerId;
+    private final SocketAddress primary;
+    private final Path positionFile;
+    private final WalletRepository walletRepository;
+    private final SummaryRepository summaryRepository;
+    private final List<FileRepository> repositories;
+    private final ReplicaApplier applier;
+    private final Thread thread;
+    private volatile long appliedOffset;
+    private volatile long primaryOffset;
+    private volatile long appliedTimestamp;
+    private volatile SocketChannel channel;
+    private volatile boolean closed;
+
+    /**
+     * Конструктор. Читает сохранённую позицию и запускает поток репликации.
+     *
+     * @param dataDir    Директория данных реплики.
+     * @param primary    Адрес основного узла.
+     * @param followerId Идентификатор реплики.
+     * @throws IOException Если не удалось прочитать сохранённую позицию.
+     */
+    public ReplicationFollower(String dataDir, SocketAddress primary, String followerId) throws IOException {
+        this.followerId = followerId;
+        this.primary = primary;
+        this.positionFile = Path.of(dataDir, "replication", "position");
+        UserRepository userRepository = new UserRepository(dataDir);
+        CategoryRepository categoryRepository = new CategoryRepository(dataDir);
+        this.walletRepository = new WalletRepository(dataDir);
+        this.summaryRepository = new SummaryRepository(dataDir);
+        this.repositories = List.of(userRepository, walletRepository, categoryRepository);
+        this.applier = new ReplicaApplier(userRepository, walletRepository, categoryRepository, summaryRepository);
+        this.appliedOffset = loadPosition();
+        this.primaryOffset = appliedOffset;
+
+        metrics.gauge("replication.lagBytes", this::getLagBytes);
+        metrics.gauge("replication.lagMillis", this::getLagMillis);
+        this.thread = new Thread(this::run, "financeapp-replication-follower");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Получить смещение журнала, до которого изменения применены.
+     *
+     * @return Смещение (-1, если снимок ещё не получен).
+     */
+    public long getAppliedOffset() {
+        return appliedOffset;
+    }
+
+    /**
+     * Получить отставание реплики в байтах журнала.
+     *
+     * @return Отставание по последним сведениям от основного узла.
+     */
+    public long getLagBytes() {
+        return Math.max(0, primaryOffset - appliedOffset);
+    }
+
+    /**
+     * Получить отставание реплики во времени.
+     *
+     * @return Миллисекунды с момента записи последнего применённого изменения, если реплика отстаёт; иначе 0.
+     */
+    public long getLagMillis() {
+        if (appliedOffset >= primaryOffset || appliedTimestamp == 0) {
+            return 0;
+        }
+        return Math.max(0, System.currentTimeMillis() - appliedTimestamp);
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        SocketChannel current = channel;
+        if (current != null) {
+            current.close();
+        }
+        thread.interrupt();
+        try {
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Подключаться к основному узлу и применять изменения, переподключаясь после обрыва.
+     */
+    private void run() {
+        while (!closed) {
+            try (SocketChannel connection = SocketEndpoints.connect(primary)) {
+                channel = connection;
+                session(connection);
+            } catch (IOException e) {
+                if (!closed) {
+                    log.warn("Соединение с основным узлом потеряно", "primary", primary, "error", e.getMessage());
+                }
+            }
+            channel = null;
+            try {
+                Thread.sleep(ReplicationProtocol.RECONNECT_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Одно подключение: приветствие и обработка кадров основного узла.
+     */
+    private void session(SocketChannel connection) throws IOException {
+        byte[] id = followerId.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer hello = ByteBuffer.allocate(1 + Short.BYTES + id.length + Long.BYTES);
+        hello.put(ReplicationProtocol.HELLO).putShort((short) id.length).put(id).putLong(appliedOffset).flip();
+        ReplicationProtocol.writeFully(connection, hello);
+        log.info("Подключено к основному узлу", "primary", primary, "offset", appliedOffset);
+
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(connection)));
+        while (!closed) {
+            byte type = in.readByte();
+            if (type == ReplicationProtocol.SNAPSHOT) {
+                installSnapshot(in);
+            } else if (type == ReplicationProtocol.RECORDS) {
+                applyRecords(in);
+            } else if (type == ReplicationProtocol.HEARTBEAT) {
+                primaryOffset = in.readLong();
+                in.readLong();
+            } else {
+                throw new IOException("Неизвестный кадр от основного узла: " + (char) type);
+            }
+            ByteBuffer ack = ByteBuffer.allocate(1 + Long.BYTES);
+            ack.put(ReplicationProtocol.ACK).putLong(appliedOffset).flip();
+            ReplicationProtocol.writeFully(connection, ack);
+        }
+    }
+
+    /**
+     * Установить снимок файлов данных и сегментов архива и перестроить сводки. Сегменты записываются
+     * до файлов кошельков, которые на них ссылаются; сегменты прежнего снимка, которых нет в новом, удаляются.
+     */
+    private void installSnapshot(DataInputStream in) throws IOException {
+        OperationTimer timer = metrics.time("ReplicationFollower.snapshot");
+        try (timer) {
+            int count = in.readInt();
+            Map<String, byte[]> files = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                byte[] content = new byte[in.readInt()];
+                in.readFully(content);
+                files.put(name, content);
+            }
+            TransactionArchive archive = walletRepository.getTransactionArchive();
+            int segmentCount = in.readInt();
+            Set<String> segments = new HashSet<>();
+            for (int i = 0; i < segmentCount; i++) {
+                String segment = in.readUTF();
+                archive.restoreSegment(segment, in, in.readLong());
+                segments.add(segment);
+            }
+            long offset = in.readLong();
+
+            for (FileRepository repository : repositories) {
+                byte[] content = files.get(repository.getSnapshotName());
+                if (content != null) {
+                    repository.restoreSnapshot(content);
+                }
+            }
+            archive.retainSegments(segments);
+            summaryRepository.rebuild(walletRepository);
+            appliedOffset = offset;
+            primaryOffset = Math.max(primaryOffset, offset);
+            savePosition();
+            log.info("Снимок установлен", "files", count, "segments", segmentCount, "offset", offset);
+        }
+    }
+
+    /**
+     * Разобрать и применить записи журнала.
+     */
+    private void applyRecords(DataInputStream in) throws IOException {
+        long offset = in.readLong();
+        int length = (int) in.readLong();
+        primaryOffset = in.readLong();
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        if (offset != appliedOffset) {
+            throw new IOException("Разрыв в журнале: ожидалось смещение " + appliedOffset + ", получено " + offset);
+        }
+
+        List<ChangeRecord> records = new ArrayList<>();
+        int consumed = ChangeLogReader.readFrames(ByteBuffer.wrap(bytes), offset, Integer.MAX_VALUE, records);
+        if (consumed != length) {
+            throw new IOException("Повреждённые записи журнала по смещению " + (offset + consumed));
+        }
+        applier.apply(records);
+        appliedOffset = offset + length;
+        if (!records.isEmpty()) {
+            appliedTimestamp = records.get(records.size() - 1).timestamp();
+        }
+        savePosition();
+    }
+
+    private long loadPosition() throws IOException {
+        if (!Files.exists(positionFile)) {
+            return -1;
+        }
+        String content = Files.readString(positionFile).trim();
+        try {
+            return content.isEmpty() ? -1 : Long.parseLong(content);
+        } catch (NumberFormatException e) {
+            log.warn("Повреждённый файл позиции реплики, будет запрошен снимок", "file", positionFile);
+            return -1;
+        }
+    }
+
+    private void savePosition() throws IOException {
+        Files.createDirectories(positionFile.getParent());
+        Path temp = positionFile.resolveSibling("position.tmp");
+        Files.writeString(temp, Long.toString(appliedOffset));
+        Files.move(temp, positionFile, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,63 @@
+package com.beryoza.financeapp.replication;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Протокол репликации между основным узлом и репликами.
+ * <p>
+ * Реплика подключается и отправляет приветствие {@link #HELLO}: свой идентификатор и смещение журнала изменений,
+ * до которого она уже применила изменения (-1, если данных нет). Дальше основной узел отправляет кадры:
+ * - {@link #SNAPSHOT} — снимок файлов данных: количество файлов, затем для каждого имя (UTF),
+ * длина и содержимое; затем количество сегментов архива транзакций и для каждого имя (UTF), длина (long)
+ * и содержимое; в конце смещение журнала, с которого продолжается поток;
+ * - {@link #RECORDS} — смещение, длина и текущий размер журнала, затем байты журнала изменений как есть
+ * (целые записи);
+ * - {@link #HEARTBEAT} — размер журнала на основном узле и время отправки, раз в {@value #HEARTBEAT_MILLIS} мс.
+ * Реплика после применения каждого кадра отвечает подтверждением {@link #ACK} с применённым смещением.
+ * <p>
+ * Адреса узлов разбираются через {@link com.beryoza.financeapp.util.SocketEndpoints}.
+ */
+final class ReplicationProtocol {
+    static final byte HELLO = 'F';
+    static final byte SNAPSHOT = 'S';
+    static final byte RECORDS = 'R';
+    static final byte HEARTBEAT = 'H';
+    static final byte ACK = 'A';
+
+    /**
+     * Максимальный объём байт журнала в одном кадре {@link #RECORDS}.
+     */
+    static final int MAX_BATCH_BYTES = 1024 * 1024;
+    static final long HEARTBEAT_MILLIS = 1000;
+    static final long POLL_MILLIS = 50;
+    static final long RECONNECT_MILLIS = 1000;
+
+    private ReplicationProtocol() {
+    }
+
+    /**
+     * Записать буфер в канал целиком.
+     */
+    static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Прочитать из канала ровно столько байт, сколько осталось в буфере.
+     *
+     * @throws EOFException Если соединение закрыто раньше.
+     */
+    static void readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Соединение закрыто");
+            }
+        }
+    }
+}
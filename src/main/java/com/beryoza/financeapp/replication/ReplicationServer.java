@@ -0,0 +1,343 @@
+package com.beryoza.financeapp.replication;
+
+import com.beryoza.financeapp.changelog.ChangeLog;
+import com.beryoza.financeapp.changelog.ChangeLogReader;
+import com.beryoza.financeapp.logging.AppLogger;
+import com.beryoza.financeapp.metrics.MetricsRegistry;
+import com.beryoza.financeapp.metrics.OperationTimer;
+import com.beryoza.financeapp.repository.CategoryRepository;
+import com.beryoza.financeapp.repository.FileRepository;
+import com.beryoza.financeapp.repository.TransactionArchive;
+import com.beryoza.financeapp.repository.UserRepository;
+import com.beryoza.financeapp.repository.WalletRepository;
+import com.beryoza.financeapp.util.SocketEndpoints;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Основной узел репликации: раздаёт журнал изменений директории данных репликам по сокету.
+ * <p>
+ * Сервер работает рядом с приложением (в том же или отдельном процессе) и только читает директорию данных.
+ * Для каждой реплики запускаются два потока: отправка и приём подтверждений. Реплике без данных
+ * или с неизвестной позицией сначала отправляется снимок файлов вместе с сегментами архива транзакций, затем
+ * записи журнала — байты файла журнала передаются в сокет без разбора и копирования через кучу
+ * ({@link ChangeLogReader#transferTo}).
+ * <p>
+ * Позиция в журнале для снимка фиксируется до чтения файлов, поэтому изменения, попавшие в файлы во время
+ * снятия снимка, реплика получит ещё раз из журнала и применит идемпотентно.
+ * <p>
+ * Метрики: {@code replication.followers} — число подключённых реплик,
+ * {@code replication.follower.<id>.lagBytes} — отставание реплики в байтах журнала по последнему подтверждению.
+ * <p>
+ * Поля:
+ * - {@code String dataDir} — директория данных основного узла.
+ * - {@link SocketAddress} address — адрес, на котором принимаются подключения.
+ * - {@link Path} logFile — файл журнала изменений.
+ * - {@link ServerSocketChannel} serverChannel — серверный сокет.
+ * - {@link List} repositories — репозитории, файлы которых входят в снимок.
+ * - {@link TransactionArchive} archive — архив транзакций, сегменты которого входят в снимок.
+ * - {@link Map} acknowledged — подтверждённые смещения по идентификаторам реплик.
+ * - {@link Set} connections — открытые соединения с репликами.
+ */
+public class ReplicationServer implements Closeable {
+    private static final AppLogger log = AppLogger.getLogger(ReplicationServer.class);
+    private static final MetricsRegistry metrics = MetricsRegistry.global();
+    private static final int SNAPSHOT_ATTEMPTS = 5;
+
+    private final String dataDir;
+    private final SocketAddress address;
+    private final Path logFile;
+    private final ServerSocketChannel serverChannel;
+    private final List<FileRepository> repositories;
+    private final TransactionArchive archive;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Long> acknowledged = new ConcurrentHashMap<>();
+    private final Set<SocketChannel> connections = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    /**
+     * Конструктор. Открывает серверный сокет и запускает приём подключений.
+     *
+     * @param dataDir Директория данных основного узла (в ней должен вестись журнал изменений).
+     * @param address Адрес, на котором принимаются подключения реплик.
+     * @throws IOException Если сокет не удалось открыть.
+     */
+    public ReplicationServer(String dataDir, SocketAddress address) throws IOException {
+        this.dataDir = dataDir;
+        this.address = address;
+        this.logFile = ChangeLog.pathFor(dataDir);
+        Files.createDirectories(logFile.getParent());
+        if (!Files.exists(logFile)) {
+            Files.createFile(logFile);
+        }
+        WalletRepository walletRepository = new WalletRepository(dataDir);
+        this.repositories = List.of(new UserRepository(dataDir), walletRepository, new CategoryRepository(dataDir));
+        this.archive = walletRepository.getTransactionArchive();
+        this.serverChannel = SocketEndpoints.listen(address);
+        metrics.gauge("replication.followers", connections::size);
+        startThread("financeapp-replication-accept", this::acceptLoop);
+        log.info("Сервер репликации запущен", "address", address, "dir", dataDir);
+    }
+
+    /**
+     * Получить подтверждённые смещения реплик.
+     *
+     * @return Смещения журнала по идентификаторам реплик.
+     */
+    public Map<String, Long> getAcknowledged() {
+        return Map.copyOf(acknowledged);
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverChannel.close();
+        for (SocketChannel channel : connections) {
+            channel.close();
+        }
+        SocketEndpoints.release(address);
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                connections.add(channel);
+                startThread("financeapp-replication-sender", () -> serve(channel));
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                log.error("Ошибка при приёме подключения реплики", e);
+            }
+        }
+    }
+
+    /**
+     * Обслужить одну реплику: приветствие, снимок при необходимости и поток записей журнала.
+     */
+    private void serve(SocketChannel channel) {
+        String followerId = "?";
+        try (channel; ChangeLogReader reader = ChangeLogReader.open(dataDir)) {
+            ByteBuffer header = ByteBuffer.allocate(1 + Short.BYTES);
+            ReplicationProtocol.readFully(channel, header);
+            if (header.get(0) != ReplicationProtocol.HELLO) {
+                throw new IOException("Ожидалось приветствие реплики");
+            }
+            ByteBuffer hello = ByteBuffer.allocate(header.getShort(1) + Long.BYTES);
+            ReplicationProtocol.readFully(channel, hello);
+            byte[] id = new byte[hello.capacity() - Long.BYTES];
+            hello.flip().get(id);
+            followerId = new String(id, StandardCharsets.UTF_8);
+            long position = hello.getLong();
+            log.info("Реплика подключена", "follower", followerId, "offset", position);
+
+            String lagKey = followerId;
+            acknowledged.put(lagKey, Math.max(position, 0));
+            metrics.gauge("replication.follower." + followerId + ".lagBytes",
+                    () -> lagBytes(acknowledged.getOrDefault(lagKey, 0L)));
+            startThread("financeapp-replication-acks", () -> readAcks(channel, lagKey));
+
+            if (position < 0 || position > reader.size()) {
+                position = sendSnapshot(channel, reader);
+            }
+            stream(channel, reader, position);
+        } catch (IOException e) {
+            if (!closed) {
+                log.warn("Соединение с репликой закрыто", "follower", followerId, "error", e.getMessage());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            connections.remove(channel);
+        }
+    }
+
+    /**
+     * Отправлять записи журнала по мере появления, а в паузах — пульс.
+     */
+    private void stream(SocketChannel channel, ChangeLogReader reader, long position)
+            throws IOException, InterruptedException {
+        long lastSent = 0;
+        while (!closed) {
+            long end = reader.recordsEnd(position, ReplicationProtocol.MAX_BATCH_BYTES);
+            if (end > position) {
+                ByteBuffer header = ByteBuffer.allocate(1 + 3 * Long.BYTES);
+                header.put(ReplicationProtocol.RECORDS).putLong(position).putLong(end - position)
+                        .putLong(reader.size()).flip();
+                ReplicationProtocol.writeFully(channel, header);
+                long sent = 0;
+                while (sent < end - position) {
+                    sent += reader.transferTo(position + sent, end - position - sent, channel);
+                }
+                metrics.counter("replication.bytesSent").add(end - position);
+                position = end;
+                lastSent = System.currentTimeMillis();
+            } else if (System.currentTimeMillis() - lastSent >= ReplicationProtocol.HEARTBEAT_MILLIS) {
+                ByteBuffer heartbeat = ByteBuffer.allocate(1 + 2 * Long.BYTES);
+                heartbeat.put(ReplicationProtocol.HEARTBEAT).putLong(position).putLong(System.currentTimeMillis())
+                        .flip();
+                ReplicationProtocol.writeFully(channel, heartbeat);
+                lastSent = System.currentTimeMillis();
+            } else {
+                Thread.sleep(ReplicationProtocol.POLL_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * Отправить снимок файлов данных и сегменты архива. Файлы репозиториев собираются в памяти, сегменты
+     * передаются в сокет из файлов без копирования через кучу.
+     *
+     * @return Смещение журнала, с которого нужно продолжить поток.
+     */
+    private long sendSnapshot(SocketChannel channel, ChangeLogReader reader) throws IOException {
+        OperationTimer timer = metrics.time("ReplicationServer.snapshot");
+        try (timer) {
+            long position = reader.recordsEnd(0, Long.MAX_VALUE);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(ReplicationProtocol.SNAPSHOT);
+            out.writeInt(repositories.size());
+            for (FileRepository repository : repositories) {
+                byte[] content = readValidSnapshot(repository);
+                out.writeUTF(repository.getSnapshotName());
+                out.writeInt(content.length);
+                out.write(content);
+            }
+
+            // Сегменты перечисляются после чтения кошельков: сегмент записывается раньше, чем кошелёк
+            // со ссылкой на него, поэтому все сегменты снимка кошельков уже на месте.
+            Map<String, FileChannel> segments = openSegments();
+            long segmentBytes = 0;
+            try {
+                out.writeInt(segments.size());
+                out.flush();
+                ReplicationProtocol.writeFully(channel, ByteBuffer.wrap(bytes.toByteArray()));
+                for (Map.Entry<String, FileChannel> segment : segments.entrySet()) {
+                    FileChannel file = segment.getValue();
+                    long size = file.size();
+                    ByteArrayOutputStream header = new ByteArrayOutputStream();
+                    DataOutputStream headerOut = new DataOutputStream(header);
+                    headerOut.writeUTF(segment.getKey());
+                    headerOut.writeLong(size);
+                    headerOut.flush();
+                    ReplicationProtocol.writeFully(channel, ByteBuffer.wrap(header.toByteArray()));
+                    long sent = 0;
+                    while (sent < size) {
+                        sent += file.transferTo(sent, size - sent, channel);
+                    }
+                    segmentBytes += size;
+                }
+            } finally {
+                for (FileChannel file : segments.values()) {
+                    file.close();
+                }
+            }
+            ReplicationProtocol.writeFully(channel, ByteBuffer.allocate(Long.BYTES).putLong(position).flip());
+
+            metrics.counter("replication.snapshotBytes").add(bytes.size() + segmentBytes);
+            log.info("Снимок отправлен реплике", "bytes", bytes.size() + segmentBytes, "segments", segments.size(),
+                    "offset", position);
+            return position;
+        }
+    }
+
+    /**
+     * Открыть файлы сегментов архива. Открытый файл остаётся читаемым, даже если сегмент удалят
+     * во время отправки снимка.
+     */
+    private Map<String, FileChannel> openSegments() throws IOException {
+        Map<String, FileChannel> segments = new LinkedHashMap<>();
+        try {
+            for (Path file : archive.listSegments()) {
+                try {
+                    segments.put(file.getFileName().toString(), FileChannel.open(file, StandardOpenOption.READ));
+                } catch (NoSuchFileException e) {
+                    // Сегмент удалён вместе с кошельком: удаление кошелька реплика получит из журнала.
+                }
+            }
+            return segments;
+        } catch (IOException e) {
+            for (FileChannel file : segments.values()) {
+                file.close();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Прочитать файл для снимка и убедиться, что он целиком разбирается: файл может записывать другой процесс.
+     */
+    private byte[] readValidSnapshot(FileRepository repository) throws IOException {
+        IOException failure = null;
+        for (int attempt = 0; attempt < SNAPSHOT_ATTEMPTS; attempt++) {
+            byte[] content = repository.readSnapshot();
+            try {
+                objectMapper.readTree(content);
+                return content;
+            } catch (IOException e) {
+                failure = e;
+                try {
+                    Thread.sleep(ReplicationProtocol.POLL_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        throw new IOException("Не удалось прочитать согласованный снимок " + repository.getSnapshotName(), failure);
+    }
+
+    /**
+     * Принимать подтверждения реплики (в отдельном потоке, чтобы отправка не ждала реплику).
+     */
+    private void readAcks(SocketChannel channel, String followerId) {
+        ByteBuffer ack = ByteBuffer.allocate(1 + Long.BYTES);
+        try {
+            while (!closed) {
+                ack.clear();
+                ReplicationProtocol.readFully(channel, ack);
+                if (ack.get(0) != ReplicationProtocol.ACK) {
+                    throw new IOException("Неизвестный кадр от реплики");
+                }
+                acknowledged.put(followerId, ack.getLong(1));
+            }
+        } catch (IOException e) {
+            // Соединение закрыто: поток отправки обнаружит это сам.
+        }
+    }
+
+    private double lagBytes(long acknowledgedOffset) {
+        try {
+            return Math.max(0, Files.size(logFile) - acknowledgedOffset);
+        } catch (IOException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static void startThread(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
@@ -0,0 +1,160 @@
+package com.beryoza.financeapp.report;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Сводный отчёт по всем пользователям. Экземпляры собираются из частичных отчётов
+ * отдельных групп пользователей через {@link #merge(AdminReport)}.
+ * <p>
+ * Суммы хранятся в копейках ({@code long}), чтобы результат не зависел от порядка
+ * слияния частичных отчётов.
+ * <p>
+ * Поля:
+ * - {@code long users} — количество пользователей.
+ * - {@code long wallets} — количество кошельков.
+ * - {@code long transactions} — количество транзакций.
+ * - {@code long totalBalanceCents} — суммарный баланс всех кошельков.
+ * - {@link Map} spendByCategoryCents — расходы по названию категории (положительные суммы).
+ * - {@link List} usersOverBudget — пользователи, у которых превышен лимит хотя бы одной категории.
+ */
+public class AdminReport {
+    private long users;
+    private long wallets;
+    private long transactions;
+    private long totalBalanceCents;
+    private final Map<String, Long> spendByCategoryCents = new TreeMap<>();
+    private final List<String> usersOverBudget = new ArrayList<>();
+
+    /**
+     * Учесть пользователя.
+     *
+     * @param username   Логин пользователя.
+     * @param overBudget Превышен ли у пользователя лимит хотя бы одной категории.
+     */
+    void addUser(String username, boolean overBudget) {
+        users++;
+        if (overBudget) {
+            usersOverBudget.add(username);
+        }
+    }
+
+    /**
+     * Учесть кошелёк.
+     *
+     * @param balanceCents     Баланс кошелька в копейках.
+     * @param transactionCount Количество транзакций кошелька.
+     */
+    void addWallet(long balanceCents, int transactionCount) {
+        wallets++;
+        transactions += transactionCount;
+        totalBalanceCents += balanceCents;
+    }
+
+    /**
+     * Учесть расход по категории.
+     *
+     * @param category Название категории.
+     * @param cents    Сумма расхода в копейках (положительная).
+     */
+    void addSpend(String category, long cents) {
+        spendByCategoryCents.merge(category, cents, Long::sum);
+    }
+
+    /**
+     * Добавить к отчёту данные другого частичного отчёта.
+     *
+     * @param other Частичный отчёт.
+     * @return Этот отчёт.
+     */
+    AdminReport merge(AdminReport other) {
+        users += other.users;
+        wallets += other.wallets;
+        transactions += other.transactions;
+        totalBalanceCents += other.totalBalanceCents;
+        other.spendByCategoryCents.forEach((category, cents) -> spendByCategoryCents.merge(category, cents, Long::sum));
+        usersOverBudget.addAll(other.usersOverBudget);
+        return this;
+    }
+
+    /**
+     * Получить количество пользователей.
+     *
+     * @return Количество пользователей.
+     */
+    public long getUsers() {
+        return users;
+    }
+
+    /**
+     * Получить количество кошельков.
+     *
+     * @return Количество кошельков.
+     */
+    public long getWallets() {
+        return wallets;
+    }
+
+    /**
+     * Получить количество транзакций.
+     *
+     * @return Количество транзакций.
+     */
+    public long getTransactions() {
+        return transactions;
+    }
+
+    /**
+     * Получить суммарный баланс всех кошельков.
+     *
+     * @return Баланс.
+     */
+    public double getTotalBalance() {
+        return totalBalanceCents / 100.0;
+    }
+
+    /**
+     * Получить расходы по названиям категорий.
+     *
+     * @return Карта «категория → расходы» в алфавитном порядке.
+     */
+    public Map<String, Double> getSpendByCategory() {
+        Map<String, Double> result = new TreeMap<>();
+        spendByCategoryCents.forEach((category, cents) -> result.put(category, cents / 100.0));
+        return result;
+    }
+
+    /**
+     * Получить пользователей, у которых превышен лимит бюджета.
+     *
+     * @return Логины в алфавитном порядке.
+     */
+    public List<String> getUsersOverBudget() {
+        List<String> sorted = new ArrayList<>(usersOverBudget);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Текстовое представление отчёта.
+     *
+     * @return Отчёт.
+     */
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "Пользователей: %d, кошельков: %d, транзакций: %d%n",
+                users, wallets, transactions));
+        out.append(String.format(Locale.ROOT, "Суммарный баланс: %.2f%n", getTotalBalance()));
+        out.append("Расходы по категориям:").append(System.lineSeparator());
+        getSpendByCategory().forEach((category, amount) ->
+                out.append(String.format(Locale.ROOT, "- %s: %.2f%n", category, amount)));
+        out.append("Пользователей с превышением бюджета: ").append(usersOverBudget.size())
+                .append(System.lineSeparator());
+        return out.toString();
+    }
+}
@@ -0,0 +1,183 @@
+package com.beryoza.financeapp.report;
+
+import com.beryoza.financeapp.metrics.MetricsRegistry;
+import com.beryoza.financeapp.metrics.OperationTimer;
+import com.beryoza.financeapp.model.ArchivedMonth;
+import com.beryoza.financeapp.model.Category;
+import com.beryoza.financeapp.model.LedgerSnapshot;
+import com.beryoza.financeapp.model.Transaction;
+import com.beryoza.financeapp.model.User;
+import com.beryoza.financeapp.model.WalletSnapshot;
+import com.beryoza.financeapp.repository.CategoryRepository;
+import com.beryoza.financeapp.repository.UserRepository;
+import com.beryoza.financeapp.repository.WalletRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Движок административных отчётов по всей базе пользователей.
+ * <p>
+ * Данные загружаются один раз (по одному чтению каждого файла) и разбиваются на разделы по пользователям.
+ * Кошельки берутся из неизменяемого снимка ({@link WalletRepository#snapshot()}), поэтому агрегация видит
+ * согласованное состояние и не мешает параллельной записи.
+ * Разделы обрабатываются задачами {@link RecursiveTask} в {@link ForkJoinPool}: диапазон делится пополам,
+ * пока не станет меньше порога, листовые задачи строят частичные отчёты, а затем отчёты сливаются.
+ * Разделы независимы, поэтому время агрегации уменьшается пропорционально числу ядер.
+ * <p>
+ * Правило превышения бюджета совпадает с {@code BudgetService.checkBudgetLimits}: расходы
+ * по категории (по названию) больше её лимита.
+ * <p>
+ * Поля:
+ * - {@link UserRepository} userRepository — репозиторий пользователей.
+ * - {@link WalletRepository} walletRepository — репозиторий кошельков.
+ * - {@link CategoryRepository} categoryRepository — репозиторий категорий.
+ * - {@link ForkJoinPool} pool — пул потоков для агрегации.
+ */
+public class AdminReportEngine {
+    private static final MetricsRegistry metrics = MetricsRegistry.global();
+
+    private final UserRepository userRepository;
+    private final WalletRepository walletRepository;
+    private final CategoryRepository categoryRepository;
+    private final ForkJoinPool pool;
+
+    /**
+     * Данные одного пользователя.
+     */
+    private record UserPartition(String username, List<WalletSnapshot> wallets, List<Category> categories) {
+    }
+
+    /**
+     * Конструктор.
+     *
+     * @param userRepository     Репозиторий пользователей.
+     * @param walletRepository   Репозиторий кошельков.
+     * @param categoryRepository Репозиторий категорий.
+     * @param pool               Пул потоков для агрегации.
+     */
+    public AdminReportEngine(UserRepository userRepository, WalletRepository walletRepository,
+                             CategoryRepository categoryRepository, ForkJoinPool pool) {
+        this.userRepository = userRepository;
+        this.walletRepository = walletRepository;
+        this.categoryRepository = categoryRepository;
+        this.pool = pool;
+    }
+
+    /**
+     * Построить отчёт по всем пользователям.
+     *
+     * @return Сводный отчёт.
+     */
+    public AdminReport generate() {
+        List<UserPartition> partitions;
+        OperationTimer loadTimer = metrics.time("AdminReportEngine.load");
+        try (loadTimer) {
+            partitions = loadPartitions();
+        }
+        OperationTimer aggregateTimer = metrics.time("AdminReportEngine.aggregate");
+        try (aggregateTimer) {
+            int threshold = Math.max(16, partitions.size() / (pool.getParallelism() * 8));
+            return pool.invoke(new PartitionTask(partitions, 0, partitions.size(), threshold));
+        }
+    }
+
+    /**
+     * Загрузить все файлы один раз и сгруппировать кошельки и категории по пользователям.
+     */
+    private List<UserPartition> loadPartitions() {
+        Map<String, UserPartition> byUser = new HashMap<>();
+        List<UserPartition> partitions = new ArrayList<>();
+        for (User user : userRepository.loadUsers()) {
+            UserPartition partition = new UserPartition(user.getUsername(), new ArrayList<>(), new ArrayList<>());
+            if (byUser.putIfAbsent(user.getUsername(), partition) == null) {
+                partitions.add(partition);
+            }
+        }
+        LedgerSnapshot snapshot = walletRepository.snapshot();
+        for (UserPartition partition : partitions) {
+            partition.wallets().addAll(snapshot.getUser(partition.username()).wallets());
+        }
+        for (Category category : categoryRepository.loadCategories()) {
+            UserPartition partition = byUser.get(category.getUserId());
+            if (partition != null) {
+                partition.categories().add(category);
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * Задача агрегации диапазона разделов.
+     */
+    private static final class PartitionTask extends RecursiveTask<AdminReport> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<UserPartition> partitions;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        PartitionTask(List<UserPartition> partitions, int from, int to, int threshold) {
+            this.partitions = partitions;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected AdminReport compute() {
+            if (to - from <= threshold) {
+                AdminReport report = new AdminReport();
+                for (int i = from; i < to; i++) {
+                    aggregate(partitions.get(i), report);
+                }
+                return report;
+            }
+            int middle = (from + to) >>> 1;
+            PartitionTask left = new PartitionTask(partitions, from, middle, threshold);
+            left.fork();
+            AdminReport right = new PartitionTask(partitions, middle, to, threshold).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    /**
+     * Учесть данные одного пользователя в частичном отчёте.
+     */
+    private static void aggregate(UserPartition partition, AdminReport report) {
+        Map<String, Long> spendByCategory = new HashMap<>();
+        for (WalletSnapshot wallet : partition.wallets()) {
+            int transactions = wallet.transactions().size();
+            for (Transaction transaction : wallet.transactions()) {
+                if (transaction.getAmount() < 0 && transaction.getCategory() != null) {
+                    long cents = Math.round(-transaction.getAmount() * 100);
+                    String category = transaction.getCategory().getName();
+                    spendByCategory.merge(category, cents, Long::sum);
+                    report.addSpend(category, cents);
+                }
+            }
+            // Архивные месяцы учитываются по сводным строкам, без чтения сегментов
+            for (ArchivedMonth row : wallet.archive()) {
+                transactions += row.count();
+                row.categoryExpenseCents().forEach((category, cents) -> {
+                    spendByCategory.merge(category, -cents, Long::sum);
+                    report.addSpend(category, -cents);
+                });
+            }
+            report.addWallet(Math.round(wallet.balance() * 100), transactions);
+        }
+        boolean overBudget = false;
+        for (Category category : partition.categories()) {
+            if (spendByCategory.getOrDefault(category.getName(), 0L) > Math.round(category.getBudgetLimit() * 100)) {
+                overBudget = true;
+                break;
+            }
+        }
+        report.addUser(partition.username(), overBudget);
+    }
+}
@@ -0,0 +1,39 @@
+package com.beryoza.financeapp.report;
+
+/**
+ * Нарушение целостности данных, найденное {@link IntegrityVerifier}.
+ *
+ * @param type          Вид нарушения.
+ * @param user          Логин владельца кошелька.
+ * @param wallet        Название кошелька (null для нарушений уровня пользователя).
+ * @param transactionId Идентификатор транзакции (null для нарушений уровня кошелька).
+ * @param detail        Описание нарушения.
+ */
+public record IntegrityIssue(Type type, String user, String wallet, String transactionId, String detail) {
+
+    /**
+     * Вид нарушения целостности.
+     */
+    public enum Type {
+        /**
+         * Баланс кошелька не равен сумме транзакций, прямых изменений баланса и итогов архивных сегментов.
+         */
+        BALANCE_MISMATCH,
+        /**
+         * Транзакция ссылается на категорию, которой нет у пользователя.
+         */
+        MISSING_CATEGORY,
+        /**
+         * Идентификатор транзакции уже встречался в базе.
+         */
+        DUPLICATE_TRANSACTION_ID,
+        /**
+         * Кошелёк ссылается на архивный сегмент, файла которого нет.
+         */
+        MISSING_ARCHIVE_SEGMENT,
+        /**
+         * Месячная сводка пользователя не совпадает с его кошельками (исправляется перестроением сводок).
+         */
+        SUMMARY_MISMATCH
+    }
+}
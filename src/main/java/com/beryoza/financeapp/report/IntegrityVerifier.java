@@ -0,0 +1,234 @@
+package com.beryoza.financeapp.report;
+
+import com.beryoza.financeapp.metrics.MetricsRegistry;
+import com.beryoza.financeapp.metrics.OperationTimer;
+import com.beryoza.financeapp.model.ArchivedMonth;
+import com.beryoza.financeapp.model.BalanceHistory;
+import com.beryoza.financeapp.model.Category;
+import com.beryoza.financeapp.model.LedgerSnapshot;
+import com.beryoza.financeapp.model.MonthlySummary;
+import com.beryoza.financeapp.model.Transaction;
+import com.beryoza.financeapp.model.TransactionId;
+import com.beryoza.financeapp.model.UserSnapshot;
+import com.beryoza.financeapp.model.WalletSnapshot;
+import com.beryoza.financeapp.repository.CategoryRepository;
+import com.beryoza.financeapp.repository.SummaryRepository;
+import com.beryoza.financeapp.repository.TransactionArchive;
+import com.beryoza.financeapp.repository.WalletRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+/**
+ * Проверка целостности всей базы кошельков.
+ * <p>
+ * Проверяется, что баланс каждого кошелька равен сумме его транзакций, прямых изменений баланса и итогов
+ * архивных сегментов, что файлы архивных сегментов на месте, что транзакции ссылаются на существующие
+ * категории пользователя, что идентификаторы транзакций не повторяются во всей базе и что месячные сводки
+ * совпадают с кошельками ({@link SummaryRepository#compare}). Содержимое сегментов не читается: архивные
+ * транзакции проверяются при переносе в архив. Кошельки берутся из неизменяемого снимка ({@link WalletRepository#snapshot()}), пользователи
+ * проверяются параллельно задачами {@link RecursiveTask} в {@link ForkJoinPool}, как в {@link AdminReportEngine}.
+ * Найденные нарушения передаются получателю сразу, не дожидаясь конца проверки.
+ * <p>
+ * Поля:
+ * - {@link WalletRepository} walletRepository — репозиторий кошельков.
+ * - {@link CategoryRepository} categoryRepository — репозиторий категорий.
+ * - {@link SummaryRepository} summaryRepository — репозиторий месячных сводок.
+ * - {@link ForkJoinPool} pool — пул потоков для проверки.
+ */
+public class IntegrityVerifier {
+    private static final MetricsRegistry metrics = MetricsRegistry.global();
+
+    private final WalletRepository walletRepository;
+    private final CategoryRepository categoryRepository;
+    private final SummaryRepository summaryRepository;
+    private final ForkJoinPool pool;
+
+    /**
+     * Итоги проверки.
+     *
+     * @param users        Количество проверенных пользователей.
+     * @param wallets      Количество проверенных кошельков.
+     * @param transactions Количество проверенных транзакций.
+     * @param issues       Количество найденных нарушений.
+     */
+    public record Result(long users, long wallets, long transactions, long issues) {
+
+        Result merge(Result other) {
+            return new Result(users + other.users, wallets + other.wallets,
+                    transactions + other.transactions, issues + other.issues);
+        }
+    }
+
+    /**
+     * Конструктор.
+     *
+     * @param walletRepository   Репозиторий кошельков.
+     * @param categoryRepository Репозиторий категорий.
+     * @param summaryRepository  Репозиторий месячных сводок.
+     * @param pool               Пул потоков для проверки.
+     */
+    public IntegrityVerifier(WalletRepository walletRepository, CategoryRepository categoryRepository,
+                             SummaryRepository summaryRepository, ForkJoinPool pool) {
+        this.walletRepository = walletRepository;
+        this.categoryRepository = categoryRepository;
+        this.summaryRepository = summaryRepository;
+        this.pool = pool;
+    }
+
+    /**
+     * Проверить всю базу.
+     *
+     * @param sink Получатель нарушений. Вызывается из потоков пула, но не одновременно.
+     * @return Итоги проверки.
+     */
+    public Result verify(Consumer<IntegrityIssue> sink) {
+        List<UserSnapshot> users;
+        Map<String, Set<String>> categories = new HashMap<>();
+        Map<String, List<MonthlySummary>> summaries;
+        OperationTimer loadTimer = metrics.time("IntegrityVerifier.load");
+        try (loadTimer) {
+            LedgerSnapshot snapshot = walletRepository.snapshot();
+            users = new ArrayList<>(snapshot.getUsers());
+            for (Category category : categoryRepository.loadCategories()) {
+                categories.computeIfAbsent(category.getUserId(), key -> new HashSet<>()).add(category.getName());
+            }
+            summaries = new ConcurrentHashMap<>(SummaryRepository.groupByUser(summaryRepository.loadSummaries()));
+        }
+        OperationTimer verifyTimer = metrics.time("IntegrityVerifier.verify");
+        try (verifyTimer) {
+            TransactionArchive archive = walletRepository.getTransactionArchive();
+            Check check = new Check(categories, summaries, new ConcurrentHashMap<>(), archive, issue -> {
+                synchronized (sink) {
+                    sink.accept(issue);
+                }
+            });
+            int threshold = Math.max(16, users.size() / (pool.getParallelism() * 8));
+            Result result = pool.invoke(new UserTask(check, users, 0, users.size(), threshold));
+            // Сводки, оставшиеся после проверки пользователей, принадлежат пользователям без кошельков.
+            for (String userId : summaries.keySet()) {
+                check.sink().accept(new IntegrityIssue(IntegrityIssue.Type.SUMMARY_MISMATCH, userId, null, null,
+                        "Есть месячные сводки, но нет кошельков."));
+                result = result.merge(new Result(0, 0, 0, 1));
+            }
+            metrics.counter("IntegrityVerifier.issues").add(result.issues());
+            return result;
+        }
+    }
+
+    /**
+     * Общие данные проверки.
+     *
+     * @param categories Названия категорий по пользователям.
+     * @param summaries  Строки месячных сводок по пользователям (проверенные пользователи удаляются).
+     * @param seenIds    Уже встреченные идентификаторы транзакций → место первой встречи.
+     * @param archive    Архив транзакций (для проверки файлов сегментов).
+     * @param sink       Получатель нарушений.
+     */
+    private record Check(Map<String, Set<String>> categories, Map<String, List<MonthlySummary>> summaries,
+                         Map<TransactionId, String> seenIds,
+                         TransactionArchive archive, Consumer<IntegrityIssue> sink) {
+    }
+
+    /**
+     * Задача проверки диапазона пользователей.
+     */
+    private static final class UserTask extends RecursiveTask<Result> {
+        private static final long serialVersionUID = 1L;
+
+        private final Check check;
+        private final List<UserSnapshot> users;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        UserTask(Check check, List<UserSnapshot> users, int from, int to, int threshold) {
+            this.check = check;
+            this.users = users;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Result compute() {
+            if (to - from <= threshold) {
+                Result result = new Result(0, 0, 0, 0);
+                for (int i = from; i < to; i++) {
+                    result = result.merge(verifyUser(check, users.get(i)));
+                }
+                return result;
+            }
+            int middle = (from + to) >>> 1;
+            UserTask left = new UserTask(check, users, from, middle, threshold);
+            left.fork();
+            Result right = new UserTask(check, users, middle, to, threshold).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    /**
+     * Проверить кошельки одного пользователя.
+     */
+    private static Result verifyUser(Check check, UserSnapshot user) {
+        Set<String> categories = check.categories().getOrDefault(user.userId(), Set.of());
+        long transactions = 0;
+        long issues = 0;
+        for (WalletSnapshot wallet : user.wallets()) {
+            String location = wallet.userId() + "/" + wallet.name();
+            long expectedCents = wallet.adjustmentCents();
+            for (Transaction transaction : wallet.transactions()) {
+                transactions++;
+                expectedCents += BalanceHistory.toCents(transaction.getAmount());
+                if (!transaction.isTransfer() && (transaction.getCategory() == null
+                        || !categories.contains(transaction.getCategory().getName()))) {
+                    String category = transaction.getCategory() != null ? transaction.getCategory().getName() : null;
+                    check.sink().accept(new IntegrityIssue(IntegrityIssue.Type.MISSING_CATEGORY, wallet.userId(),
+                            wallet.name(), transaction.getId(), category != null
+                            ? "Категория \"" + category + "\" не найдена." : "Категория не указана."));
+                    issues++;
+                }
+                String first = check.seenIds().putIfAbsent(transaction.getTransactionId(), location);
+                if (first != null) {
+                    check.sink().accept(new IntegrityIssue(IntegrityIssue.Type.DUPLICATE_TRANSACTION_ID,
+                            wallet.userId(), wallet.name(), transaction.getId(),
+                            "Идентификатор уже встречался в кошельке " + first + "."));
+                    issues++;
+                }
+            }
+            for (ArchivedMonth row : wallet.archive()) {
+                expectedCents += row.netCents();
+                if (!check.archive().exists(row)) {
+                    check.sink().accept(new IntegrityIssue(IntegrityIssue.Type.MISSING_ARCHIVE_SEGMENT,
+                            wallet.userId(), wallet.name(), null,
+                            "Нет файла сегмента " + row.segment() + " (" + row.month() + ")."));
+                    issues++;
+                }
+            }
+            long balanceCents = BalanceHistory.toCents(wallet.balance());
+            if (balanceCents != expectedCents) {
+                check.sink().accept(new IntegrityIssue(IntegrityIssue.Type.BALANCE_MISMATCH, wallet.userId(),
+                        wallet.name(), null, String.format(Locale.ROOT,
+                        "Баланс %.2f, по транзакциям, изменениям баланса и архиву %.2f (разница %.2f).",
+                        balanceCents / 100.0, expectedCents / 100.0, (balanceCents - expectedCents) / 100.0)));
+                issues++;
+            }
+        }
+        List<MonthlySummary> summaries = check.summaries().remove(user.userId());
+        for (String detail : SummaryRepository.compare(user, summaries != null ? summaries : List.of())) {
+            check.sink().accept(new IntegrityIssue(IntegrityIssue.Type.SUMMARY_MISMATCH, user.userId(), null, null,
+                    detail));
+            issues++;
+        }
+        return new Result(1, user.wallets().size(), transactions, issues);
+    }
+}
@@ -1,38 +1,59 @@
 package com.beryoza.financeapp.repository;
 
+import com.beryoza.financeapp.metrics.OperationTimer;
 import com.beryoza.financeapp.model.Category;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Репозиторий для работы с категориями и их бюджетами.
  * <p>
  * Поля:
- * - {@code String FILE_PATH} — путь к файлу, в котором хранятся данные категорий.
+ * - {@code String directory} — директория с файлом данных.
+ * - {@code String filePath} — путь к файлу, в котором хранятся данные категорий.
  */
 public class CategoryRepository extends FileRepository {
-    private static final String FILE_PATH = "data/categories/categories.json";
+    private final String directory;
+    private final String filePath;
+
+    /**
+     * Конструктор. Использует директорию данных по умолчанию ({@code data}).
+     */
+    public CategoryRepository() {
+        this(DEFAULT_DATA_DIR);
+    }
 
     /**
      * Конструктор, проверяющий наличие файла для категорий.
      * Если файл отсутствует, создаётся новый.
+     *
+     * @param dataDir Корневая директория данных приложения.
      */
-    public CategoryRepository() {
+    public CategoryRepository(String dataDir) {
+        super(dataDir);
+        this.directory = dataDir + "/categories";
+        this.filePath = directory + "/categories.json";
         ensureDirectoriesExist();
         ensureFileExists();
     }
 
+    @Override
+    protected String getFilePath() {
+        return filePath;
+    }
+
     /**
      * Проверяет существование директории для хранения категорий.
      * Если директория отсутствует, она создаётся.
      */
     private void ensureDirectoriesExist() {
-        File directory = new File("data/categories");
-        if (!directory.exists()) {
-            directory.mkdirs();
+        File dir = new File(directory);
+        if (!dir.exists()) {
+            dir.mkdirs();
         }
     }
 
@@ -41,14 +62,14 @@ public class CategoryRepository extends FileRepository {
      * Если файл отсутствует или пуст, он создаётся и инициализируется пустым списком категорий.
      */
     private void ensureFileExists() {
-        File file = new File(FILE_PATH);
+        File file = new File(filePath);
         try {
             if (!file.exists() || file.length() == 0) {
                 file.createNewFile();
                 saveCategories(new ArrayList<>());
             }
         } catch (IOException e) {
-            System.err.println("Ошибка при создании файла категорий: " + e.getMessage());
+            log.error("Ошибка при создании файла категорий", e);
         }
     }
 
@@ -59,13 +80,111 @@ public class CategoryRepository extends FileRepository {
      */
     public void saveCategories(List<Category> categories) {
         try {
-            saveDataToFile(FILE_PATH, categories);
-            System.out.println("Категории успешно сохранены.");
+            saveDataToFile(filePath, categories);
+        } catch (IOException e) {
+            log.error("Ошибка при сохранении категорий", e);
+        }
+    }
+
+    /**
+     * Сохранить новую или обновить существующую категорию с проверкой версии (сравнение с обменом).
+     * Категория с версией 0 добавляется, только если категории с таким названием у пользователя нет;
+     * иначе версия должна совпадать с сохранённой. После сохранения версия объекта увеличивается на 1.
+     *
+     * @param category Категория для сохранения.
+     * @throws OptimisticLockException Если категория изменена или удалена другим сеансом после чтения.
+     */
+    public void saveCategory(Category category) {
+        Lock lock = lockFor(filePath).writeLock();
+        lock.lock();
+        OperationTimer timer = metrics.time("CategoryRepository.saveCategory");
+        try (timer) {
+            List<Category> categories = loadCategoriesForUpdate();
+            int index = indexOf(categories, category.getUserId(), category.getName());
+            checkVersion(category, index >= 0 ? categories.get(index) : null);
+
+            category.setVersion(category.getVersion() + 1);
+            if (index >= 0) {
+                categories.set(index, category);
+            } else {
+                categories.add(category);
+            }
+            if (!write(categories, category.getUserId())) {
+                category.setVersion(category.getVersion() - 1);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Переименовать категорию с проверкой версии.
+     *
+     * @param category Категория в том состоянии, в котором она была прочитана (название — текущее).
+     * @param newName  Новое название.
+     * @throws OptimisticLockException  Если категория изменена или удалена другим сеансом после чтения.
+     * @throws IllegalArgumentException Если у пользователя уже есть категория с новым названием.
+     */
+    public void renameCategory(Category category, String newName) {
+        Lock lock = lockFor(filePath).writeLock();
+        lock.lock();
+        OperationTimer timer = metrics.time("CategoryRepository.renameCategory");
+        try (timer) {
+            List<Category> categories = loadCategoriesForUpdate();
+            int index = indexOf(categories, category.getUserId(), category.getName());
+            if (index < 0) {
+                throw new OptimisticLockException("Категория \"" + category.getName() + "\" удалена другим сеансом.");
+            }
+            checkVersion(category, categories.get(index));
+            if (indexOf(categories, category.getUserId(), newName) >= 0) {
+                throw new IllegalArgumentException("Категория с названием \"" + newName + "\" уже существует.");
+            }
+            Category stored = categories.get(index);
+            stored.setName(newName);
+            stored.setVersion(stored.getVersion() + 1);
+            if (write(categories, category.getUserId())) {
+                category.setName(newName);
+                category.setVersion(stored.getVersion());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean write(List<Category> categories, String changedUser) {
+        try {
+            saveDataToFile(filePath, categories, List.of(changedUser));
+            return true;
         } catch (IOException e) {
-            System.err.println("Ошибка при сохранении категорий: " + e.getMessage());
+            log.error("Ошибка при сохранении категорий", e);
+            return false;
         }
     }
 
+    /**
+     * Проверить версию сохраняемой категории относительно сохранённой.
+     */
+    private static void checkVersion(Category category, Category stored) {
+        if (stored == null && category.getVersion() != 0) {
+            throw new OptimisticLockException("Категория \"" + category.getName() + "\" удалена другим сеансом.");
+        }
+        if (stored != null && stored.getVersion() != category.getVersion()) {
+            throw new OptimisticLockException(category.getVersion() == 0
+                    ? "Категория с названием \"" + category.getName() + "\" уже существует."
+                    : "Категория \"" + category.getName() + "\" изменена другим сеансом.");
+        }
+    }
+
+    private static int indexOf(List<Category> categories, String userId, String name) {
+        for (int i = 0; i < categories.size(); i++) {
+            Category category = categories.get(i);
+            if (category.getUserId().equals(userId) && category.getName().equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     /**
      * Загружает список категорий из файла.
      *
@@ -73,28 +192,38 @@ public class CategoryRepository extends FileRepository {
      */
     public List<Category> loadCategories() {
         try {
-            return loadDataFromFile(FILE_PATH, Category.class);
+            return loadDataFromFile(filePath, Category.class);
         } catch (IOException e) {
-            System.err.println("Ошибка при загрузке категорий: " + e.getMessage());
+            log.error("Ошибка при загрузке категорий", e);
             return new ArrayList<>();
         }
     }
 
     /**
-     * Поиск категорий для указанного пользователя.
+     * Загрузить категории для изменения под блокировкой записи (см. {@link #loadDataForUpdate}).
+     */
+    private List<Category> loadCategoriesForUpdate() {
+        try {
+            return loadDataForUpdate(filePath, Category.class);
+        } catch (IOException e) {
+            log.error("Ошибка при загрузке категорий", e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Поиск категорий для указанного пользователя (через кэш пользователей, см. {@link UserStateCache}).
      *
      * @param userId Идентификатор пользователя.
      * @return Список категорий, принадлежащих пользователю.
      */
     public List<Category> findCategoriesByUserId(String userId) {
-        List<Category> allCategories = loadCategories();
-        List<Category> userCategories = new ArrayList<>();
-        for (Category category : allCategories) {
-            if (category.getUserId().equals(userId)) {
-                userCategories.add(category);
-            }
+        try {
+            return loadUserData(filePath, userId, Category.class, Category::getUserId);
+        } catch (IOException e) {
+            log.error("Ошибка при загрузке категорий", e);
+            return new ArrayList<>();
         }
-        return userCategories;
     }
 
     /**
@@ -105,9 +234,8 @@ public class CategoryRepository extends FileRepository {
      * @return Категория, если найдена; иначе null.
      */
     public Category findCategoryByName(String userId, String name) {
-        List<Category> allCategories = loadCategories();
-        for (Category category : allCategories) {
-            if (category.getUserId().equals(userId) && category.getName().equalsIgnoreCase(name)) {
+        for (Category category : findCategoriesByUserId(userId)) {
+            if (category.getName().equalsIgnoreCase(name)) {
                 return category;
             }
         }
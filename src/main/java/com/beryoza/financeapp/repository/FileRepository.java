@@ -1,23 +1,103 @@
 package com.beryoza.financeapp.repository;
 
+import com.beryoza.financeapp.jfr.FileLoadEvent;
+import com.beryoza.financeapp.jfr.FileSaveEvent;
+import com.beryoza.financeapp.logging.AppLogger;
+import com.beryoza.financeapp.logging.LogLevel;
+import com.beryoza.financeapp.metrics.MetricsRegistry;
+import com.beryoza.financeapp.metrics.OperationTimer;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
 
 /**
  * Базовый репозиторий для работы с файлами.
  * Предоставляет методы для сохранения и загрузки данных.
  * <p>
  * Поля:
+ * - {@code String dataDir} — корневая директория данных приложения.
  * - {@link ObjectMapper} objectMapper — объект для преобразования данных в JSON и обратно.
+ * - {@link AppLogger} log — журнал диагностических сообщений репозитория.
+ * - {@link MetricsRegistry} metrics — реестр метрик (задержки и объём ввода-вывода по файлам).
+ * - {@code boolean deferWrites} — включён ли режим отложенной записи.
+ * - {@link Map} pendingWrites — сохранённые, но ещё не записанные на диск данные по путям файлов
+ *   (в виде объектов; сериализуются только при {@link #flush()}).
+ * - {@link UserStateCache} userStates — общий кэш данных пользователей (см. {@link #loadUserData}).
  */
 public abstract class FileRepository {
+    /**
+     * Корневая директория данных по умолчанию (относительно рабочей директории).
+     */
+    public static final String DEFAULT_DATA_DIR = "data";
+
+    private static final Map<String, ReadWriteLock> FILE_LOCKS = new ConcurrentHashMap<>();
+
+    protected final String dataDir;
     protected final ObjectMapper objectMapper;
+    protected final AppLogger log = AppLogger.getLogger(getClass());
+    protected final MetricsRegistry metrics = MetricsRegistry.global();
+
+    protected final UserStateCache userStates = UserStateCache.global();
+
+    private final Map<String, PendingWrite> pendingWrites = new ConcurrentHashMap<>();
+    private final ObjectWriter compactWriter;
+    private volatile boolean deferWrites;
+
+    /**
+     * Обработчик потокового чтения файла данных.
+     */
+    @FunctionalInterface
+    protected interface JsonStreamHandler {
+
+        /**
+         * Прочитать содержимое файла через потоковый парсер.
+         *
+         * @param parser Парсер, установленный перед первым токеном файла.
+         * @throws IOException Если произошла ошибка при чтении.
+         */
+        void read(JsonParser parser) throws IOException;
+    }
+
+    /**
+     * Данные, ожидающие записи на диск. Элементы принадлежат репозиторию: наружу отдаются только их копии
+     * (кроме {@link #loadDataForUpdate}).
+     *
+     * @param data Элементы файла.
+     */
+    private record PendingWrite(List<?> data) {
+    }
+
+    /**
+     * Размер и время изменения файла.
+     *
+     * @param size     Размер в байтах (-1, если файла нет).
+     * @param modified Время изменения в наносекундах.
+     */
+    protected record FileStamp(long size, long modified) {
+    }
 
     /**
      * Конструктор базового репозитория.
@@ -27,16 +107,160 @@ public abstract class FileRepository {
      * Настройки:
      * - {@link JavaTimeModule} — для сериализации/десериализации типов даты и времени.
      * - {@link SerializationFeature#INDENT_OUTPUT} — для форматированного (многострочного) вывода JSON.
+     *
+     * @param dataDir Корневая директория данных приложения.
      */
-    public FileRepository() {
+    public FileRepository(String dataDir) {
+        this.dataDir = dataDir;
         objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
         objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
+        compactWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    /**
+     * Получить корневую директорию данных приложения.
+     *
+     * @return Путь к директории данных.
+     */
+    public String getDataDir() {
+        return dataDir;
+    }
+
+    /**
+     * Получить путь к файлу данных репозитория.
+     *
+     * @return Путь к файлу.
+     */
+    protected abstract String getFilePath();
 
+    /**
+     * Получить путь к файлу данных относительно корневой директории данных
+     * (имя файла в снимке при репликации).
+     *
+     * @return Относительный путь с разделителем {@code /}.
+     */
+    public String getSnapshotName() {
+        return Path.of(dataDir).relativize(Path.of(getFilePath())).toString().replace(File.separatorChar, '/');
     }
 
     /**
-     * Сохранить данные в файл.
+     * Прочитать содержимое файла данных целиком для снимка.
+     * В режиме отложенной записи возвращаются ещё не сброшенные на диск данные.
+     *
+     * @return Содержимое файла.
+     * @throws IOException Если произошла ошибка при чтении.
+     */
+    public byte[] readSnapshot() throws IOException {
+        String filePath = getFilePath();
+        PendingWrite pending = pendingWrites.get(filePath);
+        if (pending != null) {
+            return objectMapper.writeValueAsBytes(pending.data());
+        }
+        Lock lock = lockFor(filePath).readLock();
+        lock.lock();
+        try {
+            byte[] content = Files.readAllBytes(Path.of(filePath));
+            metrics.counter("file." + new File(filePath).getName() + ".bytesRead").add(content.length);
+            return content;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Заменить содержимое файла данных снимком (установка снимка на реплике).
+     * Содержимое проверяется до записи: это должен быть JSON-массив.
+     *
+     * @param content Содержимое файла из снимка.
+     * @throws IOException Если снимок повреждён или произошла ошибка при записи.
+     */
+    public void restoreSnapshot(byte[] content) throws IOException {
+        JsonNode root = objectMapper.readTree(content);
+        if (root == null || !root.isArray()) {
+            throw new IOException("Снимок " + getSnapshotName() + " не является JSON-массивом");
+        }
+        String filePath = getFilePath();
+        Lock lock = lockFor(filePath).writeLock();
+        lock.lock();
+        try {
+            pendingWrites.remove(filePath);
+            writeFile(new File(filePath), content, root.size());
+            userStates.invalidate(sectionOf(filePath));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Включить режим отложенной записи: сохранения накапливаются в памяти
+     * и попадают на диск только при вызове {@link #flush()}.
+     * Последующие загрузки этим репозиторием видят несброшенные изменения.
+     * <p>
+     * Данные хранятся в виде объектов, а не JSON: сохранение копирует только новые или изменённые
+     * вызывающим кодом элементы, загрузка данных пользователя копирует только его элементы,
+     * а сериализуется файл один раз — при сбросе.
+     */
+    public void beginDeferredWrites() {
+        deferWrites = true;
+    }
+
+    /**
+     * Записать на диск все накопленные изменения.
+     *
+     * @throws IOException Если произошла ошибка при записи.
+     */
+    public void flush() throws IOException {
+        for (String filePath : new ArrayList<>(pendingWrites.keySet())) {
+            File file = new File(filePath);
+            Lock lock = lockFor(filePath).writeLock();
+            lock.lock();
+            try {
+                PendingWrite pending = pendingWrites.get(filePath);
+                if (pending != null) {
+                    writeFile(file, objectMapper.writeValueAsBytes(pending.data()), pending.data().size());
+                    pendingWrites.remove(filePath);
+                    // Пока запись была отложена, другие репозитории могли закэшировать старые данные с диска.
+                    userStates.invalidate(sectionOf(filePath));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Проверить, есть ли изменения, ещё не записанные на диск.
+     *
+     * @return true, если есть несброшенные изменения.
+     */
+    public boolean hasPendingWrites() {
+        return !pendingWrites.isEmpty();
+    }
+
+    /**
+     * Записать накопленные изменения и выключить режим отложенной записи.
+     *
+     * @throws IOException Если произошла ошибка при записи.
+     */
+    public void endDeferredWrites() throws IOException {
+        deferWrites = false;
+        flush();
+    }
+
+    /**
+     * Получить блокировку файла данных. Блокировки общие для всех экземпляров репозиториев,
+     * поэтому параллельные потоки не читают наполовину записанный файл.
+     *
+     * @param filePath Путь к файлу.
+     * @return Блокировка чтения/записи файла.
+     */
+    protected static ReadWriteLock lockFor(String filePath) {
+        return FILE_LOCKS.computeIfAbsent(new File(filePath).getAbsolutePath(), key -> new ReentrantReadWriteLock());
+    }
+
+    /**
+     * Сохранить данные в файл. Все данные файла в кэше пользователей становятся недействительными.
      *
      * @param filePath Путь к файлу.
      * @param data     Данные для сохранения.
@@ -44,11 +268,68 @@ public abstract class FileRepository {
      * @throws IOException Если произошла ошибка при записи.
      */
     protected <T> void saveDataToFile(String filePath, List<T> data) throws IOException {
+        saveDataToFile(filePath, data, null);
+    }
+
+    /**
+     * Сохранить данные в файл, в котором изменились данные только указанных пользователей:
+     * из кэша пользователей удаляются только их данные.
+     *
+     * @param filePath     Путь к файлу.
+     * @param data         Данные для сохранения.
+     * @param changedUsers Логины пользователей, чьи данные изменились (null — данные могли измениться у всех).
+     * @param <T>          Тип данных.
+     * @throws IOException Если произошла ошибка при записи.
+     */
+    protected <T> void saveDataToFile(String filePath, List<T> data, Collection<String> changedUsers)
+            throws IOException {
+        File file = new File(filePath);
+        List<String> owners = null;
+        if (changedUsers != null) {
+            owners = new ArrayList<>(changedUsers.size());
+            for (String userId : changedUsers) {
+                owners.add(ownerOf(userId));
+            }
+        }
+        Lock lock = lockFor(filePath).writeLock();
+        lock.lock();
         try {
-            objectMapper.writeValue(new File(filePath), data);
-            System.out.println("Данные успешно сохранены в " + filePath);
+            FileStamp before = stampOf(filePath);
+            if (deferWrites) {
+                pendingWrites.put(filePath, new PendingWrite(retain(filePath, data)));
+            } else {
+                writeFile(file, objectMapper.writeValueAsBytes(data), data.size());
+                // Данные, не записанные из-за ошибки сброса, уже вошли в сохранённый список.
+                pendingWrites.remove(filePath);
+            }
+            userStates.written(sectionOf(filePath), before, stampOf(filePath), owners);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Записать сериализованные данные в файл (вызывается под блокировкой записи).
+     */
+    private void writeFile(File file, byte[] content, int elementCount) throws IOException {
+        String filePath = file.getPath();
+        FileSaveEvent event = new FileSaveEvent();
+        event.begin();
+        OperationTimer timer = metrics.time("file." + file.getName() + ".save");
+        try (timer) {
+            Files.write(file.toPath(), content);
+            metrics.counter("file." + file.getName() + ".bytesWritten").add(content.length);
+            if (event.shouldCommit()) {
+                event.file = filePath;
+                event.fileSize = content.length;
+                event.elementCount = elementCount;
+                event.commit();
+            }
+            if (log.isEnabled(LogLevel.DEBUG)) {
+                log.debug("Данные сохранены", "file", filePath, "items", elementCount, "bytes", content.length);
+            }
         } catch (IOException e) {
-            System.err.println("Ошибка при сохранении данных в " + filePath + ": " + e.getMessage());
+            log.error("Ошибка при сохранении данных", e, "file", filePath);
             throw e;
         }
     }
@@ -63,10 +344,207 @@ public abstract class FileRepository {
      * @throws IOException Если произошла ошибка при чтении.
      */
     protected <T> List<T> loadDataFromFile(String filePath, Class<T> type) throws IOException {
+        PendingWrite pending = pendingWrites.get(filePath);
+        if (pending != null) {
+            List<T> copies = new ArrayList<>(pending.data().size());
+            for (Object element : pending.data()) {
+                copies.add(copyOf(type.cast(element)));
+            }
+            return copies;
+        }
+        File file = new File(filePath);
+        Lock lock = lockFor(filePath).readLock();
+        lock.lock();
+        try {
+            long bytes = file.length();
+            if (bytes == 0) {
+                return new ArrayList<>();
+            }
+            return readFile(file, bytes, type);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Загрузить данные для изменения и сохранения под блокировкой записи файла. В режиме отложенной записи
+     * возвращаются сами хранимые элементы без копирования: вызывающий код может только сравнивать их,
+     * заменять в списке или изменять с последующим сохранением списка.
+     *
+     * @param filePath Путь к файлу.
+     * @param type     Класс типа данных.
+     * @param <T>      Тип данных.
+     * @return Список данных.
+     * @throws IOException Если произошла ошибка при чтении.
+     */
+    protected <T> List<T> loadDataForUpdate(String filePath, Class<T> type) throws IOException {
+        PendingWrite pending = pendingWrites.get(filePath);
+        if (pending != null) {
+            List<T> data = new ArrayList<>(pending.data().size());
+            for (Object element : pending.data()) {
+                data.add(type.cast(element));
+            }
+            return data;
+        }
+        return loadDataFromFile(filePath, type);
+    }
+
+    /**
+     * Оставить в хранимых данных элементы, уже принадлежащие репозиторию, и скопировать остальные
+     * (переданные вызывающим кодом), чтобы их последующие изменения не попадали в несброшенные данные.
+     */
+    private List<Object> retain(String filePath, List<?> data) throws IOException {
+        PendingWrite pending = pendingWrites.get(filePath);
+        Set<Object> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (pending != null) {
+            owned.addAll(pending.data());
+        }
+        List<Object> retained = new ArrayList<>(data.size());
+        for (Object element : data) {
+            retained.add(owned.contains(element) ? element : copyOf(element));
+        }
+        return retained;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T copyOf(T element) throws IOException {
+        return element == null ? null
+                : (T) objectMapper.readValue(compactWriter.writeValueAsBytes(element), element.getClass());
+    }
+
+    /**
+     * Загрузить данные одного пользователя через кэш пользователей ({@link UserStateCache}).
+     * При промахе файл читается целиком, а часть пользователя сохраняется в кэш. Каждый вызов возвращает
+     * новые объекты. В режиме отложенной записи кэш не используется, а копируются только элементы пользователя.
+     *
+     * @param filePath Путь к файлу.
+     * @param userId   Логин пользователя.
+     * @param type     Класс типа данных.
+     * @param owner    Функция получения логина владельца элемента.
+     * @param <T>      Тип данных.
+     * @return Данные пользователя в порядке хранения.
+     * @throws IOException Если произошла ошибка при чтении.
+     */
+    protected <T> List<T> loadUserData(String filePath, String userId, Class<T> type, Function<T, String> owner)
+            throws IOException {
+        PendingWrite pending = pendingWrites.get(filePath);
+        if (pending != null) {
+            List<T> result = new ArrayList<>();
+            for (Object element : pending.data()) {
+                T item = type.cast(element);
+                if (userId.equals(owner.apply(item))) {
+                    result.add(copyOf(item));
+                }
+            }
+            return result;
+        }
+        JavaType listType = objectMapper.getTypeFactory().constructCollectionType(List.class, type);
+        String section = sectionOf(filePath);
+        String ownerKey = ownerOf(userId);
+        Lock lock = lockFor(filePath).readLock();
+        lock.lock();
+        try {
+            FileStamp stamp = stampOf(filePath);
+            byte[] cached = userStates.get(ownerKey, section, stamp);
+            if (cached != null) {
+                return objectMapper.readValue(cached, listType);
+            }
+            List<T> data = filterByUser(loadDataFromFile(filePath, type), userId, owner);
+            userStates.put(ownerKey, section, stamp, compactWriter.forType(listType).writeValueAsBytes(data));
+            return data;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static <T> List<T> filterByUser(List<T> data, String userId, Function<T, String> owner) {
+        List<T> result = new ArrayList<>();
+        for (T item : data) {
+            if (userId.equals(owner.apply(item))) {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Получить состояние файла (размер и время изменения).
+     *
+     * @param filePath Путь к файлу.
+     * @return Состояние файла; размер -1, если файла нет.
+     */
+    protected static FileStamp stampOf(String filePath) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(Path.of(filePath), BasicFileAttributes.class);
+            return new FileStamp(attributes.size(), attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS));
+        } catch (IOException e) {
+            return new FileStamp(-1, 0);
+        }
+    }
+
+    private static String sectionOf(String filePath) {
+        return new File(filePath).getAbsolutePath();
+    }
+
+    private String ownerOf(String userId) {
+        return new File(dataDir).getAbsolutePath() + "#" + userId;
+    }
+
+    /**
+     * Прочитать файл потоковым парсером, не загружая весь список в память.
+     * Файл удерживается под блокировкой чтения, пока работает обработчик.
+     * В режиме отложенной записи читаются ещё не сброшенные на диск данные.
+     *
+     * @param filePath Путь к файлу.
+     * @param handler  Обработчик потока токенов.
+     * @throws IOException Если произошла ошибка при чтении.
+     */
+    protected void streamDataFromFile(String filePath, JsonStreamHandler handler) throws IOException {
+        PendingWrite pending = pendingWrites.get(filePath);
+        if (pending != null) {
+            byte[] content = compactWriter.writeValueAsBytes(pending.data());
+            try (JsonParser parser = objectMapper.getFactory().createParser(content)) {
+                handler.read(parser);
+            }
+            return;
+        }
         File file = new File(filePath);
-        if (!file.exists() || file.length() == 0) {
-            return new ArrayList<>();
+        Lock lock = lockFor(filePath).readLock();
+        lock.lock();
+        OperationTimer timer = metrics.time("file." + file.getName() + ".stream");
+        try (timer) {
+            long bytes = file.length();
+            if (bytes == 0) {
+                return;
+            }
+            metrics.counter("file." + file.getName() + ".bytesRead").add(bytes);
+            try (JsonParser parser = objectMapper.getFactory().createParser(file)) {
+                handler.read(parser);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Прочитать и разобрать непустой файл (вызывается под блокировкой чтения).
+     */
+    private <T> List<T> readFile(File file, long bytes, Class<T> type) throws IOException {
+        String filePath = file.getPath();
+        FileLoadEvent event = new FileLoadEvent();
+        event.begin();
+        OperationTimer timer = metrics.time("file." + file.getName() + ".load");
+        try (timer) {
+            metrics.counter("file." + file.getName() + ".bytesRead").add(bytes);
+            List<T> data = objectMapper.readValue(file,
+                    objectMapper.getTypeFactory().constructCollectionType(List.class, type));
+            if (event.shouldCommit()) {
+                event.file = filePath;
+                event.fileSize = bytes;
+                event.elementCount = data.size();
+                event.commit();
+            }
+            return data;
         }
-        return objectMapper.readValue(file, objectMapper.getTypeFactory().constructCollectionType(List.class, type));
     }
 }
\ No newline at end of file
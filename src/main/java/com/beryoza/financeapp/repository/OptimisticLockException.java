@@ -0,0 +1,21 @@
+package com.beryoza.financeapp.repository;
+
+/**
+ * Конфликт оптимистической блокировки: сохраняемый объект был изменён или удалён другим сеансом
+ * после того, как его прочитали (версия объекта не совпадает с сохранённой).
+ * <p>
+ * Операцию нужно повторить на свежих данных, например через
+ * {@link com.beryoza.financeapp.service.ConflictRetry}.
+ */
+public class OptimisticLockException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Конструктор.
+     *
+     * @param message Описание конфликта.
+     */
+    public OptimisticLockException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,416 @@
+package com.beryoza.financeapp.repository;
+
+import com.beryoza.financeapp.metrics.OperationTimer;
+import com.beryoza.financeapp.model.ArchivedMonth;
+import com.beryoza.financeapp.model.MonthlySummary;
+import com.beryoza.financeapp.model.Transaction;
+import com.beryoza.financeapp.model.UserSnapshot;
+import com.beryoza.financeapp.model.WalletSnapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Репозиторий материализованных месячных сводок (пользователь × месяц × категория).
+ * <p>
+ * Сводки обновляются инкрементально при добавлении, изменении и удалении транзакций
+ * и могут быть перестроены с нуля по файлу кошельков. Размер файла сводок зависит от количества
+ * пользователей, месяцев и категорий, но не от количества транзакций.
+ * <p>
+ * Поля:
+ * - {@code String directory} — директория с файлом данных.
+ * - {@code String filePath} — путь к файлу сводок.
+ * - {@code boolean created} — файл сводок был создан этим экземпляром и ещё не заполнен.
+ * - {@code boolean verified} — сводки уже сверены с кошельками (см. {@link #rebuildIfStale}).
+ */
+public class SummaryRepository extends FileRepository {
+    private final String directory;
+    private final String filePath;
+    private volatile boolean created;
+    private boolean verified;
+
+    /**
+     * Конструктор. Использует директорию данных по умолчанию ({@code data}).
+     */
+    public SummaryRepository() {
+        this(DEFAULT_DATA_DIR);
+    }
+
+    /**
+     * Конструктор. Проверяет наличие директории и файла сводок.
+     * Если они отсутствуют, создаёт их.
+     *
+     * @param dataDir Корневая директория данных приложения.
+     */
+    public SummaryRepository(String dataDir) {
+        super(dataDir);
+        this.directory = dataDir + "/summaries";
+        this.filePath = directory + "/summaries.json";
+        ensureDirectoriesExist();
+        ensureFileExists();
+    }
+
+    @Override
+    protected String getFilePath() {
+        return filePath;
+    }
+
+    /**
+     * Проверяет наличие директории для хранения данных.
+     * Если директория отсутствует, создаёт её.
+     */
+    private void ensureDirectoriesExist() {
+        File dir = new File(directory);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+    }
+
+    /**
+     * Проверяет наличие файла сводок.
+     * Если файл отсутствует или пустой, создаёт его и инициализирует пустым списком.
+     */
+    private void ensureFileExists() {
+        File file = new File(filePath);
+        try {
+            if (!file.exists() || file.length() == 0) {
+                file.createNewFile();
+                saveSummaries(new ArrayList<>());
+                created = true;
+            }
+        } catch (IOException e) {
+            log.error("Ошибка при создании файла сводок", e);
+        }
+    }
+
+    /**
+     * Сохранить список сводок в файл.
+     *
+     * @param summaries Список сводок.
+     */
+    public void saveSummaries(List<MonthlySummary> summaries) {
+        try {
+            saveDataToFile(filePath, summaries);
+        } catch (IOException e) {
+            log.error("Ошибка при сохранении сводок", e);
+        }
+    }
+
+    /**
+     * Загрузить все сводки из файла.
+     *
+     * @return Список сводок.
+     */
+    public List<MonthlySummary> loadSummaries() {
+        try {
+            return loadDataFromFile(filePath, MonthlySummary.class);
+        } catch (IOException e) {
+            log.error("Ошибка при загрузке сводок", e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Загрузить сводки для изменения под блокировкой записи (см. {@link #loadDataForUpdate}).
+     */
+    private List<MonthlySummary> loadSummariesForUpdate() {
+        try {
+            return loadDataForUpdate(filePath, MonthlySummary.class);
+        } catch (IOException e) {
+            log.error("Ошибка при загрузке сводок", e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Найти сводки пользователя (через кэш пользователей, см. {@link UserStateCache}).
+     *
+     * @param userId Идентификатор пользователя.
+     * @return Сводки пользователя по месяцам и категориям.
+     */
+    public List<MonthlySummary> findByUser(String userId) {
+        OperationTimer timer = metrics.time("SummaryRepository.findByUser");
+        try (timer) {
+            return loadUserData(filePath, userId, MonthlySummary.class, MonthlySummary::getUserId);
+        } catch (IOException e) {
+            log.error("Ошибка при загрузке сводок", e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Сохранить сводки, в которых изменились строки только указанных пользователей.
+     */
+    private void write(List<MonthlySummary> summaries, Collection<String> changedUsers) {
+        try {
+            saveDataToFile(filePath, summaries, changedUsers);
+        } catch (IOException e) {
+            log.error("Ошибка при сохранении сводок", e);
+        }
+    }
+
+    /**
+     * Учесть транзакции в сводках или исключить их из сводок.
+     *
+     * @param userId       Идентификатор пользователя.
+     * @param transactions Транзакции.
+     * @param sign         1 — добавить транзакции, -1 — исключить.
+     */
+    public void apply(String userId, List<Transaction> transactions, int sign) {
+        if (sign > 0) {
+            apply(userId, List.of(), transactions);
+        } else {
+            apply(userId, transactions, List.of());
+        }
+    }
+
+    /**
+     * Исключить одни транзакции из сводок и учесть другие одной перезаписью файла (например, старую
+     * и новую версию изменённой транзакции). Чтение и перезапись файла выполняются под одной
+     * блокировкой записи; строки, оставшиеся без транзакций, удаляются после применения обоих списков.
+     *
+     * @param userId  Идентификатор пользователя.
+     * @param removed Транзакции, исключаемые из сводок.
+     * @param added   Транзакции, учитываемые в сводках.
+     */
+    public void apply(String userId, List<Transaction> removed, List<Transaction> added) {
+        if (removed.isEmpty() && added.isEmpty()) {
+            return;
+        }
+        Lock lock = lockFor(filePath).writeLock();
+        lock.lock();
+        OperationTimer timer = metrics.time("SummaryRepository.apply");
+        try (timer) {
+            List<MonthlySummary> summaries = loadSummariesForUpdate();
+            Map<String, MonthlySummary> index = new HashMap<>();
+            for (MonthlySummary summary : summaries) {
+                if (summary.getUserId().equals(userId)) {
+                    index.put(key(summary.getMonth(), summary.getCategory()), summary);
+                }
+            }
+            for (Transaction transaction : added) {
+                accumulate(summaries, index, userId, transaction, 1);
+            }
+            for (Transaction transaction : removed) {
+                accumulate(summaries, index, userId, transaction, -1);
+            }
+            summaries.removeIf(summary -> summary.getTransactionCount() <= 0);
+            write(summaries, List.of(userId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Перенести сводки на новый логин пользователя.
+     *
+     * @param oldUserId Старый идентификатор пользователя.
+     * @param newUserId Новый идентификатор пользователя.
+     */
+    public void renameUser(String oldUserId, String newUserId) {
+        Lock lock = lockFor(filePath).writeLock();
+        lock.lock();
+        try {
+            List<MonthlySummary> summaries = loadSummariesForUpdate();
+            for (MonthlySummary summary : summaries) {
+                if (summary.getUserId().equals(oldUserId)) {
+                    summary.setUserId(newUserId);
+                }
+            }
+            write(summaries, List.of(oldUserId, newUserId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Перестроить все сводки с нуля по файлу кошельков (потоковое чтение транзакций).
+     *
+     * @param walletRepository Репозиторий кошельков.
+     * @throws IOException Если не удалось прочитать кошельки.
+     */
+    public void rebuild(WalletRepository walletRepository) throws IOException {
+        Lock lock = lockFor(filePath).writeLock();
+        lock.lock();
+        OperationTimer timer = metrics.time("SummaryRepository.rebuild");
+        try (timer) {
+            List<MonthlySummary> summaries = new ArrayList<>();
+            Map<String, Map<String, MonthlySummary>> byUser = new HashMap<>();
+            walletRepository.forEachTransaction(null, (userId, walletName, transaction) ->
+                    accumulate(summaries, byUser.computeIfAbsent(userId, key -> new HashMap<>()),
+                            userId, transaction, 1));
+            saveSummaries(summaries);
+            created = false;
+            log.info("Сводки перестроены", "rows", summaries.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Перестроить сводки, если файл сводок только что создан (например, при первом запуске
+     * на данных, которые существовали до появления сводок) или если сводки расходятся с кошельками
+     * (например, процесс завершился между сохранением кошелька и обновлением сводок).
+     * Проверка выполняется один раз на экземпляр репозитория.
+     *
+     * @param walletRepository Репозиторий кошельков.
+     */
+    public synchronized void rebuildIfStale(WalletRepository walletRepository) {
+        if (verified) {
+            return;
+        }
+        try {
+            if (!created) {
+                List<String> staleUsers = findStaleUsers(walletRepository);
+                if (staleUsers.isEmpty()) {
+                    verified = true;
+                    return;
+                }
+                log.warn("Сводки расходятся с кошельками, перестраиваются", "users", staleUsers.size());
+            }
+            rebuild(walletRepository);
+            verified = true;
+        } catch (IOException e) {
+            log.error("Ошибка при построении сводок", e);
+        }
+    }
+
+    /**
+     * Найти пользователей, сводки которых расходятся с их кошельками (см. {@link #compare}),
+     * и пользователей, у которых есть сводки, но нет кошельков.
+     *
+     * @param walletRepository Репозиторий кошельков.
+     * @return Логины пользователей.
+     */
+    public List<String> findStaleUsers(WalletRepository walletRepository) {
+        OperationTimer timer = metrics.time("SummaryRepository.verify");
+        try (timer) {
+            Map<String, List<MonthlySummary>> byUser = groupByUser(loadSummaries());
+            List<String> staleUsers = new ArrayList<>();
+            for (UserSnapshot user : walletRepository.snapshot().getUsers()) {
+                List<MonthlySummary> summaries = byUser.remove(user.userId());
+                if (!compare(user, summaries != null ? summaries : List.of()).isEmpty()) {
+                    staleUsers.add(user.userId());
+                }
+            }
+            staleUsers.addAll(byUser.keySet());
+            return staleUsers;
+        }
+    }
+
+    /**
+     * Сгруппировать строки сводок по пользователям.
+     *
+     * @param summaries Строки сводок.
+     * @return Строки по логинам пользователей.
+     */
+    public static Map<String, List<MonthlySummary>> groupByUser(List<MonthlySummary> summaries) {
+        Map<String, List<MonthlySummary>> byUser = new HashMap<>();
+        for (MonthlySummary summary : summaries) {
+            byUser.computeIfAbsent(summary.getUserId(), key -> new ArrayList<>()).add(summary);
+        }
+        return byUser;
+    }
+
+    /**
+     * Сравнить сводки пользователя с его кошельками, не читая архивные сегменты.
+     * <p>
+     * Для месяцев без архивных сегментов сверяются доходы, расходы и количество транзакций по каждой
+     * категории. Для месяцев с архивными сегментами итоги сегмента включают переводы и не разделяют доходы
+     * по категориям, поэтому сверяются только расходы по категориям (кроме транзакций без категории).
+     *
+     * @param user      Кошельки пользователя.
+     * @param summaries Строки сводок пользователя.
+     * @return Описания расхождений (пустой список, если сводки согласованы).
+     */
+    public static List<String> compare(UserSnapshot user, List<MonthlySummary> summaries) {
+        List<MonthlySummary> expected = new ArrayList<>();
+        Map<String, MonthlySummary> index = new HashMap<>();
+        Map<String, Long> archivedExpense = new HashMap<>();
+        Set<YearMonth> archivedMonths = new HashSet<>();
+        for (WalletSnapshot wallet : user.wallets()) {
+            for (Transaction transaction : wallet.transactions()) {
+                accumulate(expected, index, user.userId(), transaction, 1);
+            }
+            for (ArchivedMonth row : wallet.archive()) {
+                archivedMonths.add(row.month());
+                for (Map.Entry<String, Long> category : row.categoryExpenseCents().entrySet()) {
+                    archivedExpense.merge(key(row.month(), category.getKey()), -category.getValue(), Long::sum);
+                }
+            }
+        }
+
+        Map<String, MonthlySummary> actual = new HashMap<>();
+        for (MonthlySummary summary : summaries) {
+            actual.put(key(summary.getMonth(), summary.getCategory()), summary);
+        }
+        Set<String> keys = new TreeSet<>(index.keySet());
+        keys.addAll(actual.keySet());
+        keys.addAll(archivedExpense.keySet());
+
+        List<String> mismatches = new ArrayList<>();
+        for (String key : keys) {
+            MonthlySummary stored = actual.get(key);
+            MonthlySummary computed = index.get(key);
+            YearMonth month = stored != null ? stored.getMonth() : computed != null ? computed.getMonth()
+                    : YearMonth.parse(key.substring(0, key.indexOf('|')));
+            String category = key.substring(key.indexOf('|') + 1);
+            long storedIncome = stored != null ? stored.getIncomeCents() : 0;
+            long storedExpense = stored != null ? stored.getExpenseCents() : 0;
+            int storedCount = stored != null ? stored.getTransactionCount() : 0;
+            long computedIncome = computed != null ? computed.getIncomeCents() : 0;
+            long computedExpense = (computed != null ? computed.getExpenseCents() : 0)
+                    + archivedExpense.getOrDefault(key, 0L);
+            int computedCount = computed != null ? computed.getTransactionCount() : 0;
+            if (!archivedMonths.contains(month)) {
+                if (storedIncome != computedIncome || storedExpense != computedExpense
+                        || storedCount != computedCount) {
+                    mismatches.add(String.format(Locale.ROOT, "Сводка за %s по категории \"%s\": доходы %.2f, "
+                                    + "расходы %.2f, транзакций %d; по кошелькам %.2f, %.2f, %d.",
+                            month, category, storedIncome / 100.0, storedExpense / 100.0, storedCount,
+                            computedIncome / 100.0, computedExpense / 100.0, computedCount));
+                }
+            } else if (!category.isEmpty() && storedExpense != computedExpense) {
+                mismatches.add(String.format(Locale.ROOT,
+                        "Сводка за %s по категории \"%s\": расходы %.2f, по кошелькам и архиву %.2f.",
+                        month, category, storedExpense / 100.0, computedExpense / 100.0));
+            }
+        }
+        return mismatches;
+    }
+
+    /**
+     * Добавить транзакцию в строку сводки (создав строку при необходимости).
+     */
+    private static void accumulate(List<MonthlySummary> summaries, Map<String, MonthlySummary> index,
+                                   String userId, Transaction transaction, int sign) {
+        // Переводы перемещают средства между кошельками и не являются доходами или расходами.
+        if (transaction.getDate() == null || transaction.isTransfer()) {
+            return;
+        }
+        YearMonth month = YearMonth.from(transaction.getDate());
+        String category = transaction.getCategory() != null ? transaction.getCategory().getName() : "";
+        MonthlySummary summary = index.get(key(month, category));
+        if (summary == null) {
+            summary = new MonthlySummary(userId, month, category);
+            index.put(key(month, category), summary);
+            summaries.add(summary);
+        }
+        summary.apply(transaction.getAmount(), sign);
+    }
+
+    private static String key(YearMonth month, String category) {
+        return month + "|" + category;
+    }
+}
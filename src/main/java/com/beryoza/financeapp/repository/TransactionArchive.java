@@ -0,0 +1,241 @@
+package com.beryoza.financeapp.repository;
+
+import com.beryoza.financeapp.logging.AppLogger;
+import com.beryoza.financeapp.metrics.MetricsRegistry;
+import com.beryoza.financeapp.metrics.OperationTimer;
+import com.beryoza.financeapp.model.ArchivedMonth;
+import com.beryoza.financeapp.model.BalanceHistory;
+import com.beryoza.financeapp.model.Transaction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Архив старых транзакций кошельков.
+ * <p>
+ * Транзакции одного месяца одного кошелька хранятся в отдельном сегменте — файле
+ * {@code <dataDir>/archive/<yyyy-MM>-<uuid>.seg} с JSON-массивом транзакций, сжатым {@link Deflater}.
+ * Сегменты неизменяемы: файл записывается один раз (через временный файл и атомарное переименование)
+ * и только удаляется вместе с кошельком. Имя сегмента не зависит от логина и названия кошелька,
+ * поэтому переименования их не затрагивают. Кошелёк ссылается на свои сегменты сводными строками
+ * ({@link ArchivedMonth}).
+ * <p>
+ * Метрики: {@code TransactionArchive.write}, {@code TransactionArchive.read} (задержки),
+ * {@code TransactionArchive.bytesWritten}, {@code TransactionArchive.bytesRead}.
+ * <p>
+ * Поля:
+ * - {@link Path} directory — директория сегментов.
+ * - {@link ObjectMapper} objectMapper — сериализатор транзакций (компактный JSON).
+ * - {@link ObjectReader} reader — чтение списка транзакций.
+ */
+public class TransactionArchive {
+    private static final AppLogger log = AppLogger.getLogger(TransactionArchive.class);
+    private static final MetricsRegistry metrics = MetricsRegistry.global();
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path directory;
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final ObjectReader reader = objectMapper.readerForListOf(Transaction.class);
+
+    /**
+     * Конструктор.
+     *
+     * @param dataDir Корневая директория данных приложения.
+     */
+    public TransactionArchive(String dataDir) {
+        this.directory = Path.of(dataDir, "archive");
+    }
+
+    /**
+     * Записать транзакции одного месяца в новый сегмент.
+     *
+     * @param month        Месяц транзакций.
+     * @param transactions Транзакции (все датированы указанным месяцем).
+     * @return Сводная строка сегмента.
+     * @throws IOException Если не удалось записать файл.
+     */
+    public ArchivedMonth write(YearMonth month, List<Transaction> transactions) throws IOException {
+        OperationTimer timer = metrics.time("TransactionArchive.write");
+        try (timer) {
+            long income = 0;
+            long expense = 0;
+            Map<String, Long> categories = new HashMap<>();
+            Set<String> transferKeys = new HashSet<>();
+            for (Transaction transaction : transactions) {
+                long cents = BalanceHistory.toCents(transaction.getAmount());
+                if (cents > 0) {
+                    income += cents;
+                } else {
+                    expense += cents;
+                    if (transaction.isTransfer()) {
+                        transferKeys.add(transaction.getTransfer().id());
+                    } else if (transaction.getCategory() != null) {
+                        categories.merge(transaction.getCategory().getName(), cents, Long::sum);
+                    }
+                }
+            }
+
+            String segment = month + "-" + UUID.randomUUID() + SEGMENT_SUFFIX;
+            Files.createDirectories(directory);
+            Path temp = directory.resolve(segment + ".tmp");
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            try (OutputStream out = new DeflaterOutputStream(Files.newOutputStream(temp), deflater, 1 << 16)) {
+                objectMapper.writeValue(out, transactions);
+            } finally {
+                deflater.end();
+            }
+            metrics.counter("TransactionArchive.bytesWritten").add(Files.size(temp));
+            Files.move(temp, directory.resolve(segment), StandardCopyOption.ATOMIC_MOVE);
+            return new ArchivedMonth(month, segment, transactions.size(), income, expense, categories,
+                    transferKeys);
+        }
+    }
+
+    /**
+     * Прочитать транзакции сегмента.
+     *
+     * @param row Сводная строка сегмента.
+     * @return Транзакции сегмента.
+     * @throws IOException Если файл сегмента не найден или повреждён.
+     */
+    public List<Transaction> read(ArchivedMonth row) throws IOException {
+        OperationTimer timer = metrics.time("TransactionArchive.read");
+        try (timer) {
+            Path file = pathOf(row);
+            metrics.counter("TransactionArchive.bytesRead").add(Files.size(file));
+            try (InputStream in = new InflaterInputStream(Files.newInputStream(file))) {
+                List<Transaction> transactions = reader.readValue(in);
+                if (transactions.size() != row.count()) {
+                    throw new IOException("Сегмент " + row.segment() + " содержит " + transactions.size()
+                            + " транзакций вместо " + row.count() + ".");
+                }
+                return transactions;
+            }
+        }
+    }
+
+    /**
+     * Прочитать транзакции нескольких сегментов.
+     *
+     * @param rows Сводные строки сегментов.
+     * @return Транзакции всех сегментов в порядке строк.
+     * @throws IOException Если файл сегмента не найден или повреждён.
+     */
+    public List<Transaction> readAll(List<ArchivedMonth> rows) throws IOException {
+        List<Transaction> transactions = new ArrayList<>();
+        for (ArchivedMonth row : rows) {
+            transactions.addAll(read(row));
+        }
+        return transactions;
+    }
+
+    /**
+     * Проверить, есть ли файл сегмента.
+     *
+     * @param row Сводная строка сегмента.
+     * @return true, если файл есть.
+     */
+    public boolean exists(ArchivedMonth row) {
+        return Files.isRegularFile(pathOf(row));
+    }
+
+    /**
+     * Удалить сегменты (после удаления кошелька или возврата транзакций в кошелёк).
+     * Ошибки удаления записываются в журнал: оставшийся файл ни на что не влияет.
+     *
+     * @param rows Сводные строки сегментов.
+     */
+    public void delete(List<ArchivedMonth> rows) {
+        for (ArchivedMonth row : rows) {
+            try {
+                Files.deleteIfExists(pathOf(row));
+            } catch (IOException e) {
+                log.warn("Не удалось удалить сегмент архива", e, "segment", row.segment());
+            }
+        }
+    }
+
+    /**
+     * Получить файлы всех сегментов архива (например, для снимка реплики).
+     *
+     * @return Пути к файлам сегментов.
+     * @throws IOException Если не удалось прочитать директорию архива.
+     */
+    public List<Path> listSegments() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+    }
+
+    /**
+     * Записать полученный целиком сегмент (например, из снимка основного узла): файл записывается через
+     * временный файл и атомарное переименование, как при архивировании.
+     *
+     * @param segment Имя файла сегмента.
+     * @param in      Поток с содержимым сегмента.
+     * @param length  Длина содержимого в байтах.
+     * @throws IOException Если имя сегмента некорректно или файл не удалось записать.
+     */
+    public void restoreSegment(String segment, InputStream in, long length) throws IOException {
+        Path file = directory.resolve(segment).normalize();
+        if (!segment.endsWith(SEGMENT_SUFFIX) || !directory.normalize().equals(file.getParent())) {
+            throw new IOException("Некорректное имя сегмента архива: " + segment);
+        }
+        Files.createDirectories(directory);
+        Path temp = directory.resolve(segment + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            byte[] buffer = new byte[1 << 16];
+            long remaining = length;
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    throw new EOFException("Сегмент " + segment + " получен не полностью.");
+                }
+                out.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Удалить сегменты, которых нет в списке (например, оставшиеся от прежнего снимка реплики).
+     *
+     * @param segments Имена сегментов, которые нужно оставить.
+     * @throws IOException Если не удалось прочитать директорию архива.
+     */
+    public void retainSegments(Set<String> segments) throws IOException {
+        for (Path file : listSegments()) {
+            if (!segments.contains(file.getFileName().toString())) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private Path pathOf(ArchivedMonth row) {
+        return directory.resolve(row.segment());
+    }
+}
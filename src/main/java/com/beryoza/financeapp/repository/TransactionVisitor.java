@@ -0,0 +1,23 @@
+package com.beryoza.financeapp.repository;
+
+import com.beryoza.financeapp.model.Transaction;
+
+import java.io.IOException;
+
+/**
+ * Получатель транзакций при потоковом чтении кошельков
+ * (см. {@link WalletRepository#forEachTransaction(String, TransactionVisitor)}).
+ */
+@FunctionalInterface
+public interface TransactionVisitor {
+
+    /**
+     * Обработать транзакцию.
+     *
+     * @param userId      Идентификатор владельца кошелька.
+     * @param walletName  Название кошелька.
+     * @param transaction Транзакция.
+     * @throws IOException Если обработчик не смог записать результат.
+     */
+    void visit(String userId, String walletName, Transaction transaction) throws IOException;
+}
@@ -0,0 +1,102 @@
+package com.beryoza.financeapp.repository;
+
+import com.beryoza.financeapp.model.TransferLeg;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Репозиторий частей распределённых переводов, подготовленных на этом узле.
+ * Завершённые части хранятся вместе с состоянием, чтобы повторная фиксация или отмена
+ * (после сбоя координатора) были идемпотентными.
+ * <p>
+ * Поля:
+ * - {@code String directory} — директория с файлом данных.
+ * - {@code String filePath} — путь к файлу частей переводов.
+ */
+public class TransferRepository extends FileRepository {
+    private final String directory;
+    private final String filePath;
+
+    /**
+     * Конструктор. Использует директорию данных по умолчанию ({@code data}).
+     */
+    public TransferRepository() {
+        this(DEFAULT_DATA_DIR);
+    }
+
+    /**
+     * Конструктор. Проверяет наличие директории и файла частей переводов.
+     * Если они отсутствуют, создаёт их.
+     *
+     * @param dataDir Корневая директория данных приложения.
+     */
+    public TransferRepository(String dataDir) {
+        super(dataDir);
+        this.directory = dataDir + "/transfers";
+        this.filePath = directory + "/transfers.json";
+        ensureDirectoriesExist();
+        ensureFileExists();
+    }
+
+    @Override
+    protected String getFilePath() {
+        return filePath;
+    }
+
+    /**
+     * Проверяет наличие директории для хранения данных.
+     * Если директория отсутствует, создаёт её.
+     */
+    private void ensureDirectoriesExist() {
+        File dir = new File(directory);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+    }
+
+    /**
+     * Проверяет наличие файла частей переводов.
+     * Если файл отсутствует или пустой, создаёт его и инициализирует пустым списком.
+     */
+    private void ensureFileExists() {
+        File file = new File(filePath);
+        try {
+            if (!file.exists() || file.length() == 0) {
+                file.createNewFile();
+                saveTransfers(new ArrayList<>());
+            }
+        } catch (IOException e) {
+            log.error("Ошибка при создании файла переводов", e);
+        }
+    }
+
+    /**
+     * Сохранить части переводов в файл.
+     *
+     * @param transfers Список частей переводов.
+     */
+    public void saveTransfers(List<TransferLeg> transfers) {
+        try {
+            saveDataToFile(filePath, transfers);
+        } catch (IOException e) {
+            log.error("Ошибка при сохранении переводов", e);
+        }
+    }
+
+    /**
+     * Загрузить части переводов из файла.
+     *
+     * @return Список частей переводов; пустой список в случае ошибки.
+     */
+    public List<TransferLeg> loadTransfers() {
+        try {
+            return loadDataFromFile(filePath, TransferLeg.class);
+        } catch (IOException e) {
+            log.error("Ошибка при загрузке переводов", e);
+            return new ArrayList<>();
+        }
+    }
+}
@@ -12,28 +12,47 @@ import java.util.List;
  * Обеспечивает загрузку и сохранение пользователей в файл.
  * <p>
  * Поля:
- * - {@code String FILE_PATH} — путь к файлу, где хранятся данные пользователей.
+ * - {@code String directory} — директория с файлом данных.
+ * - {@code String filePath} — путь к файлу, где хранятся данные пользователей.
  */
 public class UserRepository extends FileRepository {
-    private static final String FILE_PATH = "data/users/users.json";
+    private final String directory;
+    private final String filePath;
+
+    /**
+     * Конструктор. Использует директорию данных по умолчанию ({@code data}).
+     */
+    public UserRepository() {
+        this(DEFAULT_DATA_DIR);
+    }
 
     /**
      * Конструктор. Проверяет наличие директории и файла для пользователей.
      * Если они отсутствуют, создаёт их.
+     *
+     * @param dataDir Корневая директория данных приложения.
      */
-    public UserRepository() {
+    public UserRepository(String dataDir) {
+        super(dataDir);
+        this.directory = dataDir + "/users";
+        this.filePath = directory + "/users.json";
         ensureDirectoriesExist();
         ensureFileExists();
     }
 
+    @Override
+    protected String getFilePath() {
+        return filePath;
+    }
+
     /**
      * Проверяет наличие директории для хранения данных.
      * Если директория отсутствует, создаёт её.
      */
     private void ensureDirectoriesExist() {
-        File directory = new File("data/users");
-        if (!directory.exists()) {
-            directory.mkdirs();
+        File dir = new File(directory);
+        if (!dir.exists()) {
+            dir.mkdirs();
         }
     }
 
@@ -42,14 +61,14 @@ public class UserRepository extends FileRepository {
      * Если файл отсутствует или пустой, создаёт его и инициализирует пустым списком.
      */
     private void ensureFileExists() {
-        File file = new File(FILE_PATH);
+        File file = new File(filePath);
         try {
             if (!file.exists() || file.length() == 0) {
                 file.createNewFile();
                 saveUsers(new ArrayList<>());
             }
         } catch (IOException e) {
-            System.err.println("Ошибка при создании файла пользователей: " + e.getMessage());
+            log.error("Ошибка при создании файла пользователей", e);
         }
     }
 
@@ -60,10 +79,9 @@ public class UserRepository extends FileRepository {
      */
     public void saveUsers(List<User> users) {
         try {
-            saveDataToFile(FILE_PATH, users);
-            System.out.println("Данные пользователей успешно сохранены.");
+            saveDataToFile(filePath, users);
         } catch (IOException e) {
-            System.err.println("Ошибка при сохранении пользователей: " + e.getMessage());
+            log.error("Ошибка при сохранении пользователей", e);
         }
     }
 
@@ -74,13 +92,13 @@ public class UserRepository extends FileRepository {
      */
     public List<User> loadUsers() {
         try {
-            List<User> users = loadDataFromFile(FILE_PATH, User.class);
+            List<User> users = loadDataFromFile(filePath, User.class);
             if (users == null) {
                 users = new ArrayList<>();
             }
             return users;
         } catch (IOException e) {
-            System.err.println("Ошибка при загрузке пользователей: " + e.getMessage());
+            log.error("Ошибка при загрузке пользователей", e);
             return new ArrayList<>();
         }
     }
@@ -0,0 +1,238 @@
+package com.beryoza.financeapp.repository;
+
+import com.beryoza.financeapp.metrics.MetricsRegistry;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Кэш данных пользователей (кошельки, категории, месячные сводки), общий для всех репозиториев процесса.
+ * <p>
+ * Для каждого пользователя хранится его часть каждого файла данных в виде компактного JSON, поэтому
+ * чтение данных одного пользователя не разбирает весь файл, а каждый вызов получает собственные объекты,
+ * которые можно изменять. Объём кэша ограничен оценкой занятой памяти ({@code maxBytes}); при превышении
+ * вытесняются данные пользователей, к которым дольше всего не обращались (LRU). Данные неактивных
+ * пользователей в памяти не остаются. Запись в файлы сквозная, поэтому вытесняемые данные всегда совпадают
+ * с сохранёнными и записывать их при вытеснении не нужно.
+ * <p>
+ * Актуальность данных отслеживается по эпохам файлов. Эпоха — номер и состояние файла (размер и время
+ * изменения), для которого действуют сохранённые части. Запись файла этим процессом с известным списком
+ * изменённых пользователей сохраняет эпоху и удаляет только их части; запись без такого списка или изменение
+ * файла другим процессом начинает новую эпоху, и все части файла становятся недействительными.
+ * <p>
+ * Метрики: {@code UserStateCache.hits}, {@code UserStateCache.misses}, {@code UserStateCache.hitRatio},
+ * {@code UserStateCache.evictions}, {@code UserStateCache.residentBytes}, {@code UserStateCache.users}.
+ * <p>
+ * Поля:
+ * - {@code long maxBytes} — наибольший оценочный объём кэша в байтах.
+ * - {@link LinkedHashMap} states — данные пользователей в порядке обращения.
+ * - {@link Map} epochs — текущие эпохи файлов.
+ * - {@code long residentBytes} — оценочный объём кэша в байтах.
+ * - {@code long nextEpoch} — номер следующей эпохи.
+ */
+public final class UserStateCache {
+    /**
+     * Наибольший объём кэша по умолчанию (байт); задаётся свойством {@code financeapp.userCache.maxBytes}.
+     */
+    public static final long DEFAULT_MAX_BYTES = 64L << 20;
+
+    /**
+     * Оценка накладных расходов на одну часть данных (объекты карты, массив, ключи).
+     */
+    private static final int ENTRY_OVERHEAD = 160;
+
+    private static final MetricsRegistry metrics = MetricsRegistry.global();
+    private static final UserStateCache GLOBAL =
+            new UserStateCache(Long.getLong("financeapp.userCache.maxBytes", DEFAULT_MAX_BYTES));
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, UserState> states = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, Epoch> epochs = new HashMap<>();
+    private long residentBytes;
+    private long nextEpoch = 1;
+
+    /**
+     * Эпоха файла.
+     *
+     * @param id    Номер эпохи.
+     * @param stamp Состояние файла, для которого действуют части эпохи.
+     */
+    private record Epoch(long id, FileRepository.FileStamp stamp) {
+    }
+
+    /**
+     * Часть файла данных одного пользователя.
+     *
+     * @param epoch   Номер эпохи, в которой часть прочитана.
+     * @param content Данные пользователя (JSON-массив).
+     */
+    private record Section(long epoch, byte[] content) {
+    }
+
+    /**
+     * Данные одного пользователя по файлам.
+     */
+    private static final class UserState {
+        private final Map<String, Section> sections = new HashMap<>(4);
+        private long bytes;
+    }
+
+    /**
+     * Конструктор.
+     *
+     * @param maxBytes Наибольший оценочный объём кэша в байтах (0 — кэш выключен).
+     */
+    public UserStateCache(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Объём кэша не может быть отрицательным.");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Получить общий кэш процесса (используется репозиториями).
+     *
+     * @return Общий кэш.
+     */
+    public static UserStateCache global() {
+        if (GLOBAL.maxBytes > 0) {
+            metrics.gauge("UserStateCache.residentBytes", GLOBAL::getResidentBytes);
+            metrics.gauge("UserStateCache.users", GLOBAL::size);
+        }
+        return GLOBAL;
+    }
+
+    /**
+     * Получить часть файла данных пользователя.
+     *
+     * @param owner   Ключ пользователя (директория данных и логин).
+     * @param section Файл данных (абсолютный путь).
+     * @param stamp   Текущее состояние файла.
+     * @return Данные пользователя или null, если их нет в кэше или они устарели.
+     */
+    public synchronized byte[] get(String owner, String section, FileRepository.FileStamp stamp) {
+        if (maxBytes == 0) {
+            return null;
+        }
+        Epoch epoch = epochFor(section, stamp);
+        UserState state = states.get(owner);
+        Section cached = state != null ? state.sections.get(section) : null;
+        boolean hit = cached != null && cached.epoch() == epoch.id();
+        metrics.recordCacheAccess("UserStateCache", hit);
+        return hit ? cached.content() : null;
+    }
+
+    /**
+     * Сохранить часть файла данных пользователя, прочитанную при указанном состоянии файла.
+     *
+     * @param owner   Ключ пользователя.
+     * @param section Файл данных (абсолютный путь).
+     * @param stamp   Состояние файла, при котором прочитаны данные.
+     * @param content Данные пользователя.
+     */
+    public synchronized void put(String owner, String section, FileRepository.FileStamp stamp, byte[] content) {
+        long bytes = ENTRY_OVERHEAD + content.length + 2L * (owner.length() + section.length());
+        if (bytes > maxBytes) {
+            return;
+        }
+        Epoch epoch = epochFor(section, stamp);
+        UserState state = states.computeIfAbsent(owner, key -> new UserState());
+        Section previous = state.sections.put(section, new Section(epoch.id(), content));
+        if (previous != null) {
+            adjust(state, -(ENTRY_OVERHEAD + previous.content().length + 2L * (owner.length() + section.length())));
+        }
+        adjust(state, bytes);
+        evict();
+    }
+
+    /**
+     * Учесть запись файла этим процессом.
+     *
+     * @param section Файл данных (абсолютный путь).
+     * @param before  Состояние файла до записи.
+     * @param after   Состояние файла после записи.
+     * @param owners  Ключи пользователей, чьи данные изменились (null — данные могли измениться у всех).
+     */
+    public synchronized void written(String section, FileRepository.FileStamp before, FileRepository.FileStamp after,
+                                     Collection<String> owners) {
+        if (maxBytes == 0) {
+            return;
+        }
+        Epoch epoch = epochs.get(section);
+        if (owners == null || epoch == null || !epoch.stamp().equals(before)) {
+            epochs.put(section, new Epoch(nextEpoch++, after));
+            return;
+        }
+        epochs.put(section, new Epoch(epoch.id(), after));
+        for (String owner : owners) {
+            UserState state = states.get(owner);
+            Section removed = state != null ? state.sections.remove(section) : null;
+            if (removed != null) {
+                adjust(state, -(ENTRY_OVERHEAD + removed.content().length + 2L * (owner.length() + section.length())));
+                if (state.sections.isEmpty()) {
+                    states.remove(owner);
+                }
+            }
+        }
+    }
+
+    /**
+     * Сделать недействительными все части файла данных.
+     *
+     * @param section Файл данных (абсолютный путь).
+     */
+    public synchronized void invalidate(String section) {
+        epochs.remove(section);
+    }
+
+    /**
+     * Получить оценочный объём кэша.
+     *
+     * @return Объём в байтах.
+     */
+    public synchronized long getResidentBytes() {
+        return residentBytes;
+    }
+
+    /**
+     * Получить количество пользователей в кэше.
+     *
+     * @return Количество пользователей.
+     */
+    public synchronized int size() {
+        return states.size();
+    }
+
+    /**
+     * Получить эпоху файла для его текущего состояния; если файл изменился, начинается новая эпоха.
+     */
+    private Epoch epochFor(String section, FileRepository.FileStamp stamp) {
+        Epoch epoch = epochs.get(section);
+        if (epoch == null || !epoch.stamp().equals(stamp)) {
+            epoch = new Epoch(nextEpoch++, stamp);
+            epochs.put(section, epoch);
+        }
+        return epoch;
+    }
+
+    private void adjust(UserState state, long bytes) {
+        state.bytes += bytes;
+        residentBytes += bytes;
+    }
+
+    /**
+     * Вытеснить данные давно не использованных пользователей, пока объём превышает предел.
+     */
+    private void evict() {
+        Iterator<UserState> eldest = states.values().iterator();
+        while (residentBytes > maxBytes && eldest.hasNext()) {
+            UserState state = eldest.next();
+            residentBytes -= state.bytes;
+            eldest.remove();
+            metrics.counter("UserStateCache.evictions").increment();
+        }
+    }
+}
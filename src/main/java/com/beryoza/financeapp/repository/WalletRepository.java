@@ -1,39 +1,110 @@
 package com.beryoza.financeapp.repository;
 
+import com.beryoza.financeapp.metrics.OperationTimer;
+import com.beryoza.financeapp.model.ArchivedMonth;
+import com.beryoza.financeapp.model.LedgerSnapshot;
+import com.beryoza.financeapp.model.Transaction;
+import com.beryoza.financeapp.model.UserSnapshot;
 import com.beryoza.financeapp.model.Wallet;
+import com.beryoza.financeapp.model.WalletSnapshot;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.function.UnaryOperator;
 
 /**
  * Репозиторий для работы с кошельками и транзакциями.
  * Хранит данные кошельков в одном файле, предоставляя возможность фильтрации по userId.
  * <p>
+ * Для длительных чтений (отчёты, выгрузки) репозиторий ведёт неизменяемые снимки кошельков
+ * ({@link LedgerSnapshot}), общие для всех экземпляров в процессе. Снимок строится при первом обращении
+ * к {@link #snapshot()}, после чего каждая запись файла этим процессом публикует следующую версию
+ * копированием при записи. Изменения файла другими процессами обнаруживаются по размеру и времени
+ * изменения файла, и снимок перечитывается.
+ * <p>
+ * Старые транзакции кошельков могут быть перенесены в архив ({@link TransactionArchive}); потоковый обход
+ * транзакций ({@link #forEachTransaction}) читает архивные сегменты сам, остальные методы возвращают
+ * кошельки со сводными строками архива.
+ * <p>
  * Поля:
- * - {@code String FILE_PATH} — путь к файлу, где хранятся данные всех кошельков.
+ * - {@code String directory} — директория с файлом данных.
+ * - {@code String filePath} — путь к файлу, где хранятся данные всех кошельков.
+ * - {@code String snapshotKey} — ключ снимков файла (абсолютный путь).
+ * - {@link TransactionArchive} archive — архив старых транзакций.
  */
 public class WalletRepository extends FileRepository {
-    private static final String FILE_PATH = "data/wallets/wallets.json";
+    private static final Map<String, PublishedSnapshot> SNAPSHOTS = new ConcurrentHashMap<>();
+
+    private final String directory;
+    private final String filePath;
+    private final String snapshotKey;
+    private final TransactionArchive archive;
+
+    /**
+     * Опубликованный снимок и состояние файла, которому он соответствует.
+     *
+     * @param snapshot Снимок.
+     * @param stamp    Размер и время изменения файла на момент публикации.
+     */
+    private record PublishedSnapshot(LedgerSnapshot snapshot, FileStamp stamp) {
+    }
+
+    /**
+     * Конструктор. Использует директорию данных по умолчанию ({@code data}).
+     */
+    public WalletRepository() {
+        this(DEFAULT_DATA_DIR);
+    }
 
     /**
      * Конструктор. Проверяет наличие директории и файла для кошельков.
      * Если они отсутствуют, создаёт их.
+     *
+     * @param dataDir Корневая директория данных приложения.
      */
-    public WalletRepository() {
+    public WalletRepository(String dataDir) {
+        super(dataDir);
+        this.directory = dataDir + "/wallets";
+        this.filePath = directory + "/wallets.json";
+        this.snapshotKey = new File(filePath).getAbsolutePath();
+        this.archive = new TransactionArchive(dataDir);
         ensureDirectoriesExist();
         ensureFileExists();
     }
 
+    @Override
+    protected String getFilePath() {
+        return filePath;
+    }
+
+    /**
+     * Получить архив старых транзакций кошельков.
+     *
+     * @return Архив.
+     */
+    public TransactionArchive getTransactionArchive() {
+        return archive;
+    }
+
     /**
      * Проверяет наличие директории для хранения данных.
      * Если директория отсутствует, создаёт её.
      */
     private void ensureDirectoriesExist() {
-        File directory = new File("data/wallets");
-        if (!directory.exists()) {
-            directory.mkdirs();
+        File dir = new File(directory);
+        if (!dir.exists()) {
+            dir.mkdirs();
         }
     }
 
@@ -42,14 +113,14 @@ public class WalletRepository extends FileRepository {
      * Если файл отсутствует или пустой, создаёт его и инициализирует пустым списком.
      */
     private void ensureFileExists() {
-        File file = new File(FILE_PATH);
+        File file = new File(filePath);
         try {
             if (!file.exists() || file.length() == 0) {
                 file.createNewFile();
                 saveWallets(new ArrayList<>());
             }
         } catch (IOException e) {
-            System.err.println("Ошибка при создании файла кошельков: " + e.getMessage());
+            log.error("Ошибка при создании файла кошельков", e);
         }
     }
 
@@ -59,14 +130,84 @@ public class WalletRepository extends FileRepository {
      * @param wallets Список кошельков для сохранения.
      */
     public void saveWallets(List<Wallet> wallets) {
+        Lock lock = lockFor(filePath).writeLock();
+        lock.lock();
         try {
-            saveDataToFile(FILE_PATH, wallets);
-            System.out.println("Данные кошельков успешно сохранены.");
+            if (write(wallets, null)) {
+                publish(previous -> LedgerSnapshot.of(previous.getVersion() + 1, wallets, previous));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Записать список кошельков (вызывается под блокировкой записи).
+     *
+     * @param changedUsers Логины пользователей, чьи кошельки изменились (null — неизвестно).
+     * @return true, если запись удалась.
+     */
+    private boolean write(List<Wallet> wallets, Collection<String> changedUsers) {
+        try {
+            saveDataToFile(filePath, wallets, changedUsers);
+            return true;
         } catch (IOException e) {
-            System.err.println("Ошибка при сохранении кошельков: " + e.getMessage());
+            log.error("Ошибка при сохранении кошельков", e);
+            return false;
+        }
+    }
+
+    /**
+     * Получить согласованный снимок всех кошельков. Снимок не меняется после получения и не удерживает
+     * блокировок, поэтому его можно обходить сколь угодно долго параллельно с записью.
+     *
+     * @return Снимок кошельков.
+     */
+    public LedgerSnapshot snapshot() {
+        PublishedSnapshot published = SNAPSHOTS.get(snapshotKey);
+        if (published != null && published.stamp().equals(stamp())) {
+            return published.snapshot();
+        }
+        Lock lock = lockFor(filePath).readLock();
+        lock.lock();
+        OperationTimer timer = metrics.time("WalletRepository.loadSnapshot");
+        try (timer) {
+            published = SNAPSHOTS.get(snapshotKey);
+            FileStamp stamp = stamp();
+            if (published != null && published.stamp().equals(stamp)) {
+                return published.snapshot();
+            }
+            LedgerSnapshot previous = published != null ? published.snapshot() : null;
+            LedgerSnapshot snapshot = LedgerSnapshot.ofLoaded(previous != null ? previous.getVersion() + 1 : 1,
+                    loadWallets(), previous);
+            SNAPSHOTS.put(snapshotKey, new PublishedSnapshot(snapshot, stamp));
+            return snapshot;
+        } finally {
+            lock.unlock();
         }
     }
 
+    /**
+     * Опубликовать следующую версию снимка после записи (вызывается под блокировкой записи).
+     * Если снимок в процессе ещё не запрашивался, ничего не делает.
+     */
+    private void publish(UnaryOperator<LedgerSnapshot> next) {
+        PublishedSnapshot published = SNAPSHOTS.get(snapshotKey);
+        if (published != null) {
+            SNAPSHOTS.put(snapshotKey, new PublishedSnapshot(next.apply(published.snapshot()), stamp()));
+        }
+    }
+
+    private FileStamp stamp() {
+        return stampOf(filePath);
+    }
+
+    @Override
+    public void restoreSnapshot(byte[] content) throws IOException {
+        super.restoreSnapshot(content);
+        SNAPSHOTS.remove(snapshotKey);
+    }
+
     /**
      * Загрузить список всех кошельков из файла.
      *
@@ -74,62 +215,351 @@ public class WalletRepository extends FileRepository {
      */
     public List<Wallet> loadWallets() {
         try {
-            List<Wallet> wallets = loadDataFromFile(FILE_PATH, Wallet.class);
+            List<Wallet> wallets = loadDataFromFile(filePath, Wallet.class);
             if (wallets == null) {
                 wallets = new ArrayList<>();
             }
             return wallets;
         } catch (IOException e) {
-            System.err.println("Ошибка при загрузке кошельков: " + e.getMessage());
+            log.error("Ошибка при загрузке кошельков", e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Загрузить кошельки для изменения под блокировкой записи (см. {@link #loadDataForUpdate}).
+     */
+    private List<Wallet> loadWalletsForUpdate() {
+        try {
+            return loadDataForUpdate(filePath, Wallet.class);
+        } catch (IOException e) {
+            log.error("Ошибка при загрузке кошельков", e);
             return new ArrayList<>();
         }
     }
 
     /**
-     * Загружает кошельки для указанного пользователя.
+     * Загружает кошельки для указанного пользователя (через кэш пользователей, см. {@link UserStateCache}).
      *
      * @param userId Идентификатор пользователя.
      * @return Список кошельков, принадлежащих пользователю.
      */
     public List<Wallet> loadWalletsByUser(String userId) {
-        List<Wallet> allWallets = loadWallets();
-        List<Wallet> userWallets = new ArrayList<>();
-        for (Wallet wallet : allWallets) {
-            if (wallet.getUserId().equals(userId)) {
-                userWallets.add(wallet);
+        OperationTimer timer = metrics.time("WalletRepository.loadWalletsByUser");
+        try (timer) {
+            return loadUserData(filePath, userId, Wallet.class, Wallet::getUserId);
+        } catch (IOException e) {
+            log.error("Ошибка при загрузке кошельков", e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Потоково обойти транзакции кошельков, не загружая весь список кошельков в память.
+     * В памяти одновременно находится только одна транзакция (или один архивный сегмент); кошельки других
+     * пользователей пропускаются без разбора. Транзакции из архива передаются после транзакций кошелька. Если в процессе уже есть актуальный снимок ({@link #snapshot()}),
+     * обход идёт по нему и не удерживает блокировку файла, пока работает получатель.
+     *
+     * @param userId  Идентификатор пользователя или null для всех пользователей.
+     * @param visitor Получатель транзакций.
+     * @throws IOException Если произошла ошибка при чтении файла или в получателе.
+     */
+    public void forEachTransaction(String userId, TransactionVisitor visitor) throws IOException {
+        OperationTimer timer = metrics.time("WalletRepository.forEachTransaction");
+        try (timer) {
+            PublishedSnapshot published = SNAPSHOTS.get(snapshotKey);
+            if (published != null && published.stamp().equals(stamp())) {
+                visitSnapshot(published.snapshot(), userId, visitor);
+                return;
             }
+            streamDataFromFile(filePath, parser -> {
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    throw new IOException("Ожидался массив кошельков в " + filePath);
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    streamWallet(parser, userId, visitor);
+                }
+            });
+        }
+    }
+
+    private void visitSnapshot(LedgerSnapshot snapshot, String userId, TransactionVisitor visitor)
+            throws IOException {
+        List<UserSnapshot> users = userId != null ? List.of(snapshot.getUser(userId))
+                : new ArrayList<>(snapshot.getUsers());
+        for (UserSnapshot user : users) {
+            for (WalletSnapshot wallet : user.wallets()) {
+                for (Transaction transaction : wallet.transactions()) {
+                    visitor.visit(wallet.userId(), wallet.name(), transaction);
+                }
+                visitArchive(wallet.userId(), wallet.name(), wallet.archive(), visitor);
+            }
+        }
+    }
+
+    /**
+     * Разобрать один объект кошелька, начиная с его открывающей скобки.
+     * Обычно владелец и название записаны до списка транзакций; если это не так,
+     * транзакции кошелька буферизуются до конца объекта.
+     */
+    private void streamWallet(JsonParser parser, String userId, TransactionVisitor visitor) throws IOException {
+        String owner = null;
+        String name = null;
+        List<Transaction> buffered = null;
+        List<ArchivedMonth> rows = List.of();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "userId" -> owner = parser.getValueAsString();
+                case "name" -> name = parser.getValueAsString();
+                case "transactions" -> {
+                    if (value != JsonToken.START_ARRAY) {
+                        parser.skipChildren();
+                    } else if (owner == null || name == null) {
+                        buffered = new ArrayList<>();
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            buffered.add(parser.readValueAs(Transaction.class));
+                        }
+                    } else if (userId != null && !userId.equals(owner)) {
+                        parser.skipChildren();
+                    } else {
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            visitor.visit(owner, name, parser.readValueAs(Transaction.class));
+                        }
+                    }
+                }
+                case "archive" -> {
+                    if (value == JsonToken.START_ARRAY) {
+                        rows = parser.readValueAs(new TypeReference<List<ArchivedMonth>>() { });
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        if (userId == null || userId.equals(owner)) {
+            if (buffered != null) {
+                for (Transaction transaction : buffered) {
+                    visitor.visit(owner, name, transaction);
+                }
+            }
+            visitArchive(owner, name, rows, visitor);
+        }
+    }
+
+    /**
+     * Вернуть в кошелёк все транзакции его архивных сегментов (только в памяти, кошелёк не сохраняется).
+     * Нужно, когда кошелёк покидает директорию данных вместе с историей, например при переносе
+     * пользователя на другой узел.
+     *
+     * @param wallet Кошелёк.
+     * @throws IOException Если сегмент не найден или повреждён.
+     */
+    public void restoreArchived(Wallet wallet) throws IOException {
+        for (ArchivedMonth row : new ArrayList<>(wallet.getArchive())) {
+            wallet.restore(row, archive.read(row));
         }
-        return userWallets;
     }
 
     /**
-     * Сохранить или обновить кошелёк.
+     * Передать получателю транзакции архивных сегментов кошелька (сегменты читаются по одному).
+     */
+    private void visitArchive(String userId, String walletName, List<ArchivedMonth> rows, TransactionVisitor visitor)
+            throws IOException {
+        for (ArchivedMonth row : rows) {
+            for (Transaction transaction : archive.read(row)) {
+                visitor.visit(userId, walletName, transaction);
+            }
+        }
+    }
+
+    /**
+     * Сохранить новый или обновить существующий кошелёк с проверкой версии (сравнение с обменом).
+     * Кошелёк с версией 0 добавляется, только если кошелька с таким названием у пользователя нет;
+     * иначе версия должна совпадать с сохранённой. После сохранения версия объекта увеличивается на 1.
      *
      * @param wallet Кошелёк для сохранения.
+     * @throws OptimisticLockException Если кошелёк изменён или удалён другим сеансом после чтения.
      */
     public void saveWallet(Wallet wallet) {
-        try {
-            List<Wallet> wallets = loadWallets();
+        // Проверка версии, чтение и перезапись файла выполняются под одной блокировкой записи.
+        Lock lock = lockFor(filePath).writeLock();
+        lock.lock();
+        OperationTimer timer = metrics.time("WalletRepository.saveWallet");
+        try (timer) {
+            PublishedSnapshot published = SNAPSHOTS.get(snapshotKey);
+            boolean current = published != null && published.stamp().equals(stamp());
+            List<Wallet> wallets = loadWalletsForUpdate();
+            int index = indexOf(wallets, wallet.getUserId(), wallet.getName());
+            checkVersion(wallet, index >= 0 ? wallets.get(index) : null);
 
-            boolean walletUpdated = false;
+            wallet.setVersion(wallet.getVersion() + 1);
+            if (index >= 0) {
+                wallets.set(index, wallet);
+            } else {
+                wallets.add(wallet);
+            }
+            if (write(wallets, List.of(wallet.getUserId()))) {
+                // Если снимок актуален, меняется только версия этого кошелька; иначе снимок строится заново.
+                publish(previous -> current ? previous.withWallet(previous.getVersion() + 1, wallet)
+                        : LedgerSnapshot.of(previous.getVersion() + 1, wallets, previous));
+            } else {
+                wallet.setVersion(wallet.getVersion() - 1);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
 
-            for (int i = 0; i < wallets.size(); i++) {
-                Wallet existingWallet = wallets.get(i);
-                if (existingWallet.getUserId().equals(wallet.getUserId()) &&
-                        existingWallet.getName().equals(wallet.getName())) {
-                    wallets.set(i, wallet);
-                    walletUpdated = true;
-                    break;
+    /**
+     * Сохранить несколько кошельков одной записью файла с проверкой версий: если версия хотя бы одного
+     * кошелька не совпадает с сохранённой, не сохраняется ни один. Правила версий — как в {@link #saveWallet}.
+     *
+     * @param changed Кошельки для сохранения.
+     * @throws OptimisticLockException Если какой-либо кошелёк изменён или удалён другим сеансом после чтения.
+     */
+    public void saveWalletsChecked(Collection<Wallet> changed) {
+        if (changed.isEmpty()) {
+            return;
+        }
+        Lock lock = lockFor(filePath).writeLock();
+        lock.lock();
+        OperationTimer timer = metrics.time("WalletRepository.saveWalletsChecked");
+        try (timer) {
+            PublishedSnapshot published = SNAPSHOTS.get(snapshotKey);
+            boolean current = published != null && published.stamp().equals(stamp());
+            List<Wallet> wallets = loadWalletsForUpdate();
+            int[] indexes = new int[changed.size()];
+            int i = 0;
+            for (Wallet wallet : changed) {
+                indexes[i] = indexOf(wallets, wallet.getUserId(), wallet.getName());
+                checkVersion(wallet, indexes[i] >= 0 ? wallets.get(indexes[i]) : null);
+                i++;
+            }
+
+            i = 0;
+            for (Wallet wallet : changed) {
+                wallet.setVersion(wallet.getVersion() + 1);
+                int index = indexes[i++];
+                if (index >= 0) {
+                    wallets.set(index, wallet);
+                } else {
+                    wallets.add(wallet);
+                }
+            }
+            if (write(wallets, owners(changed))) {
+                publish(previous -> {
+                    if (!current) {
+                        return LedgerSnapshot.of(previous.getVersion() + 1, wallets, previous);
+                    }
+                    LedgerSnapshot next = previous;
+                    for (Wallet wallet : changed) {
+                        next = next.withWallet(previous.getVersion() + 1, wallet);
+                    }
+                    return next;
+                });
+            } else {
+                for (Wallet wallet : changed) {
+                    wallet.setVersion(wallet.getVersion() - 1);
                 }
             }
+        } finally {
+            lock.unlock();
+        }
+    }
 
-            if (!walletUpdated) {
-                wallets.add(wallet);
+    /**
+     * Удалить кошелёк с проверкой версии.
+     *
+     * @param wallet Удаляемый кошелёк в том состоянии, в котором он был прочитан.
+     * @throws OptimisticLockException Если кошелёк изменён или удалён другим сеансом после чтения.
+     */
+    public void deleteWallet(Wallet wallet) {
+        Lock lock = lockFor(filePath).writeLock();
+        lock.lock();
+        OperationTimer timer = metrics.time("WalletRepository.deleteWallet");
+        try (timer) {
+            List<Wallet> wallets = loadWalletsForUpdate();
+            int index = indexOf(wallets, wallet.getUserId(), wallet.getName());
+            if (index < 0) {
+                throw new OptimisticLockException("Кошелёк \"" + wallet.getName() + "\" уже удалён.");
             }
+            checkVersion(wallet, wallets.get(index));
+            wallets.remove(index);
+            if (write(wallets, List.of(wallet.getUserId()))) {
+                publish(previous -> LedgerSnapshot.of(previous.getVersion() + 1, wallets, previous));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
 
-            saveWallets(wallets);
-        } catch (Exception e) {
-            System.err.println("Ошибка при сохранении кошелька: " + e.getMessage());
+    /**
+     * Переименовать кошелёк с проверкой версии.
+     *
+     * @param wallet  Кошелёк в том состоянии, в котором он был прочитан (название — текущее).
+     * @param newName Новое название.
+     * @throws OptimisticLockException  Если кошелёк изменён или удалён другим сеансом после чтения.
+     * @throws IllegalArgumentException Если у пользователя уже есть кошелёк с новым названием.
+     */
+    public void renameWallet(Wallet wallet, String newName) {
+        Lock lock = lockFor(filePath).writeLock();
+        lock.lock();
+        OperationTimer timer = metrics.time("WalletRepository.renameWallet");
+        try (timer) {
+            List<Wallet> wallets = loadWalletsForUpdate();
+            int index = indexOf(wallets, wallet.getUserId(), wallet.getName());
+            if (index < 0) {
+                throw new OptimisticLockException("Кошелёк \"" + wallet.getName() + "\" удалён другим сеансом.");
+            }
+            checkVersion(wallet, wallets.get(index));
+            if (indexOf(wallets, wallet.getUserId(), newName) >= 0) {
+                throw new IllegalArgumentException("Кошелёк с названием \"" + newName + "\" уже существует.");
+            }
+            Wallet stored = wallets.get(index);
+            stored.setName(newName);
+            stored.setVersion(stored.getVersion() + 1);
+            if (write(wallets, List.of(wallet.getUserId()))) {
+                wallet.setName(newName);
+                wallet.setVersion(stored.getVersion());
+                publish(previous -> LedgerSnapshot.of(previous.getVersion() + 1, wallets, previous));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Проверить версию сохраняемого кошелька относительно сохранённого.
+     */
+    private static void checkVersion(Wallet wallet, Wallet stored) {
+        if (stored == null && wallet.getVersion() != 0) {
+            throw new OptimisticLockException("Кошелёк \"" + wallet.getName() + "\" удалён другим сеансом.");
+        }
+        if (stored != null && stored.getVersion() != wallet.getVersion()) {
+            throw new OptimisticLockException(wallet.getVersion() == 0
+                    ? "Кошелёк с названием \"" + wallet.getName() + "\" уже существует."
+                    : "Кошелёк \"" + wallet.getName() + "\" изменён другим сеансом.");
+        }
+    }
+
+    private static Set<String> owners(Collection<Wallet> wallets) {
+        Set<String> owners = new HashSet<>();
+        for (Wallet wallet : wallets) {
+            owners.add(wallet.getUserId());
+        }
+        return owners;
+    }
+
+    private static int indexOf(List<Wallet> wallets, String userId, String name) {
+        for (int i = 0; i < wallets.size(); i++) {
+            Wallet wallet = wallets.get(i);
+            if (wallet.getUserId().equals(userId) && wallet.getName().equals(name)) {
+                return i;
+            }
         }
+        return -1;
     }
-}
\ No newline at end of file
+}
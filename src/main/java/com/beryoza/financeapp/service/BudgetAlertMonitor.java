@@ -0,0 +1,110 @@
+package com.beryoza.financeapp.service;
+
+import com.beryoza.financeapp.event.BudgetExceeded;
+import com.beryoza.financeapp.event.EventBus;
+import com.beryoza.financeapp.event.ExpensesExceedIncome;
+import com.beryoza.financeapp.event.TransactionAdded;
+import com.beryoza.financeapp.event.TransactionDeleted;
+import com.beryoza.financeapp.event.TransactionEdited;
+import com.beryoza.financeapp.metrics.MetricsRegistry;
+import com.beryoza.financeapp.metrics.OperationTimer;
+import com.beryoza.financeapp.model.Category;
+import com.beryoza.financeapp.model.MonthlySummary;
+import com.beryoza.financeapp.model.Transaction;
+import com.beryoza.financeapp.repository.CategoryRepository;
+import com.beryoza.financeapp.repository.SummaryRepository;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Асинхронная проверка бюджета после изменения транзакций.
+ * <p>
+ * Подписывается на события {@link TransactionAdded}, {@link TransactionEdited} и {@link TransactionDeleted}
+ * и в фоновом потоке шины проверяет лимиты только тех категорий, которых коснулось изменение,
+ * и соотношение общих доходов и расходов. Суммы берутся из месячных сводок, которые обновляются
+ * инкрементально при каждой записи, поэтому транзакции не перебираются.
+ * При нарушении публикуются события {@link BudgetExceeded} и {@link ExpensesExceedIncome}.
+ * <p>
+ * Правила совпадают с {@code BudgetService.checkBudgetLimits} и {@code WalletService.checkExpenseExceedsIncome}.
+ * <p>
+ * Поля:
+ * - {@link SummaryRepository} summaryRepository — репозиторий месячных сводок.
+ * - {@link CategoryRepository} categoryRepository — репозиторий категорий (лимиты).
+ * - {@link EventBus} eventBus — шина, в которую публикуются предупреждения.
+ */
+public class BudgetAlertMonitor {
+    private static final MetricsRegistry metrics = MetricsRegistry.global();
+
+    private final SummaryRepository summaryRepository;
+    private final CategoryRepository categoryRepository;
+    private final EventBus eventBus;
+
+    /**
+     * Конструктор. Подписывает монитор на события транзакций.
+     *
+     * @param summaryRepository  Репозиторий месячных сводок.
+     * @param categoryRepository Репозиторий категорий.
+     * @param eventBus           Шина событий.
+     */
+    public BudgetAlertMonitor(SummaryRepository summaryRepository, CategoryRepository categoryRepository,
+                              EventBus eventBus) {
+        this.summaryRepository = summaryRepository;
+        this.categoryRepository = categoryRepository;
+        this.eventBus = eventBus;
+        eventBus.subscribe(TransactionAdded.class, event -> {
+            if (!event.transaction().isTransfer()) {
+                check(event.userId(), Set.of(categoryOf(event.transaction())));
+            }
+        });
+        eventBus.subscribe(TransactionEdited.class,
+                event -> check(event.userId(), new HashSet<>(List.of(categoryOf(event.previous()),
+                        categoryOf(event.current())))));
+        eventBus.subscribe(TransactionDeleted.class,
+                event -> check(event.userId(), Set.of(categoryOf(event.transaction()))));
+    }
+
+    /**
+     * Проверить лимиты затронутых категорий и общий баланс доходов и расходов пользователя.
+     *
+     * @param userId     Идентификатор пользователя.
+     * @param categories Названия затронутых категорий.
+     */
+    private void check(String userId, Set<String> categories) {
+        OperationTimer timer = metrics.time("BudgetAlertMonitor.check");
+        try (timer) {
+            Map<String, Long> expensesByCategory = new HashMap<>();
+            long incomeCents = 0;
+            long expenseCents = 0;
+            for (MonthlySummary summary : summaryRepository.findByUser(userId)) {
+                incomeCents += summary.getIncomeCents();
+                expenseCents += summary.getExpenseCents();
+                if (categories.contains(summary.getCategory())) {
+                    expensesByCategory.merge(summary.getCategory(), summary.getExpenseCents(), Long::sum);
+                }
+            }
+
+            List<Category> userCategories = categoryRepository.findCategoriesByUserId(userId);
+            for (Category category : userCategories) {
+                if (!categories.contains(category.getName())) {
+                    continue;
+                }
+                double expenses = expensesByCategory.getOrDefault(category.getName(), 0L) / 100.0;
+                if (expenses > category.getBudgetLimit()) {
+                    eventBus.publish(new BudgetExceeded(userId, category.getName(), category.getBudgetLimit(), expenses));
+                }
+            }
+
+            if (expenseCents > incomeCents) {
+                eventBus.publish(new ExpensesExceedIncome(userId, incomeCents / 100.0, expenseCents / 100.0));
+            }
+        }
+    }
+
+    private static String categoryOf(Transaction transaction) {
+        return transaction.getCategory() != null ? transaction.getCategory().getName() : "";
+    }
+}
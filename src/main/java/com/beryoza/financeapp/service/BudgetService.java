@@ -1,10 +1,18 @@
 package com.beryoza.financeapp.service;
 
+import com.beryoza.financeapp.event.BudgetLimitUpdated;
+import com.beryoza.financeapp.event.CategoryAdded;
+import com.beryoza.financeapp.event.CategoryRenamed;
+import com.beryoza.financeapp.event.EventBus;
+import com.beryoza.financeapp.jfr.BudgetComputationEvent;
+import com.beryoza.financeapp.metrics.MetricsRegistry;
+import com.beryoza.financeapp.metrics.OperationTimer;
 import com.beryoza.financeapp.model.Category;
-import com.beryoza.financeapp.model.Transaction;
+import com.beryoza.financeapp.model.MonthlySummary;
 import com.beryoza.financeapp.model.User;
-import com.beryoza.financeapp.model.Wallet;
 import com.beryoza.financeapp.repository.CategoryRepository;
+import com.beryoza.financeapp.repository.OptimisticLockException;
+import com.beryoza.financeapp.repository.SummaryRepository;
 import com.beryoza.financeapp.repository.WalletRepository;
 import com.beryoza.financeapp.util.DataValidator;
 
@@ -17,20 +25,59 @@ import java.util.*;
  * Поля:
  * - {@link WalletRepository} walletRepository — репозиторий для работы с кошельками.
  * - {@link CategoryRepository} categoryRepository — репозиторий для работы с категориями.
+ * - {@link SummaryRepository} summaryRepository — материализованные месячные сводки по категориям.
+ * - {@link EventBus} eventBus — шина, в которую публикуются события об изменении категорий.
  */
 public class BudgetService {
+    private static final MetricsRegistry metrics = MetricsRegistry.global();
+
     private final WalletRepository walletRepository;
     private final CategoryRepository categoryRepository;
+    private final SummaryRepository summaryRepository;
+    private final EventBus eventBus;
 
     /**
      * Конструктор для инициализации BudgetService.
+     * Сводки хранятся в той же директории данных, что и кошельки.
      *
      * @param walletRepository   Репозиторий для работы с кошельками.
      * @param categoryRepository Репозиторий для работы с категориями.
      */
     public BudgetService(WalletRepository walletRepository, CategoryRepository categoryRepository) {
+        this(walletRepository, categoryRepository, new SummaryRepository(walletRepository.getDataDir()));
+    }
+
+    /**
+     * Конструктор для инициализации BudgetService.
+     * Если файл сводок только что создан или сводки расходятся с кошельками, сводки строятся заново
+     * по существующим кошелькам.
+     *
+     * @param walletRepository   Репозиторий для работы с кошельками.
+     * @param categoryRepository Репозиторий для работы с категориями.
+     * @param summaryRepository  Репозиторий месячных сводок.
+     */
+    public BudgetService(WalletRepository walletRepository, CategoryRepository categoryRepository,
+                         SummaryRepository summaryRepository) {
+        this(walletRepository, categoryRepository, summaryRepository, new EventBus());
+    }
+
+    /**
+     * Конструктор для инициализации BudgetService.
+     * Если файл сводок только что создан или сводки расходятся с кошельками, сводки строятся заново
+     * по существующим кошелькам.
+     *
+     * @param walletRepository   Репозиторий для работы с кошельками.
+     * @param categoryRepository Репозиторий для работы с категориями.
+     * @param summaryRepository  Репозиторий месячных сводок.
+     * @param eventBus           Шина событий об изменении категорий.
+     */
+    public BudgetService(WalletRepository walletRepository, CategoryRepository categoryRepository,
+                         SummaryRepository summaryRepository, EventBus eventBus) {
         this.walletRepository = walletRepository;
         this.categoryRepository = categoryRepository;
+        this.summaryRepository = summaryRepository;
+        this.eventBus = eventBus;
+        summaryRepository.rebuildIfStale(walletRepository);
     }
 
     /**
@@ -41,21 +88,27 @@ public class BudgetService {
      * @param budgetLimit  Лимит бюджета для категории.
      */
     public void addCategory(User user, String categoryName, double budgetLimit) {
-        validateCategoryName(categoryName);
-        validateBudgetLimit(budgetLimit);
+        OperationTimer timer = metrics.time("BudgetService.addCategory");
+        try (timer) {
+            validateCategoryName(categoryName);
+            validateBudgetLimit(budgetLimit);
 
-        Category existingCategory = categoryRepository.findCategoryByName(user.getUsername(), categoryName);
+            Category existingCategory = categoryRepository.findCategoryByName(user.getUsername(), categoryName);
 
-        if (existingCategory != null) {
-            throw new IllegalArgumentException("Категория с таким названием уже существует.");
-        }
+            if (existingCategory != null) {
+                throw new IllegalArgumentException("Категория с таким названием уже существует.");
+            }
 
-        Category newCategory = new Category(user.getUsername(), categoryName, budgetLimit);
-        List<Category> categories = categoryRepository.loadCategories();
-        categories.add(newCategory);
-        categoryRepository.saveCategories(categories);
+            Category newCategory = new Category(user.getUsername(), categoryName, budgetLimit);
+            try {
+                categoryRepository.saveCategory(newCategory);
+            } catch (OptimisticLockException e) {
+                throw new IllegalArgumentException("Категория с таким названием уже существует.");
+            }
+            eventBus.publish(new CategoryAdded(user.getUsername(), categoryName, budgetLimit));
 
-        System.out.println("Категория успешно добавлена.");
+            System.out.println("Категория успешно добавлена.");
+        }
     }
 
     /**
@@ -66,18 +119,20 @@ public class BudgetService {
      * @param newName      Новое название категории.
      */
     public void renameCategory(User user, String currentName, String newName) {
-        validateCategoryName(newName);
-
-        List<Category> categories = categoryRepository.findCategoriesByUserId(user.getUsername());
-        for (Category category : categories) {
-            if (category.getName().equals(currentName)) {
-                category.setName(newName);
-                categoryRepository.saveCategories(categories);
-                System.out.println("Категория успешно переименована.");
-                return;
-            }
+        OperationTimer timer = metrics.time("BudgetService.renameCategory");
+        try (timer) {
+            validateCategoryName(newName);
+
+            ConflictRetry.run("BudgetService.renameCategory", () -> {
+                Category category = categoryRepository.findCategoryByName(user.getUsername(), currentName);
+                if (category == null) {
+                    throw new IllegalArgumentException("Категория с названием \"" + currentName + "\" не найдена.");
+                }
+                categoryRepository.renameCategory(category, newName);
+            });
+            eventBus.publish(new CategoryRenamed(user.getUsername(), currentName, newName));
+            System.out.println("Категория успешно переименована.");
         }
-        throw new IllegalArgumentException("Категория с названием \"" + currentName + "\" не найдена.");
     }
 
     /**
@@ -88,26 +143,22 @@ public class BudgetService {
      * @param newLimit     Новый лимит бюджета.
      */
     public void updateBudgetLimit(User user, String categoryName, double newLimit) {
-        validateCategoryName(categoryName);
-        validateBudgetLimit(newLimit);
-
-        List<Category> categories = categoryRepository.loadCategories();
-        boolean updated = false;
-
-        for (Category category : categories) {
-            if (category.getUserId().equals(user.getUsername()) && category.getName().equals(categoryName)) {
+        OperationTimer timer = metrics.time("BudgetService.updateBudgetLimit");
+        try (timer) {
+            validateCategoryName(categoryName);
+            validateBudgetLimit(newLimit);
+
+            ConflictRetry.run("BudgetService.updateBudgetLimit", () -> {
+                Category category = categoryRepository.findCategoryByName(user.getUsername(), categoryName);
+                if (category == null) {
+                    throw new IllegalArgumentException("Категория с таким названием не найдена.");
+                }
                 category.setBudgetLimit(newLimit);
-                updated = true;
-                break;
-            }
-        }
-
-        if (!updated) {
-            throw new IllegalArgumentException("Категория с таким названием не найдена.");
+                categoryRepository.saveCategory(category);
+            });
+            eventBus.publish(new BudgetLimitUpdated(user.getUsername(), categoryName, newLimit));
+            System.out.println("Лимит бюджета для категории \"" + categoryName + "\" успешно обновлён.");
         }
-
-        categoryRepository.saveCategories(categories);
-        System.out.println("Лимит бюджета для категории \"" + categoryName + "\" успешно обновлён.");
     }
 
     /**
@@ -116,17 +167,20 @@ public class BudgetService {
      * @param user Пользователь.
      */
     public void listCategories(User user) {
-        List<Category> categories = categoryRepository.findCategoriesByUserId(user.getUsername());
+        OperationTimer timer = metrics.time("BudgetService.listCategories");
+        try (timer) {
+            List<Category> categories = categoryRepository.findCategoriesByUserId(user.getUsername());
 
-        if (categories.isEmpty()) {
-            System.out.println("Категории отсутствуют.");
-            return;
-        }
+            if (categories.isEmpty()) {
+                System.out.println("Категории отсутствуют.");
+                return;
+            }
 
-        System.out.println("Ваши категории:");
-        for (Category category : categories) {
-            System.out.println("- " + category.getName() +
-                    (category.getBudgetLimit() > 0 ? " (Лимит: " + category.getBudgetLimit() + ")" : ""));
+            System.out.println("Ваши категории:");
+            for (Category category : categories) {
+                System.out.println("- " + category.getName() +
+                        (category.getBudgetLimit() > 0 ? " (Лимит: " + category.getBudgetLimit() + ")" : ""));
+            }
         }
     }
 
@@ -136,29 +190,27 @@ public class BudgetService {
      * @param user Пользователь.
      */
     public void calculateBudgetState(User user) {
-        Map<String, Double> expensesByCategory = new HashMap<>();
-        List<Category> categories = categoryRepository.findCategoriesByUserId(user.getUsername());
-
-        List<Transaction> transactions = new ArrayList<>();
-        for (Wallet wallet : walletRepository.loadWalletsByUser(user.getUsername())) {
-            transactions.addAll(wallet.getTransactions());
-        }
-
-        for (Transaction transaction : transactions) {
-            String categoryName = transaction.getCategory().getName();
-            expensesByCategory.put(categoryName,
-                    expensesByCategory.getOrDefault(categoryName, 0.0) + transaction.getAmount());
-        }
+        OperationTimer timer = metrics.time("BudgetService.calculateBudgetState");
+        try (timer) {
+            // Сальдо по категории за всё время: доходы минус расходы по всем месяцам.
+            Map<String, Long> netByCategory = new HashMap<>();
+            List<Category> categories = categoryRepository.findCategoriesByUserId(user.getUsername());
+
+            for (MonthlySummary summary : summaryRepository.findByUser(user.getUsername())) {
+                netByCategory.merge(summary.getCategory(),
+                        summary.getIncomeCents() - summary.getExpenseCents(), Long::sum);
+            }
 
-        System.out.println("Состояние бюджета по категориям:");
-        for (Category category : categories) {
-            double expenses = Math.abs(expensesByCategory.getOrDefault(category.getName(), 0.0));
-            double remainingBudget = category.getBudgetLimit() - expenses;
+            System.out.println("Состояние бюджета по категориям:");
+            for (Category category : categories) {
+                double expenses = Math.abs(netByCategory.getOrDefault(category.getName(), 0L)) / 100.0;
+                double remainingBudget = category.getBudgetLimit() - expenses;
 
-            System.out.println("- " + category.getName() +
-                    ": Лимит: " + category.getBudgetLimit() +
-                    ", Расходы: " + expenses +
-                    ", Остаток: " + remainingBudget);
+                System.out.println("- " + category.getName() +
+                        ": Лимит: " + category.getBudgetLimit() +
+                        ", Расходы: " + expenses +
+                        ", Остаток: " + remainingBudget);
+            }
         }
     }
 
@@ -192,40 +244,46 @@ public class BudgetService {
      * @return Список предупреждений для категорий, где превышен лимит бюджета.
      */
     public List<String> checkBudgetLimits(User user) {
-        List<Category> categories = categoryRepository.findCategoriesByUserId(user.getUsername());
-
-        Map<String, Double> expensesByCategory = calculateExpensesByCategory(user);
-
-        List<String> warnings = new ArrayList<>();
-        for (Category category : categories) {
-            double expenses = Math.abs(expensesByCategory.getOrDefault(category.getName(), 0.0));
-            if (expenses > category.getBudgetLimit()) {
-                warnings.add("Лимит превышен для категории: " + category.getName());
+        OperationTimer timer = metrics.time("BudgetService.checkBudgetLimits");
+        try (timer) {
+            List<Category> categories = categoryRepository.findCategoriesByUserId(user.getUsername());
+
+            Map<String, Long> expensesByCategory = calculateExpensesByCategory(user);
+
+            List<String> warnings = new ArrayList<>();
+            for (Category category : categories) {
+                double expenses = expensesByCategory.getOrDefault(category.getName(), 0L) / 100.0;
+                if (expenses > category.getBudgetLimit()) {
+                    warnings.add("Лимит превышен для категории: " + category.getName());
+                }
             }
+            return warnings;
         }
-        return warnings;
     }
 
     /**
-     * Подсчитать расходы по категориям для пользователя.
+     * Подсчитать расходы по категориям для пользователя по месячным сводкам (в них уже учтены архивные
+     * месяцы, а переводы исключены), как {@link #calculateBudgetState} и {@link BudgetAlertMonitor}.
      *
      * @param user Пользователь, для которого нужно подсчитать расходы.
-     * @return Карта с категориями и их расходами.
+     * @return Карта с категориями и их расходами в копейках.
      */
-    private Map<String, Double> calculateExpensesByCategory(User user) {
-        Map<String, Double> expensesByCategory = new HashMap<>();
-        List<Transaction> transactions = new ArrayList<>();
-
-        for (Wallet wallet : walletRepository.loadWalletsByUser(user.getUsername())) {
-            transactions.addAll(wallet.getTransactions());
+    private Map<String, Long> calculateExpensesByCategory(User user) {
+        BudgetComputationEvent event = new BudgetComputationEvent();
+        event.begin();
+
+        Map<String, Long> expensesByCategory = new HashMap<>();
+        long transactionCount = 0;
+        for (MonthlySummary summary : summaryRepository.findByUser(user.getUsername())) {
+            expensesByCategory.merge(summary.getCategory(), summary.getExpenseCents(), Long::sum);
+            transactionCount += summary.getTransactionCount();
         }
 
-        for (Transaction transaction : transactions) {
-            if (transaction.getAmount() < 0) {
-                String categoryName = transaction.getCategory().getName();
-                expensesByCategory.put(categoryName,
-                        expensesByCategory.getOrDefault(categoryName, 0.0) + transaction.getAmount());
-            }
+        if (event.shouldCommit()) {
+            event.operation = "calculateExpensesByCategory";
+            event.userIdHash = user.getUsername().hashCode();
+            event.transactionCount = (int) transactionCount;
+            event.commit();
         }
         return expensesByCategory;
     }
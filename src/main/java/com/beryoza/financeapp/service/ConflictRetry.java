@@ -0,0 +1,82 @@
+package com.beryoza.financeapp.service;
+
+import com.beryoza.financeapp.metrics.MetricsRegistry;
+import com.beryoza.financeapp.repository.OptimisticLockException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Повтор операций при конфликтах оптимистической блокировки ({@link OptimisticLockException}).
+ * <p>
+ * Операция должна заново читать данные, которые изменяет: тогда повтор применяет её к состоянию,
+ * сохранённому другим сеансом, и ни одно изменение не теряется. Побочные действия (события, сообщения)
+ * выполняются после успешного сохранения, чтобы при повторе они не дублировались.
+ * Между попытками выдерживается короткая случайная пауза, растущая с номером попытки.
+ * Метрика {@code <operation>.conflicts} считает конфликты.
+ */
+public final class ConflictRetry {
+    /**
+     * Количество попыток по умолчанию.
+     */
+    public static final int DEFAULT_ATTEMPTS = 5;
+
+    private static final MetricsRegistry metrics = MetricsRegistry.global();
+
+    private ConflictRetry() {
+    }
+
+    /**
+     * Выполнить операцию, повторяя её при конфликтах (не более {@link #DEFAULT_ATTEMPTS} попыток).
+     *
+     * @param operation Название операции (для метрик).
+     * @param action    Операция.
+     * @param <T>       Тип результата.
+     * @return Результат операции.
+     * @throws OptimisticLockException Если все попытки завершились конфликтом.
+     */
+    public static <T> T call(String operation, Supplier<T> action) {
+        return call(operation, DEFAULT_ATTEMPTS, action);
+    }
+
+    /**
+     * Выполнить операцию, повторяя её при конфликтах.
+     *
+     * @param operation Название операции (для метрик).
+     * @param attempts  Максимальное количество попыток.
+     * @param action    Операция.
+     * @param <T>       Тип результата.
+     * @return Результат операции.
+     * @throws OptimisticLockException Если все попытки завершились конфликтом.
+     */
+    public static <T> T call(String operation, int attempts, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (OptimisticLockException e) {
+                metrics.counter(operation + ".conflicts").increment();
+                if (attempt >= attempts) {
+                    throw e;
+                }
+                long maxPause = TimeUnit.MICROSECONDS.toNanos(200L << Math.min(attempt, 6));
+                LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(maxPause));
+            }
+        }
+    }
+
+    /**
+     * Выполнить операцию без результата, повторяя её при конфликтах.
+     *
+     * @param operation Название операции (для метрик).
+     * @param action    Операция.
+     * @throws OptimisticLockException Если все попытки завершились конфликтом.
+     */
+    public static void run(String operation, Runnable action) {
+        call(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+}
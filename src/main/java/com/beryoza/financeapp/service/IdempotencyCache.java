@@ -0,0 +1,459 @@
+package com.beryoza.financeapp.service;
+
+import com.beryoza.financeapp.logging.AppLogger;
+import com.beryoza.financeapp.metrics.MetricsRegistry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Кэш ключей идемпотентности операций с транзакциями.
+ * <p>
+ * Клиент передаёт вместе с операцией свой ключ; повтор операции с тем же ключом (например, после обрыва
+ * связи или перезапуска пакета) не выполняет её снова, а возвращает результат первого выполнения.
+ * Ключи действуют в пределах пользователя и хранятся ограниченное время ({@code ttl}) и в ограниченном
+ * количестве ({@code capacity}); при переполнении вытесняются самые старые.
+ * <p>
+ * Кэш разбит на {@value #STRIPES} сегментов по хешу ключа, у каждого — своя блокировка и своя таблица
+ * в порядке добавления, поэтому поиск и вставка выполняются за O(1), а операции с разными ключами почти
+ * не мешают друг другу. Пока операция выполняется, повтор с тем же ключом ждёт её результата. Ошибки
+ * не запоминаются: после ошибки операцию с тем же ключом можно повторить.
+ * <p>
+ * Выполненные операции дописываются в файл {@code <dataDir>/idempotency/keys.jsonl} (JSON Lines) после
+ * сохранения самой операции, поэтому ключи переживают перезапуск. Файл читается при первом обращении;
+ * устаревшие записи при этом отбрасываются, а разросшийся файл переписывается. В режиме отложенной
+ * записи (пакетный режим) строки копятся в памяти до {@link #flush()}, который вызывается после сброса
+ * репозиториев, — ключ не попадает на диск раньше результата операции.
+ * <p>
+ * На одну директорию данных в процессе приходится один кэш ({@link #forDataDir(String)}): сервисы,
+ * открытые на одних данных (приложение, пакетный режим, узел шардирования), видят одни и те же ключи
+ * и пишут в файл через один поток записи. Режим отложенной записи может включаться вложенно.
+ * <p>
+ * Поля:
+ * - {@link Path} file — файл ключей.
+ * - {@code int capacity} — наибольшее количество ключей.
+ * - {@code long ttlMillis} — время хранения ключа в миллисекундах.
+ * - {@code Stripe[] stripes} — сегменты кэша.
+ * - {@link ObjectMapper} objectMapper — сериализатор записей (компактный JSON).
+ * - {@link BufferedWriter} writer — дозапись в файл ключей (открывается при первой записи).
+ * - {@link List} pendingLines — строки, ожидающие записи в режиме отложенной записи.
+ * - {@code int deferDepth} — сколько раз включён режим отложенной записи (0 — выключен).
+ * - {@code long fileRecords} — количество записей в файле (для решения о его перезаписи).
+ */
+public class IdempotencyCache {
+    /**
+     * Количество сегментов кэша (степень двойки).
+     */
+    static final int STRIPES = 16;
+
+    /**
+     * Наибольшее количество ключей по умолчанию.
+     */
+    public static final int DEFAULT_CAPACITY = 65_536;
+
+    /**
+     * Время хранения ключа по умолчанию.
+     */
+    public static final Duration DEFAULT_TTL = Duration.ofHours(24);
+
+    /**
+     * Наибольшая длина ключа.
+     */
+    static final int MAX_KEY_LENGTH = 128;
+
+    private static final AppLogger log = AppLogger.getLogger(IdempotencyCache.class);
+    private static final MetricsRegistry metrics = MetricsRegistry.global();
+    private static final Map<Path, IdempotencyCache> SHARED = new ConcurrentHashMap<>();
+
+    private final Path file;
+    private final int capacity;
+    private final long ttlMillis;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private BufferedWriter writer;
+    private final List<String> pendingLines = new ArrayList<>();
+    private int deferDepth;
+    private long fileRecords;
+    private volatile boolean loaded;
+
+    /**
+     * Запись файла ключей.
+     *
+     * @param key       Ключ (логин пользователя и ключ клиента).
+     * @param operation Операция, выполненная с этим ключом.
+     * @param result    Результат операции (ID транзакции или ключ перевода).
+     * @param createdAt Время выполнения, миллисекунды от начала эпохи.
+     */
+    public record Entry(String key, String operation, String result, long createdAt) {
+    }
+
+    /**
+     * Результат операции с ключом.
+     *
+     * @param result   Результат операции.
+     * @param replayed true, если операция уже выполнялась и возвращён сохранённый результат.
+     */
+    public record Outcome(String result, boolean replayed) {
+    }
+
+    /**
+     * Ключ в кэше: выполняющаяся или выполненная операция.
+     */
+    private static final class Slot {
+        final String operation;
+        final long createdAt;
+        final CompletableFuture<String> result = new CompletableFuture<>();
+
+        Slot(String operation, long createdAt) {
+            this.operation = operation;
+            this.createdAt = createdAt;
+        }
+    }
+
+    /**
+     * Сегмент кэша: ключи в порядке добавления под собственной блокировкой (монитор сегмента).
+     */
+    private final class Stripe {
+        private final LinkedHashMap<String, Slot> slots = new LinkedHashMap<>();
+        private final int limit = Math.max(1, (capacity + STRIPES - 1) / STRIPES);
+
+        Slot get(String key, long now) {
+            Slot slot = slots.get(key);
+            if (slot != null && expired(slot, now)) {
+                slots.remove(key);
+                return null;
+            }
+            return slot;
+        }
+
+        void put(String key, Slot slot, long now) {
+            slots.put(key, slot);
+            Iterator<Slot> eldest = slots.values().iterator();
+            while (eldest.hasNext()) {
+                Slot candidate = eldest.next();
+                if (slots.size() <= limit && !expired(candidate, now)) {
+                    break;
+                }
+                eldest.remove();
+                metrics.counter("IdempotencyCache.evictions").increment();
+            }
+        }
+    }
+
+    /**
+     * Получить общий для процесса кэш директории данных с параметрами по умолчанию.
+     *
+     * @param dataDir Корневая директория данных.
+     * @return Кэш ключей директории.
+     */
+    public static IdempotencyCache forDataDir(String dataDir) {
+        return SHARED.computeIfAbsent(pathFor(dataDir).toAbsolutePath().normalize(),
+                file -> new IdempotencyCache(file, DEFAULT_CAPACITY, DEFAULT_TTL));
+    }
+
+    /**
+     * Конструктор.
+     *
+     * @param file     Файл ключей.
+     * @param capacity Наибольшее количество ключей.
+     * @param ttl      Время хранения ключа.
+     */
+    public IdempotencyCache(Path file, int capacity, Duration ttl) {
+        if (capacity <= 0 || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Ёмкость кэша и время хранения ключей должны быть положительными.");
+        }
+        this.file = file;
+        this.capacity = capacity;
+        this.ttlMillis = ttl.toMillis();
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Получить путь к файлу ключей в директории данных.
+     *
+     * @param dataDir Корневая директория данных.
+     * @return Путь к файлу ключей.
+     */
+    public static Path pathFor(String dataDir) {
+        return Path.of(dataDir, "idempotency", "keys.jsonl");
+    }
+
+    /**
+     * Выполнить операцию не более одного раза для ключа.
+     *
+     * @param userId    Логин пользователя (ключи разных пользователей не пересекаются).
+     * @param key       Ключ клиента; null — выполнить операцию без проверки.
+     * @param operation Название операции (повтор ключа с другой операцией отклоняется).
+     * @param action    Операция; возвращает результат, который будет возвращён повторам.
+     * @return Результат операции и признак повтора.
+     * @throws IllegalArgumentException Если ключ некорректен или уже использован для другой операции.
+     */
+    public Outcome execute(String userId, String key, String operation, Supplier<String> action) {
+        if (key == null) {
+            return new Outcome(action.get(), false);
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Некорректный ключ идемпотентности.");
+        }
+        ensureLoaded();
+        String cacheKey = userId + "/" + key;
+        Stripe stripe = stripeFor(cacheKey);
+        long now = System.currentTimeMillis();
+        Slot slot;
+        boolean owner;
+        synchronized (stripe) {
+            slot = stripe.get(cacheKey, now);
+            owner = slot == null;
+            if (owner) {
+                slot = new Slot(operation, now);
+                stripe.put(cacheKey, slot, now);
+            }
+        }
+        if (!slot.operation.equals(operation)) {
+            throw new IllegalArgumentException("Ключ идемпотентности \"" + key + "\" уже использован для другой операции.");
+        }
+        if (!owner) {
+            metrics.counter("IdempotencyCache.hits").increment();
+            return new Outcome(await(slot), true);
+        }
+
+        metrics.counter("IdempotencyCache.misses").increment();
+        String result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            synchronized (stripe) {
+                stripe.slots.remove(cacheKey, slot);
+            }
+            slot.result.completeExceptionally(e);
+            throw e;
+        }
+        slot.result.complete(result);
+        append(new Entry(cacheKey, operation, result, slot.createdAt));
+        return new Outcome(result, false);
+    }
+
+    /**
+     * Включить режим отложенной записи: новые ключи попадают в файл только при {@link #flush()}.
+     * Каждому вызову должен соответствовать вызов {@link #endDeferredWrites()}.
+     */
+    public synchronized void beginDeferredWrites() {
+        deferDepth++;
+    }
+
+    /**
+     * Записать в файл накопленные ключи.
+     *
+     * @throws IOException Если произошла ошибка при записи.
+     */
+    public synchronized void flush() throws IOException {
+        if (pendingLines.isEmpty()) {
+            return;
+        }
+        BufferedWriter out = writer();
+        for (String line : pendingLines) {
+            out.write(line);
+            out.newLine();
+        }
+        out.flush();
+        fileRecords += pendingLines.size();
+        pendingLines.clear();
+        compactIfNeeded();
+    }
+
+    /**
+     * Записать накопленные ключи и выключить режим отложенной записи (если он не включён ещё раз другим вызовом).
+     *
+     * @throws IOException Если произошла ошибка при записи.
+     */
+    public synchronized void endDeferredWrites() throws IOException {
+        if (deferDepth > 0) {
+            deferDepth--;
+        }
+        flush();
+    }
+
+    /**
+     * Получить количество ключей в кэше.
+     *
+     * @return Количество ключей (включая ещё не удалённые устаревшие).
+     */
+    public int size() {
+        ensureLoaded();
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.slots.size();
+            }
+        }
+        return size;
+    }
+
+    private Stripe stripeFor(String cacheKey) {
+        int hash = cacheKey.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    private boolean expired(Slot slot, long now) {
+        return slot.result.isDone() && now - slot.createdAt >= ttlMillis;
+    }
+
+    /**
+     * Дождаться результата операции, выполняемой другим потоком.
+     */
+    private static String await(Slot slot) {
+        try {
+            return slot.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Записать выполненную операцию в файл (или отложить запись).
+     */
+    private synchronized void append(Entry entry) {
+        String line;
+        try {
+            line = objectMapper.writeValueAsString(entry);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Не удалось сериализовать ключ идемпотентности: " + e.getOriginalMessage(), e);
+        }
+        pendingLines.add(line);
+        if (deferDepth > 0) {
+            return;
+        }
+        try {
+            flush();
+        } catch (IOException e) {
+            // Операция уже выполнена; без записи ключ действует только до перезапуска.
+            pendingLines.clear();
+            log.error("Ошибка при записи ключа идемпотентности", e, "file", file);
+        }
+    }
+
+    /**
+     * Прочитать файл ключей при первом обращении.
+     */
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            try {
+                load();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось прочитать ключи идемпотентности", e);
+            }
+            loaded = true;
+        }
+    }
+
+    private void load() throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int skipped = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                fileRecords++;
+                Entry entry;
+                try {
+                    entry = objectMapper.readValue(line, Entry.class);
+                } catch (JsonProcessingException e) {
+                    // Недописанная строка после сбоя.
+                    skipped++;
+                    continue;
+                }
+                Slot slot = new Slot(entry.operation(), entry.createdAt());
+                slot.result.complete(entry.result());
+                if (!expired(slot, now)) {
+                    Stripe stripe = stripeFor(entry.key());
+                    synchronized (stripe) {
+                        stripe.put(entry.key(), slot, now);
+                    }
+                }
+            }
+        }
+        if (skipped > 0) {
+            log.warn("Пропущены повреждённые записи ключей идемпотентности", "file", file, "records", skipped);
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * Переписать файл ключей, если в нём накопилось намного больше записей, чем ключей в кэше.
+     */
+    private synchronized void compactIfNeeded() throws IOException {
+        if (fileRecords <= 2L * capacity) {
+            return;
+        }
+        List<Entry> live = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (Map.Entry<String, Slot> slot : stripe.slots.entrySet()) {
+                    String result = slot.getValue().result.getNow(null);
+                    if (result != null) {
+                        live.add(new Entry(slot.getKey(), slot.getValue().operation, result, slot.getValue().createdAt));
+                    }
+                }
+            }
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (Entry entry : live) {
+                out.write(objectMapper.writeValueAsString(entry));
+                out.newLine();
+            }
+        }
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Файл ключей идемпотентности переписан", "file", file, "records", fileRecords, "keys", live.size());
+        fileRecords = live.size();
+    }
+
+    private BufferedWriter writer() throws IOException {
+        if (writer == null) {
+            Files.createDirectories(file.getParent());
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        }
+        return writer;
+    }
+}
@@ -0,0 +1,151 @@
+package com.beryoza.financeapp.service;
+
+import com.beryoza.financeapp.logging.AppLogger;
+import com.beryoza.financeapp.metrics.MetricsRegistry;
+import com.beryoza.financeapp.metrics.OperationTimer;
+import com.beryoza.financeapp.model.ArchivedMonth;
+import com.beryoza.financeapp.model.Transaction;
+import com.beryoza.financeapp.model.Wallet;
+import com.beryoza.financeapp.repository.TransactionArchive;
+import com.beryoza.financeapp.repository.WalletRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Перенос старых транзакций кошельков в архив (горячие и холодные данные).
+ * <p>
+ * Транзакции, датированные месяцами раньше горизонта, переносятся в сжатые неизменяемые сегменты
+ * ({@link TransactionArchive}) — по одному на месяц каждого кошелька, — а в кошельке вместо них остаётся
+ * сводная строка ({@link ArchivedMonth}). Кошельки становятся меньше, поэтому быстрее читаются, кэшируются
+ * и сохраняются; баланс, его история и расходы по категориям считаются по сводным строкам, а выгрузка,
+ * перестроение сводок и баланс на дату внутри архивного месяца читают сегменты по необходимости.
+ * <p>
+ * Сегменты записываются до сохранения кошельков; все изменённые кошельки сохраняются одной записью файла
+ * с проверкой версий ({@link WalletRepository#saveWalletsChecked}). При конфликте или ошибке записанные
+ * сегменты удаляются, и перенос повторяется с перечитанными кошельками. Архивные транзакции нельзя
+ * изменить, удалить или отменить (для переводов).
+ * <p>
+ * Горизонт по умолчанию — {@value #DEFAULT_HORIZON_MONTHS} месяцев; задаётся свойством
+ * {@code financeapp.archive.months} (0 — перенос при запуске приложения выключен).
+ * <p>
+ * Поля:
+ * - {@link WalletRepository} walletRepository — репозиторий кошельков.
+ * - {@link TransactionArchive} archive — архив транзакций.
+ */
+public class TransactionArchiver {
+    /**
+     * Горизонт по умолчанию: сколько последних месяцев (кроме текущего) остаются в кошельках.
+     */
+    public static final int DEFAULT_HORIZON_MONTHS = 12;
+
+    private static final AppLogger log = AppLogger.getLogger(TransactionArchiver.class);
+    private static final MetricsRegistry metrics = MetricsRegistry.global();
+
+    private final WalletRepository walletRepository;
+    private final TransactionArchive archive;
+
+    /**
+     * Итоги переноса.
+     *
+     * @param wallets      Количество изменённых кошельков.
+     * @param segments     Количество записанных сегментов.
+     * @param transactions Количество перенесённых транзакций.
+     */
+    public record Result(int wallets, int segments, long transactions) {
+    }
+
+    /**
+     * Конструктор.
+     *
+     * @param walletRepository Репозиторий кошельков.
+     */
+    public TransactionArchiver(WalletRepository walletRepository) {
+        this.walletRepository = walletRepository;
+        this.archive = walletRepository.getTransactionArchive();
+    }
+
+    /**
+     * Получить горизонт из свойства {@code financeapp.archive.months}.
+     *
+     * @return Количество месяцев (0 — перенос выключен).
+     */
+    public static int configuredHorizonMonths() {
+        return Integer.getInteger("financeapp.archive.months", DEFAULT_HORIZON_MONTHS);
+    }
+
+    /**
+     * Перенести в архив транзакции старше горизонта.
+     *
+     * @param months Количество последних полных месяцев, которые остаются в кошельках (не меньше 1).
+     * @return Итоги переноса.
+     */
+    public Result archiveOlderThan(int months) {
+        if (months < 1) {
+            throw new IllegalArgumentException("Горизонт архивации должен быть не меньше одного месяца.");
+        }
+        return archiveBefore(YearMonth.now().minusMonths(months));
+    }
+
+    /**
+     * Перенести в архив транзакции, датированные месяцами раньше указанного.
+     *
+     * @param horizon Первый месяц, транзакции которого остаются в кошельках.
+     * @return Итоги переноса.
+     */
+    public Result archiveBefore(YearMonth horizon) {
+        if (!horizon.isBefore(YearMonth.now())) {
+            throw new IllegalArgumentException("Транзакции текущего месяца нельзя переносить в архив.");
+        }
+        OperationTimer timer = metrics.time("TransactionArchiver.archive");
+        try (timer) {
+            Result result = ConflictRetry.call("TransactionArchiver.archive", () -> archiveOnce(horizon));
+            metrics.counter("TransactionArchiver.transactions").add(result.transactions());
+            if (result.segments() > 0) {
+                log.info("Старые транзакции перенесены в архив", "horizon", horizon, "wallets", result.wallets(),
+                        "segments", result.segments(), "transactions", result.transactions());
+            }
+            return result;
+        }
+    }
+
+    private Result archiveOnce(YearMonth horizon) {
+        List<ArchivedMonth> written = new ArrayList<>();
+        try {
+            List<Wallet> changed = new ArrayList<>();
+            long transactions = 0;
+            for (Wallet wallet : walletRepository.loadWallets()) {
+                Map<YearMonth, List<Transaction>> byMonth = new TreeMap<>();
+                for (Transaction transaction : wallet.getTransactions()) {
+                    if (transaction.getDate() != null && YearMonth.from(transaction.getDate()).isBefore(horizon)) {
+                        byMonth.computeIfAbsent(YearMonth.from(transaction.getDate()), key -> new ArrayList<>())
+                                .add(transaction);
+                    }
+                }
+                if (byMonth.isEmpty()) {
+                    continue;
+                }
+                for (Map.Entry<YearMonth, List<Transaction>> month : byMonth.entrySet()) {
+                    ArchivedMonth row = archive.write(month.getKey(), month.getValue());
+                    written.add(row);
+                    wallet.archive(row, month.getValue());
+                    transactions += row.count();
+                }
+                changed.add(wallet);
+            }
+            walletRepository.saveWalletsChecked(changed);
+            return new Result(changed.size(), written.size(), transactions);
+        } catch (IOException e) {
+            archive.delete(written);
+            throw new UncheckedIOException("Не удалось записать сегмент архива.", e);
+        } catch (RuntimeException e) {
+            archive.delete(written);
+            throw e;
+        }
+    }
+}
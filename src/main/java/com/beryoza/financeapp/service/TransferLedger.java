@@ -0,0 +1,388 @@
+package com.beryoza.financeapp.service;
+
+import com.beryoza.financeapp.event.EventBus;
+import com.beryoza.financeapp.event.TransactionAdded;
+import com.beryoza.financeapp.logging.AppLogger;
+import com.beryoza.financeapp.metrics.MetricsRegistry;
+import com.beryoza.financeapp.metrics.OperationTimer;
+import com.beryoza.financeapp.model.ArchivedMonth;
+import com.beryoza.financeapp.model.Transaction;
+import com.beryoza.financeapp.model.TransactionId;
+import com.beryoza.financeapp.model.TransferReference;
+import com.beryoza.financeapp.model.Wallet;
+import com.beryoza.financeapp.repository.TransactionArchive;
+import com.beryoza.financeapp.repository.WalletRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Проводка переводов между кошельками по принципу двойной записи.
+ * <p>
+ * Перевод записывается парой транзакций с общим идентификатором ({@link TransferReference}): списание
+ * в кошельке отправителя и зачисление в кошельке получателя. Обе части сохраняются одной записью файла
+ * кошельков с проверкой версий ({@link WalletRepository#saveWalletsChecked}), поэтому перевод либо проведён
+ * целиком, либо не проведён вовсе. Идентификатор перевода служит ключом идемпотентности: перевод с ключом,
+ * который уже есть среди списаний пользователя-отправителя (в том числе перенесённых в архив), повторно
+ * не проводится.
+ * <p>
+ * Пакет переводов проверяется и проводится в памяти, после чего все затронутые кошельки сохраняются одной
+ * записью файла. Отклонённые переводы пакета не мешают проводке остальных.
+ * <p>
+ * Перевод между пользователями разных узлов шардирования проводится по частям ({@link #postLeg}): каждый
+ * узел записывает в свой кошелёк транзакцию своей стороны с тем же идентификатором перевода.
+ * <p>
+ * Поля:
+ * - {@link WalletRepository} walletRepository — репозиторий кошельков.
+ * - {@link EventBus} eventBus — шина событий (публикуются обе части каждого проведённого перевода).
+ */
+public class TransferLedger {
+    private static final AppLogger log = AppLogger.getLogger(TransferLedger.class);
+    private static final MetricsRegistry metrics = MetricsRegistry.global();
+
+    private final WalletRepository walletRepository;
+    private final EventBus eventBus;
+
+    /**
+     * Поручение на перевод.
+     *
+     * @param key        Ключ идемпотентности (идентификатор перевода).
+     * @param fromUser   Логин отправителя.
+     * @param fromWallet Кошелёк отправителя.
+     * @param toUser     Логин получателя.
+     * @param toWallet   Кошелёк получателя.
+     * @param amount     Сумма перевода.
+     */
+    public record Order(String key, String fromUser, String fromWallet, String toUser, String toWallet,
+                        double amount) {
+    }
+
+    /**
+     * Результат проводки перевода.
+     */
+    public enum Status {
+        /**
+         * Перевод проведён.
+         */
+        POSTED,
+        /**
+         * Перевод с этим ключом уже был проведён ранее; повторная проводка не выполнялась.
+         */
+        DUPLICATE,
+        /**
+         * Перевод отклонён (см. сообщение).
+         */
+        REJECTED
+    }
+
+    /**
+     * Результат проводки одного поручения.
+     *
+     * @param key     Ключ идемпотентности.
+     * @param status  Результат.
+     * @param message Причина отклонения или повтора (null для проведённого перевода).
+     */
+    public record Result(String key, Status status, String message) {
+    }
+
+    /**
+     * Части проведённого перевода для публикации событий.
+     */
+    private record Posting(Order order, Transaction debit, Transaction credit) {
+    }
+
+    /**
+     * Результат проводки одной части перевода и записанная транзакция (null, если часть не проведена).
+     */
+    private record LegPosting(Result result, Transaction transaction) {
+    }
+
+    /**
+     * Конструктор.
+     *
+     * @param walletRepository Репозиторий кошельков.
+     * @param eventBus         Шина событий.
+     */
+    public TransferLedger(WalletRepository walletRepository, EventBus eventBus) {
+        this.walletRepository = walletRepository;
+        this.eventBus = eventBus;
+    }
+
+    /**
+     * Провести один перевод.
+     *
+     * @param order Поручение.
+     * @return Результат проводки.
+     */
+    public Result post(Order order) {
+        return post(List.of(order)).get(0);
+    }
+
+    /**
+     * Провести пакет переводов с одной записью файла кошельков.
+     *
+     * @param orders Поручения (выполняются по порядку: перевод видит результат предыдущих).
+     * @return Результаты в порядке поручений.
+     */
+    public List<Result> post(List<Order> orders) {
+        OperationTimer timer = metrics.time("TransferLedger.post");
+        try (timer) {
+            List<Result> results = new ArrayList<>(orders.size());
+            List<Posting> postings = new ArrayList<>();
+            ConflictRetry.run("TransferLedger.post", () -> {
+                results.clear();
+                postings.clear();
+                Batch batch = new Batch(walletRepository.loadWallets(), walletRepository.getTransactionArchive());
+                for (Order order : orders) {
+                    results.add(batch.apply(order, postings));
+                }
+                walletRepository.saveWalletsChecked(batch.changed);
+            });
+
+            for (Posting posting : postings) {
+                Order order = posting.order();
+                eventBus.publish(new TransactionAdded(order.fromUser(), order.fromWallet(), posting.debit()));
+                eventBus.publish(new TransactionAdded(order.toUser(), order.toWallet(), posting.credit()));
+            }
+            for (Result result : results) {
+                metrics.counter("TransferLedger." + result.status().name().toLowerCase(Locale.ROOT)).increment();
+            }
+            if (orders.size() > 1) {
+                log.info("Пакет переводов проведён", "orders", orders.size(), "posted", postings.size());
+            }
+            return results;
+        }
+    }
+
+    /**
+     * Отменить перевод обратным переводом. Отменяется списание в кошельке пользователя: средства
+     * возвращаются из кошелька получателя. Ключ обратного перевода — ключ исходного с суффиксом
+     * {@code -reversal} ({@link #reversalKey}), поэтому повторная отмена не выполняется.
+     *
+     * @param userId        Логин отправителя исходного перевода.
+     * @param walletName    Кошелёк отправителя.
+     * @param transactionId ID транзакции списания.
+     * @return Результат проводки обратного перевода.
+     */
+    public Result reverse(String userId, String walletName, String transactionId) {
+        Transaction debit = findTransferDebit(userId, walletName, transactionId);
+        TransferReference transfer = debit.getTransfer();
+        return post(new Order(reversalKey(transfer.id()), transfer.counterpartyUserId(),
+                transfer.counterpartyWallet(), userId, walletName, -debit.getAmount()));
+    }
+
+    /**
+     * Найти списание по переводу, которое можно отменить.
+     *
+     * @param userId        Логин отправителя перевода.
+     * @param walletName    Кошелёк отправителя.
+     * @param transactionId ID транзакции списания.
+     * @return Транзакция списания.
+     * @throws IllegalArgumentException Если транзакция не найдена или не является списанием по переводу.
+     */
+    public Transaction findTransferDebit(String userId, String walletName, String transactionId) {
+        Transaction debit = null;
+        for (Wallet wallet : walletRepository.loadWalletsByUser(userId)) {
+            if (wallet.getName().equals(walletName)) {
+                debit = wallet.findTransactionById(transactionId);
+            }
+        }
+        if (debit == null) {
+            throw new IllegalArgumentException("Кошелёк или транзакция не найдены.");
+        }
+        if (!debit.isTransfer() || debit.getAmount() >= 0) {
+            throw new IllegalArgumentException("Отменить можно только списание по переводу.");
+        }
+        return debit;
+    }
+
+    /**
+     * Получить ключ обратного перевода.
+     *
+     * @param key Ключ исходного перевода.
+     * @return Ключ обратного перевода.
+     */
+    public static String reversalKey(String key) {
+        return key + "-reversal";
+    }
+
+    /**
+     * Провести одну часть перевода между узлами шардирования: транзакцию со ссылкой на перевод в кошельке
+     * этого узла. Вторую часть проводит узел другой стороны. Часть с тем же ключом и тем же направлением,
+     * уже записанная в кошелёк, повторно не проводится.
+     *
+     * @param key                Идентификатор перевода.
+     * @param userId             Владелец кошелька.
+     * @param walletName         Кошелёк.
+     * @param amount             Отрицательное значение — списание, положительное — зачисление.
+     * @param counterpartyUserId Пользователь другой стороны.
+     * @param counterpartyWallet Кошелёк другой стороны.
+     * @return Результат проводки.
+     */
+    public Result postLeg(String key, String userId, String walletName, double amount, String counterpartyUserId,
+                          String counterpartyWallet) {
+        OperationTimer timer = metrics.time("TransferLedger.postLeg");
+        try (timer) {
+            LegPosting posting = ConflictRetry.call("TransferLedger.postLeg", () -> {
+                Wallet wallet = null;
+                for (Wallet candidate : walletRepository.loadWalletsByUser(userId)) {
+                    if (candidate.getName().equals(walletName)) {
+                        wallet = candidate;
+                    }
+                }
+                if (wallet == null) {
+                    return new LegPosting(new Result(key, Status.REJECTED,
+                            "Кошелек \"" + walletName + "\" пользователя \"" + userId + "\" не найден."), null);
+                }
+                for (Transaction transaction : wallet.getTransactions()) {
+                    if (transaction.isTransfer() && transaction.getTransfer().id().equals(key)
+                            && (transaction.getAmount() < 0) == (amount < 0)) {
+                        return new LegPosting(new Result(key, Status.DUPLICATE,
+                                "Перевод с ключом \"" + key + "\" уже проведён."), null);
+                    }
+                }
+                if (amount < 0 && wallet.getBalance() < -amount) {
+                    return new LegPosting(new Result(key, Status.REJECTED,
+                            "Недостаточно средств на кошельке отправителя."), null);
+                }
+
+                String description = amount < 0
+                        ? "Перевод в кошелёк " + counterpartyUserId + "/" + counterpartyWallet
+                        : "Перевод из кошелька " + counterpartyUserId + "/" + counterpartyWallet;
+                Transaction leg = new Transaction(TransactionId.generate(), amount, null, LocalDate.now(), description,
+                        new TransferReference(key, counterpartyUserId, counterpartyWallet));
+                wallet.addTransaction(leg);
+                walletRepository.saveWalletsChecked(List.of(wallet));
+                return new LegPosting(new Result(key, Status.POSTED, null), leg);
+            });
+
+            if (posting.transaction() != null) {
+                eventBus.publish(new TransactionAdded(userId, walletName, posting.transaction()));
+            }
+            metrics.counter("TransferLedger." + posting.result().status().name().toLowerCase(Locale.ROOT)).increment();
+            return posting.result();
+        }
+    }
+
+    /**
+     * Состояние пакета: загруженные кошельки, ключи уже проведённых переводов, изменённые кошельки.
+     */
+    private static final class Batch {
+        private final Map<String, List<Wallet>> walletsByUser = new HashMap<>();
+        private final Map<String, Set<String>> postedKeys = new HashMap<>();
+        private final Set<Wallet> changed = new LinkedHashSet<>();
+        private final LocalDate today = LocalDate.now();
+        private final TransactionArchive archive;
+
+        Batch(List<Wallet> wallets, TransactionArchive archive) {
+            this.archive = archive;
+            for (Wallet wallet : wallets) {
+                walletsByUser.computeIfAbsent(wallet.getUserId(), key -> new ArrayList<>()).add(wallet);
+            }
+        }
+
+        Result apply(Order order, List<Posting> postings) {
+            if (order.key() == null || order.key().isBlank()) {
+                return rejected(order, "Не указан ключ перевода.");
+            }
+            if (!(order.amount() > 0) || Double.isInfinite(order.amount())) {
+                return rejected(order, "Сумма перевода должна быть положительной.");
+            }
+            Wallet sender = find(order.fromUser(), order.fromWallet());
+            Wallet receiver = find(order.toUser(), order.toWallet());
+            if (sender == null) {
+                return rejected(order, "Кошелек отправителя \"" + order.fromWallet() + "\" не найден.");
+            }
+            if (receiver == null) {
+                return rejected(order, "Кошелек получателя \"" + order.toWallet() + "\" не найден.");
+            }
+            if (sender == receiver) {
+                return rejected(order, "Нельзя перевести средства в тот же кошелёк.");
+            }
+            Set<String> keys;
+            try {
+                keys = postedKeys(order.fromUser());
+            } catch (UncheckedIOException e) {
+                log.error("Не удалось прочитать архив переводов", e, "user", order.fromUser());
+                return rejected(order, "Не удалось проверить ранее проведённые переводы: архив недоступен.");
+            }
+            if (keys.contains(order.key())) {
+                return new Result(order.key(), Status.DUPLICATE, "Перевод с ключом \"" + order.key() + "\" уже проведён.");
+            }
+            if (sender.getBalance() < order.amount()) {
+                return rejected(order, "Недостаточно средств на кошельке отправителя.");
+            }
+
+            Transaction debit = new Transaction(TransactionId.generate(), -order.amount(), null, today,
+                    "Перевод в кошелёк " + order.toUser() + "/" + order.toWallet(),
+                    new TransferReference(order.key(), order.toUser(), order.toWallet()));
+            Transaction credit = new Transaction(TransactionId.generate(), order.amount(), null, today,
+                    "Перевод из кошелька " + order.fromUser() + "/" + order.fromWallet(),
+                    new TransferReference(order.key(), order.fromUser(), order.fromWallet()));
+            sender.addTransaction(debit);
+            receiver.addTransaction(credit);
+            changed.add(sender);
+            changed.add(receiver);
+            keys.add(order.key());
+            postings.add(new Posting(order, debit, credit));
+            return new Result(order.key(), Status.POSTED, null);
+        }
+
+        private Wallet find(String userId, String walletName) {
+            for (Wallet wallet : walletsByUser.getOrDefault(userId, List.of())) {
+                if (wallet.getName().equals(walletName)) {
+                    return wallet;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Ключи переводов, списания по которым уже есть в кошельках пользователя, включая архивные
+         * месяцы (собираются один раз).
+         *
+         * @throws UncheckedIOException Если не удалось прочитать сегмент архива без сохранённых ключей.
+         */
+        private Set<String> postedKeys(String userId) {
+            return postedKeys.computeIfAbsent(userId, key -> {
+                Set<String> keys = new HashSet<>();
+                for (Wallet wallet : walletsByUser.getOrDefault(userId, List.of())) {
+                    addDebitKeys(wallet.getTransactions(), keys);
+                    for (ArchivedMonth row : wallet.getArchive()) {
+                        if (row.transferKeys() != null) {
+                            keys.addAll(row.transferKeys());
+                            continue;
+                        }
+                        try {
+                            addDebitKeys(archive.read(row), keys);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                }
+                return keys;
+            });
+        }
+
+        private static void addDebitKeys(List<Transaction> transactions, Set<String> keys) {
+            for (Transaction transaction : transactions) {
+                if (transaction.isTransfer() && transaction.getAmount() < 0) {
+                    keys.add(transaction.getTransfer().id());
+                }
+            }
+        }
+
+        private static Result rejected(Order order, String message) {
+            return new Result(order.key(), Status.REJECTED, message);
+        }
+    }
+}
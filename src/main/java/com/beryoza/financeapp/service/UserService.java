@@ -1,9 +1,17 @@
 package com.beryoza.financeapp.service;
 
+import com.beryoza.financeapp.event.EventBus;
+import com.beryoza.financeapp.event.PasswordChanged;
+import com.beryoza.financeapp.event.UserRegistered;
+import com.beryoza.financeapp.event.UsernameChanged;
+import com.beryoza.financeapp.logging.AppLogger;
+import com.beryoza.financeapp.metrics.MetricsRegistry;
+import com.beryoza.financeapp.metrics.OperationTimer;
 import com.beryoza.financeapp.model.Category;
 import com.beryoza.financeapp.model.User;
 import com.beryoza.financeapp.model.Wallet;
 import com.beryoza.financeapp.repository.CategoryRepository;
+import com.beryoza.financeapp.repository.SummaryRepository;
 import com.beryoza.financeapp.repository.UserRepository;
 import com.beryoza.financeapp.repository.WalletRepository;
 import com.beryoza.financeapp.util.DataValidator;
@@ -18,12 +26,19 @@ import java.util.List;
  * - {@link UserRepository} userRepository — репозиторий для работы с пользователями.
  * - {@link WalletRepository} walletRepository — репозиторий для работы с кошельками.
  * - {@link CategoryRepository} categoryRepository — репозиторий для работы с категориями.
+ * - {@link SummaryRepository} summaryRepository — репозиторий месячных сводок.
+ * - {@link EventBus} eventBus — шина, в которую публикуются события об изменении данных.
  * - {@link User} currentUser — текущий авторизованный пользователь.
  */
 public class UserService {
+    private static final AppLogger log = AppLogger.getLogger(UserService.class);
+    private static final MetricsRegistry metrics = MetricsRegistry.global();
+
     private final UserRepository userRepository;
     private final WalletRepository walletRepository;
     private final CategoryRepository categoryRepository;
+    private final SummaryRepository summaryRepository;
+    private final EventBus eventBus;
     private User currentUser;
 
     /**
@@ -34,9 +49,39 @@ public class UserService {
      * @param categoryRepository Репозиторий для работы с категориями.
      */
     public UserService(UserRepository userRepository, WalletRepository walletRepository, CategoryRepository categoryRepository) {
+        this(userRepository, walletRepository, categoryRepository, new SummaryRepository(walletRepository.getDataDir()));
+    }
+
+    /**
+     * Конструктор.
+     *
+     * @param userRepository     Репозиторий для работы с пользователями.
+     * @param walletRepository   Репозиторий для работы с кошельками.
+     * @param categoryRepository Репозиторий для работы с категориями.
+     * @param summaryRepository  Репозиторий месячных сводок.
+     */
+    public UserService(UserRepository userRepository, WalletRepository walletRepository,
+                       CategoryRepository categoryRepository, SummaryRepository summaryRepository) {
+        this(userRepository, walletRepository, categoryRepository, summaryRepository, new EventBus());
+    }
+
+    /**
+     * Конструктор.
+     *
+     * @param userRepository     Репозиторий для работы с пользователями.
+     * @param walletRepository   Репозиторий для работы с кошельками.
+     * @param categoryRepository Репозиторий для работы с категориями.
+     * @param summaryRepository  Репозиторий месячных сводок.
+     * @param eventBus           Шина событий об изменении данных.
+     */
+    public UserService(UserRepository userRepository, WalletRepository walletRepository,
+                       CategoryRepository categoryRepository, SummaryRepository summaryRepository,
+                       EventBus eventBus) {
         this.userRepository = userRepository;
         this.walletRepository = walletRepository;
         this.categoryRepository = categoryRepository;
+        this.summaryRepository = summaryRepository;
+        this.eventBus = eventBus;
     }
 
     /**
@@ -47,22 +92,27 @@ public class UserService {
      * @param password Пароль нового пользователя.
      */
     public void registerUser(String username, String password) {
-        try {
-            validateUsername(username);
-            validatePassword(password);
+        OperationTimer timer = metrics.time("UserService.registerUser");
+        try (timer) {
+            try {
+                validateUsername(username);
+                validatePassword(password);
 
-            List<User> users = userRepository.loadUsers();
+                List<User> users = userRepository.loadUsers();
 
-            if (users.stream().anyMatch(user -> user.getUsername().equals(username))) {
-                throw new IllegalArgumentException("Пользователь с таким логином уже существует.");
-            }
+                if (users.stream().anyMatch(user -> user.getUsername().equals(username))) {
+                    throw new IllegalArgumentException("Пользователь с таким логином уже существует.");
+                }
 
-            users.add(new User(username, password));
-            userRepository.saveUsers(users);
+                users.add(new User(username, password));
+                userRepository.saveUsers(users);
+                eventBus.publish(new UserRegistered(username));
 
-            System.out.println("Пользователь успешно зарегистрирован.");
-        } catch (IllegalArgumentException e) {
-            System.out.println("Ошибка: " + e.getMessage());
+                System.out.println("Пользователь успешно зарегистрирован.");
+            } catch (IllegalArgumentException e) {
+                System.out.println("Ошибка: " + e.getMessage());
+                log.warn("Регистрация пользователя отклонена", "error", e.getMessage());
+            }
         }
     }
 
@@ -73,7 +123,25 @@ public class UserService {
      * @return Пользователь, если найден, иначе null.
      */
     public User findUserByUsername(String username) {
-        return userRepository.findUserByUsername(username);
+        OperationTimer timer = metrics.time("UserService.findUserByUsername");
+        try (timer) {
+            return userRepository.findUserByUsername(username);
+        }
+    }
+
+    /**
+     * Загрузить данные пользователя в кэш пользователей ({@link com.beryoza.financeapp.repository.UserStateCache}),
+     * чтобы первые операции после входа не читали файлы данных целиком.
+     *
+     * @param username Логин пользователя.
+     */
+    private void warmUp(String username) {
+        OperationTimer timer = metrics.time("UserService.warmUp");
+        try (timer) {
+            walletRepository.loadWalletsByUser(username);
+            categoryRepository.findCategoriesByUserId(username);
+            summaryRepository.findByUser(username);
+        }
     }
 
     /**
@@ -84,28 +152,35 @@ public class UserService {
      * @return true, если авторизация успешна; иначе false.
      */
     public boolean authenticateUser(String username, String password) {
-        try {
-            validateUsername(username);
-            validatePassword(password);
+        OperationTimer timer = metrics.time("UserService.authenticateUser");
+        try (timer) {
+            try {
+                validateUsername(username);
+                validatePassword(password);
+
+                User user = findUserByUsername(username);
+
+                if (user == null) {
+                    System.out.println("Ошибка: Пользователь с логином '" + username + "' не найден.");
+                    log.info("Неудачная попытка входа: пользователь не найден", "user", username);
+                    return false;
+                }
 
-            User user = findUserByUsername(username);
+                if (user.getPassword().equals(password)) {
+                    currentUser = user;
+                    warmUp(user.getUsername());
+                    System.out.println("Добро пожаловать, " + user.getUsername() + "!");
+                    return true;
+                }
 
-            if (user == null) {
-                System.out.println("Ошибка: Пользователь с логином '" + username + "' не найден.");
+                System.out.println("Ошибка: Неверный пароль.");
+                log.info("Неудачная попытка входа: неверный пароль", "user", username);
+                return false;
+            } catch (IllegalArgumentException e) {
+                System.out.println("Ошибка: " + e.getMessage());
+                log.warn("Авторизация отклонена", "error", e.getMessage());
                 return false;
             }
-
-            if (user.getPassword().equals(password)) {
-                currentUser = user;
-                System.out.println("Добро пожаловать, " + user.getUsername() + "!");
-                return true;
-            }
-
-            System.out.println("Ошибка: Неверный пароль.");
-            return false;
-        } catch (IllegalArgumentException e) {
-            System.out.println("Ошибка: " + e.getMessage());
-            return false;
         }
     }
 
@@ -116,28 +191,33 @@ public class UserService {
      * @param newPassword Новый пароль.
      */
     public void changePassword(String oldPassword, String newPassword) {
-        try {
-            validatePassword(newPassword);
+        OperationTimer timer = metrics.time("UserService.changePassword");
+        try (timer) {
+            try {
+                validatePassword(newPassword);
 
-            if (currentUser == null || !currentUser.getPassword().equals(oldPassword)) {
-                throw new IllegalArgumentException("Неверный старый пароль.");
-            }
+                if (currentUser == null || !currentUser.getPassword().equals(oldPassword)) {
+                    throw new IllegalArgumentException("Неверный старый пароль.");
+                }
 
-            List<User> users = userRepository.loadUsers();
+                List<User> users = userRepository.loadUsers();
 
-            for (User user : users) {
-                if (user.getUsername().equals(currentUser.getUsername())) {
-                    user.setPassword(newPassword);
-                    break;
+                for (User user : users) {
+                    if (user.getUsername().equals(currentUser.getUsername())) {
+                        user.setPassword(newPassword);
+                        break;
+                    }
                 }
-            }
 
-            userRepository.saveUsers(users);
-            currentUser.setPassword(newPassword);
+                userRepository.saveUsers(users);
+                currentUser.setPassword(newPassword);
+                eventBus.publish(new PasswordChanged(currentUser.getUsername()));
 
-            System.out.println("Пароль успешно изменён.");
-        } catch (IllegalArgumentException e) {
-            System.out.println("Ошибка: " + e.getMessage());
+                System.out.println("Пароль успешно изменён.");
+            } catch (IllegalArgumentException e) {
+                System.out.println("Ошибка: " + e.getMessage());
+                log.warn("Смена пароля отклонена", "error", e.getMessage());
+            }
         }
     }
 
@@ -147,34 +227,40 @@ public class UserService {
      * @param newUsername Новый логин.
      */
     public void changeUsername(String newUsername) {
-        try {
-            validateUsername(newUsername);
+        OperationTimer timer = metrics.time("UserService.changeUsername");
+        try (timer) {
+            try {
+                validateUsername(newUsername);
 
-            if (currentUser == null) {
-                throw new IllegalArgumentException("Пользователь не авторизован.");
-            }
+                if (currentUser == null) {
+                    throw new IllegalArgumentException("Пользователь не авторизован.");
+                }
 
-            if (findUserByUsername(newUsername) != null) {
-                throw new IllegalArgumentException("Пользователь с таким логином уже существует.");
-            }
+                if (findUserByUsername(newUsername) != null) {
+                    throw new IllegalArgumentException("Пользователь с таким логином уже существует.");
+                }
 
-            List<User> users = userRepository.loadUsers();
+                List<User> users = userRepository.loadUsers();
 
-            for (User user : users) {
-                if (user.getUsername().equals(currentUser.getUsername())) {
-                    user.setUsername(newUsername);
-                    break;
+                for (User user : users) {
+                    if (user.getUsername().equals(currentUser.getUsername())) {
+                        user.setUsername(newUsername);
+                        break;
+                    }
                 }
-            }
-
-            userRepository.saveUsers(users);
-            updateWalletsUserId(currentUser.getUsername(), newUsername);
-            updateCategoriesUserId(currentUser.getUsername(), newUsername);
-            currentUser.setUsername(newUsername);
 
-            System.out.println("Логин успешно изменён.");
-        } catch (IllegalArgumentException e) {
-            System.out.println("Ошибка: " + e.getMessage());
+                userRepository.saveUsers(users);
+                updateWalletsUserId(currentUser.getUsername(), newUsername);
+                updateCategoriesUserId(currentUser.getUsername(), newUsername);
+                summaryRepository.renameUser(currentUser.getUsername(), newUsername);
+                eventBus.publish(new UsernameChanged(currentUser.getUsername(), newUsername));
+                currentUser.setUsername(newUsername);
+
+                System.out.println("Логин успешно изменён.");
+            } catch (IllegalArgumentException e) {
+                System.out.println("Ошибка: " + e.getMessage());
+                log.warn("Смена логина отклонена", "error", e.getMessage());
+            }
         }
     }
 
@@ -216,7 +302,10 @@ public class UserService {
      * @return Текущий пользователь или null, если пользователь не авторизован.
      */
     public User getCurrentUser() {
-        return currentUser;
+        OperationTimer timer = metrics.time("UserService.getCurrentUser");
+        try (timer) {
+            return currentUser;
+        }
     }
 
     /**
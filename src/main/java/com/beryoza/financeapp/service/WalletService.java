@@ -1,15 +1,38 @@
 package com.beryoza.financeapp.service;
 
+import com.beryoza.financeapp.event.EventBus;
+import com.beryoza.financeapp.event.TransactionAdded;
+import com.beryoza.financeapp.event.TransactionDeleted;
+import com.beryoza.financeapp.event.TransactionEdited;
+import com.beryoza.financeapp.event.WalletAdded;
+import com.beryoza.financeapp.event.WalletBalanceUpdated;
+import com.beryoza.financeapp.event.WalletRemoved;
+import com.beryoza.financeapp.event.WalletRenamed;
+import com.beryoza.financeapp.export.ExportFormat;
+import com.beryoza.financeapp.export.TransactionFilter;
+import com.beryoza.financeapp.export.TransactionWriter;
+import com.beryoza.financeapp.jfr.BudgetComputationEvent;
+import com.beryoza.financeapp.logging.AppLogger;
+import com.beryoza.financeapp.metrics.MetricsRegistry;
+import com.beryoza.financeapp.metrics.OperationTimer;
+import com.beryoza.financeapp.model.ArchivedMonth;
+import com.beryoza.financeapp.model.BalanceHistory;
 import com.beryoza.financeapp.model.Category;
+import com.beryoza.financeapp.model.MonthlySummary;
 import com.beryoza.financeapp.model.Transaction;
 import com.beryoza.financeapp.model.User;
 import com.beryoza.financeapp.model.Wallet;
 import com.beryoza.financeapp.repository.CategoryRepository;
+import com.beryoza.financeapp.repository.OptimisticLockException;
+import com.beryoza.financeapp.repository.SummaryRepository;
 import com.beryoza.financeapp.repository.WalletRepository;
 import com.beryoza.financeapp.util.DataValidator;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.YearMonth;
 import java.util.*;
 
 /**
@@ -20,20 +43,66 @@ import java.util.*;
  * Поля:
  * - {@link WalletRepository} walletRepository — репозиторий для работы с кошельками и транзакциями.
  * - {@link CategoryRepository} categoryRepository — репозиторий для работы с категориями транзакций.
+ * - {@link SummaryRepository} summaryRepository — материализованные месячные сводки по доходам и расходам.
+ * - {@link EventBus} eventBus — шина, в которую публикуются события об изменении кошельков и транзакций.
+ * - {@link TransferLedger} transferLedger — проводка переводов парами транзакций.
+ * - {@link IdempotencyCache} idempotencyCache — ключи идемпотентности операций с транзакциями.
  */
 public class WalletService {
+    private static final AppLogger log = AppLogger.getLogger(WalletService.class);
+    private static final MetricsRegistry metrics = MetricsRegistry.global();
+
     private final WalletRepository walletRepository;
     private final CategoryRepository categoryRepository;
+    private final SummaryRepository summaryRepository;
+    private final EventBus eventBus;
+    private final TransferLedger transferLedger;
+    private final IdempotencyCache idempotencyCache;
 
     /**
      * Конструктор для инициализации WalletService.
+     * Сводки хранятся в той же директории данных, что и кошельки.
      *
      * @param walletRepository   Репозиторий для работы с кошельками и транзакциями.
      * @param categoryRepository Репозиторий для работы с категориями транзакций.
      */
     public WalletService(WalletRepository walletRepository, CategoryRepository categoryRepository) {
+        this(walletRepository, categoryRepository, new SummaryRepository(walletRepository.getDataDir()));
+    }
+
+    /**
+     * Конструктор для инициализации WalletService.
+     * Если файл сводок только что создан или сводки расходятся с кошельками, сводки строятся заново
+     * по существующим кошелькам.
+     *
+     * @param walletRepository   Репозиторий для работы с кошельками и транзакциями.
+     * @param categoryRepository Репозиторий для работы с категориями транзакций.
+     * @param summaryRepository  Репозиторий месячных сводок.
+     */
+    public WalletService(WalletRepository walletRepository, CategoryRepository categoryRepository,
+                         SummaryRepository summaryRepository) {
+        this(walletRepository, categoryRepository, summaryRepository, new EventBus());
+    }
+
+    /**
+     * Конструктор для инициализации WalletService.
+     * Если файл сводок только что создан или сводки расходятся с кошельками, сводки строятся заново
+     * по существующим кошелькам.
+     *
+     * @param walletRepository   Репозиторий для работы с кошельками и транзакциями.
+     * @param categoryRepository Репозиторий для работы с категориями транзакций.
+     * @param summaryRepository  Репозиторий месячных сводок.
+     * @param eventBus           Шина событий об изменении кошельков и транзакций.
+     */
+    public WalletService(WalletRepository walletRepository, CategoryRepository categoryRepository,
+                         SummaryRepository summaryRepository, EventBus eventBus) {
         this.walletRepository = walletRepository;
         this.categoryRepository = categoryRepository;
+        this.summaryRepository = summaryRepository;
+        this.eventBus = eventBus;
+        this.transferLedger = new TransferLedger(walletRepository, eventBus);
+        this.idempotencyCache = IdempotencyCache.forDataDir(walletRepository.getDataDir());
+        summaryRepository.rebuildIfStale(walletRepository);
     }
 
     /**
@@ -44,16 +113,25 @@ public class WalletService {
      * @param initialBalance Начальный баланс кошелька.
      */
     public void addWallet(User user, String walletName, double initialBalance) {
-        try {
-            validateWalletName(walletName);
-            validateBalance(initialBalance);
-
-            Wallet newWallet = new Wallet(user.getUsername(), walletName, initialBalance);
-
-            walletRepository.saveWallet(newWallet);
-            System.out.println("Кошелёк успешно добавлен.");
-        } catch (Exception e) {
-            System.out.println("Ошибка при добавлении кошелька: " + e.getMessage());
+        OperationTimer timer = metrics.time("WalletService.addWallet");
+        try (timer) {
+            try {
+                validateWalletName(walletName);
+                validateBalance(initialBalance);
+
+                Wallet newWallet = new Wallet(user.getUsername(), walletName, initialBalance);
+
+                try {
+                    walletRepository.saveWallet(newWallet);
+                } catch (OptimisticLockException e) {
+                    throw new IllegalArgumentException("Кошелёк с таким названием уже существует.");
+                }
+                eventBus.publish(new WalletAdded(user.getUsername(), walletName, initialBalance));
+                System.out.println("Кошелёк успешно добавлен.");
+            } catch (RuntimeException e) {
+                log.warn("Ошибка при добавлении кошелька", "error", e.getMessage());
+                throw e;
+            }
         }
     }
 
@@ -64,29 +142,31 @@ public class WalletService {
      * @param walletName Название кошелька для удаления.
      */
     public void removeWallet(User user, String walletName) {
-        try {
-            validateWalletName(walletName);
-
-            List<Wallet> userWallets = walletRepository.loadWalletsByUser(user.getUsername());
-
-            Wallet walletToRemove = null;
-            for (Wallet wallet : userWallets) {
-                if (wallet.getName().equals(walletName)) {
-                    walletToRemove = wallet;
-                    break;
-                }
-            }
-
-            if (walletToRemove == null) {
-                throw new IllegalArgumentException("Кошелёк с таким названием не найден.");
+        OperationTimer timer = metrics.time("WalletService.removeWallet");
+        try (timer) {
+            try {
+                validateWalletName(walletName);
+
+                List<Transaction> removed = new ArrayList<>();
+                Wallet walletToRemove = ConflictRetry.call("WalletService.removeWallet", () -> {
+                    Wallet wallet = findWallet(user, walletName);
+                    if (wallet == null) {
+                        throw new IllegalArgumentException("Кошелёк с таким названием не найден.");
+                    }
+                    removed.clear();
+                    removed.addAll(allTransactions(wallet));
+                    walletRepository.deleteWallet(wallet);
+                    return wallet;
+                });
+                summaryRepository.apply(user.getUsername(), removed, -1);
+                walletRepository.getTransactionArchive().delete(walletToRemove.getArchive());
+                eventBus.publish(new WalletRemoved(user.getUsername(), walletName));
+
+                System.out.println("Кошелёк успешно удалён.");
+            } catch (RuntimeException e) {
+                log.warn("Ошибка при удалении кошелька", "error", e.getMessage());
+                throw e;
             }
-
-            userWallets.remove(walletToRemove);
-            walletRepository.saveWallets(userWallets);
-
-            System.out.println("Кошелёк успешно удалён.");
-        } catch (IllegalArgumentException e) {
-            System.out.println("Ошибка: " + e.getMessage());
         }
     }
 
@@ -98,23 +178,18 @@ public class WalletService {
      * @param newName      Новое название кошелька.
      */
     public void renameWallet(User user, String currentName, String newName) {
-        validateWalletName(newName);
-        List<Wallet> wallets = walletRepository.loadWalletsByUser(user.getUsername());
-        Wallet walletToRename = null;
-
-        for (Wallet wallet : wallets) {
-            if (wallet.getName().equals(currentName)) {
-                walletToRename = wallet;
-                break;
-            }
-        }
-
-        if (walletToRename == null) {
-            throw new IllegalArgumentException("Кошелёк с названием \"" + currentName + "\" не найден.");
+        OperationTimer timer = metrics.time("WalletService.renameWallet");
+        try (timer) {
+            validateWalletName(newName);
+            ConflictRetry.run("WalletService.renameWallet", () -> {
+                Wallet walletToRename = findWallet(user, currentName);
+                if (walletToRename == null) {
+                    throw new IllegalArgumentException("Кошелёк с названием \"" + currentName + "\" не найден.");
+                }
+                walletRepository.renameWallet(walletToRename, newName);
+            });
+            eventBus.publish(new WalletRenamed(user.getUsername(), currentName, newName));
         }
-
-        walletToRename.setName(newName);
-        walletRepository.saveWallets(wallets);
     }
 
     /**
@@ -125,22 +200,27 @@ public class WalletService {
      * @param newBalance   Новый баланс кошелька.
      */
     public void updateWalletBalance(User user, String walletName, double newBalance) {
-        validateBalance(newBalance);
-        List<Wallet> wallets = walletRepository.loadWalletsByUser(user.getUsername());
-
-        for (Wallet wallet : wallets) {
-            if (wallet.getName().equals(walletName)) {
+        OperationTimer timer = metrics.time("WalletService.updateWalletBalance");
+        try (timer) {
+            validateBalance(newBalance);
+            ConflictRetry.run("WalletService.updateWalletBalance", () -> {
+                Wallet wallet = findWallet(user, walletName);
+                if (wallet == null) {
+                    throw new IllegalArgumentException("Кошелёк с названием \"" + walletName + "\" не найден.");
+                }
                 wallet.setBalance(newBalance);
                 walletRepository.saveWallet(wallet);
-                System.out.println("Баланс кошелька успешно обновлён.");
-                return;
-            }
+            });
+            eventBus.publish(new WalletBalanceUpdated(user.getUsername(), walletName, newBalance));
+            System.out.println("Баланс кошелька успешно обновлён.");
         }
-        throw new IllegalArgumentException("Кошелёк с названием \"" + walletName + "\" не найден.");
     }
 
     /**
      * Перевод средств между кошельками.
+     * <p>
+     * Перевод проводится через {@link TransferLedger}: в кошельках отправителя и получателя появляются
+     * транзакции списания и зачисления, сохранённые одной записью.
      *
      * @param senderUser    Пользователь-отправитель.
      * @param senderWallet  Название кошелька-отправителя.
@@ -149,43 +229,155 @@ public class WalletService {
      * @param amount        Сумма перевода.
      */
     public void transferFunds(User senderUser, String senderWallet, User receiverUser, String receiverWallet, double amount) {
-        if (!DataValidator.isPositiveNumber(String.valueOf(amount))) {
-            throw new IllegalArgumentException("Сумма перевода должна быть положительной.");
+        transferFunds(null, senderUser, senderWallet, receiverUser, receiverWallet, amount);
+    }
+
+    /**
+     * Перевод средств между кошельками с ключом идемпотентности: повторный вызов с тем же ключом
+     * перевод не повторяет. Недавние ключи проверяются по {@link IdempotencyCache} без чтения кошельков,
+     * более старые — по переводам, уже записанным в кошельки отправителя.
+     *
+     * @param key            Ключ идемпотентности (null — перевод под новым идентификатором).
+     * @param senderUser     Пользователь-отправитель.
+     * @param senderWallet   Название кошелька-отправителя.
+     * @param receiverUser   Пользователь-получатель.
+     * @param receiverWallet Название кошелька-получателя.
+     * @param amount         Сумма перевода.
+     */
+    public void transferFunds(String key, User senderUser, String senderWallet, User receiverUser,
+                              String receiverWallet, double amount) {
+        OperationTimer timer = metrics.time("WalletService.transferFunds");
+        try (timer) {
+            if (!DataValidator.isPositiveNumber(String.valueOf(amount))) {
+                throw new IllegalArgumentException("Сумма перевода должна быть положительной.");
+            }
+
+            String transferKey = key != null ? key : UUID.randomUUID().toString();
+            IdempotencyCache.Outcome outcome = idempotencyCache.execute(senderUser.getUsername(), key,
+                    "transferFunds", () -> {
+                        TransferLedger.Result result = transferLedger.post(new TransferLedger.Order(transferKey,
+                                senderUser.getUsername(), senderWallet, receiverUser.getUsername(), receiverWallet,
+                                amount));
+                        if (result.status() == TransferLedger.Status.REJECTED) {
+                            throw new IllegalArgumentException(result.message());
+                        }
+                        return result.status().name();
+                    });
+            if (outcome.replayed() || outcome.result().equals(TransferLedger.Status.DUPLICATE.name())) {
+                System.out.println("Перевод с ключом \"" + transferKey + "\" уже проведён.");
+            } else {
+                System.out.println("Перевод успешно выполнен: " + amount + " из \"" + senderWallet
+                        + "\" в \"" + receiverWallet + "\".");
+            }
         }
+    }
 
-        Wallet sender = null, receiver = null;
-        List<Wallet> senderWallets = walletRepository.loadWalletsByUser(senderUser.getUsername());
-        for (Wallet wallet : senderWallets) {
-            if (wallet.getName().equals(senderWallet)) {
-                sender = wallet;
-                break;
+    /**
+     * Отменить перевод: вернуть средства из кошелька получателя обратным переводом.
+     *
+     * @param user          Пользователь-отправитель исходного перевода.
+     * @param walletName    Название кошелька-отправителя.
+     * @param transactionId ID транзакции списания по переводу.
+     */
+    public void reverseTransfer(User user, String walletName, String transactionId) {
+        OperationTimer timer = metrics.time("WalletService.reverseTransfer");
+        try (timer) {
+            TransferLedger.Result result = transferLedger.reverse(user.getUsername(), walletName, transactionId);
+            if (result.status() == TransferLedger.Status.REJECTED) {
+                throw new IllegalArgumentException(result.message());
             }
+            System.out.println(result.status() == TransferLedger.Status.POSTED
+                    ? "Перевод отменён." : "Перевод уже отменён.");
         }
+    }
+
+    /**
+     * Получить журнал переводов.
+     *
+     * @return Журнал переводов.
+     */
+    public TransferLedger getTransferLedger() {
+        return transferLedger;
+    }
+
+    /**
+     * Получить кэш ключей идемпотентности.
+     *
+     * @return Кэш ключей идемпотентности.
+     */
+    public IdempotencyCache getIdempotencyCache() {
+        return idempotencyCache;
+    }
 
-        List<Wallet> receiverWallets = walletRepository.loadWalletsByUser(receiverUser.getUsername());
-        for (Wallet wallet : receiverWallets) {
-            if (wallet.getName().equals(receiverWallet)) {
-                receiver = wallet;
-                break;
+    /**
+     * Найти кошелёк пользователя по названию (свежее чтение из репозитория).
+     *
+     * @return Кошелёк или null, если его нет.
+     */
+    private Wallet findWallet(User user, String walletName) {
+        for (Wallet wallet : walletRepository.loadWalletsByUser(user.getUsername())) {
+            if (wallet.getName().equals(walletName)) {
+                return wallet;
             }
         }
+        return null;
+    }
 
-        if (sender == null) {
-            throw new IllegalArgumentException("Кошелек отправителя \"" + senderWallet + "\" не найден.");
+    /**
+     * Найти кошелёк пользователя по названию.
+     *
+     * @throws IllegalArgumentException Если кошелька нет.
+     */
+    private Wallet requireWallet(User user, String walletName) {
+        Wallet wallet = findWallet(user, walletName);
+        if (wallet == null) {
+            throw new IllegalArgumentException("Кошелёк с названием \"" + walletName + "\" не найден.");
         }
-        if (receiver == null) {
-            throw new IllegalArgumentException("Кошелек получателя \"" + receiverWallet + "\" не найден.");
+        return wallet;
+    }
+
+    /**
+     * Получить все транзакции кошелька: сначала из архивных сегментов (читаются с диска), затем текущие.
+     */
+    private List<Transaction> allTransactions(Wallet wallet) {
+        if (wallet.getArchive().isEmpty()) {
+            return wallet.getTransactions();
         }
-        if (sender.getBalance() < amount) {
-            throw new IllegalArgumentException("Недостаточно средств на кошельке отправителя.");
+        try {
+            List<Transaction> transactions = walletRepository.getTransactionArchive().readAll(wallet.getArchive());
+            transactions.addAll(wallet.getTransactions());
+            return transactions;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать архив кошелька \"" + wallet.getName() + "\".", e);
         }
+    }
 
-        sender.setBalance(sender.getBalance() - amount);
-        receiver.setBalance(receiver.getBalance() + amount);
-        walletRepository.saveWallet(sender);
-        walletRepository.saveWallet(receiver);
+    /**
+     * Запретить изменение части перевода: её можно только отменить обратным переводом.
+     */
+    private static void requireNotTransfer(Transaction transaction) {
+        if (transaction.isTransfer()) {
+            throw new IllegalArgumentException("Часть перевода нельзя изменить или удалить; используйте отмену перевода.");
+        }
+    }
 
-        System.out.println("Перевод успешно выполнен: " + amount + " из \"" + senderWallet + "\" в \"" + receiverWallet + "\".");
+    /**
+     * Подпись категории транзакции для вывода.
+     *
+     * @param userCategories Категории пользователя для проверки существования (null — не проверять).
+     */
+    private static String categoryLabel(Transaction transaction, List<Category> userCategories) {
+        if (transaction.isTransfer()) {
+            return "Перевод";
+        }
+        if (transaction.getCategory() == null) {
+            return "[Категория не найдена]";
+        }
+        String categoryName = transaction.getCategory().getName();
+        if (userCategories != null && userCategories.stream().noneMatch(c -> c.getName().equals(categoryName))) {
+            return "[Категория не найдена]";
+        }
+        return categoryName;
     }
 
     /**
@@ -194,20 +386,24 @@ public class WalletService {
      * @param user Пользователь.
      */
     public void listWallets(User user) {
-        try {
-            List<Wallet> wallets = walletRepository.loadWalletsByUser(user.getUsername());
+        OperationTimer timer = metrics.time("WalletService.listWallets");
+        try (timer) {
+            try {
+                List<Wallet> wallets = walletRepository.loadWalletsByUser(user.getUsername());
 
-            if (wallets.isEmpty()) {
-                System.out.println("У вас нет кошельков.");
-                return;
-            }
+                if (wallets.isEmpty()) {
+                    System.out.println("У вас нет кошельков.");
+                    return;
+                }
 
-            System.out.println("Ваши кошельки:");
-            for (Wallet wallet : wallets) {
-                System.out.println("- " + wallet.getName() + " (Баланс: " + wallet.getBalance() + ")");
+                System.out.println("Ваши кошельки:");
+                for (Wallet wallet : wallets) {
+                    System.out.println("- " + wallet.getName() + " (Баланс: " + wallet.getBalance() + ")");
+                }
+            } catch (Exception e) {
+                System.out.println("Ошибка при загрузке кошельков: " + e.getMessage());
+                log.warn("Ошибка при загрузке кошельков", "error", e.getMessage());
             }
-        } catch (Exception e) {
-            System.out.println("Ошибка при загрузке кошельков: " + e.getMessage());
         }
     }
 
@@ -239,22 +435,146 @@ public class WalletService {
      * @param user Пользователь.
      */
     public void calculateFinances(User user) {
-        double totalIncome = 0;
-        double totalExpenses = 0;
-
-        List<Wallet> wallets = walletRepository.loadWalletsByUser(user.getUsername());
-        for (Wallet wallet : wallets) {
-            for (Transaction transaction : wallet.getTransactions()) {
-                if (transaction.getAmount() > 0) {
-                    totalIncome += transaction.getAmount();
-                } else {
-                    totalExpenses += transaction.getAmount();
+        OperationTimer timer = metrics.time("WalletService.calculateFinances");
+        try (timer) {
+            long incomeCents = 0;
+            long expenseCents = 0;
+
+            for (MonthlySummary summary : summaryRepository.findByUser(user.getUsername())) {
+                incomeCents += summary.getIncomeCents();
+                expenseCents += summary.getExpenseCents();
+            }
+
+            System.out.println("Общий доход: " + incomeCents / 100.0);
+            System.out.println("Общие расходы: " + expenseCents / 100.0);
+        }
+    }
+
+    /**
+     * Вывести доходы и расходы пользователя по месяцам (по материализованным сводкам).
+     *
+     * @param user Пользователь.
+     */
+    public void displayMonthlySummary(User user) {
+        OperationTimer timer = metrics.time("WalletService.displayMonthlySummary");
+        try (timer) {
+            Map<YearMonth, long[]> byMonth = new TreeMap<>();
+            for (MonthlySummary summary : summaryRepository.findByUser(user.getUsername())) {
+                long[] totals = byMonth.computeIfAbsent(summary.getMonth(), month -> new long[2]);
+                totals[0] += summary.getIncomeCents();
+                totals[1] += summary.getExpenseCents();
+            }
+
+            if (byMonth.isEmpty()) {
+                System.out.println("Транзакции отсутствуют.");
+                return;
+            }
+
+            System.out.println("Доходы и расходы по месяцам:");
+            byMonth.forEach((month, totals) ->
+                    System.out.printf("- %s: Доход: %.2f, Расходы: %.2f\n", month, totals[0] / 100.0, totals[1] / 100.0));
+        }
+    }
+
+    /**
+     * Получить месячные сводки пользователя по категориям.
+     *
+     * @param user Пользователь.
+     * @return Сводки пользователя.
+     */
+    public List<MonthlySummary> getMonthlySummaries(User user) {
+        return summaryRepository.findByUser(user.getUsername());
+    }
+
+    /**
+     * Получить баланс кошелька на конец указанного дня.
+     * Баланс вычисляется от ближайшей месячной контрольной точки, без просмотра всей истории.
+     * Для даты внутри месяца, транзакции которого перенесены в архив, читаются сегменты этого месяца:
+     * итог сегмента отнесён к концу месяца, а на дату нужны только транзакции по неё включительно.
+     *
+     * @param user       Пользователь.
+     * @param walletName Название кошелька.
+     * @param date       Дата.
+     * @return Баланс на дату.
+     */
+    public double getBalanceAt(User user, String walletName, LocalDate date) {
+        OperationTimer timer = metrics.time("WalletService.getBalanceAt");
+        try (timer) {
+            Wallet wallet = requireWallet(user, walletName);
+            long cents = wallet.getHistory().balanceCentsAt(date);
+            YearMonth month = YearMonth.from(date);
+            if (date.isBefore(month.atEndOfMonth())) {
+                for (ArchivedMonth row : wallet.getArchive()) {
+                    if (row.month().equals(month)) {
+                        cents += archivedCentsThrough(row, date);
+                    }
+                }
+            }
+            return cents / 100.0;
+        }
+    }
+
+    /**
+     * Сумма транзакций архивного сегмента, датированных указанным днём или раньше.
+     */
+    private long archivedCentsThrough(ArchivedMonth row, LocalDate date) {
+        try {
+            long cents = 0;
+            for (Transaction transaction : walletRepository.getTransactionArchive().read(row)) {
+                if (!transaction.getDate().isAfter(date)) {
+                    cents += BalanceHistory.toCents(transaction.getAmount());
                 }
             }
+            return cents;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать сегмент архива " + row.segment() + ".", e);
+        }
+    }
+
+    /**
+     * Получить баланс кошелька на конец каждого месяца периода.
+     *
+     * @param user       Пользователь.
+     * @param walletName Название кошелька.
+     * @param from       Первый месяц периода.
+     * @param to         Последний месяц периода.
+     * @return Баланс на конец месяца по месяцам.
+     */
+    public Map<YearMonth, Double> getBalanceHistory(User user, String walletName, YearMonth from, YearMonth to) {
+        OperationTimer timer = metrics.time("WalletService.getBalanceHistory");
+        try (timer) {
+            if (from.isAfter(to)) {
+                throw new IllegalArgumentException("Начало периода позже его конца.");
+            }
+            BalanceHistory history = requireWallet(user, walletName).getHistory();
+            Map<YearMonth, Double> balances = new LinkedHashMap<>();
+            for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+                balances.put(month, history.closingCentsOf(month) / 100.0);
+            }
+            return balances;
         }
+    }
 
-        System.out.println("Общий доход: " + totalIncome);
-        System.out.println("Общие расходы: " + Math.abs(totalExpenses));
+    /**
+     * Вывести баланс кошелька на конец каждого месяца периода в виде диаграммы.
+     *
+     * @param user       Пользователь.
+     * @param walletName Название кошелька.
+     * @param from       Первый месяц периода.
+     * @param to         Последний месяц периода.
+     */
+    public void displayBalanceHistory(User user, String walletName, YearMonth from, YearMonth to) {
+        Map<YearMonth, Double> balances = getBalanceHistory(user, walletName, from, to);
+        double max = 0;
+        for (double balance : balances.values()) {
+            max = Math.max(max, Math.abs(balance));
+        }
+        System.out.println("Баланс кошелька \"" + walletName + "\" на конец месяца:");
+        for (Map.Entry<YearMonth, Double> entry : balances.entrySet()) {
+            int width = max > 0 ? (int) Math.round(Math.abs(entry.getValue()) / max * 40) : 0;
+            String bar = (entry.getValue() < 0 ? "-" : "#").repeat(width);
+            System.out.printf("- %s: %12.2f %s\n", entry.getKey(), entry.getValue(), bar);
+        }
     }
 
     /**
@@ -263,25 +583,25 @@ public class WalletService {
      * @param user Пользователь.
      */
     public void displayBudgetData(User user) {
-        CategoryRepository categoryRepository = new CategoryRepository();
-        List<Category> userCategories = categoryRepository.findCategoriesByUserId(user.getUsername());
-        List<Wallet> wallets = walletRepository.loadWalletsByUser(user.getUsername());
-
-        for (Wallet wallet : wallets) {
-            System.out.println("Кошелёк: " + wallet.getName());
-            System.out.printf("Баланс: %.2f\n", wallet.getBalance());
-            System.out.println("Транзакции:");
-
-            for (Transaction transaction : wallet.getTransactions()) {
-                String categoryName = transaction.getCategory().getName();
-                String transactionCategory = userCategories.stream()
-                        .anyMatch(c -> c.getName().equals(categoryName)) ? transaction.getCategory().getName() : "[Категория не найдена]";
-
-                System.out.printf("  - Дата: %s, Сумма: %.2f, Категория: %s\n",
-                        transaction.getDate(), transaction.getAmount(), transactionCategory);
-            }
+        OperationTimer timer = metrics.time("WalletService.displayBudgetData");
+        try (timer) {
+            List<Category> userCategories = categoryRepository.findCategoriesByUserId(user.getUsername());
+            List<Wallet> wallets = walletRepository.loadWalletsByUser(user.getUsername());
+
+            for (Wallet wallet : wallets) {
+                System.out.println("Кошелёк: " + wallet.getName());
+                System.out.printf("Баланс: %.2f\n", wallet.getBalance());
+                System.out.println("Транзакции:");
+
+                for (Transaction transaction : allTransactions(wallet)) {
+                    String transactionCategory = categoryLabel(transaction, userCategories);
+
+                    System.out.printf("  - Дата: %s, Сумма: %.2f, Категория: %s\n",
+                            transaction.getDate(), transaction.getAmount(), transactionCategory);
+                }
 
-            System.out.println();
+                System.out.println();
+            }
         }
     }
 
@@ -292,24 +612,33 @@ public class WalletService {
      * @return Строка с предупреждением, если расходы превышают доходы; иначе пустая строка.
      */
     public String checkExpenseExceedsIncome(User user) {
-        double totalIncome = 0;
-        double totalExpenses = 0;
-
-        List<Wallet> wallets = walletRepository.loadWalletsByUser(user.getUsername());
-        for (Wallet wallet : wallets) {
-            for (Transaction transaction : wallet.getTransactions()) {
-                if (transaction.getAmount() > 0) {
-                    totalIncome += transaction.getAmount();
-                } else {
-                    totalExpenses += transaction.getAmount();
-                }
+        OperationTimer timer = metrics.time("WalletService.checkExpenseExceedsIncome");
+        try (timer) {
+            BudgetComputationEvent event = new BudgetComputationEvent();
+            event.begin();
+
+            // Сводки уже учитывают архивные месяцы и не содержат переводов между кошельками.
+            long incomeCents = 0;
+            long expenseCents = 0;
+            int transactionCount = 0;
+            for (MonthlySummary summary : summaryRepository.findByUser(user.getUsername())) {
+                incomeCents += summary.getIncomeCents();
+                expenseCents += summary.getExpenseCents();
+                transactionCount += summary.getTransactionCount();
+            }
+
+            if (event.shouldCommit()) {
+                event.operation = "checkExpenseExceedsIncome";
+                event.userIdHash = user.getUsername().hashCode();
+                event.transactionCount = transactionCount;
+                event.commit();
             }
-        }
 
-        if (Math.abs(totalExpenses) > totalIncome) {
-            return "Предупреждение: Общие расходы превышают доходы!";
+            if (expenseCents > incomeCents) {
+                return "Предупреждение: Общие расходы превышают доходы!";
+            }
+            return "";
         }
-        return "";
     }
 
     /**
@@ -322,37 +651,74 @@ public class WalletService {
      * @param isIncome     Указывает, является ли транзакция доходом.
      */
     public void addTransaction(User user, String walletName, double amount, String categoryName, boolean isIncome) {
-        try {
-            List<Wallet> wallets = walletRepository.loadWalletsByUser(user.getUsername());
+        addTransaction(null, user, walletName, amount, categoryName, isIncome);
+    }
 
-            Wallet targetWallet = null;
-            for (Wallet wallet : wallets) {
-                if (wallet.getName().equals(walletName)) {
-                    targetWallet = wallet;
-                    break;
-                }
+    /**
+     * Добавить транзакцию в кошелёк с ключом идемпотентности: повторный вызов с тем же ключом
+     * транзакцию не добавляет, а возвращает ID добавленной первым вызовом.
+     *
+     * @param key          Ключ идемпотентности (null — без проверки повторов).
+     * @param user         Пользователь.
+     * @param walletName   Название кошелька.
+     * @param amount       Сумма транзакции.
+     * @param categoryName Название категории транзакции.
+     * @param isIncome     Указывает, является ли транзакция доходом.
+     * @return ID добавленной транзакции.
+     */
+    public String addTransaction(String key, User user, String walletName, double amount, String categoryName,
+                                 boolean isIncome) {
+        OperationTimer timer = metrics.time("WalletService.addTransaction");
+        try (timer) {
+            try {
+                IdempotencyCache.Outcome outcome = idempotencyCache.execute(user.getUsername(), key, "addTransaction",
+                        () -> insertTransaction(user, walletName, amount, categoryName, isIncome));
+                System.out.println(outcome.replayed() ? replayMessage(key, outcome)
+                        : "Транзакция успешно добавлена.");
+                return outcome.result();
+            } catch (RuntimeException e) {
+                log.warn("Ошибка при добавлении транзакции", "error", e.getMessage());
+                throw e;
             }
+        }
+    }
+
+    /**
+     * Добавить транзакцию и опубликовать событие.
+     *
+     * @return ID добавленной транзакции.
+     */
+    private String insertTransaction(User user, String walletName, double amount, String categoryName,
+                                     boolean isIncome) {
+        Category category = categoryRepository.findCategoryByName(user.getUsername(), categoryName);
+        double adjustedAmount = isIncome ? amount : -amount;
 
+        record Added(Transaction transaction, boolean duplicate) {
+        }
+        Added added = ConflictRetry.call("WalletService.addTransaction", () -> {
+            Wallet targetWallet = findWallet(user, walletName);
             if (targetWallet == null) {
                 throw new IllegalArgumentException("Кошелёк с названием \"" + walletName + "\" не найден.");
             }
-
-            CategoryRepository categoryRepository = new CategoryRepository();
-            Category category = categoryRepository.findCategoryByName(user.getUsername(), categoryName);
-
             if (category == null) {
                 throw new IllegalArgumentException("Категория с названием \"" + categoryName + "\" не найдена.");
             }
 
-            double adjustedAmount = isIncome ? amount : -amount;
             Transaction transaction = new Transaction(adjustedAmount, category, LocalDate.now());
+            boolean duplicate = targetWallet.containsDuplicateOf(transaction);
             targetWallet.addTransaction(transaction);
-
             walletRepository.saveWallet(targetWallet);
-            System.out.println("Транзакция успешно добавлена.");
-        } catch (Exception e) {
-            System.out.println("Ошибка при добавлении транзакции: " + e.getMessage());
+            return new Added(transaction, duplicate);
+        });
+
+        // Одинаковые операции за день возможны, поэтому дубликат не отклоняется, а только отмечается.
+        if (added.duplicate()) {
+            System.out.println("Внимание: в кошельке уже есть операция с той же датой и суммой.");
+            log.info("Возможный дубликат транзакции", "user", user.getUsername(), "wallet", walletName);
         }
+        summaryRepository.apply(user.getUsername(), List.of(added.transaction()), 1);
+        eventBus.publish(new TransactionAdded(user.getUsername(), walletName, added.transaction()));
+        return added.transaction().getId();
     }
 
     /**
@@ -363,25 +729,57 @@ public class WalletService {
      * @param transactionId ID транзакции.
      */
     public void deleteTransaction(User user, String walletName, String transactionId) {
-        try {
-            List<Wallet> wallets = walletRepository.loadWalletsByUser(user.getUsername());
-            for (Wallet wallet : wallets) {
-                if (wallet.getName().equals(walletName)) {
-                    Transaction transaction = wallet.findTransactionById(transactionId);
-                    if (transaction != null) {
-                        wallet.removeTransaction(transaction);
-                        walletRepository.saveWallet(wallet);
-                        System.out.println("Транзакция успешно удалена.");
-                        return;
-                    }
-                }
+        deleteTransaction(null, user, walletName, transactionId);
+    }
+
+    /**
+     * Удалить транзакцию из кошелька с ключом идемпотентности: повторный вызов с тем же ключом
+     * не выполняется и не считается ошибкой, даже если транзакции уже нет.
+     *
+     * @param key           Ключ идемпотентности (null — без проверки повторов).
+     * @param user          Пользователь.
+     * @param walletName    Название кошелька.
+     * @param transactionId ID транзакции.
+     * @return ID удалённой транзакции.
+     */
+    public String deleteTransaction(String key, User user, String walletName, String transactionId) {
+        OperationTimer timer = metrics.time("WalletService.deleteTransaction");
+        try (timer) {
+            try {
+                IdempotencyCache.Outcome outcome = idempotencyCache.execute(user.getUsername(), key,
+                        "deleteTransaction", () -> removeTransaction(user, walletName, transactionId));
+                System.out.println(outcome.replayed() ? replayMessage(key, outcome)
+                        : "Транзакция успешно удалена.");
+                return outcome.result();
+            } catch (RuntimeException e) {
+                log.warn("Ошибка при удалении транзакции", "error", e.getMessage());
+                throw e;
             }
-            System.out.println("Кошелёк или транзакция не найдены.");
-        } catch (Exception e) {
-            System.out.println("Ошибка при удалении транзакции: " + e.getMessage());
         }
     }
 
+    /**
+     * Удалить транзакцию и опубликовать событие.
+     *
+     * @return ID удалённой транзакции.
+     */
+    private String removeTransaction(User user, String walletName, String transactionId) {
+        Transaction transaction = ConflictRetry.call("WalletService.deleteTransaction", () -> {
+            Wallet wallet = findWallet(user, walletName);
+            Transaction found = wallet == null ? null : wallet.findTransactionById(transactionId);
+            if (found == null) {
+                throw new IllegalArgumentException("Кошелёк или транзакция не найдены.");
+            }
+            requireNotTransfer(found);
+            wallet.removeTransaction(found);
+            walletRepository.saveWallet(wallet);
+            return found;
+        });
+        summaryRepository.apply(user.getUsername(), List.of(transaction), -1);
+        eventBus.publish(new TransactionDeleted(user.getUsername(), walletName, transaction));
+        return transaction.getId();
+    }
+
     /**
      * Редактировать транзакцию.
      *
@@ -393,37 +791,86 @@ public class WalletService {
      * @param newDateStr      Новая дата в формате yyyy-MM-dd.
      */
     public void editTransaction(User user, String walletName, String transactionId, double newAmount, String newCategoryName, String newDateStr) {
-        try {
-            if (!DataValidator.isValidDate(newDateStr, "yyyy-MM-dd")) {
-                throw new IllegalArgumentException("Дата \"" + newDateStr + "\" имеет неверный формат. Ожидается формат yyyy-MM-dd.");
-            }
+        editTransaction(null, user, walletName, transactionId, newAmount, newCategoryName, newDateStr);
+    }
 
-            List<Wallet> wallets = walletRepository.loadWalletsByUser(user.getUsername());
-            for (Wallet wallet : wallets) {
-                if (wallet.getName().equals(walletName)) {
-                    Transaction transaction = wallet.findTransactionById(transactionId);
-                    if (transaction != null) {
-                        CategoryRepository categoryRepository = new CategoryRepository();
-                        Category newCategory = categoryRepository.findCategoryByName(user.getUsername(), newCategoryName);
-
-                        if (newCategory == null) {
-                            throw new IllegalArgumentException("Категория с названием \"" + newCategoryName + "\" не найдена.");
-                        }
+    /**
+     * Редактировать транзакцию с ключом идемпотентности: повторный вызов с тем же ключом не выполняется.
+     *
+     * @param key             Ключ идемпотентности (null — без проверки повторов).
+     * @param user            Пользователь.
+     * @param walletName      Название кошелька.
+     * @param transactionId   ID транзакции.
+     * @param newAmount       Новая сумма.
+     * @param newCategoryName Новая категория транзакции.
+     * @param newDateStr      Новая дата в формате yyyy-MM-dd.
+     * @return ID отредактированной транзакции.
+     */
+    public String editTransaction(String key, User user, String walletName, String transactionId, double newAmount,
+                                  String newCategoryName, String newDateStr) {
+        OperationTimer timer = metrics.time("WalletService.editTransaction");
+        try (timer) {
+            try {
+                IdempotencyCache.Outcome outcome = idempotencyCache.execute(user.getUsername(), key,
+                        "editTransaction", () -> updateTransaction(user, walletName, transactionId, newAmount,
+                                newCategoryName, newDateStr));
+                System.out.println(outcome.replayed() ? replayMessage(key, outcome)
+                        : "Транзакция успешно отредактирована.");
+                return outcome.result();
+            } catch (RuntimeException e) {
+                log.warn("Ошибка при редактировании транзакции", "error", e.getMessage());
+                throw e;
+            }
+        }
+    }
 
-                        transaction.setAmount(newAmount);
-                        transaction.setCategory(newCategory);
-                        transaction.setDate(LocalDate.parse(newDateStr, DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+    /**
+     * Изменить транзакцию и опубликовать событие.
+     *
+     * @return ID отредактированной транзакции.
+     */
+    private String updateTransaction(User user, String walletName, String transactionId, double newAmount,
+                                     String newCategoryName, String newDateStr) {
+        if (!DataValidator.isValidDate(newDateStr, "yyyy-MM-dd")) {
+            throw new IllegalArgumentException("Дата \"" + newDateStr + "\" имеет неверный формат. Ожидается формат yyyy-MM-dd.");
+        }
+        LocalDate newDate = LocalDate.parse(newDateStr, DataValidator.formatter("yyyy-MM-dd"));
 
-                        walletRepository.saveWallet(wallet);
-                        System.out.println("Транзакция успешно отредактирована.");
-                        return;
-                    }
-                }
-            }
-            System.out.println("Кошелёк или транзакция не найдены.");
-        } catch (Exception e) {
-            System.out.println("Ошибка при редактировании транзакции: " + e.getMessage());
+        record Edit(Transaction previous, Transaction current) {
         }
+        Edit edit = ConflictRetry.call("WalletService.editTransaction", () -> {
+            Wallet wallet = findWallet(user, walletName);
+            Transaction transaction = wallet == null ? null : wallet.findTransactionById(transactionId);
+            if (transaction == null) {
+                throw new IllegalArgumentException("Кошелёк или транзакция не найдены.");
+            }
+            requireNotTransfer(transaction);
+            Category newCategory = categoryRepository.findCategoryByName(user.getUsername(), newCategoryName);
+            if (newCategory == null) {
+                throw new IllegalArgumentException("Категория с названием \"" + newCategoryName + "\" не найдена.");
+            }
+
+            Transaction previous = new Transaction(transaction.getTransactionId(), transaction.getAmount(),
+                    transaction.getCategory(), transaction.getDate(), transaction.getDescription(),
+                    transaction.getTransfer());
+            transaction.setAmount(newAmount);
+            transaction.setCategory(newCategory);
+            transaction.setDate(newDate);
+            wallet.transactionChanged(previous, transaction);
+
+            walletRepository.saveWallet(wallet);
+            return new Edit(previous, transaction);
+        });
+        summaryRepository.apply(user.getUsername(), List.of(edit.previous()), List.of(edit.current()));
+        eventBus.publish(new TransactionEdited(user.getUsername(), walletName, edit.previous(), edit.current()));
+        return edit.current().getId();
+    }
+
+    /**
+     * Сообщение о повторе операции с уже использованным ключом.
+     */
+    private static String replayMessage(String key, IdempotencyCache.Outcome outcome) {
+        return "Операция с ключом \"" + key + "\" уже выполнена (транзакция " + outcome.result() + ").";
     }
 
     /**
@@ -433,24 +880,57 @@ public class WalletService {
      * @param walletName Название кошелька.
      */
     public void listTransactions(User user, String walletName) {
-        try {
-            List<Wallet> wallets = walletRepository.loadWalletsByUser(user.getUsername());
-            for (Wallet wallet : wallets) {
-                if (wallet.getName().equals(walletName)) {
-                    System.out.println("Транзакции для кошелька \"" + walletName + "\":");
-                    for (Transaction transaction : wallet.getTransactions()) {
-                        System.out.printf("  - Дата: %s, Сумма: %.2f, Категория: %s, ID: %s\n",
-                                transaction.getDate(),
-                                transaction.getAmount(),
-                                transaction.getCategory().getName(),
-                                transaction.getId());
+        OperationTimer timer = metrics.time("WalletService.listTransactions");
+        try (timer) {
+            try {
+                List<Wallet> wallets = walletRepository.loadWalletsByUser(user.getUsername());
+                for (Wallet wallet : wallets) {
+                    if (wallet.getName().equals(walletName)) {
+                        System.out.println("Транзакции для кошелька \"" + walletName + "\":");
+                        for (Transaction transaction : allTransactions(wallet)) {
+                            System.out.printf("  - Дата: %s, Сумма: %.2f, Категория: %s, ID: %s\n",
+                                    transaction.getDate(),
+                                    transaction.getAmount(),
+                                    categoryLabel(transaction, null),
+                                    transaction.getId());
+                        }
+                        return;
                     }
-                    return;
                 }
+                System.out.println("Кошелёк с названием \"" + walletName + "\" не найден.");
+            } catch (Exception e) {
+                System.out.println("Ошибка при выводе списка транзакций: " + e.getMessage());
+                log.warn("Ошибка при выводе списка транзакций", "error", e.getMessage());
             }
-            System.out.println("Кошелёк с названием \"" + walletName + "\" не найден.");
-        } catch (Exception e) {
-            System.out.println("Ошибка при выводе списка транзакций: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Выгрузить транзакции пользователя (или всех пользователей) в поток.
+     * Транзакции читаются из репозитория потоково, по одной, без загрузки всех кошельков в память.
+     *
+     * @param user   Пользователь или null для выгрузки транзакций всех пользователей.
+     * @param format Формат выгрузки.
+     * @param filter Фильтр по датам и категориям.
+     * @param out    Поток вывода; закрывается по окончании выгрузки.
+     * @return Количество выгруженных транзакций.
+     * @throws IOException Если произошла ошибка при чтении или записи.
+     */
+    public long exportTransactions(User user, ExportFormat format, TransactionFilter filter, OutputStream out)
+            throws IOException {
+        OperationTimer timer = metrics.time("WalletService.exportTransactions");
+        try (timer;
+             TransactionWriter writer = format.newWriter(out)) {
+            long[] exported = new long[1];
+            walletRepository.forEachTransaction(user != null ? user.getUsername() : null,
+                    (userId, walletName, transaction) -> {
+                        if (filter.matches(transaction)) {
+                            writer.write(userId, walletName, transaction);
+                            exported[0]++;
+                        }
+                    });
+            metrics.counter("WalletService.exportedTransactions").add(exported[0]);
+            return exported[0];
         }
     }
 }
@@ -0,0 +1,113 @@
+package com.beryoza.financeapp.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Кольцо согласованного хеширования: сопоставляет ключ (логин пользователя) одному из узлов.
+ * <p>
+ * Каждый узел занимает на кольце {@code virtualNodes} точек; ключ принадлежит первому узлу по часовой стрелке
+ * от хеша ключа. При добавлении узла к нему переходит примерно {@code 1/N} ключей, остальные остаются на месте.
+ * Хеш — первые 8 байт MD5, поэтому распределение одинаково во всех процессах и не зависит от {@link String#hashCode()}.
+ * <p>
+ * Поля:
+ * - {@code int virtualNodes} — количество точек на кольце для одного узла.
+ * - {@link TreeMap} ring — точки кольца: хеш → идентификатор узла.
+ * - {@link Set} nodes — идентификаторы узлов в порядке добавления.
+ */
+public class ConsistentHashRing {
+    /**
+     * Количество точек на кольце для одного узла по умолчанию.
+     */
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    private final int virtualNodes;
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+    private final Set<String> nodes = new LinkedHashSet<>();
+
+    /**
+     * Конструктор с количеством точек на узел по умолчанию.
+     */
+    public ConsistentHashRing() {
+        this(DEFAULT_VIRTUAL_NODES);
+    }
+
+    /**
+     * Конструктор.
+     *
+     * @param virtualNodes Количество точек на кольце для одного узла.
+     */
+    public ConsistentHashRing(int virtualNodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("Количество виртуальных узлов должно быть положительным.");
+        }
+        this.virtualNodes = virtualNodes;
+    }
+
+    /**
+     * Добавить узел на кольцо.
+     *
+     * @param node Идентификатор узла.
+     */
+    public void addNode(String node) {
+        if (!nodes.add(node)) {
+            throw new IllegalArgumentException("Узел \"" + node + "\" уже есть на кольце.");
+        }
+        for (int i = 0; i < virtualNodes; i++) {
+            ring.put(hash(node + "#" + i), node);
+        }
+    }
+
+    /**
+     * Удалить узел с кольца.
+     *
+     * @param node Идентификатор узла.
+     */
+    public void removeNode(String node) {
+        if (nodes.remove(node)) {
+            ring.values().removeIf(node::equals);
+        }
+    }
+
+    /**
+     * Найти узел, которому принадлежит ключ.
+     *
+     * @param key Ключ (логин пользователя).
+     * @return Идентификатор узла.
+     */
+    public String nodeFor(String key) {
+        if (ring.isEmpty()) {
+            throw new IllegalStateException("На кольце нет узлов.");
+        }
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(key));
+        return (entry != null ? entry : ring.firstEntry()).getValue();
+    }
+
+    /**
+     * Получить узлы кольца.
+     *
+     * @return Идентификаторы узлов в порядке добавления.
+     */
+    public Set<String> getNodes() {
+        return Collections.unmodifiableSet(nodes);
+    }
+
+    private static long hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                hash = (hash << 8) | (digest[i] & 0xFF);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 недоступен", e);
+        }
+    }
+}
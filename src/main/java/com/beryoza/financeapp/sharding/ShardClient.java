@@ -0,0 +1,121 @@
+package com.beryoza.financeapp.sharding;
+
+import com.beryoza.financeapp.util.SocketEndpoints;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.SocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Соединение с узлом шардирования ({@link ShardNode}).
+ * <p>
+ * Соединение открывается при первом запросе и переоткрывается после обрыва. Запросы по одному соединению
+ * выполняются последовательно.
+ * <p>
+ * Поля:
+ * - {@code String nodeId} — идентификатор узла.
+ * - {@link SocketAddress} address — адрес узла.
+ * - {@link SocketChannel} channel — текущее соединение (null, если не открыто).
+ */
+public class ShardClient implements Closeable {
+    private final String nodeId;
+    private final SocketAddress address;
+    private final ObjectMapper objectMapper;
+    private SocketChannel channel;
+    private BufferedReader in;
+    private OutputStream out;
+
+    /**
+     * Конструктор.
+     *
+     * @param nodeId  Идентификатор узла.
+     * @param address Адрес узла.
+     */
+    public ShardClient(String nodeId, SocketAddress address) {
+        this.nodeId = nodeId;
+        this.address = address;
+        this.objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    /**
+     * Получить идентификатор узла.
+     *
+     * @return Идентификатор узла.
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Выполнить запрос на узле.
+     *
+     * @param request Запрос.
+     * @return Результат запроса (может быть null).
+     * @throws IOException Если узел недоступен или соединение оборвалось; выполнен ли запрос, неизвестно.
+     */
+    public synchronized JsonNode call(ShardRequest request) throws IOException {
+        ShardResponse response;
+        try {
+            if (channel == null) {
+                open();
+            }
+            out.write(objectMapper.writeValueAsBytes(request));
+            out.write('\n');
+            out.flush();
+            String line = in.readLine();
+            if (line == null) {
+                throw new EOFException("Узел " + nodeId + " закрыл соединение.");
+            }
+            response = objectMapper.readValue(line, ShardResponse.class);
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+        if (!response.ok()) {
+            throw new IllegalArgumentException(response.error());
+        }
+        return response.result();
+    }
+
+    /**
+     * Выполнить запрос и преобразовать результат.
+     *
+     * @param request Запрос.
+     * @param type    Тип результата.
+     * @return Результат запроса.
+     * @throws IOException Если узел недоступен или соединение оборвалось.
+     */
+    public <T> T call(ShardRequest request, Class<T> type) throws IOException {
+        return objectMapper.treeToValue(call(request), type);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            SocketChannel current = channel;
+            channel = null;
+            in = null;
+            out = null;
+            current.close();
+        }
+    }
+
+    private void open() throws IOException {
+        channel = SocketEndpoints.connect(address);
+        in = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+        out = Channels.newOutputStream(channel);
+    }
+}
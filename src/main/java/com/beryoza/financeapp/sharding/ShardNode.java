@@ -0,0 +1,359 @@
+package com.beryoza.financeapp.sharding;
+
+import com.beryoza.financeapp.batch.BatchCommand;
+import com.beryoza.financeapp.batch.BatchProcessor;
+import com.beryoza.financeapp.changelog.ChangeLog;
+import com.beryoza.financeapp.event.CategoryAdded;
+import com.beryoza.financeapp.event.EventBus;
+import com.beryoza.financeapp.event.TransactionAdded;
+import com.beryoza.financeapp.event.UserRegistered;
+import com.beryoza.financeapp.event.UserRemoved;
+import com.beryoza.financeapp.event.WalletAdded;
+import com.beryoza.financeapp.logging.AppLogger;
+import com.beryoza.financeapp.metrics.MetricsRegistry;
+import com.beryoza.financeapp.metrics.OperationTimer;
+import com.beryoza.financeapp.model.ArchivedMonth;
+import com.beryoza.financeapp.model.Category;
+import com.beryoza.financeapp.model.Transaction;
+import com.beryoza.financeapp.model.User;
+import com.beryoza.financeapp.model.Wallet;
+import com.beryoza.financeapp.repository.CategoryRepository;
+import com.beryoza.financeapp.repository.SummaryRepository;
+import com.beryoza.financeapp.repository.TransferRepository;
+import com.beryoza.financeapp.repository.UserRepository;
+import com.beryoza.financeapp.repository.WalletRepository;
+import com.beryoza.financeapp.service.TransferLedger;
+import com.beryoza.financeapp.util.SocketEndpoints;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.SocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Узел шардирования: обслуживает пользователей, которые принадлежат ему по кольцу
+ * ({@link ConsistentHashRing}), в собственной директории данных.
+ * <p>
+ * Узел принимает запросы {@link ShardRequest} по сокету (одна строка JSON на запрос, ответ {@link ShardResponse}
+ * — тоже строкой). Команды выполняются через сервисный слой ({@link BatchProcessor}) и попадают в журнал изменений
+ * узла. Запросы выполняются по одному: операции над данными узла не пересекаются.
+ * <p>
+ * Поля:
+ * - {@link SocketAddress} address — адрес узла.
+ * - {@link ServerSocketChannel} serverChannel — серверный сокет.
+ * - {@link ChangeLog} changeLog — журнал изменений узла.
+ * - {@link BatchProcessor} commands — выполнение команд пакетного режима.
+ * - {@link TransferLedger} transferLedger — проводка частей переводов между узлами.
+ * - {@link TransferParticipant} transfers — участник переводов между узлами.
+ * - {@link Set} connections — открытые соединения.
+ */
+public class ShardNode implements Closeable {
+    private static final AppLogger log = AppLogger.getLogger(ShardNode.class);
+    private static final MetricsRegistry metrics = MetricsRegistry.global();
+
+    private final SocketAddress address;
+    private final ServerSocketChannel serverChannel;
+    private final ObjectMapper objectMapper;
+    private final UserRepository userRepository;
+    private final WalletRepository walletRepository;
+    private final CategoryRepository categoryRepository;
+    private final SummaryRepository summaryRepository;
+    private final EventBus eventBus;
+    private final ChangeLog changeLog;
+    private final BatchProcessor commands;
+    private final TransferLedger transferLedger;
+    private final TransferParticipant transfers;
+    private final Set<SocketChannel> connections = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    /**
+     * Конструктор. Открывает журнал изменений и серверный сокет и запускает приём подключений.
+     *
+     * @param dataDir Директория данных узла.
+     * @param address Адрес узла.
+     * @throws IOException Если не удалось открыть журнал или сокет.
+     */
+    public ShardNode(String dataDir, SocketAddress address) throws IOException {
+        this.address = address;
+        this.objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.INDENT_OUTPUT);
+        this.userRepository = new UserRepository(dataDir);
+        this.walletRepository = new WalletRepository(dataDir);
+        this.categoryRepository = new CategoryRepository(dataDir);
+        this.summaryRepository = new SummaryRepository(dataDir);
+        this.eventBus = new EventBus();
+        this.changeLog = new ChangeLog(dataDir);
+        changeLog.attach(eventBus);
+        this.commands = new BatchProcessor(userRepository, walletRepository, categoryRepository, summaryRepository,
+                eventBus, 1);
+        this.transferLedger = new TransferLedger(walletRepository, eventBus);
+        this.transfers = new TransferParticipant(walletRepository, new TransferRepository(dataDir), transferLedger);
+        this.serverChannel = SocketEndpoints.listen(address);
+
+        Thread acceptor = new Thread(this::acceptLoop, "financeapp-shard-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("Узел шардирования запущен", "address", address, "dir", dataDir);
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverChannel.close();
+        for (SocketChannel channel : connections) {
+            channel.close();
+        }
+        SocketEndpoints.release(address);
+        synchronized (this) {
+            changeLog.close();
+        }
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                connections.add(channel);
+                Thread thread = new Thread(() -> serve(channel), "financeapp-shard-connection");
+                thread.setDaemon(true);
+                thread.start();
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                log.error("Ошибка при приёме подключения", e);
+            }
+        }
+    }
+
+    /**
+     * Обслуживать одно соединение: читать запросы и отвечать на них по порядку.
+     */
+    private void serve(SocketChannel channel) {
+        try (channel;
+             BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel),
+                     StandardCharsets.UTF_8))) {
+            OutputStream out = Channels.newOutputStream(channel);
+            String line;
+            while ((line = in.readLine()) != null) {
+                ShardResponse response = handle(line);
+                out.write(objectMapper.writeValueAsBytes(response));
+                out.write('\n');
+                out.flush();
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                log.warn("Соединение закрыто", "error", e.getMessage());
+            }
+        } finally {
+            connections.remove(channel);
+        }
+    }
+
+    /**
+     * Выполнить запрос и сформировать ответ. Ошибки проверки возвращаются в ответе, а не разрывают соединение.
+     */
+    private synchronized ShardResponse handle(String line) {
+        ShardRequest request;
+        try {
+            request = objectMapper.readValue(line, ShardRequest.class);
+        } catch (JsonProcessingException e) {
+            return new ShardResponse(false, "Некорректный запрос: " + e.getOriginalMessage(), null);
+        }
+        OperationTimer timer = metrics.time("ShardNode." + request.op());
+        try (timer) {
+            return new ShardResponse(true, null, execute(request));
+        } catch (RuntimeException e) {
+            log.warn("Запрос отклонён", "op", request.op(), "error", e.getMessage());
+            return new ShardResponse(false, e.getMessage(), null);
+        }
+    }
+
+    private JsonNode execute(ShardRequest request) {
+        if (request.op() == null) {
+            throw new IllegalArgumentException("Не указана операция.");
+        }
+        switch (request.op()) {
+            case "execute" -> {
+                if (request.command() == null) {
+                    throw new IllegalArgumentException("Не указана команда.");
+                }
+                // Пользователь мог быть перенесён на другой узел: кэш пакетного режима об этом не знает.
+                if (!"register".equals(request.command().op())) {
+                    requireLocalUser(request.command().user());
+                    if (request.command().toUser() != null) {
+                        requireLocalUser(request.command().toUser());
+                    }
+                }
+                commands.execute(request.command());
+                return null;
+            }
+            case "users" -> {
+                List<String> usernames = new ArrayList<>();
+                for (User user : userRepository.loadUsers()) {
+                    usernames.add(user.getUsername());
+                }
+                return objectMapper.valueToTree(usernames);
+            }
+            case "export_user" -> {
+                return objectMapper.valueToTree(exportUser(require(request.user(), "user")));
+            }
+            case "import_user" -> {
+                importUser(require(request.bundle(), "bundle"));
+                return null;
+            }
+            case "drop_user" -> {
+                dropUser(require(request.user(), "user"));
+                return null;
+            }
+            case "prepare" -> {
+                transfers.prepare(require(request.transferId(), "transferId"), request.transferKey(),
+                        require(request.user(), "user"),
+                        require(request.wallet(), "wallet"), require(request.amount(), "amount"),
+                        request.counterpartyUser(), request.counterpartyWallet());
+                return null;
+            }
+            case "commit" -> {
+                transfers.commit(require(request.transferId(), "transferId"));
+                return null;
+            }
+            case "abort" -> {
+                transfers.abort(require(request.transferId(), "transferId"));
+                return null;
+            }
+            case "transfer_debit" -> {
+                BatchCommand command = require(request.command(), "command");
+                requireLocalUser(command.user());
+                return objectMapper.valueToTree(transferLedger.findTransferDebit(require(command.user(), "user"),
+                        require(command.wallet(), "wallet"), require(command.id(), "id")));
+            }
+            case "in_doubt" -> {
+                return objectMapper.valueToTree(transfers.inDoubt());
+            }
+            default -> throw new IllegalArgumentException("Неизвестная операция: " + request.op());
+        }
+    }
+
+    /**
+     * Собрать все данные пользователя для переноса на другой узел. Архивные транзакции возвращаются
+     * в кошельки: сегменты архива остаются в директории этого узла.
+     */
+    private UserBundle exportUser(String username) {
+        User user = userRepository.findUserByUsername(username);
+        if (user == null) {
+            throw new IllegalArgumentException("Пользователь \"" + username + "\" не найден на узле.");
+        }
+        List<Wallet> wallets = walletRepository.loadWalletsByUser(username);
+        try {
+            for (Wallet wallet : wallets) {
+                walletRepository.restoreArchived(wallet);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать архив пользователя " + username + ".", e);
+        }
+        return new UserBundle(user, wallets, categoryRepository.findCategoriesByUserId(username));
+    }
+
+    /**
+     * Принять пользователя с другого узла. Изменения публикуются как обычные события,
+     * поэтому журнал изменений и реплики узла видят перенесённые данные.
+     */
+    private void importUser(UserBundle bundle) {
+        String username = bundle.user().getUsername();
+        List<User> users = userRepository.loadUsers();
+        if (users.stream().anyMatch(user -> user.getUsername().equals(username))) {
+            throw new IllegalArgumentException("Пользователь \"" + username + "\" уже есть на узле.");
+        }
+        users.add(bundle.user());
+        userRepository.saveUsers(users);
+        eventBus.publish(new UserRegistered(username));
+
+        List<Category> categories = categoryRepository.loadCategories();
+        categories.addAll(bundle.categories());
+        categoryRepository.saveCategories(categories);
+        for (Category category : bundle.categories()) {
+            eventBus.publish(new CategoryAdded(username, category.getName(), category.getBudgetLimit()));
+        }
+
+        List<Wallet> wallets = walletRepository.loadWallets();
+        wallets.addAll(bundle.wallets());
+        walletRepository.saveWallets(wallets);
+        List<Transaction> transactions = new ArrayList<>();
+        for (Wallet wallet : bundle.wallets()) {
+            double opening = wallet.getBalance();
+            for (Transaction transaction : wallet.getTransactions()) {
+                opening -= transaction.getAmount();
+            }
+            eventBus.publish(new WalletAdded(username, wallet.getName(), opening));
+            for (Transaction transaction : wallet.getTransactions()) {
+                eventBus.publish(new TransactionAdded(username, wallet.getName(), transaction));
+            }
+            transactions.addAll(wallet.getTransactions());
+        }
+        summaryRepository.apply(username, transactions, 1);
+    }
+
+    /**
+     * Удалить пользователя с узла вместе с кошельками, категориями и сводками.
+     * Удаление отсутствующего пользователя ничего не делает (повтор после сбоя переноса).
+     */
+    private void dropUser(String username) {
+        List<User> users = userRepository.loadUsers();
+        if (!users.removeIf(user -> user.getUsername().equals(username))) {
+            return;
+        }
+        List<Transaction> transactions = new ArrayList<>();
+        List<ArchivedMonth> archived = new ArrayList<>();
+        List<Wallet> wallets = walletRepository.loadWallets();
+        try {
+            for (Wallet wallet : wallets) {
+                if (wallet.getUserId().equals(username)) {
+                    transactions.addAll(walletRepository.getTransactionArchive().readAll(wallet.getArchive()));
+                    transactions.addAll(wallet.getTransactions());
+                    archived.addAll(wallet.getArchive());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать архив пользователя " + username + ".", e);
+        }
+        wallets.removeIf(wallet -> wallet.getUserId().equals(username));
+        walletRepository.saveWallets(wallets);
+        walletRepository.getTransactionArchive().delete(archived);
+        List<Category> categories = categoryRepository.loadCategories();
+        categories.removeIf(category -> category.getUserId().equals(username));
+        categoryRepository.saveCategories(categories);
+        summaryRepository.apply(username, transactions, -1);
+        userRepository.saveUsers(users);
+        eventBus.publish(new UserRemoved(username));
+    }
+
+    private void requireLocalUser(String username) {
+        if (username != null && userRepository.findUserByUsername(username) == null) {
+            throw new IllegalArgumentException("Пользователь \"" + username + "\" не найден на узле.");
+        }
+    }
+
+    private static <T> T require(T value, String field) {
+        if (value == null) {
+            throw new IllegalArgumentException("Не указано поле \"" + field + "\".");
+        }
+        return value;
+    }
+}
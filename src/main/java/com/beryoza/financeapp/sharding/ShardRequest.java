@@ -0,0 +1,68 @@
+package com.beryoza.financeapp.sharding;
+
+import com.beryoza.financeapp.batch.BatchCommand;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Запрос к узлу шардирования (одна строка JSON в соединении).
+ * <p>
+ * Операции:
+ * - {@code execute} — выполнить команду пакетного режима {@code command} для пользователя этого узла;
+ * - {@code users} — получить логины пользователей узла;
+ * - {@code export_user}, {@code import_user}, {@code drop_user} — перенос пользователя между узлами;
+ * - {@code prepare}, {@code commit}, {@code abort} — двухфазная фиксация перевода между узлами;
+ * - {@code transfer_debit} — получить списание по переводу, которое отменяет команда {@code reverse_transfer}
+ *   {@code command};
+ * - {@code in_doubt} — получить подготовленные, но не завершённые переводы.
+ *
+ * @param op                 Операция.
+ * @param command            Команда пакетного режима (для {@code execute} и {@code transfer_debit}).
+ * @param user               Логин пользователя.
+ * @param bundle             Данные пользователя (для {@code import_user}).
+ * @param transferId         Идентификатор перевода.
+ * @param wallet             Кошелёк (для {@code prepare}).
+ * @param amount             Изменение баланса (для {@code prepare}): отрицательное — списание, положительное —
+ *                           зачисление.
+ * @param counterpartyUser   Пользователь другой стороны перевода (для {@code prepare}).
+ * @param counterpartyWallet Кошелёк другой стороны перевода (для {@code prepare}).
+ * @param transferKey        Ключ перевода в транзакциях кошельков (для {@code prepare}; по умолчанию
+ *                           совпадает с {@code transferId}).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ShardRequest(String op, BatchCommand command, String user, UserBundle bundle, String transferId,
+                           String wallet, Double amount, String counterpartyUser, String counterpartyWallet,
+                           String transferKey) {
+
+    /**
+     * Создать запрос без параметров, кроме пользователя.
+     *
+     * @param op   Операция.
+     * @param user Логин пользователя (может быть null).
+     * @return Запрос.
+     */
+    public static ShardRequest of(String op, String user) {
+        return new ShardRequest(op, null, user, null, null, null, null, null, null, null);
+    }
+
+    /**
+     * Создать запрос операции над переводом.
+     *
+     * @param op         Операция.
+     * @param transferId Идентификатор перевода.
+     * @return Запрос.
+     */
+    public static ShardRequest transfer(String op, String transferId) {
+        return new ShardRequest(op, null, null, null, transferId, null, null, null, null, null);
+    }
+
+    /**
+     * Создать запрос с командой пакетного режима.
+     *
+     * @param op      Операция.
+     * @param command Команда.
+     * @return Запрос.
+     */
+    public static ShardRequest command(String op, BatchCommand command) {
+        return new ShardRequest(op, command, null, null, null, null, null, null, null, null);
+    }
+}
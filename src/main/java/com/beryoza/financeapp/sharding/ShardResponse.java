@@ -0,0 +1,15 @@
+package com.beryoza.financeapp.sharding;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Ответ узла шардирования.
+ *
+ * @param ok     Успешно ли выполнен запрос.
+ * @param error  Сообщение об ошибке (если запрос отклонён).
+ * @param result Результат запроса (если есть).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ShardResponse(boolean ok, String error, JsonNode result) {
+}
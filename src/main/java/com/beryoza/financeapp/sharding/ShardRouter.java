@@ -0,0 +1,248 @@
+package com.beryoza.financeapp.sharding;
+
+import com.beryoza.financeapp.batch.BatchCommand;
+import com.beryoza.financeapp.logging.AppLogger;
+import com.beryoza.financeapp.metrics.MetricsRegistry;
+import com.beryoza.financeapp.metrics.OperationTimer;
+import com.beryoza.financeapp.model.Transaction;
+import com.beryoza.financeapp.model.TransferReference;
+import com.beryoza.financeapp.service.TransferLedger;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Маршрутизатор команд между узлами шардирования.
+ * <p>
+ * Пользователь принадлежит узлу, который выбирает {@link ConsistentHashRing} по логину; все его кошельки,
+ * категории и сводки хранятся на этом узле. Команда пакетного режима отправляется узлу её пользователя.
+ * Перевод между пользователями разных узлов выполняется двухфазной фиксацией: оба узла подготавливают свои
+ * части (отправитель резервирует средства), маршрутизатор записывает решение в {@link TransferDecisionLog}
+ * и рассылает {@code commit}. Если маршрутизатор упал до записи решения, {@link #recover()} отменяет
+ * подготовленные части, после записи — фиксирует их. Отмена перевода между узлами ({@code reverse_transfer})
+ * выполняется так же — обратным переводом от получателя с ключом отмены исходного перевода.
+ * <p>
+ * Предполагается один маршрутизатор на набор узлов: журнал решений локален для него.
+ * <p>
+ * Поля:
+ * - {@link ConsistentHashRing} ring — кольцо узлов.
+ * - {@link Map} clients — соединения с узлами по идентификатору.
+ * - {@link TransferDecisionLog} decisions — журнал решений о фиксации переводов.
+ */
+public class ShardRouter implements Closeable {
+    private static final AppLogger log = AppLogger.getLogger(ShardRouter.class);
+    private static final MetricsRegistry metrics = MetricsRegistry.global();
+
+    private final ConsistentHashRing ring = new ConsistentHashRing();
+    private final Map<String, ShardClient> clients = new LinkedHashMap<>();
+    private final TransferDecisionLog decisions;
+
+    /**
+     * Конструктор.
+     *
+     * @param nodes    Узлы: идентификатор → адрес.
+     * @param stateDir Директория состояния маршрутизатора (журнал решений).
+     * @throws IOException Если не удалось прочитать журнал решений.
+     */
+    public ShardRouter(Map<String, SocketAddress> nodes, Path stateDir) throws IOException {
+        this.decisions = new TransferDecisionLog(stateDir);
+        for (Map.Entry<String, SocketAddress> node : nodes.entrySet()) {
+            addNode(node.getKey(), node.getValue());
+        }
+    }
+
+    /**
+     * Добавить узел на кольцо. Пользователи, которые теперь принадлежат новому узлу, остаются на прежних
+     * узлах до вызова {@link #rebalance()}.
+     *
+     * @param nodeId  Идентификатор узла.
+     * @param address Адрес узла.
+     */
+    public synchronized void addNode(String nodeId, SocketAddress address) {
+        ring.addNode(nodeId);
+        clients.put(nodeId, new ShardClient(nodeId, address));
+    }
+
+    /**
+     * Найти узел пользователя.
+     *
+     * @param username Логин пользователя.
+     * @return Идентификатор узла.
+     */
+    public synchronized String nodeFor(String username) {
+        return ring.nodeFor(username);
+    }
+
+    /**
+     * Выполнить команду пакетного режима на узле её пользователя.
+     *
+     * @param command Команда.
+     * @throws IOException Если узел недоступен.
+     */
+    public synchronized void execute(BatchCommand command) throws IOException {
+        if (command.user() == null) {
+            throw new IllegalArgumentException("Не указано поле \"user\".");
+        }
+        String node = ring.nodeFor(command.user());
+        if ("transfer".equals(command.op()) && command.toUser() != null
+                && !ring.nodeFor(command.toUser()).equals(node)) {
+            transfer(command, node, ring.nodeFor(command.toUser()));
+            return;
+        }
+        if ("reverse_transfer".equals(command.op())) {
+            Transaction debit = clients.get(node).call(ShardRequest.command("transfer_debit", command),
+                    Transaction.class);
+            TransferReference transfer = debit.getTransfer();
+            String counterpartyNode = ring.nodeFor(transfer.counterpartyUserId());
+            if (!counterpartyNode.equals(node)) {
+                // Обратный перевод — перевод от получателя исходного с ключом отмены (повторно не проводится).
+                transfer(UUID.randomUUID().toString(), TransferLedger.reversalKey(transfer.id()),
+                        transfer.counterpartyUserId(), transfer.counterpartyWallet(), command.user(), command.wallet(),
+                        -debit.getAmount(), counterpartyNode, node);
+                return;
+            }
+        }
+        OperationTimer timer = metrics.time("ShardRouter.execute");
+        try (timer) {
+            clients.get(node).call(ShardRequest.command("execute", command));
+        }
+    }
+
+    /**
+     * Перевод между пользователями разных узлов (двухфазная фиксация).
+     */
+    private void transfer(BatchCommand command, String senderNode, String receiverNode) throws IOException {
+        if (command.wallet() == null || command.toWallet() == null || command.amount() == null) {
+            throw new IllegalArgumentException("Для перевода нужны поля \"wallet\", \"toWallet\" и \"amount\".");
+        }
+        if (!(command.amount() > 0)) {
+            throw new IllegalArgumentException("Сумма перевода должна быть положительной.");
+        }
+        String transferId = UUID.randomUUID().toString();
+        transfer(transferId, transferId, command.user(), command.wallet(), command.toUser(), command.toWallet(),
+                command.amount(), senderNode, receiverNode);
+    }
+
+    /**
+     * Провести перевод двухфазной фиксацией: каждый узел записывает свою часть транзакцией с ключом
+     * {@code transferKey}.
+     */
+    private void transfer(String transferId, String transferKey, String fromUser, String fromWallet, String toUser,
+                          String toWallet, double amount, String senderNode, String receiverNode) throws IOException {
+        OperationTimer timer = metrics.time("ShardRouter.transfer");
+        try (timer) {
+            ShardClient sender = clients.get(senderNode);
+            ShardClient receiver = clients.get(receiverNode);
+
+            try {
+                sender.call(new ShardRequest("prepare", null, fromUser, null, transferId, fromWallet, -amount,
+                        toUser, toWallet, transferKey));
+                receiver.call(new ShardRequest("prepare", null, toUser, null, transferId, toWallet, amount,
+                        fromUser, fromWallet, transferKey));
+            } catch (IllegalArgumentException | IOException e) {
+                abortQuietly(sender, transferId);
+                abortQuietly(receiver, transferId);
+                metrics.counter("sharding.transfers.aborted").increment();
+                throw e;
+            }
+
+            decisions.recordCommit(transferId);
+            try {
+                receiver.call(ShardRequest.transfer("commit", transferId));
+                sender.call(ShardRequest.transfer("commit", transferId));
+            } catch (IOException e) {
+                // Решение уже записано: перевод будет завершён при восстановлении.
+                log.warn("Перевод зафиксирован не на всех узлах", "transfer", transferId, "error", e.getMessage());
+            }
+            metrics.counter("sharding.transfers.committed").increment();
+        }
+    }
+
+    private void abortQuietly(ShardClient client, String transferId) {
+        try {
+            client.call(ShardRequest.transfer("abort", transferId));
+        } catch (IllegalArgumentException | IOException e) {
+            log.warn("Не удалось отменить часть перевода", "node", client.getNodeId(), "transfer", transferId,
+                    "error", e.getMessage());
+        }
+    }
+
+    /**
+     * Завершить переводы, оставшиеся подготовленными после сбоя: зафиксировать те, о фиксации которых
+     * есть решение, и отменить остальные.
+     *
+     * @return Количество завершённых частей переводов.
+     * @throws IOException Если какой-либо узел недоступен.
+     */
+    public synchronized int recover() throws IOException {
+        int resolved = 0;
+        for (ShardClient client : clients.values()) {
+            JsonNode inDoubt = client.call(ShardRequest.of("in_doubt", null));
+            for (JsonNode id : inDoubt) {
+                String transferId = id.asText();
+                String op = decisions.isCommitted(transferId) ? "commit" : "abort";
+                client.call(ShardRequest.transfer(op, transferId));
+                log.info("Перевод завершён при восстановлении", "node", client.getNodeId(), "transfer", transferId,
+                        "decision", op);
+                resolved++;
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * Перенести пользователей на узлы, которым они принадлежат по текущему кольцу.
+     * <p>
+     * Перенос одного пользователя: удалить его возможную неполную копию на новом узле, выгрузить данные
+     * со старого узла, загрузить их на новый и только после этого удалить со старого. Сбой на любом шаге
+     * оставляет пользователя на старом узле; повторный вызов продолжит перенос. Перед переносом завершаются
+     * подготовленные переводы ({@link #recover()}), чтобы их части не ссылались на перенесённые кошельки.
+     *
+     * @return Количество перенесённых пользователей.
+     * @throws IOException Если какой-либо узел недоступен.
+     */
+    public synchronized int rebalance() throws IOException {
+        recover();
+        int moved = 0;
+        for (ShardClient source : clients.values()) {
+            List<String> usernames = new ArrayList<>();
+            for (JsonNode username : source.call(ShardRequest.of("users", null))) {
+                usernames.add(username.asText());
+            }
+            for (String username : usernames) {
+                String target = ring.nodeFor(username);
+                if (target.equals(source.getNodeId())) {
+                    continue;
+                }
+                OperationTimer timer = metrics.time("ShardRouter.migrate");
+                try (timer) {
+                    ShardClient destination = clients.get(target);
+                    destination.call(ShardRequest.of("drop_user", username));
+                    UserBundle bundle = source.call(ShardRequest.of("export_user", username), UserBundle.class);
+                    destination.call(new ShardRequest("import_user", null, null, bundle, null, null, null, null, null,
+                            null));
+                    source.call(ShardRequest.of("drop_user", username));
+                }
+                log.info("Пользователь перенесён", "user", username, "from", source.getNodeId(), "to", target);
+                moved++;
+            }
+        }
+        metrics.counter("sharding.users.moved").add(moved);
+        return moved;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (ShardClient client : clients.values()) {
+            client.close();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.beryoza.financeapp.sharding;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Журнал решений координатора о фиксации переводов между узлами.
+ * <p>
+ * Решение о фиксации записывается на диск до рассылки {@code commit} участникам. При восстановлении
+ * перевод, подготовленный на узле, фиксируется, только если решение есть в журнале; иначе он отменяется
+ * (предполагаемая отмена). Поэтому записывать решения об отмене не нужно.
+ * <p>
+ * Поля:
+ * - {@link Path} file — файл журнала (по одному идентификатору перевода в строке).
+ * - {@link Set} committed — идентификаторы зафиксированных переводов.
+ */
+public class TransferDecisionLog {
+    private final Path file;
+    private final Set<String> committed = new HashSet<>();
+
+    /**
+     * Конструктор. Читает ранее записанные решения.
+     *
+     * @param stateDir Директория состояния координатора.
+     * @throws IOException Если не удалось прочитать журнал.
+     */
+    public TransferDecisionLog(Path stateDir) throws IOException {
+        Files.createDirectories(stateDir);
+        this.file = stateDir.resolve("decisions.log");
+        if (Files.exists(file)) {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) {
+                    committed.add(line.trim());
+                }
+            }
+        }
+    }
+
+    /**
+     * Записать решение о фиксации перевода и дождаться его сохранения на диске.
+     *
+     * @param transferId Идентификатор перевода.
+     * @throws IOException Если не удалось записать решение.
+     */
+    public synchronized void recordCommit(String transferId) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap((transferId + "\n").getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        committed.add(transferId);
+    }
+
+    /**
+     * Проверить, принято ли решение о фиксации перевода.
+     *
+     * @param transferId Идентификатор перевода.
+     * @return true, если перевод должен быть зафиксирован.
+     */
+    public synchronized boolean isCommitted(String transferId) {
+        return committed.contains(transferId);
+    }
+}
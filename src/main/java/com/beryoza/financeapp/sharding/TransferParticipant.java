@@ -0,0 +1,196 @@
+package com.beryoza.financeapp.sharding;
+
+import com.beryoza.financeapp.logging.AppLogger;
+import com.beryoza.financeapp.metrics.MetricsRegistry;
+import com.beryoza.financeapp.metrics.OperationTimer;
+import com.beryoza.financeapp.model.TransferLeg;
+import com.beryoza.financeapp.model.Wallet;
+import com.beryoza.financeapp.repository.TransferRepository;
+import com.beryoza.financeapp.repository.WalletRepository;
+import com.beryoza.financeapp.service.TransferLedger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Участник двухфазной фиксации перевода между узлами.
+ * <p>
+ * При подготовке списание проводится сразу (средства резервируются), зачисление — только проверяется.
+ * При фиксации проводится зачисление, при отмене — обратный перевод списанного. Части проводятся через
+ * {@link TransferLedger#postLeg} транзакциями со ссылкой на перевод, поэтому переводы между узлами видны
+ * в истории, сводках и истории баланса так же, как переводы внутри узла. Состояние каждой части хранится
+ * в {@link TransferRepository}, поэтому повторные фиксация и отмена ничего не меняют, а отмена неизвестного
+ * перевода оставляет запись об отмене, и опоздавшая подготовка будет отклонена.
+ * <p>
+ * Поля:
+ * - {@link WalletRepository} walletRepository — кошельки узла.
+ * - {@link TransferRepository} transferRepository — части переводов.
+ * - {@link TransferLedger} transferLedger — проводка частей переводов.
+ */
+public class TransferParticipant {
+    private static final AppLogger log = AppLogger.getLogger(TransferParticipant.class);
+    private static final MetricsRegistry metrics = MetricsRegistry.global();
+
+    private final WalletRepository walletRepository;
+    private final TransferRepository transferRepository;
+    private final TransferLedger transferLedger;
+
+    /**
+     * Конструктор.
+     *
+     * @param walletRepository   Репозиторий кошельков.
+     * @param transferRepository Репозиторий частей переводов.
+     * @param transferLedger     Проводка частей переводов.
+     */
+    public TransferParticipant(WalletRepository walletRepository, TransferRepository transferRepository,
+                               TransferLedger transferLedger) {
+        this.walletRepository = walletRepository;
+        this.transferRepository = transferRepository;
+        this.transferLedger = transferLedger;
+    }
+
+    /**
+     * Подготовить часть перевода.
+     *
+     * @param transferId         Идентификатор перевода.
+     * @param transferKey        Ключ перевода в транзакциях кошелька (null — совпадает с идентификатором).
+     * @param userId             Владелец кошелька.
+     * @param walletName         Кошелёк.
+     * @param amount             Отрицательное значение — списание, положительное — зачисление.
+     * @param counterpartyUserId Пользователь другой стороны.
+     * @param counterpartyWallet Кошелёк другой стороны.
+     */
+    public synchronized void prepare(String transferId, String transferKey, String userId, String walletName,
+                                     double amount, String counterpartyUserId, String counterpartyWallet) {
+        OperationTimer timer = metrics.time("TransferParticipant.prepare");
+        try (timer) {
+            List<TransferLeg> transfers = transferRepository.loadTransfers();
+            TransferLeg existing = find(transfers, transferId);
+            if (existing != null) {
+                if (existing.getStatus() == TransferLeg.Status.PREPARED) {
+                    return;
+                }
+                throw new IllegalArgumentException("Перевод " + transferId + " уже завершён: " + existing.getStatus());
+            }
+
+            Wallet wallet = findWallet(userId, walletName);
+            if (wallet == null) {
+                throw new IllegalArgumentException("Кошелек \"" + walletName + "\" пользователя \"" + userId
+                        + "\" не найден.");
+            }
+            TransferLeg leg = new TransferLeg(transferId, transferKey, userId, walletName, amount, counterpartyUserId,
+                    counterpartyWallet, TransferLeg.Status.PREPARED);
+            if (amount < 0) {
+                TransferLedger.Result result = transferLedger.postLeg(leg.getTransferKey(), userId, walletName, amount,
+                        counterpartyUserId, counterpartyWallet);
+                if (result.status() != TransferLedger.Status.POSTED) {
+                    throw new IllegalArgumentException(result.message());
+                }
+            }
+            transfers.add(leg);
+            transferRepository.saveTransfers(transfers);
+        }
+    }
+
+    /**
+     * Зафиксировать часть перевода.
+     *
+     * @param transferId Идентификатор перевода.
+     */
+    public synchronized void commit(String transferId) {
+        OperationTimer timer = metrics.time("TransferParticipant.commit");
+        try (timer) {
+            List<TransferLeg> transfers = transferRepository.loadTransfers();
+            TransferLeg leg = find(transfers, transferId);
+            if (leg == null) {
+                throw new IllegalArgumentException("Перевод " + transferId + " не подготовлен на этом узле.");
+            }
+            if (leg.getStatus() == TransferLeg.Status.COMMITTED) {
+                return;
+            }
+            if (leg.getStatus() == TransferLeg.Status.ABORTED) {
+                throw new IllegalArgumentException("Перевод " + transferId + " уже отменён.");
+            }
+            if (leg.getAmount() > 0) {
+                TransferLedger.Result result = transferLedger.postLeg(leg.getTransferKey(), leg.getUserId(),
+                        leg.getWalletName(), leg.getAmount(), leg.getCounterpartyUserId(), leg.getCounterpartyWallet());
+                if (result.status() == TransferLedger.Status.REJECTED) {
+                    // Решение о фиксации уже принято: зачисление нельзя потерять молча.
+                    throw new IllegalStateException("Кошелек получателя \"" + leg.getWalletName() + "\" исчез "
+                            + "после подготовки перевода " + transferId + ".");
+                }
+            }
+            leg.setStatus(TransferLeg.Status.COMMITTED);
+            transferRepository.saveTransfers(transfers);
+        }
+    }
+
+    /**
+     * Отменить часть перевода (вернуть зарезервированные средства обратным переводом).
+     *
+     * @param transferId Идентификатор перевода.
+     */
+    public synchronized void abort(String transferId) {
+        OperationTimer timer = metrics.time("TransferParticipant.abort");
+        try (timer) {
+            List<TransferLeg> transfers = transferRepository.loadTransfers();
+            TransferLeg leg = find(transfers, transferId);
+            if (leg == null) {
+                transfers.add(new TransferLeg(transferId, null, null, null, 0, null, null,
+                        TransferLeg.Status.ABORTED));
+                transferRepository.saveTransfers(transfers);
+                return;
+            }
+            if (leg.getStatus() == TransferLeg.Status.ABORTED) {
+                return;
+            }
+            if (leg.getStatus() == TransferLeg.Status.COMMITTED) {
+                throw new IllegalArgumentException("Перевод " + transferId + " уже зафиксирован.");
+            }
+            if (leg.getAmount() < 0) {
+                TransferLedger.Result result = transferLedger.postLeg(TransferLedger.reversalKey(leg.getTransferKey()),
+                        leg.getUserId(), leg.getWalletName(), -leg.getAmount(), leg.getCounterpartyUserId(),
+                        leg.getCounterpartyWallet());
+                if (result.status() == TransferLedger.Status.REJECTED) {
+                    log.warn("Кошелек для возврата средств не найден", "transfer", transferId,
+                            "user", leg.getUserId(), "wallet", leg.getWalletName());
+                }
+            }
+            leg.setStatus(TransferLeg.Status.ABORTED);
+            transferRepository.saveTransfers(transfers);
+        }
+    }
+
+    /**
+     * Получить переводы, подготовленные на этом узле и ещё не завершённые.
+     *
+     * @return Идентификаторы переводов.
+     */
+    public synchronized List<String> inDoubt() {
+        List<String> ids = new ArrayList<>();
+        for (TransferLeg leg : transferRepository.loadTransfers()) {
+            if (leg.getStatus() == TransferLeg.Status.PREPARED) {
+                ids.add(leg.getTransferId());
+            }
+        }
+        return ids;
+    }
+
+    private Wallet findWallet(String userId, String walletName) {
+        for (Wallet wallet : walletRepository.loadWalletsByUser(userId)) {
+            if (wallet.getName().equals(walletName)) {
+                return wallet;
+            }
+        }
+        return null;
+    }
+
+    private static TransferLeg find(List<TransferLeg> transfers, String transferId) {
+        for (TransferLeg leg : transfers) {
+            if (leg.getTransferId().equals(transferId)) {
+                return leg;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,18 @@
+package com.beryoza.financeapp.sharding;
+
+import com.beryoza.financeapp.model.Category;
+import com.beryoza.financeapp.model.User;
+import com.beryoza.financeapp.model.Wallet;
+
+import java.util.List;
+
+/**
+ * Все данные одного пользователя, переносимые между узлами при перебалансировке.
+ * Сводки не переносятся: узел-получатель строит их по транзакциям.
+ *
+ * @param user       Пользователь.
+ * @param wallets    Кошельки пользователя с транзакциями.
+ * @param categories Категории пользователя.
+ */
+public record UserBundle(User user, List<Wallet> wallets, List<Category> categories) {
+}
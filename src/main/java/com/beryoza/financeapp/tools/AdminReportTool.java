@@ -0,0 +1,43 @@
+package com.beryoza.financeapp.tools;
+
+import com.beryoza.financeapp.report.AdminReport;
+import com.beryoza.financeapp.report.AdminReportEngine;
+import com.beryoza.financeapp.repository.CategoryRepository;
+import com.beryoza.financeapp.repository.FileRepository;
+import com.beryoza.financeapp.repository.UserRepository;
+import com.beryoza.financeapp.repository.WalletRepository;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Утилита построения административного отчёта по всем пользователям (см. {@link AdminReportEngine}).
+ */
+public class AdminReportTool {
+
+    /**
+     * Точка входа утилиты.
+     * <p>
+     * Аргументы: {@code --dir}, {@code --parallelism} (по умолчанию число ядер),
+     * {@code --list-over-budget} (вывести логины пользователей с превышением бюджета).
+     */
+    public static void main(String[] args) {
+        CommandLineOptions options = new CommandLineOptions(args);
+        String dataDir = options.getString("dir", FileRepository.DEFAULT_DATA_DIR);
+        ForkJoinPool pool = new ForkJoinPool(options.getInt("parallelism", Runtime.getRuntime().availableProcessors()));
+        try {
+            AdminReportEngine engine = new AdminReportEngine(new UserRepository(dataDir),
+                    new WalletRepository(dataDir), new CategoryRepository(dataDir), pool);
+            long started = System.nanoTime();
+            AdminReport report = engine.generate();
+            long millis = (System.nanoTime() - started) / 1_000_000;
+
+            System.out.print(report);
+            if (options.has("list-over-budget")) {
+                report.getUsersOverBudget().forEach(username -> System.out.println("- " + username));
+            }
+            System.out.println("Отчёт построен за " + millis + " мс (потоков: " + pool.getParallelism() + ").");
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.beryoza.financeapp.tools;
+
+import com.beryoza.financeapp.repository.FileRepository;
+import com.beryoza.financeapp.repository.WalletRepository;
+import com.beryoza.financeapp.service.TransactionArchiver;
+
+/**
+ * Утилита переноса старых транзакций в архив (см. {@link TransactionArchiver}).
+ */
+public class ArchiveTool {
+
+    /**
+     * Точка входа утилиты.
+     * <p>
+     * Аргументы: {@code --dir}, {@code --months} (сколько последних полных месяцев остаются в кошельках,
+     * по умолчанию {@value TransactionArchiver#DEFAULT_HORIZON_MONTHS}).
+     */
+    public static void main(String[] args) {
+        CommandLineOptions options = new CommandLineOptions(args);
+        String dataDir = options.getString("dir", FileRepository.DEFAULT_DATA_DIR);
+        int months = options.getInt("months", TransactionArchiver.DEFAULT_HORIZON_MONTHS);
+
+        long started = System.nanoTime();
+        TransactionArchiver.Result result = new TransactionArchiver(new WalletRepository(dataDir))
+                .archiveOlderThan(months);
+        long millis = (System.nanoTime() - started) / 1_000_000;
+
+        System.out.println("Перенесено в архив транзакций: " + result.transactions() + ", сегментов: "
+                + result.segments() + ", кошельков: " + result.wallets() + ". Время: " + millis + " мс.");
+    }
+}
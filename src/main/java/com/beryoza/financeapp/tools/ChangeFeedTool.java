@@ -0,0 +1,59 @@
+package com.beryoza.financeapp.tools;
+
+import com.beryoza.financeapp.changelog.ChangeLogReader;
+import com.beryoza.financeapp.changelog.ChangeRecord;
+import com.beryoza.financeapp.repository.FileRepository;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Утилита чтения журнала изменений (см. {@link ChangeLogReader}).
+ * Выводит изменения в формате JSON Lines: одна строка на изменение с порядковым номером,
+ * смещением записи и смещением, с которого нужно продолжить чтение.
+ */
+public class ChangeFeedTool {
+
+    /**
+     * Точка входа утилиты.
+     * <p>
+     * Аргументы: {@code --dir}, {@code --from} (смещение, по умолчанию 0), {@code --limit} (максимальное
+     * количество изменений), {@code --follow} (ждать новые изменения), {@code --poll-millis} (интервал ожидания,
+     * по умолчанию 500).
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        CommandLineOptions options = new CommandLineOptions(args);
+        String dataDir = options.getString("dir", FileRepository.DEFAULT_DATA_DIR);
+        long offset = options.getLong("from", 0);
+        long limit = options.getLong("limit", Long.MAX_VALUE);
+        boolean follow = options.has("follow");
+        long pollMillis = options.getLong("poll-millis", 500);
+
+        long printed = 0;
+        try (ChangeLogReader reader = ChangeLogReader.open(dataDir)) {
+            while (printed < limit) {
+                List<ChangeRecord> records = reader.poll(offset, (int) Math.min(1024, limit - printed));
+                if (records.isEmpty()) {
+                    if (!follow) {
+                        break;
+                    }
+                    Thread.sleep(pollMillis);
+                    continue;
+                }
+                StringBuilder out = new StringBuilder();
+                for (ChangeRecord record : records) {
+                    out.append("{\"sequence\":").append(record.sequence())
+                            .append(",\"offset\":").append(record.offset())
+                            .append(",\"nextOffset\":").append(record.nextOffset())
+                            .append(",\"timestamp\":").append(record.timestamp())
+                            .append(",\"change\":").append(record.payloadAsString())
+                            .append('}').append(System.lineSeparator());
+                    offset = record.nextOffset();
+                }
+                System.out.print(out);
+                System.out.flush();
+                printed += records.size();
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.beryoza.financeapp.tools;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Разбор аргументов командной строки вида {@code --ключ=значение} для служебных утилит.
+ * <p>
+ * Поля:
+ * - {@link Map}<{@code String}, {@code String}> values — значения аргументов по ключу.
+ */
+public class CommandLineOptions {
+    private final Map<String, String> values = new HashMap<>();
+
+    /**
+     * Конструктор.
+     *
+     * @param args Аргументы командной строки.
+     */
+    public CommandLineOptions(String[] args) {
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Неизвестный аргумент: " + arg + ". Ожидается формат --ключ=значение.");
+            }
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                values.put(arg.substring(2), "true");
+            } else {
+                values.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+    }
+
+    /**
+     * Проверить, задан ли аргумент.
+     *
+     * @param key Ключ аргумента.
+     * @return true, если аргумент задан.
+     */
+    public boolean has(String key) {
+        return values.containsKey(key);
+    }
+
+    /**
+     * Получить строковое значение.
+     *
+     * @param key          Ключ аргумента.
+     * @param defaultValue Значение по умолчанию.
+     * @return Значение аргумента.
+     */
+    public String getString(String key, String defaultValue) {
+        return values.getOrDefault(key, defaultValue);
+    }
+
+    /**
+     * Получить целое значение.
+     *
+     * @param key          Ключ аргумента.
+     * @param defaultValue Значение по умолчанию.
+     * @return Значение аргумента.
+     */
+    public int getInt(String key, int defaultValue) {
+        String value = values.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Аргумент --" + key + " должен быть целым числом.");
+        }
+    }
+
+    /**
+     * Получить длинное целое значение.
+     *
+     * @param key          Ключ аргумента.
+     * @param defaultValue Значение по умолчанию.
+     * @return Значение аргумента.
+     */
+    public long getLong(String key, long defaultValue) {
+        String value = values.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Аргумент --" + key + " должен быть целым числом.");
+        }
+    }
+
+    /**
+     * Получить дробное значение.
+     *
+     * @param key          Ключ аргумента.
+     * @param defaultValue Значение по умолчанию.
+     * @return Значение аргумента.
+     */
+    public double getDouble(String key, double defaultValue) {
+        String value = values.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Аргумент --" + key + " должен быть числом.");
+        }
+    }
+
+    /**
+     * Получить дату в формате yyyy-MM-dd.
+     *
+     * @param key          Ключ аргумента.
+     * @param defaultValue Значение по умолчанию.
+     * @return Значение аргумента.
+     */
+    public LocalDate getDate(String key, LocalDate defaultValue) {
+        String value = values.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Аргумент --" + key + " должен быть датой в формате yyyy-MM-dd.");
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.beryoza.financeapp.tools;
+
+import com.beryoza.financeapp.model.Category;
+import com.beryoza.financeapp.model.Transaction;
+import com.beryoza.financeapp.model.User;
+import com.beryoza.financeapp.model.Wallet;
+import com.beryoza.financeapp.repository.CategoryRepository;
+import com.beryoza.financeapp.repository.FileRepository;
+import com.beryoza.financeapp.repository.SummaryRepository;
+import com.beryoza.financeapp.repository.UserRepository;
+import com.beryoza.financeapp.repository.WalletRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Генератор синтетических наборов данных ({@code users.json}, {@code wallets.json}, {@code categories.json})
+ * и месячных сводок по ним (см. {@link SummaryRepository})
+ * для воспроизведения нагрузки промышленного масштаба.
+ * <p>
+ * Распределения:
+ * - количество транзакций в кошельке — экспоненциальное с заданным средним (есть «тяжёлые» кошельки);
+ * - выбор категории расхода — закон Ципфа (несколько категорий покрывают большую часть трат);
+ * - суммы — логнормальные, доходы крупнее расходов;
+ * - даты — равномерно в заданном интервале.
+ * <p>
+ * Баланс каждого кошелька равен начальному остатку плюс сумма его транзакций.
+ * <p>
+ * Поля:
+ * - {@code int users} — количество пользователей.
+ * - {@code int walletsPerUser} — количество кошельков у пользователя.
+ * - {@code int meanTransactionsPerWallet} — среднее количество транзакций в кошельке.
+ * - {@code int categoriesPerUser} — количество категорий расходов у пользователя.
+ * - {@code double incomeShare} — доля доходных транзакций.
+ * - {@link LocalDate} from, to — интервал дат транзакций.
+ * - {@link Random} random — генератор случайных чисел с фиксированным зерном.
+ * - {@code double[] zipfCumulative} — накопленные веса распределения Ципфа по категориям.
+ */
+public class DatasetGenerator {
+    /**
+     * Пароль всех сгенерированных пользователей.
+     */
+    public static final String PASSWORD = "password";
+
+    /**
+     * Название категории, к которой относятся доходы.
+     */
+    public static final String INCOME_CATEGORY = "Зарплата";
+
+    private static final String[] EXPENSE_CATEGORIES = {
+            "Еда", "Транспорт", "Жильё", "Связь", "Развлечения",
+            "Здоровье", "Одежда", "Образование", "Подарки", "Путешествия"
+    };
+
+    private final int users;
+    private final int walletsPerUser;
+    private final int meanTransactionsPerWallet;
+    private final int categoriesPerUser;
+    private final double incomeShare;
+    private final LocalDate from;
+    private final LocalDate to;
+    private final Random random;
+    private final double[] zipfCumulative;
+
+    /**
+     * Конструктор.
+     *
+     * @param users                     Количество пользователей.
+     * @param walletsPerUser            Количество кошельков у пользователя.
+     * @param meanTransactionsPerWallet Среднее количество транзакций в кошельке.
+     * @param categoriesPerUser         Количество категорий расходов у пользователя (не больше 10).
+     * @param incomeShare               Доля доходных транзакций (от 0 до 1).
+     * @param from                      Начало интервала дат.
+     * @param to                        Конец интервала дат.
+     * @param seed                      Зерно генератора случайных чисел.
+     */
+    public DatasetGenerator(int users, int walletsPerUser, int meanTransactionsPerWallet, int categoriesPerUser,
+                            double incomeShare, LocalDate from, LocalDate to, long seed) {
+        if (users <= 0 || walletsPerUser <= 0 || meanTransactionsPerWallet < 0) {
+            throw new IllegalArgumentException("Количество пользователей и кошельков должно быть положительным.");
+        }
+        if (categoriesPerUser <= 0 || categoriesPerUser > EXPENSE_CATEGORIES.length) {
+            throw new IllegalArgumentException("Количество категорий должно быть от 1 до " + EXPENSE_CATEGORIES.length + ".");
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Конец интервала дат раньше начала.");
+        }
+        this.users = users;
+        this.walletsPerUser = walletsPerUser;
+        this.meanTransactionsPerWallet = meanTransactionsPerWallet;
+        this.categoriesPerUser = categoriesPerUser;
+        this.incomeShare = incomeShare;
+        this.from = from;
+        this.to = to;
+        this.random = new Random(seed);
+        this.zipfCumulative = new double[categoriesPerUser];
+        double accumulated = 0;
+        for (int k = 0; k < categoriesPerUser; k++) {
+            accumulated += 1.0 / (k + 1);
+            zipfCumulative[k] = accumulated;
+        }
+    }
+
+    /**
+     * Получить логин сгенерированного пользователя по номеру.
+     *
+     * @param index Номер пользователя.
+     * @return Логин.
+     */
+    public static String username(int index) {
+        return String.format("user%06d", index);
+    }
+
+    /**
+     * Получить название сгенерированного кошелька по номеру.
+     *
+     * @param index Номер кошелька у пользователя.
+     * @return Название кошелька.
+     */
+    public static String walletName(int index) {
+        return "wallet" + index;
+    }
+
+    /**
+     * Сгенерировать набор данных и сохранить его через репозитории.
+     * Существующие файлы в директории перезаписываются.
+     *
+     * @param dataDir Корневая директория данных.
+     * @return Количество сгенерированных транзакций.
+     */
+    public long generate(String dataDir) {
+        long span = ChronoUnit.DAYS.between(from, to) + 1;
+        long transactionCount = 0;
+
+        List<User> userList = new ArrayList<>(users);
+        List<Category> categories = new ArrayList<>(users * (categoriesPerUser + 1));
+        List<Wallet> wallets = new ArrayList<>(users * walletsPerUser);
+
+        for (int u = 0; u < users; u++) {
+            String username = username(u);
+            userList.add(new User(username, PASSWORD));
+
+            List<Category> expenseCategories = new ArrayList<>(categoriesPerUser);
+            for (int c = 0; c < categoriesPerUser; c++) {
+                expenseCategories.add(new Category(username, EXPENSE_CATEGORIES[c], 5_000 + random.nextInt(95_000)));
+            }
+            Category incomeCategory = new Category(username, INCOME_CATEGORY, 0);
+            categories.addAll(expenseCategories);
+            categories.add(incomeCategory);
+
+            for (int w = 0; w < walletsPerUser; w++) {
+                Wallet wallet = new Wallet(username, walletName(w), round(random.nextDouble() * 100_000));
+                int count = (int) Math.round(-meanTransactionsPerWallet * Math.log(1 - random.nextDouble()));
+                for (int t = 0; t < count; t++) {
+                    LocalDate date = from.plusDays((long) (random.nextDouble() * span));
+                    if (random.nextDouble() < incomeShare) {
+                        wallet.addTransaction(new Transaction(logNormal(10.5, 0.4), incomeCategory, date));
+                    } else {
+                        Category category = expenseCategories.get(zipfIndex());
+                        wallet.addTransaction(new Transaction(-logNormal(6.5, 1.0), category, date));
+                    }
+                }
+                transactionCount += count;
+                wallets.add(wallet);
+            }
+        }
+
+        new UserRepository(dataDir).saveUsers(userList);
+        new CategoryRepository(dataDir).saveCategories(categories);
+        WalletRepository walletRepository = new WalletRepository(dataDir);
+        walletRepository.saveWallets(wallets);
+        try {
+            new SummaryRepository(dataDir).rebuild(walletRepository);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось построить месячные сводки", e);
+        }
+        return transactionCount;
+    }
+
+    /**
+     * Случайная величина с логнормальным распределением, округлённая до копеек.
+     */
+    private double logNormal(double mu, double sigma) {
+        return round(Math.exp(mu + sigma * random.nextGaussian()));
+    }
+
+    /**
+     * Случайный индекс категории с распределением Ципфа (вес элемента k пропорционален 1 / (k + 1)).
+     */
+    private int zipfIndex() {
+        double target = random.nextDouble() * zipfCumulative[zipfCumulative.length - 1];
+        for (int k = 0; k < zipfCumulative.length; k++) {
+            if (zipfCumulative[k] >= target) {
+                return k;
+            }
+        }
+        return zipfCumulative.length - 1;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /**
+     * Точка входа утилиты.
+     * <p>
+     * Аргументы: {@code --dir}, {@code --users}, {@code --wallets}, {@code --transactions} (среднее на кошелёк),
+     * {@code --categories}, {@code --income-share}, {@code --from}, {@code --to} (yyyy-MM-dd), {@code --seed}.
+     */
+    public static void main(String[] args) {
+        CommandLineOptions options = new CommandLineOptions(args);
+        String dataDir = options.getString("dir", FileRepository.DEFAULT_DATA_DIR);
+        LocalDate to = options.getDate("to", LocalDate.now());
+
+        DatasetGenerator generator = new DatasetGenerator(
+                options.getInt("users", 100),
+                options.getInt("wallets", 2),
+                options.getInt("transactions", 200),
+                options.getInt("categories", 8),
+                options.getDouble("income-share", 0.15),
+                options.getDate("from", to.minusYears(1)),
+                to,
+                options.getLong("seed", 42));
+
+        long started = System.nanoTime();
+        long transactions = generator.generate(dataDir);
+        long millis = (System.nanoTime() - started) / 1_000_000;
+        System.out.println("Набор данных сгенерирован в " + dataDir + ": транзакций " + transactions + ", " + millis + " мс.");
+    }
+}
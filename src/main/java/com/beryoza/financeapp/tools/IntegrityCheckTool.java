@@ -0,0 +1,63 @@
+package com.beryoza.financeapp.tools;
+
+import com.beryoza.financeapp.report.IntegrityIssue;
+import com.beryoza.financeapp.report.IntegrityVerifier;
+import com.beryoza.financeapp.repository.CategoryRepository;
+import com.beryoza.financeapp.repository.FileRepository;
+import com.beryoza.financeapp.repository.SummaryRepository;
+import com.beryoza.financeapp.repository.WalletRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Утилита проверки целостности данных (см. {@link IntegrityVerifier}).
+ * Выводит нарушения в формате JSON Lines по мере их обнаружения, итоги — в поток ошибок.
+ */
+public class IntegrityCheckTool {
+
+    /**
+     * Точка входа утилиты. Код завершения 1 означает, что найдены нарушения.
+     * <p>
+     * Аргументы: {@code --dir}, {@code --parallelism} (по умолчанию число ядер).
+     */
+    public static void main(String[] args) {
+        CommandLineOptions options = new CommandLineOptions(args);
+        String dataDir = options.getString("dir", FileRepository.DEFAULT_DATA_DIR);
+        ForkJoinPool pool = new ForkJoinPool(options.getInt("parallelism", Runtime.getRuntime().availableProcessors()));
+        ObjectMapper objectMapper = new ObjectMapper();
+        PrintStream out = new PrintStream(new BufferedOutputStream(System.out, 1 << 16), false, StandardCharsets.UTF_8);
+        IntegrityVerifier.Result result;
+        long millis;
+        try {
+            IntegrityVerifier verifier = new IntegrityVerifier(new WalletRepository(dataDir),
+                    new CategoryRepository(dataDir), new SummaryRepository(dataDir), pool);
+            long started = System.nanoTime();
+            result = verifier.verify(issue -> out.println(toJson(objectMapper, issue)));
+            millis = (System.nanoTime() - started) / 1_000_000;
+            out.flush();
+        } finally {
+            pool.shutdown();
+        }
+
+        System.err.println("Проверено пользователей: " + result.users() + ", кошельков: " + result.wallets()
+                + ", транзакций: " + result.transactions() + ". Нарушений: " + result.issues()
+                + ". Время: " + millis + " мс (потоков: " + pool.getParallelism() + ").");
+        if (result.issues() > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static String toJson(ObjectMapper objectMapper, IntegrityIssue issue) {
+        try {
+            return objectMapper.writeValueAsString(issue);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
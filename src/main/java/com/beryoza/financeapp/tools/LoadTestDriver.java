@@ -0,0 +1,268 @@
+package com.beryoza.financeapp.tools;
+
+import com.beryoza.financeapp.metrics.LatencyHistogram;
+import com.beryoza.financeapp.model.Category;
+import com.beryoza.financeapp.model.Transaction;
+import com.beryoza.financeapp.model.User;
+import com.beryoza.financeapp.model.Wallet;
+import com.beryoza.financeapp.repository.CategoryRepository;
+import com.beryoza.financeapp.repository.FileRepository;
+import com.beryoza.financeapp.repository.UserRepository;
+import com.beryoza.financeapp.repository.WalletRepository;
+import com.beryoza.financeapp.service.BudgetService;
+import com.beryoza.financeapp.service.UserService;
+import com.beryoza.financeapp.service.WalletService;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Драйвер нагрузочного теста: воспроизводит смешанную нагрузку (вход, добавление и редактирование
+ * транзакций, переводы, проверка бюджета) против сервисного слоя из нескольких потоков
+ * и выводит пропускную способность и перцентили задержек по каждой операции.
+ * <p>
+ * Используются настоящие репозитории и сервисы, поэтому измеряются реальные пути выполнения кода.
+ * Каждый поток получает собственный {@link UserService}, так как он хранит текущего пользователя.
+ * <p>
+ * Поля:
+ * - {@code String dataDir} — директория с набором данных (см. {@link DatasetGenerator}).
+ * - {@code int threads} — количество потоков нагрузки.
+ * - {@code long durationSeconds} — длительность теста.
+ * - {@link Map} weights — веса операций в смеси нагрузки.
+ * - {@link Map} latencies — гистограммы задержек по операциям.
+ * - {@link Map} errors — счётчики ошибок по операциям.
+ */
+public class LoadTestDriver {
+
+    /**
+     * Операции смешанной нагрузки.
+     */
+    public enum Operation {
+        LOGIN, ADD, EDIT, TRANSFER, BUDGET
+    }
+
+    private final String dataDir;
+    private final int threads;
+    private final long durationSeconds;
+    private final Map<Operation, Integer> weights;
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+
+    private WalletService walletService;
+    private BudgetService budgetService;
+    private UserRepository userRepository;
+    private WalletRepository walletRepository;
+    private CategoryRepository categoryRepository;
+    private List<User> users;
+
+    /**
+     * Конструктор.
+     *
+     * @param dataDir         Директория с набором данных.
+     * @param threads         Количество потоков нагрузки.
+     * @param durationSeconds Длительность теста в секундах.
+     * @param weights         Веса операций в смеси нагрузки.
+     */
+    public LoadTestDriver(String dataDir, int threads, long durationSeconds, Map<Operation, Integer> weights) {
+        if (threads <= 0 || durationSeconds <= 0) {
+            throw new IllegalArgumentException("Количество потоков и длительность должны быть положительными.");
+        }
+        this.dataDir = dataDir;
+        this.threads = threads;
+        this.durationSeconds = durationSeconds;
+        this.weights = new EnumMap<>(weights);
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    /**
+     * Разобрать смесь нагрузки вида {@code login:20,add:30,edit:15,transfer:10,budget:25}.
+     *
+     * @param mix Строка со смесью.
+     * @return Веса операций.
+     */
+    public static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> result = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Некорректный элемент смеси нагрузки: " + part);
+            }
+            result.put(Operation.valueOf(pair[0].trim().toUpperCase()), Integer.parseInt(pair[1].trim()));
+        }
+        return result;
+    }
+
+    /**
+     * Запустить нагрузку и дождаться её завершения.
+     *
+     * @return Общее количество выполненных операций.
+     * @throws InterruptedException Если ожидание потоков было прервано.
+     */
+    public long run() throws InterruptedException {
+        userRepository = new UserRepository(dataDir);
+        walletRepository = new WalletRepository(dataDir);
+        categoryRepository = new CategoryRepository(dataDir);
+        walletService = new WalletService(walletRepository, categoryRepository);
+        budgetService = new BudgetService(walletRepository, categoryRepository);
+        users = userRepository.loadUsers();
+        if (users.size() < 2) {
+            throw new IllegalStateException("Для нагрузочного теста нужно минимум два пользователя.");
+        }
+
+        int totalWeight = weights.values().stream().mapToInt(Integer::intValue).sum();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+        LongAdder completed = new LongAdder();
+
+        List<Thread> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> {
+                UserService userService = new UserService(userRepository, walletRepository, categoryRepository);
+                while (System.nanoTime() < deadline) {
+                    Operation operation = pick(totalWeight);
+                    long started = System.nanoTime();
+                    try {
+                        execute(operation, userService);
+                    } catch (RuntimeException e) {
+                        errors.get(operation).increment();
+                    }
+                    latencies.get(operation).record(System.nanoTime() - started);
+                    completed.increment();
+                }
+            }, "load-worker-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return completed.sum();
+    }
+
+    /**
+     * Выбрать операцию согласно весам смеси.
+     */
+    private Operation pick(int totalWeight) {
+        int target = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Map.Entry<Operation, Integer> entry : weights.entrySet()) {
+            target -= entry.getValue();
+            if (target < 0) {
+                return entry.getKey();
+            }
+        }
+        return Operation.BUDGET;
+    }
+
+    /**
+     * Выполнить одну операцию от имени случайного пользователя.
+     */
+    private void execute(Operation operation, UserService userService) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        User user = users.get(random.nextInt(users.size()));
+        switch (operation) {
+            case LOGIN -> userService.authenticateUser(user.getUsername(), user.getPassword());
+            case ADD -> {
+                Wallet wallet = randomWallet(user);
+                Category category = randomCategory(user);
+                if (wallet != null && category != null) {
+                    boolean income = DatasetGenerator.INCOME_CATEGORY.equals(category.getName());
+                    walletService.addTransaction(user, wallet.getName(), 10 + random.nextInt(5_000),
+                            category.getName(), income);
+                }
+            }
+            case EDIT -> {
+                Wallet wallet = randomWallet(user);
+                Category category = randomCategory(user);
+                if (wallet != null && category != null && !wallet.getTransactions().isEmpty()) {
+                    Transaction transaction = wallet.getTransactions().get(random.nextInt(wallet.getTransactions().size()));
+                    walletService.editTransaction(user, wallet.getName(), transaction.getId(),
+                            transaction.getAmount(), category.getName(), transaction.getDate().toString());
+                }
+            }
+            case TRANSFER -> {
+                User receiver = users.get(random.nextInt(users.size()));
+                Wallet from = randomWallet(user);
+                Wallet to = randomWallet(receiver);
+                if (from != null && to != null && from.getBalance() > 1) {
+                    walletService.transferFunds(user, from.getName(), receiver, to.getName(), 1);
+                }
+            }
+            case BUDGET -> {
+                budgetService.checkBudgetLimits(user);
+                walletService.checkExpenseExceedsIncome(user);
+            }
+        }
+    }
+
+    private Wallet randomWallet(User user) {
+        List<Wallet> wallets = walletRepository.loadWalletsByUser(user.getUsername());
+        return wallets.isEmpty() ? null : wallets.get(ThreadLocalRandom.current().nextInt(wallets.size()));
+    }
+
+    private Category randomCategory(User user) {
+        List<Category> categories = categoryRepository.findCategoriesByUserId(user.getUsername());
+        return categories.isEmpty() ? null : categories.get(ThreadLocalRandom.current().nextInt(categories.size()));
+    }
+
+    /**
+     * Сформировать текстовый отчёт о результатах теста.
+     *
+     * @param totalOperations Общее количество выполненных операций.
+     * @return Отчёт.
+     */
+    public String report(long totalOperations) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "Потоков: %d, длительность: %d с, операций: %d, пропускная способность: %.1f оп/с%n",
+                threads, durationSeconds, totalOperations, (double) totalOperations / durationSeconds));
+        out.append(String.format(Locale.ROOT, "%-10s %10s %8s %10s %10s %10s %10s%n",
+                "операция", "кол-во", "ошибки", "p50, мс", "p90, мс", "p99, мс", "max, мс"));
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = latencies.get(operation);
+            out.append(String.format(Locale.ROOT, "%-10s %10d %8d %10.2f %10.2f %10.2f %10.2f%n",
+                    operation.name().toLowerCase(), histogram.getCount(), errors.get(operation).sum(),
+                    toMillis(histogram.getPercentile(50)), toMillis(histogram.getPercentile(90)),
+                    toMillis(histogram.getPercentile(99)), toMillis(histogram.getMax())));
+        }
+        return out.toString();
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Точка входа утилиты.
+     * <p>
+     * Аргументы: {@code --dir}, {@code --threads}, {@code --duration} (секунды),
+     * {@code --mix} (например {@code login:20,add:30,edit:15,transfer:10,budget:25}).
+     */
+    public static void main(String[] args) throws InterruptedException {
+        CommandLineOptions options = new CommandLineOptions(args);
+        LoadTestDriver driver = new LoadTestDriver(
+                options.getString("dir", FileRepository.DEFAULT_DATA_DIR),
+                options.getInt("threads", 4),
+                options.getLong("duration", 30),
+                parseMix(options.getString("mix", "login:20,add:30,edit:15,transfer:10,budget:25")));
+
+        // Сервисы печатают сообщения для пользователя; на время теста они не нужны.
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        long operations;
+        try {
+            operations = driver.run();
+        } finally {
+            System.setOut(console);
+        }
+        System.out.print(driver.report(operations));
+    }
+}
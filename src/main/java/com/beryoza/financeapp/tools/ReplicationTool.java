@@ -0,0 +1,65 @@
+package com.beryoza.financeapp.tools;
+
+import com.beryoza.financeapp.replication.ReplicationFollower;
+import com.beryoza.financeapp.replication.ReplicationServer;
+import com.beryoza.financeapp.repository.FileRepository;
+import com.beryoza.financeapp.util.SocketEndpoints;
+
+import java.io.IOException;
+
+/**
+ * Утилита запуска репликации директории данных (см. {@link ReplicationServer} и {@link ReplicationFollower}).
+ * <p>
+ * Основной узел запускается рядом с приложением на его директории данных, реплика — на своей директории.
+ * Отчёты по данным реплики строятся обычными утилитами с {@code --dir} директории реплики, например
+ * {@link AdminReportTool}.
+ */
+public class ReplicationTool {
+
+    /**
+     * Точка входа утилиты.
+     * <p>
+     * Аргументы: {@code --role} ({@code primary} или {@code follower}), {@code --dir},
+     * {@code --listen} (адрес основного узла), {@code --primary} (адрес, к которому подключается реплика),
+     * {@code --id} (идентификатор реплики, по умолчанию {@code follower}),
+     * {@code --status-millis} (интервал вывода состояния, по умолчанию 5000; 0 — не выводить).
+     * Адрес задаётся как {@code host:port} или {@code unix:/path/to/socket}.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        CommandLineOptions options = new CommandLineOptions(args);
+        String role = options.getString("role", "primary");
+        String dataDir = options.getString("dir", FileRepository.DEFAULT_DATA_DIR);
+        long statusMillis = options.getLong("status-millis", 5000);
+
+        if (role.equals("primary")) {
+            ReplicationServer server = new ReplicationServer(dataDir,
+                    SocketEndpoints.parse(options.getString("listen", "localhost:7070")));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> closeQuietly(server)));
+            System.out.println("Основной узел репликации запущен: " + options.getString("listen", "localhost:7070"));
+            while (true) {
+                Thread.sleep(statusMillis > 0 ? statusMillis : Long.MAX_VALUE);
+                System.out.println("Подтверждённые смещения реплик: " + server.getAcknowledged());
+            }
+        } else if (role.equals("follower")) {
+            ReplicationFollower follower = new ReplicationFollower(dataDir,
+                    SocketEndpoints.parse(options.getString("primary", "localhost:7070")), options.getString("id", "follower"));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> closeQuietly(follower)));
+            System.out.println("Реплика запущена: " + dataDir);
+            while (true) {
+                Thread.sleep(statusMillis > 0 ? statusMillis : Long.MAX_VALUE);
+                System.out.println("Применено до смещения " + follower.getAppliedOffset()
+                        + ", отставание: " + follower.getLagBytes() + " байт, " + follower.getLagMillis() + " мс");
+            }
+        } else {
+            throw new IllegalArgumentException("Неизвестная роль: " + role + " (ожидалось primary или follower).");
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            System.err.println("Ошибка при остановке репликации: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.beryoza.financeapp.tools;
+
+import com.beryoza.financeapp.repository.FileRepository;
+import com.beryoza.financeapp.sharding.ShardNode;
+import com.beryoza.financeapp.util.SocketEndpoints;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Утилита запуска узла шардирования (см. {@link ShardNode}) на отдельной директории данных.
+ * Команды узлу отправляет {@link ShardRouterTool}.
+ */
+public class ShardNodeTool {
+
+    /**
+     * Точка входа утилиты.
+     * <p>
+     * Аргументы: {@code --dir} (директория данных узла), {@code --listen} (адрес узла, по умолчанию
+     * {@code localhost:7100}; {@code host:port} или {@code unix:/path/to/socket}).
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        CommandLineOptions options = new CommandLineOptions(args);
+        String dataDir = options.getString("dir", FileRepository.DEFAULT_DATA_DIR);
+        String listen = options.getString("listen", "localhost:7100");
+
+        ShardNode node = new ShardNode(dataDir, SocketEndpoints.parse(listen));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                node.close();
+            } catch (IOException e) {
+                System.err.println("Ошибка при остановке узла: " + e.getMessage());
+            }
+        }));
+        System.out.println("Узел шардирования запущен: " + listen + ", данные: " + dataDir);
+        // Сервисы печатают сообщения для пользователя; узлу они не нужны.
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Thread.sleep(Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,103 @@
+package com.beryoza.financeapp.tools;
+
+import com.beryoza.financeapp.batch.BatchCommand;
+import com.beryoza.financeapp.sharding.ShardRouter;
+import com.beryoza.financeapp.util.SocketEndpoints;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Утилита маршрутизации команд пакетного режима по узлам шардирования (см. {@link ShardRouter}).
+ * <p>
+ * При запуске завершаются переводы, оставшиеся подготовленными после прошлого сбоя. Затем, если указан
+ * {@code --rebalance}, пользователи переносятся на узлы, которым они принадлежат по кольцу, и выполняются
+ * команды из {@code --batch} в том же формате, что и у пакетного режима приложения.
+ */
+public class ShardRouterTool {
+
+    /**
+     * Точка входа утилиты.
+     * <p>
+     * Аргументы: {@code --nodes} (список {@code id=адрес} через запятую, например
+     * {@code n1=localhost:7100,n2=unix:/tmp/n2.sock}), {@code --state-dir} (директория журнала решений,
+     * по умолчанию {@code sharding}), {@code --rebalance} (перенести пользователей),
+     * {@code --batch} (файл команд или {@code -} для стандартного ввода).
+     */
+    public static void main(String[] args) throws IOException {
+        CommandLineOptions options = new CommandLineOptions(args);
+        Map<String, SocketAddress> nodes = parseNodes(options.getString("nodes", ""));
+        ObjectMapper objectMapper = new ObjectMapper();
+        int succeeded = 0;
+        int failed = 0;
+
+        try (ShardRouter router = new ShardRouter(nodes, Path.of(options.getString("state-dir", "sharding")))) {
+            int recovered = router.recover();
+            if (recovered > 0) {
+                System.out.println("Завершено подготовленных переводов: " + recovered + ".");
+            }
+            if (options.has("rebalance")) {
+                System.out.println("Перенесено пользователей: " + router.rebalance() + ".");
+            }
+            if (!options.has("batch")) {
+                return;
+            }
+
+            String source = options.getString("batch", "-");
+            try (BufferedReader in = "-".equals(source)
+                    ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                    : Files.newBufferedReader(Path.of(source), StandardCharsets.UTF_8)) {
+                int lineNumber = 0;
+                String line;
+                while ((line = in.readLine()) != null) {
+                    lineNumber++;
+                    line = line.trim();
+                    if (line.isEmpty() || line.startsWith("#")) {
+                        continue;
+                    }
+                    try {
+                        router.execute(objectMapper.readValue(line, BatchCommand.class));
+                        succeeded++;
+                    } catch (JsonProcessingException e) {
+                        failed++;
+                        System.err.println("Строка " + lineNumber + ": некорректный JSON: " + e.getOriginalMessage());
+                    } catch (IllegalArgumentException e) {
+                        failed++;
+                        System.err.println("Строка " + lineNumber + ": " + e.getMessage());
+                    }
+                }
+            }
+            System.out.println("Шардирование: выполнено " + succeeded + ", ошибок " + failed + ".");
+        }
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, SocketAddress> parseNodes(String value) {
+        Map<String, SocketAddress> nodes = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int eq = entry.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Ожидался узел вида id=адрес: " + entry);
+            }
+            nodes.put(entry.substring(0, eq).trim(), SocketEndpoints.parse(entry.substring(eq + 1).trim()));
+        }
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("Не заданы узлы (--nodes).");
+        }
+        return nodes;
+    }
+}
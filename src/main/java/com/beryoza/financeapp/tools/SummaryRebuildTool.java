@@ -0,0 +1,32 @@
+package com.beryoza.financeapp.tools;
+
+import com.beryoza.financeapp.repository.FileRepository;
+import com.beryoza.financeapp.repository.SummaryRepository;
+import com.beryoza.financeapp.repository.WalletRepository;
+
+import java.io.IOException;
+
+/**
+ * Утилита перестроения месячных сводок с нуля по файлу кошельков (см. {@link SummaryRepository}).
+ * Нужна после ручного изменения {@code wallets.json} или восстановления данных из резервной копии.
+ */
+public class SummaryRebuildTool {
+
+    /**
+     * Точка входа утилиты.
+     * <p>
+     * Аргументы: {@code --dir}.
+     */
+    public static void main(String[] args) throws IOException {
+        CommandLineOptions options = new CommandLineOptions(args);
+        String dataDir = options.getString("dir", FileRepository.DEFAULT_DATA_DIR);
+
+        SummaryRepository summaryRepository = new SummaryRepository(dataDir);
+        long started = System.nanoTime();
+        summaryRepository.rebuild(new WalletRepository(dataDir));
+        long millis = (System.nanoTime() - started) / 1_000_000;
+
+        System.out.println("Сводки перестроены: " + summaryRepository.loadSummaries().size()
+                + " строк за " + millis + " мс.");
+    }
+}
@@ -0,0 +1,63 @@
+package com.beryoza.financeapp.tools;
+
+import com.beryoza.financeapp.export.ExportFormat;
+import com.beryoza.financeapp.export.TransactionFilter;
+import com.beryoza.financeapp.model.User;
+import com.beryoza.financeapp.repository.CategoryRepository;
+import com.beryoza.financeapp.repository.FileRepository;
+import com.beryoza.financeapp.repository.UserRepository;
+import com.beryoza.financeapp.repository.WalletRepository;
+import com.beryoza.financeapp.service.WalletService;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Утилита выгрузки транзакций в CSV или колоночный формат
+ * (см. {@link WalletService#exportTransactions}).
+ */
+public class TransactionExportTool {
+
+    /**
+     * Точка входа утилиты.
+     * <p>
+     * Аргументы: {@code --dir}, {@code --user} (по умолчанию все пользователи), {@code --format} (csv, columnar),
+     * {@code --from}, {@code --to} (yyyy-MM-dd), {@code --categories} (через запятую),
+     * {@code --out} (файл; по умолчанию стандартный вывод).
+     */
+    public static void main(String[] args) throws IOException {
+        CommandLineOptions options = new CommandLineOptions(args);
+        String dataDir = options.getString("dir", FileRepository.DEFAULT_DATA_DIR);
+
+        User user = null;
+        if (options.has("user")) {
+            String username = options.getString("user", null);
+            user = new UserRepository(dataDir).findUserByUsername(username);
+            if (user == null) {
+                throw new IllegalArgumentException("Пользователь \"" + username + "\" не найден.");
+            }
+        }
+        Set<String> categories = options.has("categories")
+                ? new HashSet<>(Arrays.asList(options.getString("categories", "").split(",")))
+                : null;
+        TransactionFilter filter = new TransactionFilter(
+                options.getDate("from", null), options.getDate("to", null), categories);
+        ExportFormat format = ExportFormat.valueOf(options.getString("format", "csv").toUpperCase(Locale.ROOT));
+
+        WalletService walletService = new WalletService(new WalletRepository(dataDir), new CategoryRepository(dataDir));
+        String outFile = options.getString("out", null);
+        long started = System.nanoTime();
+        try (OutputStream out = outFile != null ? new FileOutputStream(outFile) : System.out) {
+            long exported = walletService.exportTransactions(user, format, filter, out);
+            if (outFile != null) {
+                long millis = (System.nanoTime() - started) / 1_000_000;
+                System.out.println("Выгружено транзакций: " + exported + " в " + outFile + ", " + millis + " мс.");
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.beryoza.financeapp.util;
+
+/**
+ * Фильтр Блума для 64-битных отпечатков.
+ * Отвечает на вопрос «встречался ли отпечаток» без ложноотрицательных ответов
+ * и с заданной долей ложноположительных.
+ * <p>
+ * Позиции битов вычисляются двойным хешированием по двум половинам отпечатка
+ * ({@code h1 + i * h2}), поэтому отпечаток должен быть хорошо перемешанным хешем.
+ * <p>
+ * Поля:
+ * - {@code long[] bits} — битовый массив фильтра.
+ * - {@code int hashFunctions} — количество хеш-функций.
+ */
+public class BloomFilter {
+    private final long[] bits;
+    private final int hashFunctions;
+
+    /**
+     * Конструктор для восстановления сохранённого фильтра.
+     *
+     * @param bits          Битовый массив.
+     * @param hashFunctions Количество хеш-функций.
+     */
+    public BloomFilter(long[] bits, int hashFunctions) {
+        if (bits.length == 0 || hashFunctions <= 0) {
+            throw new IllegalArgumentException("Некорректные параметры фильтра Блума.");
+        }
+        this.bits = bits;
+        this.hashFunctions = hashFunctions;
+    }
+
+    /**
+     * Создать фильтр, рассчитанный на заданное количество элементов.
+     *
+     * @param expectedElements  Ожидаемое количество элементов.
+     * @param falsePositiveRate Допустимая доля ложноположительных ответов.
+     * @return Пустой фильтр.
+     */
+    public static BloomFilter create(int expectedElements, double falsePositiveRate) {
+        long bitCount = (long) Math.ceil(-expectedElements * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.max(1, (bitCount + 63) / 64);
+        int hashFunctions = (int) Math.max(1, Math.round((double) words * 64 / expectedElements * Math.log(2)));
+        return new BloomFilter(new long[words], hashFunctions);
+    }
+
+    /**
+     * Добавить отпечаток.
+     *
+     * @param fingerprint Отпечаток.
+     */
+    public void put(long fingerprint) {
+        long bitCount = (long) bits.length * 64;
+        int h1 = (int) fingerprint;
+        int h2 = (int) (fingerprint >>> 32);
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            bits[(int) (index >>> 6)] |= 1L << index;
+        }
+    }
+
+    /**
+     * Проверить, мог ли отпечаток быть добавлен.
+     *
+     * @param fingerprint Отпечаток.
+     * @return false, если отпечаток точно не добавлялся; true, если возможно добавлялся.
+     */
+    public boolean mightContain(long fingerprint) {
+        long bitCount = (long) bits.length * 64;
+        int h1 = (int) fingerprint;
+        int h2 = (int) (fingerprint >>> 32);
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Получить битовый массив фильтра.
+     *
+     * @return Битовый массив.
+     */
+    public long[] getBits() {
+        return bits;
+    }
+
+    /**
+     * Получить количество хеш-функций.
+     *
+     * @return Количество хеш-функций.
+     */
+    public int getHashFunctions() {
+        return hashFunctions;
+    }
+}
@@ -3,11 +3,14 @@ package com.beryoza.financeapp.util;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Утилитарный класс для проверки вводимых данных.
  */
 public class DataValidator {
+    private static final Map<String, DateTimeFormatter> FORMATTERS = new ConcurrentHashMap<>();
 
     /**
      * Проверяет, является ли строка числом.
@@ -55,8 +58,21 @@ public class DataValidator {
      * @return true, если дата корректна; иначе false.
      */
     public static boolean isValidDate(String dateStr, String format) {
+        return isValidDate(dateStr, formatter(format));
+    }
+
+    /**
+     * Проверяет, является ли строка корректной датой в формате заранее созданного форматтера.
+     *
+     * @param dateStr   Строка с датой.
+     * @param formatter Форматтер даты.
+     * @return true, если дата корректна; иначе false.
+     */
+    public static boolean isValidDate(String dateStr, DateTimeFormatter formatter) {
+        if (dateStr == null) {
+            return false;
+        }
         try {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern(format);
             LocalDate.parse(dateStr, formatter);
             return true;
         } catch (DateTimeParseException e) {
@@ -64,6 +80,17 @@ public class DataValidator {
         }
     }
 
+    /**
+     * Получить форматтер даты для шаблона. Форматтеры неизменяемы и потокобезопасны,
+     * поэтому создаются один раз на шаблон и переиспользуются.
+     *
+     * @param format Шаблон даты (например, "yyyy-MM-dd").
+     * @return Форматтер даты.
+     */
+    public static DateTimeFormatter formatter(String format) {
+        return FORMATTERS.computeIfAbsent(format, DateTimeFormatter::ofPattern);
+    }
+
     /**
      * Проверяет, находится ли число в заданном диапазоне.
      *
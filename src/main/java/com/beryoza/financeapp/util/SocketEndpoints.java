@@ -0,0 +1,88 @@
+package com.beryoza.financeapp.util;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Адреса сетевых узлов приложения (репликация, шардирование).
+ * Адрес задаётся строкой {@code host:port} (TCP) или {@code unix:/path/to/socket} (Unix domain socket).
+ */
+public final class SocketEndpoints {
+    private static final String UNIX_PREFIX = "unix:";
+
+    private SocketEndpoints() {
+    }
+
+    /**
+     * Разобрать адрес узла.
+     *
+     * @param address Строка {@code host:port} или {@code unix:/path}.
+     * @return Адрес сокета.
+     */
+    public static SocketAddress parse(String address) {
+        if (address == null || address.isBlank()) {
+            throw new IllegalArgumentException("Адрес узла не задан.");
+        }
+        if (address.startsWith(UNIX_PREFIX)) {
+            return UnixDomainSocketAddress.of(address.substring(UNIX_PREFIX.length()));
+        }
+        int colon = address.lastIndexOf(':');
+        if (colon <= 0 || colon == address.length() - 1) {
+            throw new IllegalArgumentException("Ожидался адрес вида host:port или unix:/path: " + address);
+        }
+        try {
+            return new InetSocketAddress(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Неверный порт в адресе: " + address, e);
+        }
+    }
+
+    /**
+     * Открыть серверный канал на адресе. Для Unix domain socket оставшийся от прошлого запуска файл удаляется.
+     *
+     * @param address Адрес.
+     * @return Серверный канал.
+     * @throws IOException Если адрес занят или недоступен.
+     */
+    public static ServerSocketChannel listen(SocketAddress address) throws IOException {
+        if (address instanceof UnixDomainSocketAddress unix) {
+            Files.deleteIfExists(unix.getPath());
+            return ServerSocketChannel.open(StandardProtocolFamily.UNIX).bind(address);
+        }
+        return ServerSocketChannel.open().bind(address);
+    }
+
+    /**
+     * Подключиться к узлу.
+     *
+     * @param address Адрес.
+     * @return Канал соединения (блокирующий).
+     * @throws IOException Если узел недоступен.
+     */
+    public static SocketChannel connect(SocketAddress address) throws IOException {
+        SocketChannel channel = SocketChannel.open(address);
+        if (address instanceof InetSocketAddress) {
+            channel.socket().setTcpNoDelay(true);
+        }
+        return channel;
+    }
+
+    /**
+     * Удалить файл Unix domain socket после закрытия серверного канала.
+     *
+     * @param address Адрес.
+     * @throws IOException Если файл не удалось удалить.
+     */
+    public static void release(SocketAddress address) throws IOException {
+        if (address instanceof UnixDomainSocketAddress unix) {
+            Files.deleteIfExists(unix.getPath());
+        }
+    }
+}